@@ -0,0 +1,250 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @program: javaSource
+ * @description: 对比两份 JMH JSON 结果（java -jar benchmarks.jar -rf json -rff xxx.json 生成），找出性能回退
+ *
+ * 用法：java -cp benchmarks.jar benchmark.CompareResults baseline.json current.json [阈值百分比，默认 5]
+ * 同一个 benchmark + 参数 + 模式 为一行；变化超过阈值且超过两边误差之和才算回退或提升。
+ * thrpt 分数越大越好，avgt / sample / ss 越小越好。存在回退时进程以 1 退出，方便接到 CI 里。
+ **/
+public class CompareResults {
+
+    /**
+     * 一条测量结果
+     */
+    static class Result {
+        final String key;
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String key, String mode, double score, double error, String unit) {
+            this.key = key;
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Result> load(String file) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        List<Object> runs = (List<Object>) new JsonParser(json).parse();
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object o : runs) {
+            Map<String, Object> run = (Map<String, Object>) o;
+            String mode = (String) run.get("mode");
+            StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+            Map<String, Object> params = (Map<String, Object>) run.get("params");
+            if (params != null)
+                key.append(new TreeMap<>(params));
+            key.append(" ").append(mode);
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            Object error = metric.get("scoreError");
+            results.put(key.toString(), new Result(key.toString(), mode,
+                    ((Number) metric.get("score")).doubleValue(),
+                    // 只跑一轮时 scoreError 是 "NaN" 字符串
+                    error instanceof Number ? ((Number) error).doubleValue() : 0.0,
+                    (String) metric.get("scoreUnit")));
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        Map<String, Result> base = load(args[0]);
+        Map<String, Result> current = load(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Result now : current.values()) {
+            Result before = base.get(now.key);
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  NEW%n", now.key, "-", now.score, "");
+                continue;
+            }
+            double change = (now.score - before.score) / before.score * 100.0;
+            boolean higherIsBetter = "thrpt".equals(now.mode);
+            boolean significant = Math.abs(change) > threshold
+                    && Math.abs(now.score - before.score) > before.error + now.error;
+            String verdict = "";
+            if (significant) {
+                boolean better = higherIsBetter == (change > 0);
+                verdict = better ? "  improved" : "  REGRESSION";
+                if (!better)
+                    regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s  %s%n",
+                    now.key, before.score, now.score, change, verdict, now.unit);
+        }
+        for (Result gone : base.values()) {
+            if (!current.containsKey(gone.key))
+                System.out.printf("%-90s %14.3f %14s %9s  REMOVED%n", gone.key, gone.score, "-", "");
+        }
+        System.out.println(regressions + " regression(s), threshold " + threshold + "%");
+        if (regressions > 0)
+            System.exit(1);
+    }
+
+    /**
+     * 够用的 JSON 解析：对象解析成 LinkedHashMap，数组成 ArrayList，数字成 Double
+     */
+    static class JsonParser {
+        private final String s;
+        private int pos;
+
+        JsonParser(String s) {
+            this.s = s;
+        }
+
+        Object parse() {
+            Object v = value();
+            skipWhitespace();
+            if (pos != s.length())
+                throw error("trailing characters");
+            return v;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= s.length())
+                throw error("unexpected end");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (s.charAt(pos) == '}') {
+                pos++;
+                return m;
+            }
+            while (true) {
+                skipWhitespace();
+                String k = string();
+                skipWhitespace();
+                expect(':');
+                m.put(k, value());
+                skipWhitespace();
+                if (s.charAt(pos) == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return m;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> l = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (s.charAt(pos) == ']') {
+                pos++;
+                return l;
+            }
+            while (true) {
+                l.add(value());
+                skipWhitespace();
+                if (s.charAt(pos) == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return l;
+                }
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = s.charAt(pos++);
+                if (c == '"')
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+        }
+
+        private Double number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0)
+                pos++;
+            if (start == pos)
+                throw error("unexpected character");
+            return Double.valueOf(s.substring(start, pos));
+        }
+
+        private Object literal(String word, Object v) {
+            if (!s.startsWith(word, pos))
+                throw error("unexpected character");
+            pos += word.length();
+            return v;
+        }
+
+        private void expect(char c) {
+            if (pos >= s.length() || s.charAt(pos) != c)
+                throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @program: javaSource
+ * @description: benchmarks.jar 的入口，在 JMH 的基础上把 JDK8 模块的 jar 挂到 fork 出来的 JVM 的 boot class path 上
+ *
+ * java8.* 里的 ConcurrentHashMap、AbstractQueuedSynchronizer、LinkedTransferQueue 等类在静态初始化里调用
+ * Unsafe.getUnsafe()，它只允许 boot class loader 加载的类调用，从普通 classpath 加载会抛 SecurityException。
+ * 所以打包时 JDK8 的 jar 不进 benchmarks.jar，而是拷到 target/boot/JDK8.jar，这里给每个 fork 追加
+ * -Xbootclasspath/a:<该 jar>，benchmark 类通过父委派拿到 boot 加载的版本。
+ *
+ * 用法和 org.openjdk.jmh.Main 一样：java -jar target/benchmarks.jar [JMH 参数]
+ * jar 放在别处时用 -Dbenchmark.boot=<path> 指定；-f 0 不 fork，这种情况下需要自己给当前 JVM 加 -Xbootclasspath/a。
+ **/
+public class Main {
+
+    static final String BOOT_PROPERTY = "benchmark.boot";
+
+    public static void main(String[] argv) throws RunnerException, IOException {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(argv);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line:");
+            System.err.println(" " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            // 这些只是打印信息，原样交给 JMH
+            org.openjdk.jmh.Main.main(argv);
+            return;
+        }
+
+        File boot = bootJar();
+        if (!boot.isFile()) {
+            System.err.println("JDK8 jar not found: " + boot + " (set -D" + BOOT_PROPERTY + "=<path>)");
+            System.exit(1);
+            return;
+        }
+        // 命令行里的 -jvmArgsAppend 保留，boot class path 追加在后面
+        List<String> append = new ArrayList<>();
+        Collection<String> given = cmd.getJvmArgsAppend().orElse(null);
+        if (given != null)
+            append.addAll(given);
+        append.add("-Xbootclasspath/a:" + boot.getAbsolutePath());
+
+        new Runner(new OptionsBuilder()
+                .parent(cmd)
+                .jvmArgsAppend(append.toArray(new String[0]))
+                .build()).run();
+    }
+
+    /**
+     * 默认是 benchmarks.jar 同目录下的 boot/JDK8.jar，即 Benchmarks/pom.xml 里 maven-dependency-plugin 拷贝的位置
+     */
+    static File bootJar() {
+        String path = System.getProperty(BOOT_PROPERTY);
+        if (path != null)
+            return new File(path);
+        try {
+            File self = new File(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return new File(self.getParentFile(), "boot" + File.separator + "JDK8.jar");
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
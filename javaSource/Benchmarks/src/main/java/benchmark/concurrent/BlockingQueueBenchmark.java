@@ -0,0 +1,102 @@
+package benchmark.concurrent;
+
+import java8.java.util.concurrent.ArrayBlockingQueue;
+import java8.java.util.concurrent.LinkedBlockingQueue;
+import java8.java.util.concurrent.LinkedTransferQueue;
+import java8.java.util.concurrent.MpmcArrayBlockingQueue;
+import java8.java.util.concurrent.WorkStealingBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: 各 BlockingQueue 实现在 4 生产者 / 4 消费者下的吞吐
+ *
+ * 用非阻塞的 offer/poll，满或空时消耗一点 CPU 再返回，
+ * 避免 put/take 在一轮测量结束时因为对端已停止而永久阻塞。
+ * 结果里 produce 和 consume 两行分别是入队、出队的成功次数加上失败重试次数。
+ **/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class BlockingQueueBenchmark {
+
+    private static final int CAPACITY = 1024;
+    private static final Integer ITEM = 42;
+
+    @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "LinkedTransferQueue",
+            "MpmcArrayBlockingQueue", "WorkStealingBlockingQueue"})
+    String impl;
+
+    private BlockingQueue<Integer> queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (impl) {
+            case "ArrayBlockingQueue":
+                queue = new ArrayBlockingQueue<>(CAPACITY);
+                break;
+            case "LinkedBlockingQueue":
+                queue = new LinkedBlockingQueue<>(CAPACITY);
+                break;
+            case "LinkedTransferQueue":
+                // 无界，只靠消费者追上生产者
+                queue = new LinkedTransferQueue<>();
+                break;
+            case "MpmcArrayBlockingQueue":
+                queue = new MpmcArrayBlockingQueue<>(CAPACITY);
+                break;
+            case "WorkStealingBlockingQueue":
+                // 生产者不是池内线程，走的是共享队列这条路径
+                queue = new WorkStealingBlockingQueue<>(CAPACITY);
+                break;
+            default:
+                throw new IllegalArgumentException(impl);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        queue.clear();
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(4)
+    public boolean produce() {
+        boolean ok = queue.offer(ITEM);
+        if (!ok)
+            Blackhole.consumeCPU(16);
+        return ok;
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(4)
+    public Integer consume() {
+        Integer v = queue.poll();
+        if (v == null)
+            Blackhole.consumeCPU(16);
+        return v;
+    }
+}
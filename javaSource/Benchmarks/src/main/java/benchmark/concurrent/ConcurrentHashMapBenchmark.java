@@ -0,0 +1,85 @@
+package benchmark.concurrent;
+
+import java8.java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: java8.java.util.concurrent.ConcurrentHashMap 多线程竞争下的吞吐
+ *
+ * keys=16 时所有线程挤在少数几个桶上（高竞争），keys=65536 时分散（低竞争）。
+ * 默认 8 个线程，可用 -t 覆盖。
+ **/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentHashMapBenchmark {
+
+    @Param({"16", "65536"})
+    int keys;
+
+    private ConcurrentHashMap<Integer, Integer> map;
+    private Integer[] boxed;
+
+    @Setup
+    public void setup() {
+        map = new ConcurrentHashMap<>();
+        boxed = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            boxed[i] = i;
+            map.put(boxed[i], i);
+        }
+    }
+
+    private Integer randomKey() {
+        return boxed[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(randomKey());
+    }
+
+    @Benchmark
+    public Integer put() {
+        Integer k = randomKey();
+        return map.put(k, k);
+    }
+
+    @Benchmark
+    public Integer merge() {
+        return map.merge(randomKey(), 1, Integer::sum);
+    }
+
+    @Benchmark
+    public Integer computeIfAbsent() {
+        return map.computeIfAbsent(randomKey(), k -> k);
+    }
+
+    // 90% 读 10% 写，接近缓存类场景
+    @Benchmark
+    public Integer mixed() {
+        Integer k = randomKey();
+        if (ThreadLocalRandom.current().nextInt(10) == 0)
+            return map.put(k, k);
+        return map.get(k);
+    }
+}
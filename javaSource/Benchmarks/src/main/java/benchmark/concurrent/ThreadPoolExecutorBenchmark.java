@@ -0,0 +1,100 @@
+package benchmark.concurrent;
+
+import java8.java.util.concurrent.LinkedBlockingQueue;
+import java8.java.util.concurrent.MpmcArrayBlockingQueue;
+import java8.java.util.concurrent.ThreadPoolExecutor;
+import java8.java.util.concurrent.WorkStealingBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: java8.java.util.concurrent.ThreadPoolExecutor 提交任务的延迟和吞吐
+ *
+ * roundTrip：submit 一个空任务并 get，按 SampleTime 统计，能看到 p99 等分位数；
+ * executeBatch：一次 execute BATCH 个空任务并等全部执行完，折算成单个任务的耗时。
+ * metrics=true 时打开 enableMetrics，用来衡量指标统计本身的开销。
+ **/
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadPoolExecutorBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"LinkedBlockingQueue", "MpmcArrayBlockingQueue", "WorkStealingBlockingQueue"})
+    String queue;
+
+    @Param({"4"})
+    int threads;
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    private ThreadPoolExecutor pool;
+
+    @Setup
+    public void setup() {
+        BlockingQueue<Runnable> q;
+        switch (queue) {
+            case "LinkedBlockingQueue":
+                q = new LinkedBlockingQueue<>();
+                break;
+            case "MpmcArrayBlockingQueue":
+                q = new MpmcArrayBlockingQueue<>(1 << 16);
+                break;
+            case "WorkStealingBlockingQueue":
+                q = new WorkStealingBlockingQueue<>(1 << 16);
+                break;
+            default:
+                throw new IllegalArgumentException(queue);
+        }
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, q);
+        pool.prestartAllCoreThreads();
+        if (metrics)
+            pool.enableMetrics("benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object roundTrip() throws ExecutionException, InterruptedException {
+        return pool.submit(NOOP).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void executeBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        Runnable task = done::countDown;
+        for (int i = 0; i < BATCH; i++)
+            pool.execute(task);
+        done.await();
+    }
+}
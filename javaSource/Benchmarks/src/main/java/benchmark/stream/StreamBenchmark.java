@@ -0,0 +1,104 @@
+package benchmark.stream;
+
+import java8.java.util.stream.Collectors;
+import java8.java.util.stream.IntStream;
+import java8.java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: java8.java.util.stream 常见流水线的耗时，串行和并行各一份
+ *
+ * 数据源用 JDK 自带的 ArrayList / int[]，只有流水线本身（StreamSupport 创建的 Head 及其后续阶段）走 java8 包里的实现。
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamBenchmark {
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    private int[] ints;
+    private List<Integer> list;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ints = new int[size];
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt(size);
+            list.add(ints[i]);
+        }
+    }
+
+    // 无装箱：filter + map + sum
+    @Benchmark
+    public long intFilterMapSum() {
+        return StreamSupport.intStream(Arrays.spliterator(ints), parallel)
+                .filter(v -> (v & 1) == 0)
+                .map(v -> v * 3)
+                .asLongStream()
+                .sum();
+    }
+
+    // 数组源直接求和：仅当串行且 sum() 直接作用于源（没有任何中间操作）时走 IntArraySource 的展开循环，
+    // 并行时走原有的 reduce；带 filter/map 的链（见 intFilterMapSum）不受影响，仍走融合 sink
+    @Benchmark
+    public int intArraySum() {
+        return parallel ? IntStream.of(ints).parallel().sum() : IntStream.of(ints).sum();
+    }
+
+    // 装箱对象流：filter + map + collect(toList)
+    @Benchmark
+    public List<Integer> refFilterMapToList() {
+        return StreamSupport.stream(list.spliterator(), parallel)
+                .filter(v -> (v & 1) == 0)
+                .map(v -> v + 1)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingByCounting() {
+        return StreamSupport.stream(list.spliterator(), parallel)
+                .collect(Collectors.groupingBy(v -> v & 1023, Collectors.counting()));
+    }
+
+    @Benchmark
+    public int[] intSorted() {
+        return StreamSupport.intStream(Arrays.spliterator(ints), parallel)
+                .sorted()
+                .toArray();
+    }
+
+    @Benchmark
+    public long distinctCount() {
+        return StreamSupport.stream(list.spliterator(), parallel)
+                .distinct()
+                .count();
+    }
+}
@@ -0,0 +1,85 @@
+package benchmark.util;
+
+import java8.java.util.ArrayDeque;
+import java8.java.util.ArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: java8.java.util.ArrayList / ArrayDeque 的遍历耗时：下标、迭代器、forEach 三种写法
+ *
+ * ArrayDeque 先 addLast 再 pollFirst 一半，让 head 不在 0，覆盖环形数组回绕的路径。
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private ArrayList<Integer> list;
+    private ArrayDeque<Integer> deque;
+
+    @Setup
+    public void setup() {
+        list = new ArrayList<>(size);
+        deque = new ArrayDeque<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(i);
+        for (int i = 0; i < size + size / 2; i++)
+            deque.addLast(i);
+        for (int i = 0; i < size / 2; i++)
+            deque.pollFirst();
+    }
+
+    @Benchmark
+    public long arrayListIndexed() {
+        long sum = 0;
+        for (int i = 0, n = list.size(); i < n; i++)
+            sum += list.get(i);
+        return sum;
+    }
+
+    @Benchmark
+    public long arrayListIterator() {
+        long sum = 0;
+        for (Integer v : list)
+            sum += v;
+        return sum;
+    }
+
+    @Benchmark
+    public void arrayListForEach(Blackhole bh) {
+        list.forEach(bh::consume);
+    }
+
+    @Benchmark
+    public long arrayDequeIterator() {
+        long sum = 0;
+        for (Integer v : deque)
+            sum += v;
+        return sum;
+    }
+
+    @Benchmark
+    public void arrayDequeForEach(Blackhole bh) {
+        deque.forEach(bh::consume);
+    }
+}
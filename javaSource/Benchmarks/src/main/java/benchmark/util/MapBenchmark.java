@@ -0,0 +1,103 @@
+package benchmark.util;
+
+import java8.java.util.HashMap;
+import java8.java.util.TreeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @program: javaSource
+ * @description: java8.java.util.HashMap / TreeMap 的 get、put 单次耗时
+ *
+ * 查找键预先打乱放进 4096 长的数组里循环取，命中率约一半，避免分支预测把结果做得太好看。
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Integer[] keys;
+    private Integer[] lookups;
+    private HashMap<Integer, Integer> hashMap;
+    private TreeMap<Integer, Integer> treeMap;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        keys = new Integer[size];
+        hashMap = new HashMap<>();
+        treeMap = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt();
+            hashMap.put(keys[i], i);
+            treeMap.put(keys[i], i);
+        }
+        lookups = new Integer[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++)
+            lookups[i] = random.nextBoolean() ? keys[random.nextInt(size)] : random.nextInt();
+    }
+
+    private Integer nextKey() {
+        return lookups[cursor++ & (LOOKUPS - 1)];
+    }
+
+    @Benchmark
+    public Integer hashMapGet() {
+        return hashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer hashMapPut() {
+        Integer k = nextKey();
+        return hashMap.put(k, k);
+    }
+
+    @Benchmark
+    public Integer treeMapGet() {
+        return treeMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer treeMapPut() {
+        Integer k = nextKey();
+        return treeMap.put(k, k);
+    }
+
+    // 从空表开始插入 size 个键，包含扩容开销
+    @Benchmark
+    public HashMap<Integer, Integer> hashMapBuild() {
+        HashMap<Integer, Integer> m = new HashMap<>();
+        for (Integer k : keys)
+            m.put(k, k);
+        return m;
+    }
+
+    @Benchmark
+    public TreeMap<Integer, Integer> treeMapBuild() {
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        for (Integer k : keys)
+            m.put(k, k);
+        return m;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.lang.management;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the task metrics of a thread pool, for
+ * example a {@link java8.java.util.concurrent.ThreadPoolExecutor
+ * ThreadPoolExecutor} or {@link
+ * java8.java.util.concurrent.ScheduledThreadPoolExecutor
+ * ScheduledThreadPoolExecutor} with metrics enabled.
+ *
+ * <p> Latencies are reported separately for the time a task spent
+ * waiting before a worker started it (<em>queue wait</em>) and the
+ * time the worker spent running it (<em>run time</em>), so that delays
+ * caused by an undersized pool can be told apart from slow tasks.  For
+ * scheduled tasks the queue wait is measured from the time the task
+ * became due, not from its submission.  All times are in nanoseconds;
+ * percentiles are estimated from logarithmic histograms and are
+ * accurate to within a factor of two.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  It may be registered with the
+ * platform {@link javax.management.MBeanServer MBeanServer}, for
+ * example using {@link
+ * java8.java.util.concurrent.ExecutorMetrics#register}, under an
+ * {@link javax.management.ObjectName ObjectName} of the form:
+ * <pre>
+ *     java.util.concurrent:type=Executor,name=<i>pool name</i>
+ * </pre>
+ * where <em>pool name</em> is the {@link #getName name} of the pool.
+ *
+ * @since   1.8
+ */
+public interface ExecutorMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name representing this thread pool.
+     *
+     * @return  The name of this thread pool.
+     */
+    String getName();
+
+    /**
+     * Returns the current number of threads in the pool.
+     *
+     * @return  the number of threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the approximate number of threads that are actively
+     * executing tasks.
+     *
+     * @return  the number of threads
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the approximate number of tasks waiting in the work queue.
+     *
+     * @return  the number of queued tasks
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the number of tasks accepted since metrics were enabled.
+     *
+     * @return  the number of submitted tasks
+     */
+    long getSubmittedTaskCount();
+
+    /**
+     * Returns the number of tasks that finished running since metrics
+     * were enabled, whether normally or by throwing.
+     *
+     * @return  the number of completed tasks
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the number of completed tasks that threw an exception.
+     *
+     * @return  the number of failed tasks
+     */
+    long getFailedTaskCount();
+
+    /**
+     * Returns the number of tasks handed to the rejected execution
+     * handler since metrics were enabled.
+     *
+     * @return  the number of rejected tasks
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * Returns the fraction of worker thread time, since metrics were
+     * enabled, that was spent running tasks rather than waiting for
+     * them.
+     *
+     * @return  the utilization, between {@code 0.0} and {@code 1.0}
+     */
+    double getUtilization();
+
+    /**
+     * Returns the mean queue wait of started tasks.
+     *
+     * @return  the mean queue wait in nanoseconds
+     */
+    long getQueueWaitMean();
+
+    /**
+     * Returns the median queue wait of started tasks.
+     *
+     * @return  the estimated median queue wait in nanoseconds
+     */
+    long getQueueWaitMedian();
+
+    /**
+     * Returns the 99th percentile queue wait of started tasks.
+     *
+     * @return  the estimated 99th percentile queue wait in nanoseconds
+     */
+    long getQueueWait99thPercentile();
+
+    /**
+     * Returns the longest queue wait of a started task.
+     *
+     * @return  the maximum queue wait in nanoseconds
+     */
+    long getQueueWaitMax();
+
+    /**
+     * Returns the mean run time of completed tasks.
+     *
+     * @return  the mean run time in nanoseconds
+     */
+    long getRunTimeMean();
+
+    /**
+     * Returns the median run time of completed tasks.
+     *
+     * @return  the estimated median run time in nanoseconds
+     */
+    long getRunTimeMedian();
+
+    /**
+     * Returns the 99th percentile run time of completed tasks.
+     *
+     * @return  the estimated 99th percentile run time in nanoseconds
+     */
+    long getRunTime99thPercentile();
+
+    /**
+     * Returns the longest run time of a completed task.
+     *
+     * @return  the maximum run time in nanoseconds
+     */
+    long getRunTimeMax();
+
+    /**
+     * Resets all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,152 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.lang.management;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the contention profile of a lock, for
+ * example a {@link java8.java.util.concurrent.locks.ReentrantLock
+ * ReentrantLock} or {@link
+ * java8.java.util.concurrent.locks.ReentrantReadWriteLock
+ * ReentrantReadWriteLock} with profiling enabled.
+ *
+ * <p> Only <em>contended</em> acquisitions, those that found the lock
+ * unavailable, are counted and timed; the wait of a contended
+ * acquisition runs from its first failed attempt until it holds the
+ * lock.  A contended acquisition either succeeds while spinning or
+ * parks the thread until the lock is released.  All times are in
+ * nanoseconds; percentiles are estimated from logarithmic histograms
+ * and are accurate to within a factor of two.
+ *
+ * <p> If owner sampling is enabled, a thread about to park records, at
+ * a bounded rate, the stack trace of the thread then owning the lock,
+ * in the manner of {@link java.lang.management.ThreadMXBean#getThreadInfo(long, int)
+ * ThreadMXBean.getThreadInfo}, showing which critical sections others
+ * wait for.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  It may be registered with the
+ * platform {@link javax.management.MBeanServer MBeanServer}, for
+ * example using {@link
+ * java8.java.util.concurrent.locks.LockProfile#register}, under an
+ * {@link javax.management.ObjectName ObjectName} of the form:
+ * <pre>
+ *     java.util.concurrent.locks:type=Lock,name=<i>lock name</i>
+ * </pre>
+ * where <em>lock name</em> is the {@link #getName name} of the lock.
+ *
+ * @since   1.8
+ */
+public interface LockMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name representing this lock.
+     *
+     * @return  The name of this lock.
+     */
+    String getName();
+
+    /**
+     * Returns an estimate of the number of threads waiting to acquire
+     * the lock.
+     *
+     * @return  the number of queued threads
+     */
+    int getQueueLength();
+
+    /**
+     * Returns the current adaptive spin limit of the lock, or zero if
+     * it does not spin.
+     *
+     * @return  the number of retries before parking
+     */
+    int getSpinLimit();
+
+    /**
+     * Returns the number of contended acquisitions since profiling was
+     * enabled.
+     *
+     * @return  the number of contended acquisitions
+     */
+    long getContendedAcquireCount();
+
+    /**
+     * Returns the number of contended acquisitions that succeeded
+     * while spinning, without parking.
+     *
+     * @return  the number of acquisitions by spinning
+     */
+    long getSpinAcquireCount();
+
+    /**
+     * Returns the number of contended acquisitions that parked.
+     *
+     * @return  the number of acquisitions after parking
+     */
+    long getParkedAcquireCount();
+
+    /**
+     * Returns the mean wait of contended acquisitions.
+     *
+     * @return  the mean wait in nanoseconds
+     */
+    long getAcquireWaitMean();
+
+    /**
+     * Returns the median wait of contended acquisitions.
+     *
+     * @return  the estimated median wait in nanoseconds
+     */
+    long getAcquireWaitMedian();
+
+    /**
+     * Returns the 99th percentile wait of contended acquisitions.
+     *
+     * @return  the estimated 99th percentile wait in nanoseconds
+     */
+    long getAcquireWait99thPercentile();
+
+    /**
+     * Returns the longest wait of a contended acquisition.
+     *
+     * @return  the maximum wait in nanoseconds
+     */
+    long getAcquireWaitMax();
+
+    /**
+     * Returns the most recent owner stack samples, oldest first, each
+     * formatted as the owner thread's name and id followed by its stack
+     * trace.  The array is empty if owner sampling is not enabled.
+     *
+     * @return  the formatted owner stack samples
+     */
+    String[] getOwnerStackSamples();
+
+    /**
+     * Resets all counters, histograms and samples.
+     */
+    void reset();
+}
@@ -0,0 +1,138 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java8.java.util.concurrent.CompletableFuture;
+
+/**
+ * A server socket whose {@link #accept} returns a {@link
+ * CompletableFuture} of a {@link SelectorSocket} instead of blocking,
+ * driven by the selector of a {@link SocketReactor}.
+ *
+ * @see SelectorSocket
+ * @since 1.8
+ */
+public class SelectorServerSocket implements Closeable {
+
+    final ServerSocketChannel channel;
+    final SocketReactor reactor;
+    final SocketReactor.Loop loop;
+
+    SelectorServerSocket(SocketReactor reactor, ServerSocketChannel channel)
+        throws IOException {
+        channel.configureBlocking(false);
+        this.channel = channel;
+        this.reactor = reactor;
+        this.loop = reactor.loopFor();
+    }
+
+    /**
+     * Opens a server socket bound to the given address.
+     *
+     * @param reactor the reactor to drive the socket and the sockets
+     *        it accepts
+     * @param local the address to bind to, or null for an automatically
+     *        assigned address
+     * @param backlog the maximum number of pending connections, or 0
+     *        for an implementation specific default
+     * @return the server socket
+     * @throws IOException if the socket cannot be opened or bound
+     */
+    public static SelectorServerSocket bind(SocketReactor reactor,
+                                            SocketAddress local,
+                                            int backlog)
+        throws IOException {
+        ServerSocketChannel ch = ServerSocketChannel.open();
+        try {
+            ch.bind(local, backlog);
+            return new SelectorServerSocket(reactor, ch);
+        } catch (IOException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Accepts a connection, waiting until one is pending.  At most one
+     * accept may be outstanding at a time.
+     *
+     * @return a future completing with the accepted socket
+     */
+    public CompletableFuture<SelectorSocket> accept() {
+        try {
+            SocketChannel ch = channel.accept();
+            if (ch != null) {
+                try {
+                    return SelectorSocket.completed(
+                        new SelectorSocket(reactor, ch));
+                } catch (IOException ex) {
+                    ch.close();
+                    throw ex;
+                }
+            }
+        } catch (IOException ex) {
+            return SelectorSocket.failed(ex);
+        }
+        return SelectorSocket.afterReady(
+            reactor.awaitReady(loop, channel, SelectionKey.OP_ACCEPT),
+            () -> accept());
+    }
+
+    /**
+     * Returns the address this socket is bound to.
+     *
+     * @return the local address, or null if unbound or closed
+     */
+    public SocketAddress getLocalAddress() {
+        try {
+            return channel.getLocalAddress();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether this socket is open.
+     *
+     * @return true if open
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes this socket.  A pending accept completes exceptionally
+     * with {@link java.nio.channels.AsynchronousCloseException}.
+     */
+    public void close() {
+        reactor.close(loop, channel);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.function.Supplier;
+import java8.java.util.concurrent.CompletableFuture;
+
+/**
+ * A client socket whose reads and writes return {@link
+ * CompletableFuture}s instead of blocking, driven by the selector of a
+ * {@link SocketReactor}.  A read or write that can make progress
+ * immediately completes immediately; otherwise the socket's channel is
+ * registered for readiness and the operation is retried when the
+ * reactor reports it ready.  No thread waits in the meantime, so a
+ * connection that is idle costs only its channel and selection key.
+ *
+ * <p>Handlers are written as chains of stages, or as loops run by
+ * {@link java8.java.util.concurrent.StrandExecutor#loop}, in place of
+ * the blocking loops of a thread-per-connection server.  For example,
+ * an echo handler:
+ * <pre> {@code
+ * ByteBuffer buf = ByteBuffer.allocate(4096);
+ * strands.loop(() -> socket.read(buf).thenCompose(n -> {
+ *     if (n < 0)
+ *         return CompletableFuture.completedFuture(false);
+ *     buf.flip();
+ *     return socket.write(buf).thenApply(w -> { buf.clear(); return true; });
+ * })).whenComplete((v, ex) -> socket.close());}</pre>
+ *
+ * <p>At most one read and one write may be outstanding at a time.
+ *
+ * @see SocketReactor
+ * @see SelectorServerSocket
+ * @since 1.8
+ */
+public class SelectorSocket implements Closeable {
+
+    final SocketChannel channel;
+    final SocketReactor reactor;
+    final SocketReactor.Loop loop;
+
+    /**
+     * Wraps a connected or connecting channel, switching it to
+     * non-blocking mode.
+     */
+    SelectorSocket(SocketReactor reactor, SocketChannel channel)
+        throws IOException {
+        channel.configureBlocking(false);
+        this.channel = channel;
+        this.reactor = reactor;
+        this.loop = reactor.loopFor();
+    }
+
+    /**
+     * Opens a socket and connects it to the given address.
+     *
+     * @param reactor the reactor to drive the socket
+     * @param remote the address to connect to
+     * @return a future completing with the connected socket
+     */
+    public static CompletableFuture<SelectorSocket> connect(
+        SocketReactor reactor, SocketAddress remote) {
+        SocketChannel ch = null;
+        try {
+            ch = SocketChannel.open();
+            final SelectorSocket s = new SelectorSocket(reactor, ch);
+            if (ch.connect(remote))
+                return completed(s);
+            return afterReady(reactor.awaitReady(s.loop, ch, SelectionKey.OP_CONNECT),
+                              () -> {
+                                  try {
+                                      s.channel.finishConnect();
+                                      return completed(s);
+                                  } catch (IOException ex) {
+                                      s.close();
+                                      return failed(ex);
+                                  }
+                              });
+        } catch (IOException ex) {
+            if (ch != null) {
+                try {
+                    ch.close();
+                } catch (IOException ignore) {
+                }
+            }
+            return failed(ex);
+        }
+    }
+
+    /**
+     * Reads a sequence of bytes into the given buffer, waiting until
+     * at least one byte is available.
+     *
+     * @param dst the buffer into which bytes are transferred
+     * @return a future completing with the number of bytes read, which
+     *         is zero only if {@code dst} has no remaining space, or -1
+     *         at end of stream
+     */
+    public CompletableFuture<Integer> read(final ByteBuffer dst) {
+        try {
+            int n = channel.read(dst);
+            if (n != 0 || !dst.hasRemaining())
+                return completed(n);
+        } catch (IOException ex) {
+            return failed(ex);
+        }
+        return afterReady(reactor.awaitReady(loop, channel, SelectionKey.OP_READ),
+                          () -> read(dst));
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer, waiting for the
+     * socket's send buffer to drain whenever it is full.
+     *
+     * @param src the buffer from which bytes are retrieved
+     * @return a future completing with the number of bytes written
+     */
+    public CompletableFuture<Integer> write(ByteBuffer src) {
+        return write(src, 0);
+    }
+
+    private CompletableFuture<Integer> write(final ByteBuffer src,
+                                             int written) {
+        try {
+            int n;
+            while (src.hasRemaining() && (n = channel.write(src)) > 0)
+                written += n;
+        } catch (IOException ex) {
+            return failed(ex);
+        }
+        if (!src.hasRemaining())
+            return completed(written);
+        final int w = written;
+        return afterReady(reactor.awaitReady(loop, channel, SelectionKey.OP_WRITE),
+                          () -> write(src, w));
+    }
+
+    /**
+     * Returns the socket of the underlying channel, for access to
+     * socket options and addresses.  Its streams must not be used.
+     *
+     * @return the socket
+     */
+    public java.net.Socket socket() {
+        return channel.socket();
+    }
+
+    /**
+     * Returns the underlying channel, which is in non-blocking mode.
+     *
+     * @return the channel
+     */
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Returns the remote address, or null if not connected.
+     *
+     * @return the remote address
+     */
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether this socket is open.
+     *
+     * @return true if open
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes this socket.  Pending reads and writes complete
+     * exceptionally with {@link
+     * java.nio.channels.AsynchronousCloseException}.
+     */
+    public void close() {
+        reactor.close(loop, channel);
+    }
+
+    static <T> CompletableFuture<T> failed(Throwable ex) {
+        CompletableFuture<T> f = new CompletableFuture<T>();
+        f.completeExceptionally(ex);
+        return f;
+    }
+
+    static <T> CompletableFuture<T> completed(T value) {
+        CompletableFuture<T> f = new CompletableFuture<T>();
+        f.complete(value);
+        return f;
+    }
+
+    /**
+     * Returns a future completing like the one {@code next} returns,
+     * once {@code ready} completes normally, or exceptionally if
+     * {@code ready} or {@code next} fails.  The futures are linked
+     * with {@code whenComplete}, whose result is not used, so that
+     * only {@code java8} futures are handed out.
+     */
+    static <T> CompletableFuture<T> afterReady(
+        CompletableFuture<Void> ready,
+        final Supplier<CompletableFuture<T>> next) {
+        final CompletableFuture<T> f = new CompletableFuture<T>();
+        ready.whenComplete((v, ex) -> {
+            if (ex != null) {
+                f.completeExceptionally(ex);
+                return;
+            }
+            CompletableFuture<T> g;
+            try {
+                g = next.get();
+            } catch (Throwable rex) {
+                f.completeExceptionally(rex);
+                return;
+            }
+            g.whenComplete((r, rex) -> {
+                if (rex != null)
+                    f.completeExceptionally(rex);
+                else
+                    f.complete(r);
+            });
+        });
+        return f;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[" + channel + "]";
+    }
+}
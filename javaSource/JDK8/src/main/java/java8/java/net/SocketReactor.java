@@ -0,0 +1,388 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java8.java.util.concurrent.CompletableFuture;
+
+/**
+ * Readiness notification for non-blocking channels, turning {@link
+ * Selector} events into {@link CompletableFuture} completions.  This
+ * is the event source behind {@link SelectorSocket} and {@link
+ * SelectorServerSocket}: a task that would block on a socket instead
+ * asks the reactor for a future that completes when the channel
+ * becomes ready, and returns; no thread is held while it waits.
+ *
+ * <p>A reactor runs one or more <em>event loops</em>, each a daemon
+ * thread owning one selector.  Channels are assigned to loops
+ * round-robin when first seen by {@link #loopFor}.  Interest in an
+ * operation is registered on the loop's thread and is one-shot: the
+ * operation is removed from the key's interest set when it fires, so
+ * that an idle channel costs a selection key and nothing else.
+ * Futures are completed on the given executor, never on the loop
+ * thread, so that continuations attached to them cannot stall
+ * selection; only a completion the executor rejects is run by the
+ * loop thread instead.  Closing the reactor fails every pending
+ * wait, including waits requested concurrently with the close.
+ *
+ * @see SelectorSocket
+ * @since 1.8
+ */
+public final class SocketReactor implements Closeable {
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The futures awaiting readiness of one channel, attached to its
+     * selection key.  Accessed only by the loop thread.
+     */
+    static final class Interest {
+        CompletableFuture<Void> read, write, accept, connect;
+
+        /** Replaces any future pending for the op; returns the old one. */
+        CompletableFuture<Void> set(int op, CompletableFuture<Void> f) {
+            CompletableFuture<Void> old;
+            switch (op) {
+            case SelectionKey.OP_READ:    old = read;    read = f;    break;
+            case SelectionKey.OP_WRITE:   old = write;   write = f;   break;
+            case SelectionKey.OP_ACCEPT:  old = accept;  accept = f;  break;
+            case SelectionKey.OP_CONNECT: old = connect; connect = f; break;
+            default: throw new IllegalArgumentException();
+            }
+            return old;
+        }
+    }
+
+    /**
+     * An event loop: a selector, the thread selecting on it, and a
+     * queue of tasks (registrations and cancellations) to run on that
+     * thread between selections.
+     */
+    final class Loop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final ConcurrentLinkedQueue<Runnable> tasks =
+            new ConcurrentLinkedQueue<Runnable>();
+
+        /**
+         * True if the selector has been or is about to be woken up.
+         * Reset by the loop before it drains tasks, so a task enqueued
+         * after the drain always finds it false and wakes the selector.
+         */
+        final AtomicBoolean wakenUp = new AtomicBoolean();
+
+        /**
+         * Set when the loop has stopped selecting.  Tasks submitted
+         * after that are run by the submitting thread, against the
+         * closed selector, so that they still complete their futures.
+         */
+        volatile boolean terminated;
+
+        Loop(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        /** Runs task on the loop thread, waking it if necessary. */
+        void submit(Runnable task) {
+            tasks.offer(task);
+            if (terminated)
+                drainTasks();
+            else if (Thread.currentThread() != thread &&
+                     wakenUp.compareAndSet(false, true))
+                selector.wakeup();
+        }
+
+        /** Runs queued tasks until the queue is empty. */
+        void drainTasks() {
+            Runnable t;
+            while ((t = tasks.poll()) != null)
+                t.run();
+        }
+
+        public void run() {
+            final Selector sel = selector;
+            try {
+                while (!closed.get()) {
+                    wakenUp.set(false);
+                    drainTasks();
+                    sel.select();
+                    Iterator<SelectionKey> it = sel.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey k = it.next();
+                        it.remove();
+                        dispatch(k);
+                    }
+                }
+            } catch (IOException | ClosedSelectorException ex) {
+                // fall through to close
+            } finally {
+                for (SelectionKey k : keysOrEmpty(sel))
+                    fail(k, new AsynchronousCloseException());
+                try {
+                    sel.close();
+                } catch (IOException ignore) {
+                }
+                // Tasks submitted from now on are run by their submitter;
+                // run those already queued, failing their registrations
+                terminated = true;
+                drainTasks();
+            }
+        }
+
+        /** Completes the futures of the ready operations of a key. */
+        void dispatch(SelectionKey k) {
+            Interest in = (Interest)k.attachment();
+            int ready;
+            try {
+                ready = k.readyOps();
+                k.interestOps(k.interestOps() & ~ready);
+            } catch (CancelledKeyException ex) {
+                fail(k, new ClosedChannelException());
+                return;
+            }
+            if ((ready & SelectionKey.OP_READ) != 0)
+                signal(in.set(SelectionKey.OP_READ, null));
+            if ((ready & SelectionKey.OP_WRITE) != 0)
+                signal(in.set(SelectionKey.OP_WRITE, null));
+            if ((ready & SelectionKey.OP_ACCEPT) != 0)
+                signal(in.set(SelectionKey.OP_ACCEPT, null));
+            if ((ready & SelectionKey.OP_CONNECT) != 0)
+                signal(in.set(SelectionKey.OP_CONNECT, null));
+        }
+    }
+
+    static Iterable<SelectionKey> keysOrEmpty(Selector sel) {
+        try {
+            return new java.util.ArrayList<SelectionKey>(sel.keys());
+        } catch (ClosedSelectorException ex) {
+            return java.util.Collections.<SelectionKey>emptyList();
+        }
+    }
+
+    final Loop[] loops;
+    final Executor executor;
+    final AtomicInteger nextLoop = new AtomicInteger();
+    final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a reactor with one event loop per two processors (at
+     * least one), completing futures on the given executor.
+     *
+     * @param executor the executor on which to complete futures
+     * @throws IOException if a selector cannot be opened
+     */
+    public SocketReactor(Executor executor) throws IOException {
+        this(executor, Math.max(1, NCPU >>> 1));
+    }
+
+    /**
+     * Creates a reactor with the given number of event loops,
+     * completing futures on the given executor.
+     *
+     * @param executor the executor on which to complete futures
+     * @param nLoops the number of event loops
+     * @throws IllegalArgumentException if {@code nLoops < 1}
+     * @throws NullPointerException if executor is null
+     * @throws IOException if a selector cannot be opened
+     */
+    public SocketReactor(Executor executor, int nLoops) throws IOException {
+        if (executor == null)
+            throw new NullPointerException();
+        if (nLoops < 1)
+            throw new IllegalArgumentException();
+        this.executor = executor;
+        this.loops = new Loop[nLoops];
+        try {
+            for (int i = 0; i < nLoops; ++i)
+                loops[i] = new Loop(Selector.open(), "SocketReactor-" + i);
+        } catch (IOException ex) {
+            for (Loop l : loops) {
+                if (l != null)
+                    l.selector.close();
+            }
+            throw ex;
+        }
+        for (Loop l : loops)
+            l.thread.start();
+    }
+
+    /**
+     * Returns the executor on which this reactor completes futures.
+     *
+     * @return the executor
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Chooses the event loop for a new channel.
+     */
+    Loop loopFor() {
+        Loop[] ls = loops;
+        return ls[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % ls.length];
+    }
+
+    /**
+     * Returns a future completing when the channel, which must be in
+     * non-blocking mode, is ready for the given operation.  At most one
+     * wait per operation may be pending on a channel; a second
+     * replaces, and fails, the first.
+     *
+     * @param loop the loop to which the channel is assigned
+     * @param ch the channel
+     * @param op one of the {@code SelectionKey.OP_*} constants
+     * @return a future completing when the channel is ready, or
+     *         exceptionally if it is closed first
+     */
+    CompletableFuture<Void> awaitReady(final Loop loop,
+                                       final SelectableChannel ch,
+                                       final int op) {
+        final CompletableFuture<Void> f = new CompletableFuture<Void>();
+        if (closed.get()) {
+            f.completeExceptionally(new ClosedChannelException());
+            return f;
+        }
+        loop.submit(new Runnable() {
+            public void run() {
+                if (loop.terminated) {
+                    f.completeExceptionally(new AsynchronousCloseException());
+                    return;
+                }
+                SelectionKey k = ch.keyFor(loop.selector);
+                try {
+                    if (k == null || !k.isValid()) {
+                        if (k != null)          // cancelled, not yet deregistered
+                            loop.selector.selectNow();
+                        Interest in = new Interest();
+                        in.set(op, f);
+                        ch.register(loop.selector, op, in);
+                    }
+                    else {
+                        Interest in = (Interest)k.attachment();
+                        CompletableFuture<Void> old = in.set(op, f);
+                        if (old != null)
+                            old.completeExceptionally(new IllegalStateException(
+                                "superseded by another wait"));
+                        k.interestOps(k.interestOps() | op);
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    f.completeExceptionally(ex);
+                }
+            }
+        });
+        return f;
+    }
+
+    /**
+     * Cancels the channel's key, failing any futures pending on it,
+     * and then closes the channel.
+     */
+    void close(final Loop loop, final SelectableChannel ch) {
+        loop.submit(new Runnable() {
+            public void run() {
+                SelectionKey k = ch.keyFor(loop.selector);
+                if (k != null)
+                    fail(k, new AsynchronousCloseException());
+                try {
+                    ch.close();
+                } catch (IOException ignore) {
+                }
+            }
+        });
+    }
+
+    /** Cancels a key and fails its pending futures.  Loop thread only. */
+    void fail(SelectionKey k, Throwable ex) {
+        k.cancel();
+        Interest in = (Interest)k.attachment();
+        if (in != null) {
+            fail(in.read, ex);
+            fail(in.write, ex);
+            fail(in.accept, ex);
+            fail(in.connect, ex);
+            in.read = in.write = in.accept = in.connect = null;
+        }
+    }
+
+    /*
+     * If the executor rejects the completion, as a shut down executor
+     * does, the future is completed on the calling thread instead:
+     * running its continuations there is better than leaving it
+     * pending forever, or letting the exception end the event loop.
+     */
+
+    private void fail(final CompletableFuture<Void> f, final Throwable ex) {
+        if (f != null) {
+            try {
+                executor.execute(new Runnable() {
+                    public void run() { f.completeExceptionally(ex); }
+                });
+            } catch (RejectedExecutionException rex) {
+                f.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private void signal(final CompletableFuture<Void> f) {
+        if (f != null) {
+            try {
+                executor.execute(new Runnable() {
+                    public void run() { f.complete(null); }
+                });
+            } catch (RejectedExecutionException rex) {
+                f.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Stops the event loops, failing all pending waits with {@link
+     * AsynchronousCloseException}.  Registered channels are not closed.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            for (Loop l : loops)
+                l.selector.wakeup();
+        }
+    }
+}
@@ -0,0 +1,819 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.nio;
+
+import sun.misc.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java8.java.lang.management.BufferPoolMXBean;
+
+/**
+ * An allocator of direct byte buffers whose memory is pooled and
+ * released explicitly.
+ *
+ * <p>Memory obtained by {@link ByteBuffer#allocateDirect} is reserved
+ * through {@code Bits.reserveMemory}, which under pressure triggers a
+ * full collection and sleeps, and is freed only when the buffer's
+ * cleaner runs after it has been collected.  This allocator instead
+ * takes native memory from {@link Unsafe#allocateMemory} in slabs, and
+ * returns it to the pool as soon as {@link #release} is invoked.  A
+ * buffer returned by {@link #allocate} is a direct buffer with no
+ * cleaner; its memory is not zeroed, and it must not be accessed after
+ * it has been released.
+ *
+ * <p>The allocator is organized after the manner of jemalloc:
+ * <ul>
+ *
+ * <li><em>Size classes.</em> Requests up to 32&nbsp;KiB are rounded up
+ * to one of 40 size classes: multiples of 16 bytes up to 64 bytes, then
+ * four classes per power of two, so that no more than 20% of an
+ * allocation is wasted.  Larger requests are allocated and freed
+ * individually.
+ *
+ * <li><em>Arenas.</em> Each size class of an arena has its own slabs of
+ * equally sized slots, tracked by a bitmap.  Threads are spread over
+ * several arenas, so that allocating threads seldom contend on the same
+ * lock.  A slab whose slots are all free is returned to the operating
+ * system, unless it is the last slab of its size class.
+ *
+ * <li><em>Thread caches.</em> Each thread keeps a small stack of free
+ * slots per size class, so that most allocations and releases take no
+ * lock at all.  An empty cache is refilled from the thread's arena in a
+ * batch, and a full cache returns half of its slots to their arenas.
+ * Slots cached by a thread that has terminated are reclaimed
+ * periodically, and {@link #trimThreadCache} returns those of the
+ * current thread.
+ *
+ * <li><em>Leak detection.</em> One in every {@code leakSampleInterval}
+ * allocations records its allocation site and is tracked by a phantom
+ * reference.  If such a buffer is garbage collected without having been
+ * released, the allocation site is reported to the allocator's {@link
+ * LeakHandler}, which by default prints it on {@code System.err}, and
+ * its memory is reclaimed.
+ *
+ * </ul>
+ *
+ * <p>This class implements {@link BufferPoolMXBean}: the count and
+ * total capacity are those of the buffers currently allocated (the
+ * capacity of each rounded up to its size class), and the memory used
+ * is that of all slabs, including free and cached slots.  It may be
+ * published on the platform MBean server with {@link #register}.
+ *
+ * @since 1.8
+ */
+public final class PooledDirectBufferAllocator implements BufferPoolMXBean {
+
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The largest request served from slabs. */
+    static final int MAX_SMALL = 32 * 1024;
+
+    /** The smallest slab, in bytes. */
+    private static final int MIN_SLAB = 64 * 1024;
+
+    /** The fewest slots in a slab. */
+    private static final int MIN_SLOTS = 8;
+
+    /** Slot sizes, in increasing order. */
+    static final int[] SIZE_CLASSES;
+
+    static {
+        int[] sizes = new int[40];
+        int n = 0;
+        for (int s = 16; s <= 64; s += 16)
+            sizes[n++] = s;
+        for (int g = 64; g < MAX_SMALL; g <<= 1)
+            for (int k = 1; k <= 4; k++)
+                sizes[n++] = g + k * (g >>> 2);
+        SIZE_CLASSES = sizes;
+    }
+
+    /**
+     * Returns the index of the smallest size class not smaller than
+     * size, which must be at most {@link #MAX_SMALL}.
+     */
+    static int sizeClass(int size) {
+        if (size <= 64)
+            return size <= 16 ? 0 : ((size + 15) >>> 4) - 1;
+        int lg = 31 - Integer.numberOfLeadingZeros(size - 1);
+        int spacing = 1 << (lg - 2);
+        int k = (size - (1 << lg) + spacing - 1) >>> (lg - 2);
+        return 4 + ((lg - 6) << 2) + k - 1;
+    }
+
+    // Allocation state
+
+    final String name;
+    final long maxMemory;
+    final int leakSampleInterval;
+    private final Arena[] arenas;
+    private final int[] cacheCapacity;
+    private final ThreadLocal<ThreadCache> cache;
+    private final ConcurrentLinkedQueue<ThreadCache> caches =
+        new ConcurrentLinkedQueue<>();
+    private final ReferenceQueue<ByteBuffer> leaked = new ReferenceQueue<>();
+    private volatile LeakHandler leakHandler = PRINT_LEAKS;
+
+    // Statistics
+
+    private final AtomicLong memoryUsed = new AtomicLong();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalCapacity = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * Creates an allocator named {@code "pooled-direct"} with twice as
+     * many arenas as processors, thread caches of 64 slots per small
+     * size class, one allocation in 128 sampled for leaks, and no limit
+     * on the memory used.
+     */
+    public PooledDirectBufferAllocator() {
+        this("pooled-direct", 2 * NCPU, 64, 128, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates an allocator.
+     *
+     * @param name the name of the pool, as reported by {@link #getName}
+     * @param arenas the number of arenas
+     * @param cacheCapacity the number of slots that each thread caches
+     *        per size class up to 1&nbsp;KiB; larger size classes cache a
+     *        quarter or a sixteenth as many.  Zero disables thread caches.
+     * @param leakSampleInterval track one in this many allocations for
+     *        leaks, or zero not to track any
+     * @param maxMemory the most native memory, in bytes, that the
+     *        allocator may hold at once
+     * @throws IllegalArgumentException if {@code arenas} is not
+     *         positive, or another argument is negative
+     */
+    public PooledDirectBufferAllocator(String name, int arenas,
+                                       int cacheCapacity,
+                                       int leakSampleInterval,
+                                       long maxMemory) {
+        if (name == null)
+            throw new NullPointerException();
+        if (arenas <= 0 || cacheCapacity < 0 || leakSampleInterval < 0 ||
+            maxMemory < 0)
+            throw new IllegalArgumentException();
+        this.name = name;
+        this.maxMemory = maxMemory;
+        this.leakSampleInterval = leakSampleInterval;
+        this.arenas = new Arena[arenas];
+        for (int i = 0; i < arenas; i++)
+            this.arenas[i] = new Arena(this);
+        int[] caps = new int[SIZE_CLASSES.length];
+        for (int i = 0; i < caps.length; i++) {
+            int s = SIZE_CLASSES[i];
+            int c = (s <= 1024) ? cacheCapacity :
+                (s <= 8 * 1024) ? cacheCapacity >>> 2 : cacheCapacity >>> 4;
+            caps[i] = (cacheCapacity > 0 && c == 0) ? 1 : c;
+        }
+        this.cacheCapacity = caps;
+        this.cache = ThreadLocal.withInitial(this::newThreadCache);
+    }
+
+    /**
+     * Allocates a direct byte buffer with the given capacity.  Its
+     * position is zero, its limit is its capacity, its mark is
+     * undefined, its byte order is {@link ByteOrder#BIG_ENDIAN
+     * BIG_ENDIAN}, and its contents are undefined.
+     *
+     * @param capacity the new buffer's capacity, in bytes
+     * @return the new byte buffer
+     * @throws IllegalArgumentException if capacity is negative
+     * @throws OutOfMemoryError if the memory limit of this allocator
+     *         would be exceeded, or native memory is exhausted
+     */
+    public ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        if (capacity > MAX_SMALL)
+            return allocateLarge(capacity);
+        int sc = sizeClass(capacity);
+        ThreadCache tc = cache.get();
+        int n = tc.counts[sc];
+        if (n == 0)
+            n = refill(tc, sc);
+        Slab slab = tc.slabs[sc][--n];
+        int slot = tc.slots[sc][n];
+        tc.slabs[sc][n] = null;
+        tc.counts[sc] = n;
+        int size = SIZE_CLASSES[sc];
+        ByteBuffer b = new DirectByteBuffer(slab.address + (long)slot * size,
+                                            capacity, slab);
+        count.increment();
+        totalCapacity.add(size);
+        if (sampled())
+            slab.track(new LeakTracker(b, leaked, slab, slot, null, capacity));
+        return b;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #allocate} to this allocator.
+     * The buffer, and any buffer derived from it, must not be used
+     * afterwards.
+     *
+     * @param buffer the buffer
+     * @throws IllegalArgumentException if the buffer was not allocated
+     *         by this allocator
+     * @throws IllegalStateException if the buffer is found to have
+     *         already been released.  A release is only checked when the
+     *         slot reaches its arena, so a buffer released twice while its
+     *         slot is cached by a thread may go undetected.
+     */
+    public void release(ByteBuffer buffer) {
+        Object att = (buffer instanceof DirectBuffer)
+            ? ((DirectBuffer) buffer).attachment() : null;
+        if (att instanceof Slab) {
+            Slab slab = (Slab) att;
+            Bin bin = slab.bin;
+            long offset = ((DirectBuffer) buffer).address() - slab.address;
+            if (bin.arena.allocator != this || offset % bin.size != 0)
+                throw new IllegalArgumentException("not allocated by " + name);
+            int slot = (int) (offset / bin.size);
+            slab.untrack(slot);
+            ThreadCache tc = cache.get();
+            int sc = bin.sizeClass;
+            int n = tc.counts[sc];
+            if (n >= cacheCapacity[sc]) {
+                if (n == 0) {               // thread caches disabled
+                    synchronized (bin) {
+                        bin.free(slab, slot);
+                    }
+                    released(bin.size);
+                    return;
+                }
+                n = flush(tc, sc, (n + 1) >>> 1);
+            }
+            tc.slabs[sc][n] = slab;
+            tc.slots[sc][n] = slot;
+            tc.counts[sc] = n + 1;
+            released(bin.size);
+        } else if (att instanceof Large) {
+            Large large = (Large) att;
+            if (large.allocator != this)
+                throw new IllegalArgumentException("not allocated by " + name);
+            large.free();
+            released(large.size);
+        } else {
+            throw new IllegalArgumentException("not allocated by " + name);
+        }
+    }
+
+    /**
+     * Returns all slots cached by the current thread to their arenas.
+     * A thread that has finished allocating buffers may invoke this
+     * method so that the slots it holds can be used by other threads,
+     * and slabs left empty can be freed.
+     */
+    public void trimThreadCache() {
+        ThreadCache tc = cache.get();
+        for (int sc = 0; sc < SIZE_CLASSES.length; sc++)
+            flush(tc, sc, tc.counts[sc]);
+    }
+
+    /**
+     * Returns the number of tracked buffers found to have been garbage
+     * collected without having been released.
+     *
+     * @return the number of buffers found leaked
+     */
+    public long getLeakCount() {
+        expungeLeaks();
+        return leaks.sum();
+    }
+
+    /**
+     * Receives the reports of tracked buffers that were garbage
+     * collected without having been released.  Reports are made by
+     * whichever thread finds the leak, from within {@link #allocate} or
+     * {@link #getLeakCount}, after the buffer's memory has been
+     * reclaimed.
+     */
+    @FunctionalInterface
+    public interface LeakHandler {
+        /**
+         * Reports a leaked buffer.
+         *
+         * @param allocator the allocator that allocated the buffer
+         * @param capacity the capacity of the buffer, in bytes
+         * @param site a throwable whose stack trace is the allocation
+         *        site of the buffer
+         */
+        void leaked(PooledDirectBufferAllocator allocator, int capacity,
+                    Throwable site);
+    }
+
+    /** The default handler, printing leaks on System.err. */
+    static final LeakHandler PRINT_LEAKS = (allocator, capacity, site) -> {
+        System.err.println("LEAK: " + allocator.name + ": a direct buffer of " +
+                           capacity + " bytes was garbage collected " +
+                           "without being released");
+        site.printStackTrace();
+    };
+
+    /**
+     * Sets the handler to which leaked buffers are reported, replacing
+     * the default handler that prints them on {@code System.err}.
+     *
+     * @param handler the handler
+     * @throws NullPointerException if handler is null
+     */
+    public void setLeakHandler(LeakHandler handler) {
+        if (handler == null)
+            throw new NullPointerException();
+        leakHandler = handler;
+    }
+
+    /**
+     * Returns the handler to which leaked buffers are reported.
+     *
+     * @return the leak handler
+     */
+    public LeakHandler getLeakHandler() {
+        return leakHandler;
+    }
+
+    private void released(int size) {
+        count.decrement();
+        totalCapacity.add(-size);
+    }
+
+    private boolean sampled() {
+        int interval = leakSampleInterval;
+        return interval > 0 &&
+            (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0);
+    }
+
+    private ByteBuffer allocateLarge(int capacity) {
+        reserve(capacity);
+        long address;
+        try {
+            address = unsafe.allocateMemory(capacity);
+        } catch (OutOfMemoryError x) {
+            memoryUsed.addAndGet(-capacity);
+            throw x;
+        }
+        Large large = new Large(this, address, capacity);
+        ByteBuffer b = new DirectByteBuffer(address, capacity, large);
+        count.increment();
+        totalCapacity.add(capacity);
+        if (sampled())
+            large.tracker = new LeakTracker(b, leaked, null, 0, large, capacity);
+        return b;
+    }
+
+    /** Accounts for size more bytes of native memory. */
+    void reserve(long size) {
+        for (long used;;) {
+            used = memoryUsed.get();
+            if (size > maxMemory - used)
+                throw new OutOfMemoryError("Pooled direct buffer memory");
+            if (memoryUsed.compareAndSet(used, used + size))
+                return;
+        }
+    }
+
+    void unreserve(long size) {
+        memoryUsed.addAndGet(-size);
+    }
+
+    // Thread caches
+
+    private ThreadCache newThreadCache() {
+        Arena best = arenas[0];
+        for (Arena a : arenas) {
+            if (a.threads.get() < best.threads.get())
+                best = a;
+        }
+        best.threads.incrementAndGet();
+        ThreadCache tc = new ThreadCache(Thread.currentThread(), best,
+                                         cacheCapacity);
+        caches.add(tc);
+        return tc;
+    }
+
+    /**
+     * Fills the empty cache of size class sc with half its capacity
+     * (and at least one slot) from the thread's arena, and returns the
+     * number of slots now cached.
+     */
+    private int refill(ThreadCache tc, int sc) {
+        if ((++tc.refills & 0xff) == 0) {
+            expungeLeaks();
+            reclaimDeadThreadCaches();
+        }
+        int n = Math.max(1, cacheCapacity[sc] >>> 1);
+        Bin bin = tc.arena.bins[sc];
+        synchronized (bin) {
+            for (int i = 0; i < n; i++) {
+                Slab slab = bin.available.peekFirst();
+                if (slab == null)
+                    bin.available.addFirst(slab = new Slab(bin));
+                tc.slots[sc][i] = slab.allocate();
+                tc.slabs[sc][i] = slab;
+                if (slab.used == bin.slots) {
+                    bin.available.pollFirst();
+                    slab.listed = false;
+                }
+            }
+        }
+        return tc.counts[sc] = n;
+    }
+
+    /**
+     * Returns the n oldest slots of size class sc in the given cache to
+     * their arenas, and returns the number of slots still cached.
+     */
+    private int flush(ThreadCache tc, int sc, int n) {
+        Slab[] slabs = tc.slabs[sc];
+        int[] slots = tc.slots[sc];
+        int count = tc.counts[sc];
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                Bin bin = slabs[i].bin;
+                synchronized (bin) {
+                    bin.free(slabs[i], slots[i]);
+                }
+            }
+        } finally {
+            // Drop the slots returned, and one found released twice
+            int done = (i < n) ? i + 1 : n;
+            int rest = count - done;
+            System.arraycopy(slabs, done, slabs, 0, rest);
+            System.arraycopy(slots, done, slots, 0, rest);
+            for (int j = rest; j < count; j++)
+                slabs[j] = null;
+            tc.counts[sc] = rest;
+        }
+        return tc.counts[sc];
+    }
+
+    /**
+     * Returns the slots cached by threads that have terminated.  A
+     * terminated thread's cache is no longer modified, and its last
+     * modifications happen-before isAlive() returns false.
+     */
+    private void reclaimDeadThreadCaches() {
+        for (Iterator<ThreadCache> it = caches.iterator(); it.hasNext(); ) {
+            ThreadCache tc = it.next();
+            if (!tc.owner.isAlive() && caches.remove(tc)) {
+                for (int sc = 0; sc < SIZE_CLASSES.length; sc++)
+                    flush(tc, sc, tc.counts[sc]);
+                tc.arena.threads.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Reports and reclaims tracked buffers that were garbage collected
+     * without having been released.
+     */
+    private void expungeLeaks() {
+        for (Object r; (r = leaked.poll()) != null; ) {
+            LeakTracker t = (LeakTracker) r;
+            if (t.large != null) {
+                if (t.large.tracker != t)
+                    continue;
+                t.large.free();
+                released(t.large.size);
+            } else {
+                Slab slab = t.slab;
+                Bin bin = slab.bin;
+                synchronized (bin) {
+                    if (!slab.trackers.compareAndSet(t.slot, t, null))
+                        continue;
+                    bin.free(slab, t.slot);
+                }
+                released(bin.size);
+            }
+            leaks.increment();
+            leakHandler.leaked(this, t.capacity, t.site);
+        }
+    }
+
+    // BufferPoolMXBean
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getTotalCapacity() {
+        return totalCapacity.sum();
+    }
+
+    @Override
+    public long getMemoryUsed() {
+        return memoryUsed.get();
+    }
+
+    /**
+     * Returns the name {@code java.nio:type=BufferPool,name=}<i>name</i>
+     * of this pool, the name quoted if necessary.
+     *
+     * @return the object name of this pool
+     */
+    @Override
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.nio:type=BufferPool,name=" +
+                                  ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Registers this pool with the platform MBean server under
+     * {@link #getObjectName}.
+     *
+     * @throws IllegalStateException if the name is already registered
+     *         or registration otherwise fails
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, getObjectName());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters this pool from the platform MBean server, if
+     * registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName on = getObjectName();
+            if (server.isRegistered(on))
+                server.unregisterMBean(on);
+        } catch (JMException ignore) {
+        }
+    }
+
+    // Internal structures
+
+    /**
+     * A set of bins, one per size class, shared by the threads assigned
+     * to it.
+     */
+    static final class Arena {
+        final PooledDirectBufferAllocator allocator;
+        final Bin[] bins;
+        final AtomicInteger threads = new AtomicInteger();
+
+        Arena(PooledDirectBufferAllocator allocator) {
+            this.allocator = allocator;
+            Bin[] bins = new Bin[SIZE_CLASSES.length];
+            for (int i = 0; i < bins.length; i++)
+                bins[i] = new Bin(this, i);
+            this.bins = bins;
+        }
+    }
+
+    /**
+     * The slabs of one size class in an arena.  All fields, and those
+     * of its slabs other than address and bin, are guarded by the bin's
+     * monitor.
+     */
+    static final class Bin {
+        final Arena arena;
+        final int sizeClass;
+        final int size;
+        final int slots;
+        /** Slabs having free slots; the first is allocated from. */
+        final ArrayDeque<Slab> available = new ArrayDeque<>();
+
+        Bin(Arena arena, int sizeClass) {
+            this.arena = arena;
+            this.sizeClass = sizeClass;
+            this.size = SIZE_CLASSES[sizeClass];
+            this.slots = Math.max(MIN_SLAB / size, MIN_SLOTS);
+        }
+
+        void free(Slab slab, int slot) {
+            slab.free(slot);
+            if (slab.used == 0 && available.size() > 1) {
+                available.remove(slab);
+                slab.destroy();
+            } else if (!slab.listed) {
+                available.addLast(slab);
+                slab.listed = true;
+            }
+        }
+    }
+
+    /**
+     * A block of native memory divided into equally sized slots.
+     */
+    static final class Slab {
+        final Bin bin;
+        final long address;
+        /** Set bits are slots in use, including those past the end. */
+        final long[] bitmap;
+        int used;
+        int hint;
+        boolean listed = true;
+        /**
+         * Trackers of sampled slots, created on first use.  Elements are
+         * set when a buffer is allocated and cleared when it is released,
+         * without the bin's monitor, so they are only updated atomically.
+         */
+        volatile AtomicReferenceArray<LeakTracker> trackers;
+
+        Slab(Bin bin) {
+            long bytes = (long) bin.size * bin.slots;
+            bin.arena.allocator.reserve(bytes);
+            try {
+                this.address = unsafe.allocateMemory(bytes);
+            } catch (OutOfMemoryError x) {
+                bin.arena.allocator.unreserve(bytes);
+                throw x;
+            }
+            this.bin = bin;
+            long[] bitmap = new long[(bin.slots + 63) >>> 6];
+            int tail = bin.slots & 63;
+            if (tail != 0)
+                bitmap[bitmap.length - 1] = -1L << tail;
+            this.bitmap = bitmap;
+        }
+
+        int allocate() {
+            long[] bitmap = this.bitmap;
+            for (int i = hint;; i = (i + 1 == bitmap.length) ? 0 : i + 1) {
+                long w = bitmap[i];
+                if (w != -1L) {
+                    int b = Long.numberOfTrailingZeros(~w);
+                    bitmap[i] = w | (1L << b);
+                    hint = i;
+                    used++;
+                    return (i << 6) + b;
+                }
+            }
+        }
+
+        void free(int slot) {
+            int i = slot >>> 6;
+            long bit = 1L << slot;
+            if ((bitmap[i] & bit) == 0)
+                throw new IllegalStateException("buffer already released");
+            bitmap[i] &= ~bit;
+            used--;
+        }
+
+        void destroy() {
+            long bytes = (long) bin.size * bin.slots;
+            unsafe.freeMemory(address);
+            bin.arena.allocator.unreserve(bytes);
+        }
+
+        void track(LeakTracker t) {
+            AtomicReferenceArray<LeakTracker> ts = trackers;
+            if (ts == null) {
+                synchronized (bin) {
+                    if ((ts = trackers) == null)
+                        trackers = ts = new AtomicReferenceArray<>(bin.slots);
+                }
+            }
+            ts.set(t.slot, t);
+        }
+
+        void untrack(int slot) {
+            AtomicReferenceArray<LeakTracker> ts = trackers;
+            if (ts != null) {
+                LeakTracker t = ts.get(slot);
+                if (t != null && ts.compareAndSet(slot, t, null))
+                    t.clear();
+            }
+        }
+    }
+
+    /**
+     * A buffer larger than the largest size class, allocated on its own.
+     */
+    static final class Large {
+        final PooledDirectBufferAllocator allocator;
+        final long address;
+        final int size;
+        volatile LeakTracker tracker;
+        private boolean freed;
+
+        Large(PooledDirectBufferAllocator allocator, long address, int size) {
+            this.allocator = allocator;
+            this.address = address;
+            this.size = size;
+        }
+
+        void free() {
+            synchronized (this) {
+                if (freed)
+                    throw new IllegalStateException("buffer already released");
+                freed = true;
+            }
+            LeakTracker t = tracker;
+            if (t != null) {
+                tracker = null;
+                t.clear();
+            }
+            unsafe.freeMemory(address);
+            allocator.unreserve(size);
+        }
+    }
+
+    /**
+     * Tracks a sampled buffer, recording where it was allocated.
+     */
+    static final class LeakTracker extends PhantomReference<ByteBuffer> {
+        final Slab slab;
+        final int slot;
+        final Large large;
+        final int capacity;
+        final Throwable site = new Throwable("Allocation site");
+
+        LeakTracker(ByteBuffer referent, ReferenceQueue<ByteBuffer> q,
+                    Slab slab, int slot, Large large, int capacity) {
+            super(referent, q);
+            this.slab = slab;
+            this.slot = slot;
+            this.large = large;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Per-thread stacks of free slots, one per size class.  Accessed only
+     * by the owning thread, or by any thread after the owner terminated.
+     */
+    static final class ThreadCache {
+        final Thread owner;
+        final Arena arena;
+        final Slab[][] slabs;
+        final int[][] slots;
+        final int[] counts;
+        int refills;
+
+        ThreadCache(Thread owner, Arena arena, int[] capacity) {
+            this.owner = owner;
+            this.arena = arena;
+            int n = capacity.length;
+            this.slabs = new Slab[n][];
+            this.slots = new int[n][];
+            this.counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                int c = Math.max(1, capacity[i]);
+                slabs[i] = new Slab[c];
+                slots[i] = new int[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.nio.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A file-based lines spliterator, leveraging a shared mapped byte buffer and
+ * associated file channel, covering lines of a file for character encodings
+ * where line feed characters can be easily identified from character
+ * encoded bytes.
+ *
+ * <p>
+ * When the root spliterator is first split a mapped byte buffer will be
+ * created over the file for its size that was observed when the stream was
+ * created.  Thus a mapped byte buffer is only required for parallel stream
+ * execution.  Sub-spliterators will share that mapped byte buffer.  Splitting
+ * will use the mapped byte buffer to find the closest line feed characters(s)
+ * to the left or right of the mid-point of covered range of bytes of the
+ * file.  If a line feed is found then the spliterator is split with returned
+ * spliterator containing the identified line feed characters(s) at the end
+ * of its covered range of bytes.
+ *
+ * <p>
+ * Traversing will create a buffered reader, derived from the file channel,
+ * for the range of bytes of the file.  The lines are then read from that
+ * buffered reader.  Once traversing commences no further splitting can be
+ * performed and the reference to the mapped byte buffer will be set to null.
+ *
+ * <p>
+ * A {@code ByteBuffer} can address at most 2 GB, so the file is mapped as
+ * a sequence of {@link #SEGMENT_SIZE} segments, each created on first use.
+ * Splitting only touches the few pages around each split point, so a 10 GB
+ * log file is split in parallel without being read, and every
+ * sub-spliterator then reads its own byte range with positional reads that
+ * do not contend on the channel position.
+ *
+ * @since 1.8
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = new HashSet<>();
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.UTF_8.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.ISO_8859_1.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
+    }
+
+    /**
+     * The size of each mapped segment.  A power of two no larger than the
+     * maximum {@code ByteBuffer} capacity.
+     */
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Ranges smaller than this are not split further; the per-split cost
+     * of a reader and its buffers would outweigh the parallelism gained.
+     */
+    static final long MIN_SPLIT_SIZE = 1L << 16;
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private long index;
+    private final long fence;
+
+    // Null before first split, non-null when splitting, null when traversing
+    private Segments segments;
+
+    // Non-null when traversing
+    private BufferedReader reader;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                        long index, long fence, Segments segments) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+        this.segments = segments;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        String line = readLine();
+        if (line != null) {
+            action.accept(line);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    private BufferedReader getBufferedReader() {
+        /**
+         * A readable byte channel that reads bytes from an underlying
+         * file channel over a specified range.
+         */
+        ReadableByteChannel rrbc = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                long bytesToRead = fence - index;
+                if (bytesToRead == 0)
+                    return -1;
+
+                int bytesRead;
+                if (bytesToRead < dst.remaining()) {
+                    // The number of bytes to read is less than remaining
+                    // bytes in the buffer
+                    // Snapshot the limit, reduce it, read, then restore
+                    int oldLimit = dst.limit();
+                    dst.limit(dst.position() + (int) bytesToRead);
+                    bytesRead = fc.read(dst, index);
+                    dst.limit(oldLimit);
+                } else {
+                    bytesRead = fc.read(dst, index);
+                }
+                if (bytesRead == -1) {
+                    index = fence;
+                    return bytesRead;
+                }
+
+                index += bytesRead;
+                return bytesRead;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return fc.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                fc.close();
+            }
+        };
+        return new BufferedReader(Channels.newReader(rrbc, cs.newDecoder(), -1));
+    }
+
+    private String readLine() {
+        if (reader == null) {
+            reader = getBufferedReader();
+            segments = null;
+        }
+
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Cannot split after partial traverse
+        if (reader != null)
+            return null;
+
+        final long hi = fence, lo = index;
+        if (hi - lo < MIN_SPLIT_SIZE)
+            return null;
+
+        Segments b;
+        if ((b = segments) == null) {
+            b = segments = new Segments(fc, hi);
+        }
+
+        long mid;
+        try {
+            mid = findSplit(b, lo, hi);
+        } catch (IOException e) {
+            // Mapping failed; fall back to sequential traversal of this range
+            return null;
+        }
+
+        // The left spliterator will have the line-separator at the end
+        return (mid > lo && mid < hi)
+               ? new FileChannelLinesSpliterator(fc, cs, lo, index = mid, b)
+               : null;
+    }
+
+    /**
+     * Returns the offset just past the line separator closest to the
+     * mid-point of {@code [lo, hi)}, or 0 if there is none.  Bytes are
+     * sampled alternately to the left and to the right of the mid-point,
+     * so a long line on one side does not bias the split.  For the
+     * supported charsets the bytes {@code '\n'} and {@code '\r'} never
+     * occur inside a multi-byte character.
+     */
+    private static long findSplit(Segments b, long lo, long hi) throws IOException {
+        long mid = (lo + hi) >>> 1;
+        int c = b.get(mid);
+        if (c == '\n') {
+            return mid + 1;
+        } else if (c == '\r') {
+            // Check if a line separator of "\r\n"
+            if (++mid < hi && b.get(mid) == '\n') {
+                mid++;
+            }
+            return mid;
+        }
+
+        long midL = mid - 1;
+        long midR = mid + 1;
+        while (midL > lo && midR < hi) {
+            // Sample to the left
+            c = b.get(midL--);
+            if (c == '\n' || c == '\r') {
+                // If c is "\r" then no need to check for "\r\n"
+                // since the subsequent value was previously checked
+                return midL + 2;
+            }
+
+            // Sample to the right
+            c = b.get(midR++);
+            if (c == '\n' || c == '\r') {
+                mid = midR;
+                // Check if line-separator is "\r\n"
+                if (c == '\r' && mid < hi && b.get(mid) == '\n') {
+                    mid++;
+                }
+                return mid;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate.
+        // We could divide by a constant that is the average number of
+        // characters per-line, but that constant will be factored out.
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /**
+     * The file mapped read-only as consecutive segments of
+     * {@link #SEGMENT_SIZE} bytes, shared by all spliterators split from
+     * the same root.  Segments are mapped on first access; splits are rare
+     * enough that a lock per mapping is not a concern.
+     */
+    static final class Segments {
+        private final FileChannel fc;
+        private final long size;
+        private final MappedByteBuffer[] mapped;
+
+        Segments(FileChannel fc, long size) {
+            this.fc = fc;
+            this.size = size;
+            this.mapped = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        }
+
+        byte get(long offset) throws IOException {
+            int i = (int) (offset / SEGMENT_SIZE);
+            MappedByteBuffer m;
+            synchronized (this) {
+                if ((m = mapped[i]) == null) {
+                    long start = i * SEGMENT_SIZE;
+                    mapped[i] = m = fc.map(FileChannel.MapMode.READ_ONLY, start,
+                                           Math.min(SEGMENT_SIZE, size - start));
+                }
+            }
+            return m.get((int) (offset - i * SEGMENT_SIZE));
+        }
+    }
+}
@@ -0,0 +1,937 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java8.java.util;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+
+/**
+ * ForkJoin tasks to perform the Arrays.parallelSegmentedPrefix,
+ * parallelScatter, parallelGather, parallelHistogram, parallelPartition
+ * and parallelArgsort operations, and the radix sort used by
+ * Arrays.parallelSort on large arrays.
+ *
+ * @since 1.8
+ */
+class ArrayScanHelpers {
+    private ArrayScanHelpers() {} // non-instantiable
+
+    /*
+     * All operations here are memory-bound passes over contiguous blocks
+     * of the array.  The array is cut into about four blocks per worker
+     * (Blocks), and each pass runs one BlockTask tree, a CountedCompleter
+     * that halves the range of block indices, forking the right half and
+     * looping on the left, so the tasks touching a block are few and each
+     * streams through a large contiguous range.
+     *
+     * Operations whose result for one block depends on the blocks before
+     * it use the usual three-phase scheme: a parallel pass computes a
+     * summary per block (a partial reduction, or a count), a sequential
+     * pass over the summaries, of which there are only a few dozen,
+     * computes each block's starting state, and a second parallel pass
+     * applies it.
+     *
+     * As usual for this sort of utility, the int, long and double versions
+     * are copy/paste/adapt variants of each other.
+     */
+
+    /** The smallest block size; shorter arrays are processed sequentially */
+    static final int MIN_BLOCK = 1 << 13;
+
+    /**
+     * Per-block action for a parallel pass.
+     */
+    @FunctionalInterface
+    interface BlockAction {
+        /**
+         * Processes block {@code block}, covering indices
+         * {@code [lo, hi)}.
+         */
+        void apply(int block, int lo, int hi);
+    }
+
+    /**
+     * A partition of {@code [0, length)} into blocks of equal size, except
+     * possibly the last.
+     */
+    static final class Blocks {
+        final int length, size, count;
+
+        Blocks(int length, int minBlock) {
+            int p = ForkJoinPool.getCommonPoolParallelism();
+            int s = (int) ((length + (long) (p << 2) - 1) / (p << 2));
+            this.length = length;
+            this.size = Math.max(s, Math.max(1, minBlock));
+            this.count = (int) ((length + (long) size - 1) / size);
+        }
+
+        int lo(int block) {
+            return block * size;
+        }
+
+        int hi(int block) {
+            return (int) Math.min(length, (long) (block + 1) * size);
+        }
+
+        /**
+         * Applies the action to every block, in parallel if there is more
+         * than one block.
+         */
+        void forEach(BlockAction action) {
+            if (count == 1 || ForkJoinPool.getCommonPoolParallelism() == 1) {
+                for (int b = 0; b < count; b++)
+                    action.apply(b, lo(b), hi(b));
+            }
+            else if (count > 1) {
+                new BlockTask(null, this, action, 0, count).invoke();
+            }
+        }
+    }
+
+    /**
+     * Applies an action to the blocks {@code [lo, hi)}.
+     */
+    static final class BlockTask extends CountedCompleter<Void> {
+        final Blocks blocks;
+        final BlockAction action;
+        final int lo, hi;
+
+        BlockTask(CountedCompleter<?> parent, Blocks blocks, BlockAction action,
+                  int lo, int hi) {
+            super(parent);
+            this.blocks = blocks; this.action = action;
+            this.lo = lo; this.hi = hi;
+        }
+
+        public final void compute() {
+            final Blocks bs = blocks;
+            final BlockAction a = action;
+            int l = lo, h = hi;
+            while (h - l > 1) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                new BlockTask(this, bs, a, mid, h).fork();
+                h = mid;
+            }
+            if (h > l)
+                a.apply(l, bs.lo(l), bs.hi(l));
+            propagateCompletion();
+        }
+    }
+
+    /**
+     * Counts, in parallel, the occurrences of each key in
+     * {@code [0, buckets)}.  Each block counts into its own histogram, and
+     * the histograms are then summed in parallel over ranges of buckets.
+     * Blocks are made at least {@code buckets} long so that the per-block
+     * histograms together are no larger than the keys.
+     */
+    static int[] histogram(int[] keys, int buckets) {
+        Blocks blocks = new Blocks(keys.length, Math.max(MIN_BLOCK, buckets));
+        if (blocks.count <= 1) {
+            int[] counts = new int[buckets];
+            for (int k : keys)
+                counts[k]++;
+            return counts;
+        }
+        final int[][] local = new int[blocks.count][];
+        blocks.forEach((b, lo, hi) -> {
+            int[] c = new int[buckets];
+            for (int i = lo; i < hi; i++)
+                c[keys[i]]++;
+            local[b] = c;
+        });
+        final int[] counts = local[0];
+        new Blocks(buckets, MIN_BLOCK).forEach((x, lo, hi) -> {
+            for (int b = 1; b < local.length; b++) {
+                int[] c = local[b];
+                for (int i = lo; i < hi; i++)
+                    counts[i] += c[i];
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Performs a segmented cumulation of {@code a} in place: each element
+     * for which {@code starts} is true, and the first element, begin a new
+     * segment, and the cumulation restarts at each segment.
+     *
+     * <p>Pass 1 cumulates every block as if it began a segment, and
+     * records its last value and whether it contains a segment start.
+     * Pass 2, sequential over blocks, turns the last values into those of
+     * the whole array by folding in each predecessor unless the block
+     * restarts.  Pass 3 folds the value at the end of the previous block
+     * into the leading elements of each block, up to its first segment
+     * start.
+     */
+    static void segmentedCumulate(int[] a, boolean[] starts, IntBinaryOperator op) {
+        final Blocks blocks = new Blocks(a.length, MIN_BLOCK);
+        final int[] tails = new int[blocks.count];
+        final boolean[] restarts = new boolean[blocks.count];
+        blocks.forEach((b, lo, hi) -> {
+            int acc = a[lo];
+            boolean restart = starts[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                if (starts[i]) {
+                    acc = a[i];
+                    restart = true;
+                }
+                else {
+                    a[i] = acc = op.applyAsInt(acc, a[i]);
+                }
+            }
+            tails[b] = acc;
+            restarts[b] = restart;
+        });
+        if (blocks.count <= 1)
+            return;
+        for (int b = 1; b < tails.length; b++) {
+            if (!restarts[b])
+                tails[b] = op.applyAsInt(tails[b - 1], tails[b]);
+        }
+        blocks.forEach((b, lo, hi) -> {
+            if (b > 0) {
+                int carry = tails[b - 1];
+                for (int i = lo; i < hi && !starts[i]; i++)
+                    a[i] = op.applyAsInt(carry, a[i]);
+            }
+        });
+    }
+
+    /**
+     * Sets {@code dst[indices[i]] = src[i]} for every {@code i}, in
+     * parallel.
+     */
+    static void scatter(int[] src, int[] indices, int[] dst) {
+        new Blocks(src.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[indices[i]] = src[i];
+        });
+    }
+
+    /**
+     * Sets {@code dst[i] = src[indices[i]]} for every {@code i}, in
+     * parallel.
+     */
+    static void gather(int[] src, int[] indices, int[] dst) {
+        new Blocks(indices.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[i] = src[indices[i]];
+        });
+    }
+
+    /**
+     * Stably partitions {@code a} in place, moving the elements that
+     * satisfy the predicate to the front, and returns their number.
+     *
+     * <p>Pass 1 evaluates the predicate once per element, remembering the
+     * outcome, and counts the selected elements of each block.  The
+     * sequential pass turns the counts into the offsets at which each
+     * block writes its selected and its other elements.  Pass 2 copies the
+     * elements to those offsets in a scratch array, and pass 3 copies the
+     * scratch array back.
+     */
+    static int partition(int[] a, IntPredicate predicate) {
+        final int n = a.length;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final boolean[] selected = new boolean[n];
+        final int[] offsets = new int[blocks.count + 1];
+        blocks.forEach((b, lo, hi) -> {
+            int c = 0;
+            for (int i = lo; i < hi; i++) {
+                if (selected[i] = predicate.test(a[i]))
+                    c++;
+            }
+            offsets[b + 1] = c;
+        });
+        for (int b = 0; b < blocks.count; b++)
+            offsets[b + 1] += offsets[b];
+        final int total = offsets[blocks.count];
+        final int[] tmp = new int[n];
+        blocks.forEach((b, lo, hi) -> {
+            int t = offsets[b], f = total + lo - offsets[b];
+            for (int i = lo; i < hi; i++) {
+                if (selected[i])
+                    tmp[t++] = a[i];
+                else
+                    tmp[f++] = a[i];
+            }
+        });
+        blocks.forEach((b, lo, hi) -> System.arraycopy(tmp, lo, a, lo, hi - lo));
+        return total;
+    }
+
+    /**
+     * Performs a segmented cumulation of {@code a} in place: each element
+     * for which {@code starts} is true, and the first element, begin a new
+     * segment, and the cumulation restarts at each segment.
+     *
+     * <p>Pass 1 cumulates every block as if it began a segment, and
+     * records its last value and whether it contains a segment start.
+     * Pass 2, sequential over blocks, turns the last values into those of
+     * the whole array by folding in each predecessor unless the block
+     * restarts.  Pass 3 folds the value at the end of the previous block
+     * into the leading elements of each block, up to its first segment
+     * start.
+     */
+    static void segmentedCumulate(long[] a, boolean[] starts, LongBinaryOperator op) {
+        final Blocks blocks = new Blocks(a.length, MIN_BLOCK);
+        final long[] tails = new long[blocks.count];
+        final boolean[] restarts = new boolean[blocks.count];
+        blocks.forEach((b, lo, hi) -> {
+            long acc = a[lo];
+            boolean restart = starts[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                if (starts[i]) {
+                    acc = a[i];
+                    restart = true;
+                }
+                else {
+                    a[i] = acc = op.applyAsLong(acc, a[i]);
+                }
+            }
+            tails[b] = acc;
+            restarts[b] = restart;
+        });
+        if (blocks.count <= 1)
+            return;
+        for (int b = 1; b < tails.length; b++) {
+            if (!restarts[b])
+                tails[b] = op.applyAsLong(tails[b - 1], tails[b]);
+        }
+        blocks.forEach((b, lo, hi) -> {
+            if (b > 0) {
+                long carry = tails[b - 1];
+                for (int i = lo; i < hi && !starts[i]; i++)
+                    a[i] = op.applyAsLong(carry, a[i]);
+            }
+        });
+    }
+
+    /**
+     * Sets {@code dst[indices[i]] = src[i]} for every {@code i}, in
+     * parallel.
+     */
+    static void scatter(long[] src, int[] indices, long[] dst) {
+        new Blocks(src.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[indices[i]] = src[i];
+        });
+    }
+
+    /**
+     * Sets {@code dst[i] = src[indices[i]]} for every {@code i}, in
+     * parallel.
+     */
+    static void gather(long[] src, int[] indices, long[] dst) {
+        new Blocks(indices.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[i] = src[indices[i]];
+        });
+    }
+
+    /**
+     * Stably partitions {@code a} in place, moving the elements that
+     * satisfy the predicate to the front, and returns their number.
+     *
+     * <p>Pass 1 evaluates the predicate once per element, remembering the
+     * outcome, and counts the selected elements of each block.  The
+     * sequential pass turns the counts into the offsets at which each
+     * block writes its selected and its other elements.  Pass 2 copies the
+     * elements to those offsets in a scratch array, and pass 3 copies the
+     * scratch array back.
+     */
+    static int partition(long[] a, LongPredicate predicate) {
+        final int n = a.length;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final boolean[] selected = new boolean[n];
+        final int[] offsets = new int[blocks.count + 1];
+        blocks.forEach((b, lo, hi) -> {
+            int c = 0;
+            for (int i = lo; i < hi; i++) {
+                if (selected[i] = predicate.test(a[i]))
+                    c++;
+            }
+            offsets[b + 1] = c;
+        });
+        for (int b = 0; b < blocks.count; b++)
+            offsets[b + 1] += offsets[b];
+        final int total = offsets[blocks.count];
+        final long[] tmp = new long[n];
+        blocks.forEach((b, lo, hi) -> {
+            int t = offsets[b], f = total + lo - offsets[b];
+            for (int i = lo; i < hi; i++) {
+                if (selected[i])
+                    tmp[t++] = a[i];
+                else
+                    tmp[f++] = a[i];
+            }
+        });
+        blocks.forEach((b, lo, hi) -> System.arraycopy(tmp, lo, a, lo, hi - lo));
+        return total;
+    }
+
+    /**
+     * Performs a segmented cumulation of {@code a} in place: each element
+     * for which {@code starts} is true, and the first element, begin a new
+     * segment, and the cumulation restarts at each segment.
+     *
+     * <p>Pass 1 cumulates every block as if it began a segment, and
+     * records its last value and whether it contains a segment start.
+     * Pass 2, sequential over blocks, turns the last values into those of
+     * the whole array by folding in each predecessor unless the block
+     * restarts.  Pass 3 folds the value at the end of the previous block
+     * into the leading elements of each block, up to its first segment
+     * start.
+     */
+    static void segmentedCumulate(double[] a, boolean[] starts, DoubleBinaryOperator op) {
+        final Blocks blocks = new Blocks(a.length, MIN_BLOCK);
+        final double[] tails = new double[blocks.count];
+        final boolean[] restarts = new boolean[blocks.count];
+        blocks.forEach((b, lo, hi) -> {
+            double acc = a[lo];
+            boolean restart = starts[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                if (starts[i]) {
+                    acc = a[i];
+                    restart = true;
+                }
+                else {
+                    a[i] = acc = op.applyAsDouble(acc, a[i]);
+                }
+            }
+            tails[b] = acc;
+            restarts[b] = restart;
+        });
+        if (blocks.count <= 1)
+            return;
+        for (int b = 1; b < tails.length; b++) {
+            if (!restarts[b])
+                tails[b] = op.applyAsDouble(tails[b - 1], tails[b]);
+        }
+        blocks.forEach((b, lo, hi) -> {
+            if (b > 0) {
+                double carry = tails[b - 1];
+                for (int i = lo; i < hi && !starts[i]; i++)
+                    a[i] = op.applyAsDouble(carry, a[i]);
+            }
+        });
+    }
+
+    /**
+     * Sets {@code dst[indices[i]] = src[i]} for every {@code i}, in
+     * parallel.
+     */
+    static void scatter(double[] src, int[] indices, double[] dst) {
+        new Blocks(src.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[indices[i]] = src[i];
+        });
+    }
+
+    /**
+     * Sets {@code dst[i] = src[indices[i]]} for every {@code i}, in
+     * parallel.
+     */
+    static void gather(double[] src, int[] indices, double[] dst) {
+        new Blocks(indices.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                dst[i] = src[indices[i]];
+        });
+    }
+
+    /**
+     * Stably partitions {@code a} in place, moving the elements that
+     * satisfy the predicate to the front, and returns their number.
+     *
+     * <p>Pass 1 evaluates the predicate once per element, remembering the
+     * outcome, and counts the selected elements of each block.  The
+     * sequential pass turns the counts into the offsets at which each
+     * block writes its selected and its other elements.  Pass 2 copies the
+     * elements to those offsets in a scratch array, and pass 3 copies the
+     * scratch array back.
+     */
+    static int partition(double[] a, DoublePredicate predicate) {
+        final int n = a.length;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final boolean[] selected = new boolean[n];
+        final int[] offsets = new int[blocks.count + 1];
+        blocks.forEach((b, lo, hi) -> {
+            int c = 0;
+            for (int i = lo; i < hi; i++) {
+                if (selected[i] = predicate.test(a[i]))
+                    c++;
+            }
+            offsets[b + 1] = c;
+        });
+        for (int b = 0; b < blocks.count; b++)
+            offsets[b + 1] += offsets[b];
+        final int total = offsets[blocks.count];
+        final double[] tmp = new double[n];
+        blocks.forEach((b, lo, hi) -> {
+            int t = offsets[b], f = total + lo - offsets[b];
+            for (int i = lo; i < hi; i++) {
+                if (selected[i])
+                    tmp[t++] = a[i];
+                else
+                    tmp[f++] = a[i];
+            }
+        });
+        blocks.forEach((b, lo, hi) -> System.arraycopy(tmp, lo, a, lo, hi - lo));
+        return total;
+    }
+
+    /*
+     * Parallel radix sort.
+     *
+     * The parallel versions of the radix sorts in DualPivotQuicksort,
+     * using the same keys and digits.  One parallel pass counts every
+     * digit of every block; the totals over blocks decide which passes
+     * can be skipped, and do not change as the elements move.  Each pass
+     * that is not skipped turns the per-block counts of its digit into
+     * the offsets at which each block writes each bucket, block after
+     * block within a bucket, and scatters every block in parallel, which
+     * keeps the sort stable.  The counts of the first pass are those of
+     * the original order; later passes count their digit again first.
+     */
+
+    private static final int RADIX_BITS = DualPivotQuicksort.RADIX_BITS;
+    private static final int RADIX = DualPivotQuicksort.RADIX;
+
+    /**
+     * Returns whether pass {@code p} over {@code n} keys can be skipped
+     * because all keys have the same digit.
+     */
+    private static boolean radixSkip(int[][][] counts, int p, int n) {
+        for (int d = 0; d < RADIX; d++) {
+            long total = 0;
+            for (int[][] c : counts)
+                total += c[p][d];
+            if (total == n)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Turns the per-block counts of the digit of pass {@code p} into the
+     * indices, from {@code base}, at which each block writes each digit.
+     */
+    private static void radixOffsets(int[][][] counts, int p, int base) {
+        int sum = base;
+        for (int d = 0; d < RADIX; d++) {
+            for (int[][] c : counts) {
+                int x = c[p][d];
+                c[p][d] = sum;
+                sum += x;
+            }
+        }
+    }
+
+    /**
+     * Sorts {@code a[from, to)} by parallel radix sort.
+     */
+    static void radixSort(int[] a, int from, int to) {
+        final int n = to - from;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Integer.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = from + lo; i < from + hi; i++) {
+                int key = DualPivotQuicksort.radixKey(a[i]);
+                for (int p = 0; p < passes; p++)
+                    c[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        int[] src = a, dst = new int[n];
+        int srcBase = from, dstBase = 0;
+        boolean moved = false;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            final int pass = p, shift = p * RADIX_BITS, sb = srcBase;
+            final int[] s = src, d = dst;
+            if (moved) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = sb + lo; i < sb + hi; i++)
+                        c[(DualPivotQuicksort.radixKey(s[i]) >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, dstBase);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = sb + lo; i < sb + hi; i++) {
+                    int v = s[i];
+                    d[o[(DualPivotQuicksort.radixKey(v) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            });
+            src = d; dst = s;
+            srcBase = dstBase; dstBase = sb;
+            moved = true;
+        }
+        if (src != a) {
+            final int[] s = src;
+            blocks.forEach((b, lo, hi) -> System.arraycopy(s, lo, a, from + lo, hi - lo));
+        }
+    }
+
+    /**
+     * Sorts {@code a[from, to)} by parallel radix sort.
+     */
+    static void radixSort(long[] a, int from, int to) {
+        final int n = to - from;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Long.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = from + lo; i < from + hi; i++) {
+                long key = DualPivotQuicksort.radixKey(a[i]);
+                for (int p = 0; p < passes; p++)
+                    c[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        long[] src = a, dst = new long[n];
+        int srcBase = from, dstBase = 0;
+        boolean moved = false;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            final int pass = p, shift = p * RADIX_BITS, sb = srcBase;
+            final long[] s = src, d = dst;
+            if (moved) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = sb + lo; i < sb + hi; i++)
+                        c[(int) (DualPivotQuicksort.radixKey(s[i]) >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, dstBase);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = sb + lo; i < sb + hi; i++) {
+                    long v = s[i];
+                    d[o[(int) (DualPivotQuicksort.radixKey(v) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            });
+            src = d; dst = s;
+            srcBase = dstBase; dstBase = sb;
+            moved = true;
+        }
+        if (src != a) {
+            final long[] s = src;
+            blocks.forEach((b, lo, hi) -> System.arraycopy(s, lo, a, from + lo, hi - lo));
+        }
+    }
+
+    /**
+     * Sorts {@code a[from, to)} by parallel radix sort.
+     */
+    static void radixSort(float[] a, int from, int to) {
+        final int n = to - from;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Integer.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = from + lo; i < from + hi; i++) {
+                int key = DualPivotQuicksort.radixKey(a[i]);
+                for (int p = 0; p < passes; p++)
+                    c[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        float[] src = a, dst = new float[n];
+        int srcBase = from, dstBase = 0;
+        boolean moved = false;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            final int pass = p, shift = p * RADIX_BITS, sb = srcBase;
+            final float[] s = src, d = dst;
+            if (moved) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = sb + lo; i < sb + hi; i++)
+                        c[(DualPivotQuicksort.radixKey(s[i]) >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, dstBase);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = sb + lo; i < sb + hi; i++) {
+                    float v = s[i];
+                    d[o[(DualPivotQuicksort.radixKey(v) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            });
+            src = d; dst = s;
+            srcBase = dstBase; dstBase = sb;
+            moved = true;
+        }
+        if (src != a) {
+            final float[] s = src;
+            blocks.forEach((b, lo, hi) -> System.arraycopy(s, lo, a, from + lo, hi - lo));
+        }
+    }
+
+    /**
+     * Sorts {@code a[from, to)} by parallel radix sort.
+     */
+    static void radixSort(double[] a, int from, int to) {
+        final int n = to - from;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Long.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = from + lo; i < from + hi; i++) {
+                long key = DualPivotQuicksort.radixKey(a[i]);
+                for (int p = 0; p < passes; p++)
+                    c[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        double[] src = a, dst = new double[n];
+        int srcBase = from, dstBase = 0;
+        boolean moved = false;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            final int pass = p, shift = p * RADIX_BITS, sb = srcBase;
+            final double[] s = src, d = dst;
+            if (moved) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = sb + lo; i < sb + hi; i++)
+                        c[(int) (DualPivotQuicksort.radixKey(s[i]) >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, dstBase);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = sb + lo; i < sb + hi; i++) {
+                    double v = s[i];
+                    d[o[(int) (DualPivotQuicksort.radixKey(v) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            });
+            src = d; dst = s;
+            srcBase = dstBase; dstBase = sb;
+            moved = true;
+        }
+        if (src != a) {
+            final double[] s = src;
+            blocks.forEach((b, lo, hi) -> System.arraycopy(s, lo, a, from + lo, hi - lo));
+        }
+    }
+
+    /**
+     * Returns, computed in parallel, the indices of the elements of the
+     * array in the order that sorts it, equal elements in the order of
+     * their indices.
+     */
+    static int[] argsort(int[] a) {
+        final int[] keys = new int[a.length];
+        new Blocks(a.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                keys[i] = DualPivotQuicksort.radixKey(a[i]);
+        });
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns, computed in parallel, the indices of the elements of the
+     * array in the order that sorts it, equal elements in the order of
+     * their indices.
+     */
+    static int[] argsort(long[] a) {
+        final long[] keys = new long[a.length];
+        new Blocks(a.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                keys[i] = DualPivotQuicksort.radixKey(a[i]);
+        });
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns, computed in parallel, the indices of the elements of the
+     * array in the order that sorts it, equal elements in the order of
+     * their indices.
+     */
+    static int[] argsort(float[] a) {
+        final int[] keys = new int[a.length];
+        new Blocks(a.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                keys[i] = DualPivotQuicksort.radixKey(a[i]);
+        });
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns, computed in parallel, the indices of the elements of the
+     * array in the order that sorts it, equal elements in the order of
+     * their indices.
+     */
+    static int[] argsort(double[] a) {
+        final long[] keys = new long[a.length];
+        new Blocks(a.length, MIN_BLOCK).forEach((b, lo, hi) -> {
+            for (int i = lo; i < hi; i++)
+                keys[i] = DualPivotQuicksort.radixKey(a[i]);
+        });
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Sorts the unsigned keys, which are overwritten, by parallel radix
+     * sort, and returns the original indices of the sorted keys.
+     */
+    private static int[] radixArgsort(int[] keys) {
+        final int n = keys.length;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Integer.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = lo; i < hi; i++) {
+                int key = keys[i];
+                for (int p = 0; p < passes; p++)
+                    c[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        int[] src = keys, dst = null, index = null, indexTo = null;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            if (dst == null)
+                dst = new int[n];
+            if (indexTo == null)
+                indexTo = new int[n];
+            final int pass = p, shift = p * RADIX_BITS;
+            final int[] s = src, d = dst, x = index, xd = indexTo;
+            if (x != null) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = lo; i < hi; i++)
+                        c[(s[i] >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, 0);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = lo; i < hi; i++) {
+                    int key = s[i];
+                    int j = o[(key >>> shift) & (RADIX - 1)]++;
+                    d[j] = key;
+                    xd[j] = (x == null) ? i : x[i];
+                }
+            });
+            src = d; dst = s;
+            index = xd; indexTo = x;
+        }
+        if (index == null) {
+            final int[] x = index = new int[n];
+            blocks.forEach((b, lo, hi) -> {
+                for (int i = lo; i < hi; i++)
+                    x[i] = i;
+            });
+        }
+        return index;
+    }
+
+    /**
+     * Sorts the unsigned keys, which are overwritten, by parallel radix
+     * sort, and returns the original indices of the sorted keys.
+     */
+    private static int[] radixArgsort(long[] keys) {
+        final int n = keys.length;
+        final Blocks blocks = new Blocks(n, MIN_BLOCK);
+        final int passes = Long.SIZE / RADIX_BITS;
+        final int[][][] counts = new int[blocks.count][][];
+        blocks.forEach((b, lo, hi) -> {
+            int[][] c = new int[passes][RADIX];
+            for (int i = lo; i < hi; i++) {
+                long key = keys[i];
+                for (int p = 0; p < passes; p++)
+                    c[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+            counts[b] = c;
+        });
+        long[] src = keys, dst = null;
+        int[] index = null, indexTo = null;
+        for (int p = 0; p < passes; p++) {
+            if (radixSkip(counts, p, n))
+                continue;
+            if (dst == null)
+                dst = new long[n];
+            if (indexTo == null)
+                indexTo = new int[n];
+            final int pass = p, shift = p * RADIX_BITS;
+            final long[] s = src, d = dst;
+            final int[] x = index, xd = indexTo;
+            if (x != null) {
+                blocks.forEach((b, lo, hi) -> {
+                    int[] c = counts[b][pass];
+                    java.util.Arrays.fill(c, 0);
+                    for (int i = lo; i < hi; i++)
+                        c[(int) (s[i] >>> shift) & (RADIX - 1)]++;
+                });
+            }
+            radixOffsets(counts, pass, 0);
+            blocks.forEach((b, lo, hi) -> {
+                int[] o = counts[b][pass];
+                for (int i = lo; i < hi; i++) {
+                    long key = s[i];
+                    int j = o[(int) (key >>> shift) & (RADIX - 1)]++;
+                    d[j] = key;
+                    xd[j] = (x == null) ? i : x[i];
+                }
+            });
+            src = d; dst = s;
+            index = xd; indexTo = x;
+        }
+        if (index == null) {
+            final int[] x = index = new int[n];
+            blocks.forEach((b, lo, hi) -> {
+                for (int i = lo; i < hi; i++)
+                    x[i] = i;
+            });
+        }
+        return index;
+    }
+}
@@ -72,6 +72,15 @@ public class Arrays {
      */
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * The minimum length of an int, long, float or double array (range)
+     * for which a parallel sort uses radix sort instead of sort-merge.
+     * Radix sort takes a fixed number of passes over the array whatever
+     * its length, so it overtakes the comparison-bound merges on large
+     * arrays.
+     */
+    private static final int MIN_ARRAY_RADIX_SORT_LENGTH = 1 << 20;
+
     // Suppresses default constructor, ensuring non-instantiability.
     private Arrays() {}
 
@@ -131,6 +140,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      */
@@ -150,6 +161,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -172,6 +185,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      */
@@ -190,6 +205,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -340,6 +357,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      */
@@ -366,6 +385,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -396,6 +417,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      */
@@ -422,6 +445,8 @@ public class Arrays {
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
      * faster than traditional (one-pivot) Quicksort implementations.
+     * Arrays of at least 2<sup>16</sup> elements that are not nearly sorted
+     * are instead sorted by an LSD radix sort.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -659,6 +684,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      *
@@ -669,6 +696,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, 0, n);
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
@@ -692,6 +721,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -709,6 +740,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, fromIndex, toIndex);
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
@@ -729,6 +762,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      *
@@ -739,6 +774,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, 0, n);
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
@@ -762,6 +799,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -779,6 +818,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, fromIndex, toIndex);
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
@@ -807,6 +848,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      *
@@ -817,6 +860,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, 0, n);
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
@@ -848,6 +893,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -865,6 +912,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, fromIndex, toIndex);
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
@@ -893,6 +942,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      *
@@ -903,6 +954,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, 0, n);
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
@@ -934,6 +987,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel LSD radix sort, with the same space requirement.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -951,6 +1006,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArrayScanHelpers.radixSort(a, fromIndex, toIndex);
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
@@ -1749,6 +1806,515 @@ public class Arrays {
                     (null, op, array, fromIndex, toIndex).invoke();
     }
 
+    // Parallel scans, scatter/gather, histogram, partition and argsort
+
+    /**
+     * Cumulates, in parallel, each segment of the given array in place,
+     * using the supplied function.  A segment begins at index 0 and at
+     * every index {@code i} for which {@code segmentStarts[i]} is true, and
+     * the cumulation restarts at the first element of each segment.  For
+     * example if the array initially holds {@code [2, 1, 0, 3, 4]}, the segments
+     * start at indices 0 and 2, and the operation performs addition, then
+     * upon return the array holds {@code [2, 3, 0, 3, 7]}.  This is the building
+     * block of a group-by over an array sorted by key, with
+     * {@code segmentStarts} marking the first row of each group.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts flags marking the first element of each segment
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if an array or the function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(int[] array, boolean[] segmentStarts,
+                                               IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length != segmentStarts.length)
+            throw new IllegalArgumentException("array and segmentStarts differ in length");
+        if (array.length > 0)
+            ArrayScanHelpers.segmentedCumulate(array, segmentStarts, op);
+    }
+
+    /**
+     * Copies, in parallel, each element of {@code src} to the position of
+     * {@code dst} given by the corresponding element of {@code indices},
+     * as if by {@code dst[indices[i]] = src[i]} for every {@code i}.  If
+     * {@code indices} contains duplicates, which of the elements mapped to
+     * the same position is stored there is unspecified.
+     *
+     * @param src the elements to scatter
+     * @param indices the target position of each element of {@code src}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code src} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code dst.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelScatter(int[] src, int[] indices, int[] dst) {
+        if (src.length != indices.length)
+            throw new IllegalArgumentException("src and indices differ in length");
+        Objects.requireNonNull(dst);
+        ArrayScanHelpers.scatter(src, indices, dst);
+    }
+
+    /**
+     * Fills {@code dst}, in parallel, with the elements of {@code src} at
+     * the positions given by {@code indices}, as if by
+     * {@code dst[i] = src[indices[i]]} for every {@code i}.
+     *
+     * @param src the array to gather from
+     * @param indices the position in {@code src} of each element of
+     *     {@code dst}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code dst} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code src.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelGather(int[] src, int[] indices, int[] dst) {
+        if (dst.length != indices.length)
+            throw new IllegalArgumentException("dst and indices differ in length");
+        Objects.requireNonNull(src);
+        ArrayScanHelpers.gather(src, indices, dst);
+    }
+
+    /**
+     * Reorders, in parallel, the given array so that the elements matching
+     * the predicate precede those that do not, preserving the relative
+     * order of the elements within each group.  The predicate is evaluated
+     * exactly once per element.  A scratch array of the same length is
+     * allocated.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param predicate a side-effect-free predicate selecting the elements
+     * to move to the front
+     * @return the number of elements matching the predicate
+     * @throws NullPointerException if the array or the predicate is null
+     * @since 1.8
+     */
+    public static int parallelPartition(int[] array, IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return ArrayScanHelpers.partition(array, predicate);
+    }
+
+    /**
+     * Cumulates, in parallel, each segment of the given array in place,
+     * using the supplied function.  A segment begins at index 0 and at
+     * every index {@code i} for which {@code segmentStarts[i]} is true, and
+     * the cumulation restarts at the first element of each segment.  For
+     * example if the array initially holds {@code [2, 1, 0, 3, 4]}, the segments
+     * start at indices 0 and 2, and the operation performs addition, then
+     * upon return the array holds {@code [2, 3, 0, 3, 7]}.  This is the building
+     * block of a group-by over an array sorted by key, with
+     * {@code segmentStarts} marking the first row of each group.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts flags marking the first element of each segment
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if an array or the function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(long[] array, boolean[] segmentStarts,
+                                               LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length != segmentStarts.length)
+            throw new IllegalArgumentException("array and segmentStarts differ in length");
+        if (array.length > 0)
+            ArrayScanHelpers.segmentedCumulate(array, segmentStarts, op);
+    }
+
+    /**
+     * Copies, in parallel, each element of {@code src} to the position of
+     * {@code dst} given by the corresponding element of {@code indices},
+     * as if by {@code dst[indices[i]] = src[i]} for every {@code i}.  If
+     * {@code indices} contains duplicates, which of the elements mapped to
+     * the same position is stored there is unspecified.
+     *
+     * @param src the elements to scatter
+     * @param indices the target position of each element of {@code src}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code src} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code dst.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelScatter(long[] src, int[] indices, long[] dst) {
+        if (src.length != indices.length)
+            throw new IllegalArgumentException("src and indices differ in length");
+        Objects.requireNonNull(dst);
+        ArrayScanHelpers.scatter(src, indices, dst);
+    }
+
+    /**
+     * Fills {@code dst}, in parallel, with the elements of {@code src} at
+     * the positions given by {@code indices}, as if by
+     * {@code dst[i] = src[indices[i]]} for every {@code i}.
+     *
+     * @param src the array to gather from
+     * @param indices the position in {@code src} of each element of
+     *     {@code dst}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code dst} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code src.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelGather(long[] src, int[] indices, long[] dst) {
+        if (dst.length != indices.length)
+            throw new IllegalArgumentException("dst and indices differ in length");
+        Objects.requireNonNull(src);
+        ArrayScanHelpers.gather(src, indices, dst);
+    }
+
+    /**
+     * Reorders, in parallel, the given array so that the elements matching
+     * the predicate precede those that do not, preserving the relative
+     * order of the elements within each group.  The predicate is evaluated
+     * exactly once per element.  A scratch array of the same length is
+     * allocated.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param predicate a side-effect-free predicate selecting the elements
+     * to move to the front
+     * @return the number of elements matching the predicate
+     * @throws NullPointerException if the array or the predicate is null
+     * @since 1.8
+     */
+    public static int parallelPartition(long[] array, LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return ArrayScanHelpers.partition(array, predicate);
+    }
+
+    /**
+     * Cumulates, in parallel, each segment of the given array in place,
+     * using the supplied function.  A segment begins at index 0 and at
+     * every index {@code i} for which {@code segmentStarts[i]} is true, and
+     * the cumulation restarts at the first element of each segment.  For
+     * example if the array initially holds {@code [2.0, 1.0, 0.0, 3.0, 4.0]}, the segments
+     * start at indices 0 and 2, and the operation performs addition, then
+     * upon return the array holds {@code [2.0, 3.0, 0.0, 3.0, 7.0]}.  This is the building
+     * block of a group-by over an array sorted by key, with
+     * {@code segmentStarts} marking the first row of each group.
+     *
+     * <p> Because floating-point operations may not be strictly associative,
+     * the returned result may not be identical to the value that would be
+     * obtained if the operation was performed sequentially.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts flags marking the first element of each segment
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if an array or the function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(double[] array, boolean[] segmentStarts,
+                                               DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length != segmentStarts.length)
+            throw new IllegalArgumentException("array and segmentStarts differ in length");
+        if (array.length > 0)
+            ArrayScanHelpers.segmentedCumulate(array, segmentStarts, op);
+    }
+
+    /**
+     * Copies, in parallel, each element of {@code src} to the position of
+     * {@code dst} given by the corresponding element of {@code indices},
+     * as if by {@code dst[indices[i]] = src[i]} for every {@code i}.  If
+     * {@code indices} contains duplicates, which of the elements mapped to
+     * the same position is stored there is unspecified.
+     *
+     * @param src the elements to scatter
+     * @param indices the target position of each element of {@code src}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code src} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code dst.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelScatter(double[] src, int[] indices, double[] dst) {
+        if (src.length != indices.length)
+            throw new IllegalArgumentException("src and indices differ in length");
+        Objects.requireNonNull(dst);
+        ArrayScanHelpers.scatter(src, indices, dst);
+    }
+
+    /**
+     * Fills {@code dst}, in parallel, with the elements of {@code src} at
+     * the positions given by {@code indices}, as if by
+     * {@code dst[i] = src[indices[i]]} for every {@code i}.
+     *
+     * @param src the array to gather from
+     * @param indices the position in {@code src} of each element of
+     *     {@code dst}
+     * @param dst the destination array
+     * @throws IllegalArgumentException if {@code dst} and {@code indices}
+     *     differ in length
+     * @throws ArrayIndexOutOfBoundsException if an index is negative or not
+     *     less than {@code src.length}, in which case {@code dst} may have
+     *     been partially updated
+     * @throws NullPointerException if an array is null
+     * @since 1.8
+     */
+    public static void parallelGather(double[] src, int[] indices, double[] dst) {
+        if (dst.length != indices.length)
+            throw new IllegalArgumentException("dst and indices differ in length");
+        Objects.requireNonNull(src);
+        ArrayScanHelpers.gather(src, indices, dst);
+    }
+
+    /**
+     * Reorders, in parallel, the given array so that the elements matching
+     * the predicate precede those that do not, preserving the relative
+     * order of the elements within each group.  The predicate is evaluated
+     * exactly once per element.  A scratch array of the same length is
+     * allocated.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param predicate a side-effect-free predicate selecting the elements
+     * to move to the front
+     * @return the number of elements matching the predicate
+     * @throws NullPointerException if the array or the predicate is null
+     * @since 1.8
+     */
+    public static int parallelPartition(double[] array, DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return ArrayScanHelpers.partition(array, predicate);
+    }
+
+    /**
+     * Counts, in parallel, the occurrences of each key in the given array.
+     * Together with {@link #parallelPrefix(int[], IntBinaryOperator)} on
+     * the counts and {@link #parallelScatter(int[], int[], int[])}, this
+     * gives a parallel counting sort, or group-by, of rows with small
+     * integer keys.
+     *
+     * @param keys the keys, each in the range {@code [0, buckets)}
+     * @param buckets the number of distinct keys
+     * @return an array of length {@code buckets} whose element {@code k} is
+     *     the number of occurrences of {@code k} in {@code keys}
+     * @throws IllegalArgumentException if {@code buckets} is negative
+     * @throws ArrayIndexOutOfBoundsException if a key is negative or not
+     *     less than {@code buckets}
+     * @throws NullPointerException if {@code keys} is null
+     * @since 1.8
+     */
+    public static int[] parallelHistogram(int[] keys, int buckets) {
+        if (buckets < 0)
+            throw new IllegalArgumentException("buckets < 0: " + buckets);
+        return ArrayScanHelpers.histogram(keys, buckets);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(int[], int[], int[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] argsort(int[] a) {
+        return DualPivotQuicksort.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(long[], int[], long[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] argsort(long[] a) {
+        return DualPivotQuicksort.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(int[], int[], int[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * <p>The order is that of {@link #sort(float[])}: {@code -0.0f} precedes
+     * {@code 0.0f} and all {@code Float.NaN} values follow the other values.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] argsort(float[] a) {
+        return DualPivotQuicksort.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(double[], int[], double[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * <p>The order is that of {@link #sort(double[])}: {@code -0.0d} precedes
+     * {@code 0.0d} and all {@code Double.NaN} values follow the other values.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] argsort(double[] a) {
+        return DualPivotQuicksort.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(int[], int[], int[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices, done in parallel on the
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool}.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] parallelArgsort(int[] a) {
+        return ArrayScanHelpers.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(long[], int[], long[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices, done in parallel on the
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool}.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] parallelArgsort(long[] a) {
+        return ArrayScanHelpers.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(int[], int[], int[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * <p>The order is that of {@link #sort(float[])}: {@code -0.0f} precedes
+     * {@code 0.0f} and all {@code Float.NaN} values follow the other values.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices, done in parallel on the
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool}.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] parallelArgsort(float[] a) {
+        return ArrayScanHelpers.argsort(a);
+    }
+
+    /**
+     * Returns the permutation that sorts the given array: the indices of
+     * its elements listed in ascending numerical order of the elements,
+     * equal elements in ascending order of their indices.  The array is
+     * not modified.  Applying the permutation to other arrays with
+     * {@link #parallelGather(double[], int[], double[])}, or its variants for
+     * other element types, sorts columns of rows together by this key.
+     *
+     * <p>The order is that of {@link #sort(double[])}: {@code -0.0d} precedes
+     * {@code 0.0d} and all {@code Double.NaN} values follow the other values.
+     *
+     * @implNote The permutation is computed by an LSD radix sort of the
+     * elements paired with their indices, done in parallel on the
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool}.
+     *
+     * @param a the array whose sorting permutation is returned
+     * @return an array {@code p} of length {@code a.length}, holding each
+     *     index once, such that {@code a[p[0]], a[p[1]], ...} is in
+     *     ascending order
+     * @throws NullPointerException if {@code a} is null
+     * @since 1.8
+     */
+    public static int[] parallelArgsort(double[] a) {
+        return ArrayScanHelpers.argsort(a);
+    }
+
     // Searching
 
     /**
@@ -5000,7 +5566,9 @@ public class Arrays {
      * @since 1.8
      */
     public static IntStream stream(int[] array) {
-        return stream(array, 0, array.length);
+        // Array-backed source, so that sequential reductions applied
+        // directly to the stream run over the array in place
+        return java8.java.util.stream.IntStream.of(array);
     }
 
     /**
@@ -5030,7 +5598,7 @@ public class Arrays {
      * @since 1.8
      */
     public static LongStream stream(long[] array) {
-        return stream(array, 0, array.length);
+        return java8.java.util.stream.LongStream.of(array);
     }
 
     /**
@@ -5060,7 +5628,7 @@ public class Arrays {
      * @since 1.8
      */
     public static DoubleStream stream(double[] array) {
-        return stream(array, 0, array.length);
+        return java8.java.util.stream.DoubleStream.of(array);
     }
 
     /**
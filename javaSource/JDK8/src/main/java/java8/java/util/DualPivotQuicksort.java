@@ -89,6 +89,23 @@ final class DualPivotQuicksort {
      */
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    /**
+     * If the length of an int, long, float or double array to be sorted
+     * is at least this constant, and the array is not highly structured,
+     * LSD radix sort is used in preference to Quicksort.
+     */
+    static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+    /**
+     * The number of bits in a digit of radix sort.
+     */
+    static final int RADIX_BITS = 8;
+
+    /**
+     * The number of buckets in a pass of radix sort.
+     */
+    static final int RADIX = 1 << RADIX_BITS;
+
     /*
      * Sorting methods for seven primitive types.
      */
@@ -138,11 +155,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use radix
+             * sort on large ranges, Quicksort on the others.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -586,11 +607,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use radix
+             * sort on large ranges, Quicksort on the others.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2134,11 +2159,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use radix
+             * sort on large ranges, Quicksort on the others.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2673,11 +2702,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use radix
+             * sort on large ranges, Quicksort on the others.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -3075,4 +3108,404 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    /*
+     * Radix sort.
+     *
+     * Radix sort replaces Quicksort on large ranges of int, long, float
+     * and double that are not highly structured. It is an LSD sort on
+     * eight-bit digits of an unsigned key that orders like the elements:
+     * the sign bit of ints and longs is flipped, and the bits of floats
+     * and doubles are flipped entirely if negative and in the sign bit
+     * otherwise, after collapsing NaNs to the canonical NaN, so that
+     * -0.0 sorts before 0.0 and NaNs sort last, as in Phase 3 of the
+     * floating-point sorts. One pass over the range counts all digits at
+     * once; a pass in which every key has the same digit does not move
+     * anything and is skipped, so narrow key ranges cost fewer passes.
+     * Each pass is a stable scatter between the range and a workspace of
+     * the same length.
+     *
+     * The argsort methods sort (key, index) pairs the same way, and
+     * return the indices, which, the sort being stable, list equal keys
+     * in their original order.
+     */
+
+    /**
+     * Returns an unsigned key for radix sort that orders like the value.
+     */
+    static int radixKey(int v) {
+        return v ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns an unsigned key for radix sort that orders like the value.
+     */
+    static long radixKey(long v) {
+        return v ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns an unsigned key for radix sort that orders like the value.
+     */
+    static int radixKey(float v) {
+        int bits = Float.floatToIntBits(v);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns an unsigned key for radix sort that orders like the value.
+     */
+    static long radixKey(double v) {
+        long bits = Double.doubleToLongBits(v);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Turns the digit counts of a radix sort pass over {@code n} keys into
+     * the index, from {@code base}, at which each digit's bucket starts,
+     * and returns true; or returns false, leaving the counts unchanged, if
+     * all the keys have the same digit and the pass can be skipped.
+     */
+    static boolean radixOffsets(int[] count, int n, int base) {
+        for (int c : count) {
+            if (c == n) {
+                return false;
+            }
+        }
+        for (int d = 0, sum = base; d < RADIX; ++d) {
+            int c = count[d];
+            count[d] = sum;
+            sum += c;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array by radix sort, using the
+     * given workspace array slice if it is large enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(int[] a, int left, int right,
+                                  int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+        int[][] count = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        for (int k = left; k <= right; ++k) {
+            int key = radixKey(a[k]);
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        int[] src = a, dst = work;
+        int srcBase = left, dstBase = workBase;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, dstBase)) {
+                continue;
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = srcBase, end = srcBase + n; k < end; ++k) {
+                int ak = src[k];
+                dst[offset[(radixKey(ak) >>> shift) & (RADIX - 1)]++] = ak;
+            }
+            int[] t = src; src = dst; dst = t;
+            int b = srcBase; srcBase = dstBase; dstBase = b;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by radix sort, using the
+     * given workspace array slice if it is large enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(long[] a, int left, int right,
+                                  long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (int k = left; k <= right; ++k) {
+            long key = radixKey(a[k]);
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        long[] src = a, dst = work;
+        int srcBase = left, dstBase = workBase;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, dstBase)) {
+                continue;
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = srcBase, end = srcBase + n; k < end; ++k) {
+                long ak = src[k];
+                dst[offset[(int) (radixKey(ak) >>> shift) & (RADIX - 1)]++] = ak;
+            }
+            long[] t = src; src = dst; dst = t;
+            int b = srcBase; srcBase = dstBase; dstBase = b;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by radix sort, using the
+     * given workspace array slice if it is large enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(float[] a, int left, int right,
+                                  float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+        int[][] count = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        for (int k = left; k <= right; ++k) {
+            int key = radixKey(a[k]);
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        float[] src = a, dst = work;
+        int srcBase = left, dstBase = workBase;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, dstBase)) {
+                continue;
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = srcBase, end = srcBase + n; k < end; ++k) {
+                float ak = src[k];
+                dst[offset[(radixKey(ak) >>> shift) & (RADIX - 1)]++] = ak;
+            }
+            float[] t = src; src = dst; dst = t;
+            int b = srcBase; srcBase = dstBase; dstBase = b;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by radix sort, using the
+     * given workspace array slice if it is large enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(double[] a, int left, int right,
+                                  double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (int k = left; k <= right; ++k) {
+            long key = radixKey(a[k]);
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        double[] src = a, dst = work;
+        int srcBase = left, dstBase = workBase;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, dstBase)) {
+                continue;
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = srcBase, end = srcBase + n; k < end; ++k) {
+                double ak = src[k];
+                dst[offset[(int) (radixKey(ak) >>> shift) & (RADIX - 1)]++] = ak;
+            }
+            double[] t = src; src = dst; dst = t;
+            int b = srcBase; srcBase = dstBase; dstBase = b;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, left, n);
+        }
+    }
+
+    /**
+     * Returns the indices of the elements of the array in the order that
+     * sorts it, equal elements in the order of their indices.
+     *
+     * @param a the array whose sorting order is returned
+     */
+    static int[] argsort(int[] a) {
+        int[] keys = new int[a.length];
+        for (int k = 0; k < keys.length; ++k) {
+            keys[k] = radixKey(a[k]);
+        }
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns the indices of the elements of the array in the order that
+     * sorts it, equal elements in the order of their indices.
+     *
+     * @param a the array whose sorting order is returned
+     */
+    static int[] argsort(long[] a) {
+        long[] keys = new long[a.length];
+        for (int k = 0; k < keys.length; ++k) {
+            keys[k] = radixKey(a[k]);
+        }
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns the indices of the elements of the array in the order that
+     * sorts it, equal elements in the order of their indices.
+     *
+     * @param a the array whose sorting order is returned
+     */
+    static int[] argsort(float[] a) {
+        int[] keys = new int[a.length];
+        for (int k = 0; k < keys.length; ++k) {
+            keys[k] = radixKey(a[k]);
+        }
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Returns the indices of the elements of the array in the order that
+     * sorts it, equal elements in the order of their indices.
+     *
+     * @param a the array whose sorting order is returned
+     */
+    static int[] argsort(double[] a) {
+        long[] keys = new long[a.length];
+        for (int k = 0; k < keys.length; ++k) {
+            keys[k] = radixKey(a[k]);
+        }
+        return radixArgsort(keys);
+    }
+
+    /**
+     * Sorts the unsigned keys, which are overwritten, by radix sort, and
+     * returns the original indices of the sorted keys.
+     */
+    private static int[] radixArgsort(int[] keys) {
+        int n = keys.length;
+        int[][] count = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        for (int key : keys) {
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        int[] index = null, keysTo = null, indexTo = null;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, 0)) {
+                continue;
+            }
+            if (keysTo == null) {
+                keysTo = new int[n];
+            }
+            if (indexTo == null) {
+                indexTo = new int[n];
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = 0; k < n; ++k) {
+                int key = keys[k];
+                int o = offset[(key >>> shift) & (RADIX - 1)]++;
+                keysTo[o] = key;
+                indexTo[o] = (index == null) ? k : index[k];
+            }
+            int[] t = keys; keys = keysTo; keysTo = t;
+            t = index; index = indexTo; indexTo = t;
+        }
+        if (index == null) {
+            index = new int[n];
+            for (int k = 0; k < n; ++k) {
+                index[k] = k;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sorts the unsigned keys, which are overwritten, by radix sort, and
+     * returns the original indices of the sorted keys.
+     */
+    private static int[] radixArgsort(long[] keys) {
+        int n = keys.length;
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (long key : keys) {
+            for (int p = 0; p < count.length; ++p) {
+                ++count[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)];
+            }
+        }
+
+        long[] keysTo = null;
+        int[] index = null, indexTo = null;
+        for (int p = 0; p < count.length; ++p) {
+            int[] offset = count[p];
+            if (!radixOffsets(offset, n, 0)) {
+                continue;
+            }
+            if (keysTo == null) {
+                keysTo = new long[n];
+            }
+            if (indexTo == null) {
+                indexTo = new int[n];
+            }
+            int shift = p * RADIX_BITS;
+            for (int k = 0; k < n; ++k) {
+                long key = keys[k];
+                int o = offset[(int) (key >>> shift) & (RADIX - 1)]++;
+                keysTo[o] = key;
+                indexTo[o] = (index == null) ? k : index[k];
+            }
+            long[] t = keys; keys = keysTo; keysTo = t;
+            int[] u = index; index = indexTo; indexTo = u;
+        }
+        if (index == null) {
+            index = new int[n];
+            for (int k = 0; k < n; ++k) {
+                index[k] = k;
+            }
+        }
+        return index;
+    }
 }
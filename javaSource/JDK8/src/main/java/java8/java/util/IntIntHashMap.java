@@ -0,0 +1,845 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Hash table based map from primitive {@code int} keys to primitive
+ * {@code int} values.  Keys and values are stored unboxed in two
+ * parallel arrays using open addressing with linear probing, with the
+ * same layout, hashing and resize policy as {@link LongObjectHashMap}.
+ * A mapping costs 16 bytes at the default load factor and involves no
+ * allocation at all once the table has been sized.
+ *
+ * <p>Since values are primitive, methods that would return
+ * {@code null} for an absent key in {@link Map} instead return the
+ * map's <i>no-entry value</i>, which is {@code 0} unless specified at
+ * construction.  Use {@link #containsKey} where a stored value may
+ * coincide with the no-entry value.
+ *
+ * <p>The {@link #asMap} view adapts this map to the {@link Map}
+ * interface for interoperation with code expecting boxed keys and
+ * values.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access the map concurrently, and at least one of
+ * the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.
+ *
+ * @see     LongObjectHashMap
+ * @see     LongLongHashMap
+ * @since   1.8
+ */
+public class IntIntHashMap {
+
+    static final int DEFAULT_INITIAL_CAPACITY = LongObjectHashMap.DEFAULT_INITIAL_CAPACITY;
+    static final int MAXIMUM_CAPACITY = LongObjectHashMap.MAXIMUM_CAPACITY;
+    static final float DEFAULT_LOAD_FACTOR = LongObjectHashMap.DEFAULT_LOAD_FACTOR;
+    static final int FREE_KEY = 0;
+
+    /**
+     * Result of {@link #insertionSlot} for key {@code 0}; distinct from
+     * the complement of any table index.
+     */
+    static final int ZERO_SLOT = Integer.MIN_VALUE;
+
+    /**
+     * Spreads an int key into a table index hash, in the same manner
+     * as {@link LongObjectHashMap#hash}.
+     */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The key table.  Length is always a power of two.
+     */
+    transient int[] keys;
+
+    /**
+     * The value table, parallel to {@link #keys}.
+     */
+    transient int[] values;
+
+    /**
+     * Whether a mapping for key {@code 0} is present.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The value mapped to key {@code 0}, if {@link #hasZeroKey}.
+     */
+    transient int zeroValue;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * The value returned by lookups of absent keys.
+     */
+    final int noEntryValue;
+
+    /**
+     * Cached view returned by {@link #asMap}.
+     */
+    transient MapView mapView;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map with the specified initial capacity,
+     * load factor and no-entry value.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @param  noEntryValue    the value returned for absent keys
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in the range (0, 1)
+     */
+    public IntIntHashMap(int initialCapacity, float loadFactor,
+                           int noEntryValue) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        int cap = HashMap.tableSizeFor((int)Math.min(
+            (long)Math.ceil(initialCapacity / (double)loadFactor) + 1L,
+            (long)MAXIMUM_CAPACITY));
+        if (cap < DEFAULT_INITIAL_CAPACITY)
+            cap = DEFAULT_INITIAL_CAPACITY;
+        allocate(cap);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity,
+     * expressed as the number of mappings it can hold without
+     * resizing, the default load factor (0.5) and no-entry value 0.
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity,
+     * the default load factor (0.5) and no-entry value 0.
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY / 2, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value returned by lookups of absent keys.
+     *
+     * @return the no-entry value
+     */
+    public int getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or the no-entry value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or the no-entry value
+     */
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value mapped to the key, or {@code defaultValue}
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE_KEY)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : values[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return (key == FREE_KEY) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.  This requires a scan of the whole table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the value
+     */
+    public boolean containsValue(int value) {
+        if (hasZeroKey && zeroValue == value)
+            return true;
+        int[] ks = keys, vs = values;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != FREE_KEY && vs[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or the
+     *         no-entry value if there was no mapping for <tt>key</tt>
+     */
+    public int put(int key, int value) {
+        int i = insertionSlot(key);
+        int[] vs = values;
+        if (i >= 0) {
+            int old = vs[i];
+            vs[i] = value;
+            return old;
+        }
+        if (i == ZERO_SLOT) {
+            int old = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey)
+                addZeroKey();
+            zeroValue = value;
+            return old;
+        }
+        vs[i = ~i] = value;
+        keys[i] = key;
+        afterInsert();
+        return noEntryValue;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the current value associated with the key, or the no-entry
+     *         value if there was none and the given value was stored
+     */
+    public int putIfAbsent(int key, int value) {
+        if (key == FREE_KEY) {
+            if (hasZeroKey)
+                return zeroValue;
+            addZeroKey();
+            zeroValue = value;
+            return noEntryValue;
+        }
+        int i = insertionSlot(key);
+        if (i >= 0)
+            return values[i];
+        values[i = ~i] = value;
+        keys[i] = key;
+        afterInsert();
+        return noEntryValue;
+    }
+
+    /**
+     * Adds the given delta to the value mapped to the specified key,
+     * treating an absent key as mapped to the no-entry value.  This is
+     * the allocation-free replacement for
+     * {@code map.merge(key, delta, Integer::sum)} on a boxed map, and
+     * needs only one probe sequence for both the lookup and the store.
+     *
+     * @param key key whose value is to be incremented
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int addTo(int key, int delta) {
+        int i = insertionSlot(key);
+        if (i >= 0)
+            return values[i] += delta;
+        int v = noEntryValue + delta;
+        if (i == ZERO_SLOT) {
+            if (!hasZeroKey) {
+                addZeroKey();
+                zeroValue = v;
+            }
+            else
+                v = zeroValue += delta;
+            return v;
+        }
+        values[i = ~i] = v;
+        keys[i] = key;
+        afterInsert();
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or the
+     *         no-entry value if there was no mapping for <tt>key</tt>
+     */
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey)
+                return noEntryValue;
+            hasZeroKey = false;
+            ++modCount;
+            --size;
+            return zeroValue;
+        }
+        int i = indexOf(key);
+        if (i < 0)
+            return noEntryValue;
+        int old = values[i];
+        shiftKeys(i, null);
+        ++modCount;
+        --size;
+        return old;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters
+     * it into this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if the mapping function
+     *         structurally modified this map
+     */
+    public int computeIfAbsent(int key, IntUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        if (key == FREE_KEY) {
+            if (hasZeroKey)
+                return zeroValue;
+        }
+        else {
+            int i = indexOf(key);
+            if (i >= 0)
+                return values[i];
+        }
+        int mc = modCount;
+        int v = mappingFunction.applyAsInt(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        put(key, v);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * associated value with the result of the given remapping function
+     * applied to the old and the given value.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remapping function is null
+     */
+    public int merge(int key, int value,
+                      IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int i = insertionSlot(key);
+        if (i >= 0)
+            return values[i] = remappingFunction.applyAsInt(values[i], value);
+        if (i == ZERO_SLOT) {
+            if (hasZeroKey)
+                return zeroValue = remappingFunction.applyAsInt(zeroValue, value);
+            addZeroKey();
+            return zeroValue = value;
+        }
+        values[i = ~i] = value;
+        keys[i] = key;
+        afterInsert();
+        return value;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * entries have been processed or the action throws an exception.
+     * Iteration order is unspecified.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the action structurally
+     *         modified this map
+     */
+    public void forEach(IntIntConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (hasZeroKey)
+            action.accept(FREE_KEY, zeroValue);
+        int[] ks = keys, vs = values;
+        for (int i = 0; i < ks.length && mc == modCount; ++i) {
+            int k;
+            if ((k = ks[i]) != FREE_KEY)
+                action.accept(k, vs[i]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns the keys of this map in a newly allocated array, in
+     * unspecified order.
+     *
+     * @return an array containing the keys of this map
+     */
+    public int[] keys() {
+        int[] a = new int[size];
+        int n = 0;
+        if (hasZeroKey)
+            a[n++] = FREE_KEY;
+        int[] ks = keys;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != FREE_KEY)
+                a[n++] = ks[i];
+        }
+        return a;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            Arrays.fill(keys, FREE_KEY);
+            hasZeroKey = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns a {@link Map} view of the mappings contained in this map.
+     * The map is backed by this map, so changes to either are
+     * reflected in the other.
+     *
+     * @return a boxed map view of this map
+     */
+    public Map<Integer,Integer> asMap() {
+        MapView mv;
+        return (mv = mapView) != null ? mv : (mapView = new MapView());
+    }
+
+    /**
+     * Returns a string representation of this map in the same format
+     * as {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /**
+     * Represents an operation that accepts a primitive {@code int} key
+     * and its primitive {@code int} value.
+     */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        /**
+         * Performs this operation on the given key and value.
+         *
+         * @param key the key
+         * @param value the value mapped to the key
+         */
+        void accept(int key, int value);
+    }
+
+    /* ---------------- Internal table operations -------------- */
+
+    private void allocate(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        threshold = (cap < MAXIMUM_CAPACITY) ?
+            Math.min((int)(cap * loadFactor), cap - 1) : cap - 1;
+    }
+
+    /**
+     * Returns the table slot holding the given non-zero key, or -1.
+     */
+    final int indexOf(int key) {
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        int k;
+        while ((k = ks[i]) != FREE_KEY) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Locates the given key for an update.  Returns its slot if
+     * present, {@link #ZERO_SLOT} if the key is zero, or otherwise the
+     * complement of
+     * the free slot at which it should be inserted.
+     */
+    final int insertionSlot(int key) {
+        if (key == FREE_KEY)
+            return ZERO_SLOT;
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        int k;
+        while ((k = ks[i]) != FREE_KEY) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    private void addZeroKey() {
+        hasZeroKey = true;
+        ++modCount;
+        ++size;
+    }
+
+    private void afterInsert() {
+        ++modCount;
+        if (++size > threshold)
+            resize();
+    }
+
+    /**
+     * Doubles the table and reinserts all mappings.  If the table is
+     * already at maximum capacity, instead lets it fill to all but one
+     * slot, which keeps every probe sequence terminating.
+     */
+    final void resize() {
+        int[] oldKeys = keys, oldValues = values;
+        int oldCap = oldKeys.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= oldCap - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = oldCap - 1;
+            return;
+        }
+        allocate(oldCap << 1);
+        int[] ks = keys, vs = values;
+        int mask = ks.length - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            int k;
+            if ((k = oldKeys[j]) != FREE_KEY) {
+                int i = hash(k) & mask;
+                while (ks[i] != FREE_KEY)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at the given slot by backward shifting, as in
+     * {@link LongObjectHashMap#shiftKeys}.
+     */
+    final void shiftKeys(int pos, SlotIterator it) {
+        int[] ks = keys, vs = values;
+        int mask = ks.length - 1;
+        for (int last;;) {
+            pos = ((last = pos) + 1) & mask;
+            int k;
+            for (;;) {
+                if ((k = ks[pos]) == FREE_KEY) {
+                    ks[last] = FREE_KEY;
+                    return;
+                }
+                int slot = hash(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(k);
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Descending slot iterator; see {@link LongObjectHashMap.SlotIterator}.
+     */
+    abstract class SlotIterator {
+        int pos = keys.length;
+        int last = -1;
+        int remaining = size;
+        boolean zeroPending = hasZeroKey;
+        int[] wrapped;
+        int wrappedCount, wrappedIndex;
+        int lastKey;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            if (zeroPending) {
+                zeroPending = false;
+                lastKey = FREE_KEY;
+                return last = -2;
+            }
+            int[] ks = keys;
+            while (pos > 0) {
+                if (ks[--pos] != FREE_KEY) {
+                    lastKey = ks[pos];
+                    return last = pos;
+                }
+            }
+            lastKey = wrapped[wrappedIndex++];
+            return last = indexOf(lastKey);
+        }
+
+        final void addWrapped(int k) {
+            if (wrapped == null)
+                wrapped = new int[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = k;
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -2)
+                hasZeroKey = false;
+            else
+                shiftKeys(last, (wrappedIndex == 0) ? this : null);
+            ++modCount;
+            --size;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Integer,Integer>> {
+        public Map.Entry<Integer,Integer> next() {
+            int i = nextSlot();
+            return new ViewEntry(lastKey, (i == -2) ? zeroValue : values[i]);
+        }
+    }
+
+    final class KeyIterator extends SlotIterator implements Iterator<Integer> {
+        public Integer next() {
+            nextSlot();
+            return lastKey;
+        }
+    }
+
+    final class ViewEntry implements Map.Entry<Integer,Integer> {
+        final int key;
+        int value;
+
+        ViewEntry(int key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+        public Integer getKey()   { return key; }
+        public Integer getValue() { return value; }
+        public Integer setValue(Integer v) {
+            int old = value;
+            put(key, value = v);
+            return old;
+        }
+        public int hashCode() {
+            return Integer.hashCode(key) ^ Integer.hashCode(value);
+        }
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Integer.valueOf(key).equals(e.getKey()) &&
+                Integer.valueOf(value).equals(e.getValue());
+        }
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,Integer>> {
+        public int size()                 { return size; }
+        public void clear()               { IntIntHashMap.this.clear(); }
+        public Iterator<Map.Entry<Integer,Integer>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey(), v = e.getValue();
+            if (!(k instanceof Integer) || !(v instanceof Integer))
+                return false;
+            int key = (Integer)k;
+            return containsKey(key) && get(key) == (Integer)v;
+        }
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                IntIntHashMap.this.remove((int)(Integer)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    final class KeySet extends AbstractSet<Integer> {
+        public int size()                 { return size; }
+        public void clear()               { IntIntHashMap.this.clear(); }
+        public Iterator<Integer> iterator()  { return new KeyIterator(); }
+        public boolean contains(Object o) {
+            return (o instanceof Integer) && containsKey((Integer)o);
+        }
+        public boolean remove(Object o) {
+            if (!(o instanceof Integer) || !containsKey((Integer)o))
+                return false;
+            IntIntHashMap.this.remove((int)(Integer)o);
+            return true;
+        }
+    }
+
+    final class MapView extends AbstractMap<Integer,Integer> {
+        transient Set<Map.Entry<Integer,Integer>> entries;
+        transient Set<Integer> keys;
+
+        public int size()                 { return size; }
+        public boolean isEmpty()          { return size == 0; }
+        public void clear()               { IntIntHashMap.this.clear(); }
+        public boolean containsKey(Object key) {
+            return (key instanceof Integer) &&
+                IntIntHashMap.this.containsKey((Integer)key);
+        }
+        public boolean containsValue(Object value) {
+            return (value instanceof Integer) &&
+                IntIntHashMap.this.containsValue((Integer)value);
+        }
+        public Integer get(Object key) {
+            if (!(key instanceof Integer))
+                return null;
+            int k = (Integer)key;
+            return IntIntHashMap.this.containsKey(k) ?
+                IntIntHashMap.this.get(k) : null;
+        }
+        public Integer put(Integer key, Integer value) {
+            int k = key, v = value;
+            boolean present = IntIntHashMap.this.containsKey(k);
+            int old = IntIntHashMap.this.put(k, v);
+            return present ? old : null;
+        }
+        public Integer remove(Object key) {
+            if (!(key instanceof Integer))
+                return null;
+            int k = (Integer)key;
+            return IntIntHashMap.this.containsKey(k) ?
+                IntIntHashMap.this.remove(k) : null;
+        }
+        public Set<Integer> keySet() {
+            Set<Integer> ks;
+            return (ks = keys) != null ? ks : (keys = new KeySet());
+        }
+        public Set<Map.Entry<Integer,Integer>> entrySet() {
+            Set<Map.Entry<Integer,Integer>> es;
+            return (es = entries) != null ? es : (entries = new EntrySet());
+        }
+    }
+}
@@ -0,0 +1,814 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util;
+
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Hash table based map from primitive {@code long} keys to object
+ * values.  Unlike {@link HashMap}, keys are stored unboxed in a flat
+ * {@code long[]} and values in a parallel {@code Object[]}, using open
+ * addressing with linear probing.  There is no per-mapping node
+ * object, so a mapping costs roughly 12 to 24 bytes at the default
+ * load factor instead of the ~48 bytes of a {@code HashMap<Long,V>}
+ * entry plus its boxed key, and lookups touch one or two adjacent
+ * cache lines.
+ *
+ * <p>All mappings are permitted, including key {@code 0} and
+ * {@code null} values.  As with {@link HashMap#get}, a return value
+ * of {@code null} from {@link #get} does not necessarily indicate that
+ * the map contains no mapping for the key; use {@link #containsKey}
+ * to distinguish the two cases.
+ *
+ * <p>Capacity is always a power of two, sized with the same
+ * {@link HashMap#tableSizeFor} rounding as {@code HashMap}, and the
+ * table doubles once the number of mappings exceeds
+ * {@code capacity * loadFactor}.  Because probe sequences lengthen
+ * quickly as an open addressed table fills, the default load factor
+ * is .5 rather than {@code HashMap}'s .75.  Removal uses backward
+ * shifting, so no tombstones accumulate and lookup cost does not
+ * degrade under heavy put/remove churn.
+ *
+ * <p>The {@link #asMap} view adapts this map to the {@link Map}
+ * interface for interoperation with code expecting boxed keys.  Views
+ * read and write through to this map, but each call through the view
+ * boxes its keys and so forgoes the footprint advantage for that call.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access the map concurrently, and at least one of
+ * the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.  The iterators returned by the view
+ * collections are <i>fail-fast</i> in the same best-effort sense as
+ * those of {@code HashMap}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     LongLongHashMap
+ * @see     IntIntHashMap
+ * @since   1.8
+ */
+public class LongObjectHashMap<V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity, shared with {@link HashMap}.
+     */
+    static final int MAXIMUM_CAPACITY = HashMap.MAXIMUM_CAPACITY;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Key value marking a free slot.  Mappings for this key are held
+     * outside the table in {@link #zeroValue}.
+     */
+    static final long FREE_KEY = 0L;
+
+    /**
+     * Spreads a long key into a table index hash.  The two halves of
+     * the key are folded together and multiplied by the golden ratio
+     * constant so that sequential and stride-patterned keys (the usual
+     * shape of ids and offsets) disperse across the table, then higher
+     * bits are XORed downward as in {@link HashMap#hash} so that they
+     * participate in power-of-two masking.
+     */
+    static int hash(long key) {
+        int h = (int)(key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The key table.  Length is always a power of two.
+     */
+    transient long[] keys;
+
+    /**
+     * The value table, parallel to {@link #keys}.
+     */
+    transient Object[] values;
+
+    /**
+     * Whether a mapping for key {@code 0} is present.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The value mapped to key {@code 0}, if {@link #hasZeroKey}.
+     */
+    transient Object zeroValue;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Cached view returned by {@link #asMap}.
+     */
+    transient MapView mapView;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map with the specified initial
+     * capacity and load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in the range (0, 1)
+     */
+    public LongObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        int cap = HashMap.tableSizeFor((int)Math.min(
+            (long)Math.ceil(initialCapacity / (double)loadFactor) + 1L,
+            (long)MAXIMUM_CAPACITY));
+        if (cap < DEFAULT_INITIAL_CAPACITY)
+            cap = DEFAULT_INITIAL_CAPACITY;
+        allocate(cap);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity,
+     * expressed as the number of mappings it can hold without
+     * resizing, and the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity
+     * and the default load factor (0.5).
+     */
+    public LongObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY / 2, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == FREE_KEY)
+            return hasZeroKey ? (V)zeroValue : null;
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)values[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value mapped to the key, or {@code defaultValue}
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == FREE_KEY)
+            return hasZeroKey ? (V)zeroValue : defaultValue;
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)values[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return (key == FREE_KEY) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.  This requires a scan of the whole table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the value
+     */
+    public boolean containsValue(Object value) {
+        if (hasZeroKey && Objects.equals(zeroValue, value))
+            return true;
+        long[] ks = keys; Object[] vs = values;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != FREE_KEY && Objects.equals(vs[i], value))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     */
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or
+     * is mapped to {@code null}) associates it with the given value
+     * and returns {@code null}, else returns the current value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the key, or {@code null}
+     */
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey)
+                return null;
+            V old = (V)zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            ++modCount;
+            --size;
+            return old;
+        }
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        V old = (V)values[i];
+        shiftKeys(i, null);
+        ++modCount;
+        --size;
+        return old;
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or
+     * is mapped to {@code null}), attempts to compute its value using
+     * the given mapping function and enters it into this map unless
+     * {@code null}.  The function receives the primitive key, so no
+     * boxing takes place on either the hit or the miss path.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if the mapping function
+     *         structurally modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key,
+                             LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = get(key)) != null)
+            return v;
+        int mc = modCount;
+        v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v != null)
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value or is
+     * associated with null, associates it with the given non-null value.
+     * Otherwise, replaces the associated value with the results of the
+     * given remapping function, or removes if the result is {@code null}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the non-null value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if
+     *         no value is associated with the key
+     * @throws NullPointerException if the value or remapping function
+     *         is null
+     * @throws ConcurrentModificationException if the remapping function
+     *         structurally modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(long key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        V old = get(key);
+        if (old == null) {
+            putVal(key, value, false);
+            return value;
+        }
+        int mc = modCount;
+        V v = remappingFunction.apply(old, value);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            remove(key);
+        else
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * entries have been processed or the action throws an exception.
+     * Iteration order is unspecified.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the action structurally
+     *         modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (hasZeroKey)
+            action.accept(FREE_KEY, (V)zeroValue);
+        long[] ks = keys; Object[] vs = values;
+        for (int i = 0; i < ks.length && mc == modCount; ++i) {
+            long k;
+            if ((k = ks[i]) != FREE_KEY)
+                action.accept(k, (V)vs[i]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            Arrays.fill(keys, FREE_KEY);
+            Arrays.fill(values, null);
+            hasZeroKey = false;
+            zeroValue = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns a {@link Map} view of the mappings contained in this map.
+     * The map is backed by this map, so changes to either are
+     * reflected in the other.  The view and its collections support
+     * all optional operations, including removal through iterators.
+     *
+     * @return a boxed-key map view of this map
+     */
+    public Map<Long,V> asMap() {
+        MapView mv;
+        return (mv = mapView) != null ? mv : (mapView = new MapView());
+    }
+
+    /**
+     * Returns a string representation of this map in the same format
+     * as {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /**
+     * Represents an operation that accepts a primitive {@code long} key
+     * and its mapped value.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        /**
+         * Performs this operation on the given key and value.
+         *
+         * @param key the key
+         * @param value the value mapped to the key
+         */
+        void accept(long key, V value);
+    }
+
+    /* ---------------- Internal table operations -------------- */
+
+    /**
+     * Allocates tables of the given power of two capacity and resets
+     * the resize threshold.
+     */
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new Object[cap];
+        threshold = (cap < MAXIMUM_CAPACITY) ?
+            Math.min((int)(cap * loadFactor), cap - 1) : cap - 1;
+    }
+
+    /**
+     * Returns the table slot holding the given non-zero key, or -1.
+     */
+    final int indexOf(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        long k;
+        while ((k = ks[i]) != FREE_KEY) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Implements put and putIfAbsent.
+     *
+     * @param onlyIfAbsent if true, don't change an existing non-null value
+     * @return the previous value, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if (key == FREE_KEY) {
+            V old = (V)zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++modCount;
+                ++size;
+            }
+            else if (onlyIfAbsent && old != null)
+                return old;
+            zeroValue = value;
+            return old;
+        }
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        long k;
+        while ((k = ks[i]) != FREE_KEY) {
+            if (k == key) {
+                V old = (V)values[i];
+                if (!onlyIfAbsent || old == null)
+                    values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        ks[i] = key;
+        values[i] = value;
+        ++modCount;
+        if (++size > threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * Doubles the table and reinserts all mappings.  If the table is
+     * already at maximum capacity, instead lets it fill to all but one
+     * slot, which keeps every probe sequence terminating.
+     */
+    final void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldCap = oldKeys.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= oldCap - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = oldCap - 1;
+            return;
+        }
+        allocate(oldCap << 1);
+        long[] ks = keys; Object[] vs = values;
+        int mask = ks.length - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            long k;
+            if ((k = oldKeys[j]) != FREE_KEY) {
+                int i = hash(k) & mask;
+                while (ks[i] != FREE_KEY)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at the given slot by shifting back any later
+     * entries of the same probe run, so that no tombstone is needed.
+     * Entries moved across the end of the table (from a low slot to a
+     * high one) are reported to the given iterator, if any, since they
+     * jump from its unscanned region into its scanned one.
+     */
+    final void shiftKeys(int pos, SlotIterator it) {
+        long[] ks = keys; Object[] vs = values;
+        int mask = ks.length - 1;
+        for (int last;;) {
+            pos = ((last = pos) + 1) & mask;
+            long k;
+            for (;;) {
+                if ((k = ks[pos]) == FREE_KEY) {
+                    ks[last] = FREE_KEY;
+                    vs[last] = null;
+                    return;
+                }
+                int slot = hash(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(k);
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Iterates table slots from the end toward the start, so that
+     * backward shifting on removal only ever moves already scanned
+     * entries into the current slot.  Entries shifted across the end of
+     * the table into the scanned region are remembered and returned by
+     * key once the table scan is exhausted.
+     */
+    abstract class SlotIterator {
+        int pos = keys.length;      // current scan slot
+        int last = -1;              // slot last returned; -2 for key 0
+        int remaining = size;       // entries left to return
+        boolean zeroPending = hasZeroKey;
+        long[] wrapped;             // keys moved past the scan position
+        int wrappedCount, wrappedIndex;
+        long lastKey;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            if (zeroPending) {
+                zeroPending = false;
+                lastKey = FREE_KEY;
+                return last = -2;
+            }
+            long[] ks = keys;
+            while (pos > 0) {
+                if (ks[--pos] != FREE_KEY) {
+                    lastKey = ks[pos];
+                    return last = pos;
+                }
+            }
+            lastKey = wrapped[wrappedIndex++];
+            return last = indexOf(lastKey);
+        }
+
+        final void addWrapped(long k) {
+            if (wrapped == null)
+                wrapped = new long[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = k;
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -2) {
+                hasZeroKey = false;
+                zeroValue = null;
+            }
+            else
+                shiftKeys(last, (wrappedIndex == 0) ? this : null);
+            ++modCount;
+            --size;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Long,V>> {
+        public Map.Entry<Long,V> next() {
+            int i = nextSlot();
+            return new ViewEntry(lastKey, i);
+        }
+    }
+
+    final class KeyIterator extends SlotIterator implements Iterator<Long> {
+        public Long next() {
+            nextSlot();
+            return lastKey;
+        }
+    }
+
+    final class ViewEntry implements Map.Entry<Long,V> {
+        final long key;
+        V value;
+
+        @SuppressWarnings("unchecked")
+        ViewEntry(long key, int slot) {
+            this.key = key;
+            this.value = (slot == -2) ? (V)zeroValue : (V)values[slot];
+        }
+        public Long getKey()   { return key; }
+        public V getValue()    { return value; }
+        public V setValue(V v) {
+            V old = value;
+            value = v;
+            putVal(key, v, false);
+            return old;
+        }
+        public int hashCode() {
+            return Long.hashCode(key) ^ Objects.hashCode(value);
+        }
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Long.valueOf(key).equals(e.getKey()) &&
+                Objects.equals(value, e.getValue());
+        }
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,V>> {
+        public int size()                 { return size; }
+        public void clear()               { LongObjectHashMap.this.clear(); }
+        public Iterator<Map.Entry<Long,V>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey();
+            if (!(k instanceof Long))
+                return false;
+            long key = (Long)k;
+            return containsKey(key) && Objects.equals(get(key), e.getValue());
+        }
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                LongObjectHashMap.this.remove((long)(Long)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    final class KeySet extends AbstractSet<Long> {
+        public int size()                 { return size; }
+        public void clear()               { LongObjectHashMap.this.clear(); }
+        public Iterator<Long> iterator()  { return new KeyIterator(); }
+        public boolean contains(Object o) {
+            return (o instanceof Long) && containsKey((Long)o);
+        }
+        public boolean remove(Object o) {
+            if (!(o instanceof Long))
+                return false;
+            int sz = size;
+            LongObjectHashMap.this.remove((long)(Long)o);
+            return size != sz;
+        }
+    }
+
+    final class MapView extends AbstractMap<Long,V> {
+        transient Set<Map.Entry<Long,V>> entries;
+        transient Set<Long> keys;
+
+        public int size()                 { return size; }
+        public boolean isEmpty()          { return size == 0; }
+        public void clear()               { LongObjectHashMap.this.clear(); }
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongObjectHashMap.this.containsKey((Long)key);
+        }
+        public boolean containsValue(Object value) {
+            return LongObjectHashMap.this.containsValue(value);
+        }
+        public V get(Object key) {
+            return (key instanceof Long) ?
+                LongObjectHashMap.this.get((Long)key) : null;
+        }
+        public V put(Long key, V value) {
+            return putVal(key, value, false);
+        }
+        public V remove(Object key) {
+            return (key instanceof Long) ?
+                LongObjectHashMap.this.remove((Long)key) : null;
+        }
+        public Set<Long> keySet() {
+            Set<Long> ks;
+            return (ks = keys) != null ? ks : (keys = new KeySet());
+        }
+        public Set<Map.Entry<Long,V>> entrySet() {
+            Set<Map.Entry<Long,V>> es;
+            return (es = entries) != null ? es : (entries = new EntrySet());
+        }
+    }
+}
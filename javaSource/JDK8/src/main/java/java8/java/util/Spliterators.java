@@ -26,6 +26,7 @@ package java8.java.util;
 
 import java.util.Comparator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.IntConsumer;
@@ -1296,26 +1297,15 @@ public final class Spliterators {
         @Override
         public Spliterator<T> trySplit() {
             /*
-             * Split into arrays of arithmetically increasing batch
-             * sizes.  This will only improve parallel performance if
-             * per-element Consumer actions are more costly than
-             * transferring them into an array.  The use of an
-             * arithmetic progression in split sizes provides overhead
-             * vs parallelism bounds that do not particularly favor or
-             * penalize cases of lightweight vs heavyweight element
-             * operations, across combinations of #elements vs #cores,
-             * whether or not either are known.  We generate
-             * O(sqrt(#elements)) splits, allowing O(sqrt(#cores))
-             * potential speedup.
+             * Split into arrays of geometrically increasing batch
+             * sizes (see nextBatchSize).  This will only improve
+             * parallel performance if per-element Consumer actions are
+             * more costly than transferring them into an array.
              */
             HoldingConsumer<T> holder = new HoldingConsumer<>();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 Object[] a = new Object[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1421,11 +1411,7 @@ public final class Spliterators {
             HoldingIntConsumer holder = new HoldingIntConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 int[] a = new int[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1531,11 +1517,7 @@ public final class Spliterators {
             HoldingLongConsumer holder = new HoldingLongConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 long[] a = new long[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1641,11 +1623,7 @@ public final class Spliterators {
             HoldingDoubleConsumer holder = new HoldingDoubleConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 double[] a = new double[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1685,6 +1663,41 @@ public final class Spliterators {
 
     // Iterator-based Spliterators
 
+    /**
+     * Returns the number of elements an iterator-backed spliterator
+     * should copy into an array on its next {@code trySplit}.
+     *
+     * <p>Batches double from {@code BATCH_UNIT}, so a source is handed
+     * out in O(log(#elements)) batches.  When the size is known, a batch
+     * is also never smaller than the share of one leaf task when the
+     * remaining elements are divided over the common pool, so even the
+     * first split is worth forking.  Both bounds are capped by the size
+     * estimate and by {@code MAX_BATCH}.
+     *
+     * @param previous the size of the previous batch, or 0 if none
+     * @param est the current size estimate, or {@code Long.MAX_VALUE}
+     *        if unknown
+     * @return the size of the next batch, at least 1 if {@code est > 0}
+     */
+    static int nextBatchSize(int previous, long est) {
+        long n = (previous == 0) ? AbstractSpliterator.BATCH_UNIT : (long) previous << 1;
+        if (est != Long.MAX_VALUE) {
+            long share = est / LEAF_TASKS;
+            if (share > n)
+                n = share;
+            if (n > est)
+                n = est;
+        }
+        return (int) Math.min(n, AbstractSpliterator.MAX_BATCH);
+    }
+
+    /**
+     * The number of leaf tasks a sized source is divided over: four per
+     * common pool worker, as in the stream library's own leaf sizing.
+     */
+    private static final long LEAF_TASKS =
+        (long) ForkJoinPool.getCommonPoolParallelism() << 2;
+
     /**
      * A Spliterator using a given Iterator for element
      * operations. The spliterator implements {@code trySplit} to
@@ -1755,17 +1768,10 @@ public final class Spliterators {
         @Override
         public Spliterator<T> trySplit() {
             /*
-             * Split into arrays of arithmetically increasing batch
-             * sizes.  This will only improve parallel performance if
-             * per-element Consumer actions are more costly than
-             * transferring them into an array.  The use of an
-             * arithmetic progression in split sizes provides overhead
-             * vs parallelism bounds that do not particularly favor or
-             * penalize cases of lightweight vs heavyweight element
-             * operations, across combinations of #elements vs #cores,
-             * whether or not either are known.  We generate
-             * O(sqrt(#elements)) splits, allowing O(sqrt(#cores))
-             * potential speedup.
+             * Split into arrays of geometrically increasing batch
+             * sizes (see nextBatchSize).  This will only improve
+             * parallel performance if per-element Consumer actions are
+             * more costly than transferring them into an array.
              */
             Iterator<? extends T> i;
             long s;
@@ -1776,11 +1782,7 @@ public final class Spliterators {
             else
                 s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 Object[] a = new Object[n];
                 int j = 0;
                 do { a[j] = i.next(); } while (++j < n && i.hasNext());
@@ -1888,11 +1890,7 @@ public final class Spliterators {
             PrimitiveIterator.OfInt i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 int[] a = new int[n];
                 int j = 0;
                 do { a[j] = i.nextInt(); } while (++j < n && i.hasNext());
@@ -1982,11 +1980,7 @@ public final class Spliterators {
             PrimitiveIterator.OfLong i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 long[] a = new long[n];
                 int j = 0;
                 do { a[j] = i.nextLong(); } while (++j < n && i.hasNext());
@@ -2076,11 +2070,7 @@ public final class Spliterators {
             PrimitiveIterator.OfDouble i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = nextBatchSize(batch, s);
                 double[] a = new double[n];
                 int j = 0;
                 do { a[j] = i.nextDouble(); } while (++j < n && i.hasNext());
@@ -0,0 +1,380 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link Executor} for asynchronous continuations that keeps each
+ * chain of dependent tasks on one thread.  It runs a fixed number of
+ * <em>loop</em> threads, each serving its own queue:
+ *
+ * <ul>
+ *
+ * <li>A task submitted from one of this executor's loop threads, such
+ * as the continuation of a {@link CompletableFuture} completed there,
+ * is run at once by {@link #execute}, on the same thread and with its
+ * caches still warm, instead of being handed to another thread.  To
+ * bound the stack, at most {@link #MAX_INLINE_DEPTH} tasks are nested
+ * this way; deeper tasks are queued to run next on the same thread.
+ *
+ * <li>A task submitted from any other thread is queued to the loop
+ * selected by the submitting thread, so tasks from one thread, for
+ * example an I/O thread, are always run in order by the same loop.
+ * {@link #executorFor} returns a view that pins tasks to the loop for
+ * a key, such as a connection id, instead.
+ *
+ * </ul>
+ *
+ * <p>Compared with {@link ForkJoinPool#commonPool()} as the executor
+ * of asynchronous stages, no task is ever stolen or moved between
+ * loops, and a continuation completed on a loop costs neither a queue
+ * operation nor a wakeup.  Tasks must not block for long, since they
+ * delay every other task of their loop.
+ *
+ * <p>Counts of completed tasks, of tasks run directly, of tasks queued
+ * because of the nesting bound, and of hand-offs from other threads
+ * are kept for monitoring.  Loop threads update their counts without
+ * synchronization, so values read while tasks are running are
+ * approximate.
+ *
+ * <p>An exception thrown by a task is passed to the loop thread's
+ * uncaught exception handler, and the loop continues with its next
+ * task.
+ *
+ * @since 1.8
+ */
+public class AffinityExecutor implements Executor {
+
+    /**
+     * The maximum number of tasks nested by direct execution on a
+     * loop thread, including the task that the loop itself started.
+     */
+    public static final int MAX_INLINE_DEPTH = 16;
+
+    final Loop[] loops;
+    final LongAdder hops = new LongAdder();
+    volatile boolean shutdown;
+
+    /**
+     * Creates an {@code AffinityExecutor} with one loop thread per
+     * available processor.
+     */
+    public AffinityExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), "affinity-");
+    }
+
+    /**
+     * Creates an {@code AffinityExecutor} with the given number of
+     * loop threads, named with the given prefix followed by their
+     * index.
+     *
+     * @param nThreads the number of loop threads
+     * @param namePrefix the prefix of the thread names
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @throws NullPointerException if {@code namePrefix} is null
+     */
+    public AffinityExecutor(int nThreads, String namePrefix) {
+        if (nThreads <= 0)
+            throw new IllegalArgumentException();
+        if (namePrefix == null)
+            throw new NullPointerException();
+        loops = new Loop[nThreads];
+        for (int i = 0; i < nThreads; ++i)
+            loops[i] = new Loop(this, namePrefix + i);
+        for (Loop l : loops)
+            l.start();
+    }
+
+    /**
+     * Executes the given task directly if called from one of this
+     * executor's loop threads, and otherwise queues it to the loop
+     * selected by the calling thread.
+     *
+     * @param command the task
+     * @throws RejectedExecutionException if this executor has been
+     *         shut down
+     * @throws NullPointerException if {@code command} is null
+     */
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new NullPointerException();
+        Thread t = Thread.currentThread();
+        Loop l;
+        if (t instanceof Loop && (l = (Loop)t).executor == this)
+            l.runLocal(command);
+        else
+            submit(loops[index(t.getId(), loops.length)], command);
+    }
+
+    /**
+     * Returns an executor that runs all its tasks on the loop thread
+     * for the given key, directly when called from that thread and
+     * otherwise by queuing them to it.  Equal keys map to the same
+     * loop.
+     *
+     * @param key the key
+     * @return an executor bound to the loop for the key
+     */
+    public Executor executorFor(int key) {
+        final Loop target = loops[Math.floorMod(key, loops.length)];
+        return command -> {
+            if (command == null)
+                throw new NullPointerException();
+            if (Thread.currentThread() == target)
+                target.runLocal(command);
+            else
+                submit(target, command);
+        };
+    }
+
+    static int index(long id, int n) {
+        return (int)((id * 0x9E3779B97F4A7C15L) >>> 33) % n;
+    }
+
+    /**
+     * Queues a task from another thread to the given loop, waking it
+     * if it is parked.
+     */
+    final void submit(Loop l, Runnable command) {
+        if (shutdown)
+            throw new RejectedExecutionException();
+        l.inbox.offer(command);
+        // Recheck, since the loop may have exited after draining
+        if (shutdown && l.inbox.remove(command))
+            throw new RejectedExecutionException();
+        hops.increment();
+        if (l.parked)
+            LockSupport.unpark(l);
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Loop l : loops)
+            LockSupport.unpark(l);
+    }
+
+    /**
+     * Returns {@code true} if this executor has been shut down.
+     *
+     * @return {@code true} if this executor has been shut down
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Returns {@code true} if all loop threads have exited after
+     * shutdown.
+     *
+     * @return {@code true} if this executor has terminated
+     */
+    public boolean isTerminated() {
+        for (Loop l : loops)
+            if (l.isAlive())
+                return false;
+        return shutdown;
+    }
+
+    /**
+     * Blocks until all loop threads have exited after a shutdown
+     * request, or the timeout occurs, or the current thread is
+     * interrupted, whichever happens first.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return {@code true} if this executor terminated and
+     *         {@code false} if the timeout elapsed before termination
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Loop l : loops) {
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0L)
+                return isTerminated();
+            TimeUnit.NANOSECONDS.timedJoin(l, nanos);
+        }
+        return isTerminated();
+    }
+
+    /**
+     * Returns the number of loop threads.
+     *
+     * @return the number of loop threads
+     */
+    public int getPoolSize() {
+        return loops.length;
+    }
+
+    /**
+     * Returns the approximate total number of tasks that have
+     * completed execution, whether queued or run directly.
+     *
+     * @return the number of completed tasks
+     */
+    public long getCompletedTaskCount() {
+        long n = 0L;
+        for (Loop l : loops)
+            n += l.completed;
+        return n;
+    }
+
+    /**
+     * Returns the approximate number of tasks that {@link #execute}
+     * ran directly on the calling loop thread.
+     *
+     * @return the number of tasks run directly
+     */
+    public long getInlineCount() {
+        long n = 0L;
+        for (Loop l : loops)
+            n += l.inlined;
+        return n;
+    }
+
+    /**
+     * Returns the approximate number of tasks submitted from a loop
+     * thread that were queued to it, rather than run directly,
+     * because {@link #MAX_INLINE_DEPTH} tasks were already nested.
+     *
+     * @return the number of stack-depth fallbacks
+     */
+    public long getDepthFallbackCount() {
+        long n = 0L;
+        for (Loop l : loops)
+            n += l.fallbacks;
+        return n;
+    }
+
+    /**
+     * Returns the number of tasks handed off to a loop thread by
+     * another thread.
+     *
+     * @return the number of cross-thread hand-offs
+     */
+    public long getHopCount() {
+        return hops.sum();
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state and counts.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        String rs = (isTerminated() ? "Terminated" :
+                     shutdown ? "Shutting down" : "Running");
+        return super.toString() +
+            "[" + rs +
+            ", pool size = " + loops.length +
+            ", completed tasks = " + getCompletedTaskCount() +
+            ", inline = " + getInlineCount() +
+            ", depth fallbacks = " + getDepthFallbackCount() +
+            ", hops = " + getHopCount() + "]";
+    }
+
+    /**
+     * A loop thread.  Tasks from other threads arrive on the inbox;
+     * tasks it queues for itself go to the unsynchronized local
+     * queue, which is served first.  The counts and depth are written
+     * only by this thread.
+     */
+    static final class Loop extends Thread {
+        final AffinityExecutor executor;
+        final ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+        final ArrayDeque<Runnable> local = new ArrayDeque<>();
+        volatile boolean parked;
+        int depth;
+        long completed;
+        long inlined;
+        long fallbacks;
+
+        Loop(AffinityExecutor executor, String name) {
+            super(name);
+            this.executor = executor;
+        }
+
+        /**
+         * Runs or queues a task submitted from this thread.
+         */
+        final void runLocal(Runnable command) {
+            if (executor.shutdown)
+                throw new RejectedExecutionException();
+            if (depth < MAX_INLINE_DEPTH) {
+                ++inlined;
+                ++depth;
+                try {
+                    runTask(command);
+                } finally {
+                    --depth;
+                }
+            }
+            else {
+                ++fallbacks;
+                local.add(command);
+            }
+        }
+
+        final void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                getUncaughtExceptionHandler().uncaughtException(this, ex);
+            }
+            ++completed;
+        }
+
+        public void run() {
+            for (Runnable task;;) {
+                if ((task = local.poll()) == null &&
+                    (task = inbox.poll()) == null) {
+                    if (executor.shutdown)
+                        break;
+                    parked = true;
+                    if (inbox.isEmpty() && !executor.shutdown)
+                        LockSupport.park(this);
+                    parked = false;
+                    continue;
+                }
+                depth = 1;
+                runTask(task);
+                depth = 0;
+            }
+        }
+    }
+}
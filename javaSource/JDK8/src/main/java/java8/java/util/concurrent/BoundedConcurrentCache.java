@@ -0,0 +1,896 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache bounded by total entry weight, built on a
+ * {@link ConcurrentHashMap} and evicting with the W-TinyLFU policy.
+ * Retrievals never block and never take a lock: the bookkeeping a
+ * read requires (updating recency order and frequency counts) is
+ * recorded in a small lossy buffer and applied later, in batches, by
+ * whichever thread next performs maintenance.
+ *
+ * <p><b>Eviction policy.</b> Entries are admitted into a small
+ * <em>window</em> (1% of the maximum weight) ordered by recency.
+ * Entries leaving the window become candidates for the <em>main</em>
+ * region, a segmented LRU of a <em>probation</em> and a
+ * <em>protected</em> (80%) segment.  When the cache is over its
+ * maximum weight, a candidate is compared against the least recently
+ * used probation entry using the access frequencies recorded by a
+ * {@link FrequencySketch}; the less frequently used of the two is
+ * evicted.  Entries accessed while on probation are promoted to the
+ * protected segment.  The window lets bursts of new entries compete,
+ * while the frequency filter keeps one-hit wonders from flushing
+ * popular entries, giving near-optimal hit rates on both recency- and
+ * frequency-biased workloads.
+ *
+ * <p><b>Concurrency.</b> The policy's deques and the sketch are
+ * guarded by a single eviction lock, which read paths never acquire.
+ * Reads append the entry to one of a
+ * set of striped ring buffers, chosen by thread, and drop the event if
+ * the buffer is full, since recency information is a hint.  Writes
+ * update the hash table directly and enqueue a replay task in an
+ * unbounded queue, since weight accounting must not lose events.
+ * Buffers are drained asynchronously on the configured executor (by
+ * default {@link ForkJoinPool#commonPool()}); if writers outpace the
+ * executor, they drain the write queue themselves, providing back
+ * pressure.  Transiently, the cache may therefore exceed its maximum
+ * weight by the amount of not yet replayed writes.
+ *
+ * <p><b>Expiration.</b> Entries may be set to expire a fixed duration
+ * after they were last written, or last read or written.  Expired
+ * entries are treated as absent by all retrieval operations and are
+ * removed during maintenance.
+ *
+ * <p><b>Statistics.</b> Hit, miss, eviction and eviction-weight counts
+ * are kept in {@link LongAdder}s and are always enabled.
+ *
+ * <p>This class does not permit {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @since 1.8
+ */
+public class BoundedConcurrentCache<K,V> {
+
+    /* ---------------- Constants -------------- */
+
+    /** Fraction of the maximum weight allotted to the admission window. */
+    static final double PERCENT_WINDOW = 0.01d;
+
+    /** Fraction of the main region allotted to the protected segment. */
+    static final double PERCENT_MAIN_PROTECTED = 0.80d;
+
+    /** Number of pending writes after which writers drain synchronously. */
+    static final int WRITE_BUFFER_MAX = 1024;
+
+    /** Slots per read buffer stripe; a power of two. */
+    static final int READ_BUFFER_SIZE = 16;
+
+    /** Mask for read buffer slot indexing. */
+    static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    /** Reads buffered in a stripe before a drain is requested. */
+    static final int READ_BUFFER_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    /** Number of read buffer stripes; a power of two. */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+    static final int READ_BUFFER_STRIPES;
+    static {
+        int n = 1;
+        while (n < NCPU)
+            n <<= 1;
+        READ_BUFFER_STRIPES = Math.min(n << 1, 128);
+    }
+
+    /**
+     * Minimum candidate frequency for which a candidate that lost the
+     * frequency comparison may still be admitted at random, protecting
+     * against an attacker pinning a victim via hash collisions.
+     */
+    static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    /* Drain status values */
+    static final int IDLE = 0, REQUIRED = 1, PROCESSING = 2;
+
+    /* Policy queue identifiers */
+    static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    /* Node states */
+    static final int ALIVE = 0, RETIRED = 1, DEAD = 2;
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A cache entry.  The value, weight and timestamps are written by
+     * user threads; the remaining fields are guarded by the eviction
+     * lock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;        // weight as last written
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int state;         // ALIVE until removed from the map
+
+        // Guarded by evictionLock
+        int policyWeight;           // weight as accounted by the policy
+        int queue;                  // WINDOW, PROBATION or PROTECTED
+        boolean linked;
+        Node<K,V> prev, next;                 // access order
+        Node<K,V> prevWrite, nextWrite;       // write order
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * A doubly linked deque of nodes threaded through either their
+     * access-order or their write-order links.
+     */
+    static final class NodeDeque<K,V> {
+        final boolean writeOrder;
+        Node<K,V> first, last;
+
+        NodeDeque(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        Node<K,V> next(Node<K,V> n) { return writeOrder ? n.nextWrite : n.next; }
+        Node<K,V> prev(Node<K,V> n) { return writeOrder ? n.prevWrite : n.prev; }
+
+        void setNext(Node<K,V> n, Node<K,V> x) {
+            if (writeOrder) n.nextWrite = x; else n.next = x;
+        }
+        void setPrev(Node<K,V> n, Node<K,V> x) {
+            if (writeOrder) n.prevWrite = x; else n.prev = x;
+        }
+
+        void addLast(Node<K,V> n) {
+            Node<K,V> l = last;
+            setPrev(n, l);
+            setNext(n, null);
+            last = n;
+            if (l == null)
+                first = n;
+            else
+                setNext(l, n);
+        }
+
+        void unlink(Node<K,V> n) {
+            Node<K,V> p = prev(n), x = next(n);
+            if (p == null)
+                first = x;
+            else
+                setNext(p, x);
+            if (x == null)
+                last = p;
+            else
+                setPrev(x, p);
+            setPrev(n, null);
+            setNext(n, null);
+        }
+
+        void moveToBack(Node<K,V> n) {
+            if (n != last) {
+                unlink(n);
+                addLast(n);
+            }
+        }
+
+        void clear() {
+            first = last = null;
+        }
+    }
+
+    /* ---------------- Read buffer -------------- */
+
+    /**
+     * One stripe of the read buffer: a bounded, lossy multiple-producer
+     * single-consumer ring.  Producers claim a slot by CAS on the tail
+     * and give up rather than retry if the CAS fails or the ring is
+     * full; the consumer is whichever thread holds the eviction lock.
+     */
+    static final class ReadStripe<K,V> {
+        final AtomicReferenceArray<Node<K,V>> slots =
+            new AtomicReferenceArray<Node<K,V>>(READ_BUFFER_SIZE);
+        final AtomicLong tail = new AtomicLong();
+        volatile long head;
+
+        /**
+         * Records a read.
+         *
+         * @return true if a drain should be scheduled
+         */
+        boolean offer(Node<K,V> n) {
+            long h = head, t = tail.get();
+            long size = t - h;
+            if (size >= READ_BUFFER_SIZE)
+                return true;
+            if (tail.compareAndSet(t, t + 1L)) {
+                slots.lazySet((int)t & READ_BUFFER_MASK, n);
+                return size >= READ_BUFFER_THRESHOLD;
+            }
+            return false;
+        }
+
+        void drainTo(BoundedConcurrentCache<K,V> cache) {
+            long h = head, t = tail.get();
+            for (; h != t; ++h) {
+                int i = (int)h & READ_BUFFER_MASK;
+                Node<K,V> n = slots.get(i);
+                if (n == null)
+                    break; // claimed but not yet published
+                slots.lazySet(i, null);
+                cache.onAccess(n);
+            }
+            head = h;
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    final ConcurrentHashMap<K,Node<K,V>> data;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final Executor executor;
+    final long expireAfterWriteNanos;
+    final long expireAfterAccessNanos;
+
+    final ReentrantLock evictionLock = new ReentrantLock();
+    final AtomicInteger drainStatus = new AtomicInteger();
+    final ReadStripe<K,V>[] readBuffer;
+    final ConcurrentLinkedQueue<Runnable> writeBuffer =
+        new ConcurrentLinkedQueue<Runnable>();
+    final AtomicInteger pendingWrites = new AtomicInteger();
+    final Runnable drainTask = new Runnable() {
+        public void run() { performCleanUp(); }
+    };
+
+    // Guarded by evictionLock
+    final FrequencySketch sketch;
+    final NodeDeque<K,V> window = new NodeDeque<K,V>(false);
+    final NodeDeque<K,V> probation = new NodeDeque<K,V>(false);
+    final NodeDeque<K,V> protectedQueue = new NodeDeque<K,V>(false);
+    final NodeDeque<K,V> writeOrder = new NodeDeque<K,V>(true);
+    long maximum, windowMaximum, protectedMaximum;
+    long weightedSize, windowWeightedSize, protectedWeightedSize;
+
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+    final LongAdder evictionWeight = new LongAdder();
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a cache with the given maximum weight, entry weigher,
+     * expiration durations and maintenance executor.
+     *
+     * @param maximumWeight the maximum total weight of entries
+     * @param weigher the function computing the weight of an entry,
+     *        or {@code null} to weigh every entry as 1
+     * @param expireAfterWrite the time after an entry's creation or
+     *        last update at which it expires, or 0 for no such expiry
+     * @param expireAfterAccess the time after an entry's last read or
+     *        write at which it expires, or 0 for no such expiry
+     * @param unit the time unit of the expiration arguments
+     * @param executor the executor running maintenance, or {@code null}
+     *        to use {@link ForkJoinPool#commonPool()}
+     * @throws IllegalArgumentException if {@code maximumWeight} or an
+     *         expiration duration is negative
+     * @throws NullPointerException if {@code unit} is null
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedConcurrentCache(long maximumWeight,
+                                  ToIntBiFunction<? super K, ? super V> weigher,
+                                  long expireAfterWrite,
+                                  long expireAfterAccess,
+                                  TimeUnit unit,
+                                  Executor executor) {
+        if (maximumWeight < 0L || expireAfterWrite < 0L ||
+            expireAfterAccess < 0L)
+            throw new IllegalArgumentException();
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.executor = (executor != null) ? executor : ForkJoinPool.commonPool();
+        this.data = new ConcurrentHashMap<K,Node<K,V>>();
+        this.readBuffer = (ReadStripe<K,V>[])new ReadStripe<?,?>[READ_BUFFER_STRIPES];
+        for (int i = 0; i < readBuffer.length; ++i)
+            readBuffer[i] = new ReadStripe<K,V>();
+        this.sketch = new FrequencySketch(
+            (weigher == null) ? maximumWeight : Math.min(maximumWeight, 1L << 20));
+        setMaximum(maximumWeight);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of entries,
+     * without expiration.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     */
+    public BoundedConcurrentCache(long maximumSize) {
+        this(maximumSize, null, 0L, 0L, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * Returns the value associated with the key, or {@code null} if
+     * there is no live mapping for it.  Records a hit or a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> n = data.get(key);
+        if (n == null) {
+            missCount.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        V v = n.value;
+        if (v == null || hasExpired(n, now)) {
+            missCount.increment();
+            scheduleDrain();
+            return null;
+        }
+        if (expireAfterAccessNanos > 0L)
+            n.accessTime = now;
+        hitCount.increment();
+        afterRead(n);
+        return v;
+    }
+
+    /**
+     * Returns the value associated with the key, computing and caching
+     * it with the given function if absent or expired.  The computation
+     * is performed at most once per key while other threads asking for
+     * the same key wait, as with
+     * {@link ConcurrentHashMap#computeIfAbsent}.
+     *
+     * @param key the key
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value, or {@code null}
+     *         if the computed value is null
+     * @throws NullPointerException if the key or function is null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v = get(key);
+        if (v != null)
+            return v;
+        final long now = System.nanoTime();
+        @SuppressWarnings("unchecked") final Node<K,V>[] added = new Node[1];
+        @SuppressWarnings("unchecked") final Node<K,V>[] retired = new Node[1];
+        Node<K,V> n = data.compute(key, (k, prior) -> {
+            if (prior != null && prior.value != null && !hasExpired(prior, now))
+                return prior;
+            V nv = mappingFunction.apply(k);
+            if (prior != null) {
+                prior.state = RETIRED;
+                retired[0] = prior;
+            }
+            if (nv == null)
+                return null;
+            return added[0] = new Node<K,V>(k, nv, weigh(k, nv), now);
+        });
+        if (retired[0] != null)
+            afterWrite(new RemovalTask(retired[0]));
+        if (added[0] != null)
+            afterWrite(new AddTask(added[0]));
+        else if (n != null)
+            afterRead(n);
+        return (n == null) ? null : n.value;
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the previous live value, or {@code null} if none
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        final long now = System.nanoTime();
+        final int w = weigh(key, value);
+        final Object[] old = new Object[1];
+        final boolean[] added = new boolean[1];
+        Node<K,V> n = data.compute(key, (k, prior) -> {
+            if (prior == null) {
+                added[0] = true;
+                return new Node<K,V>(k, value, w, now);
+            }
+            if (!hasExpired(prior, now))
+                old[0] = prior.value;
+            prior.value = value;
+            prior.weight = w;
+            prior.writeTime = now;
+            prior.accessTime = now;
+            return prior;
+        });
+        afterWrite(added[0] ? new AddTask(n) : new UpdateTask(n));
+        @SuppressWarnings("unchecked") V v = (V)old[0];
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the key, if present.
+     *
+     * @param key the key
+     * @return the previous live value, or {@code null} if none
+     * @throws NullPointerException if the key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> n = data.remove(key);
+        if (n == null)
+            return null;
+        n.state = RETIRED;
+        V v = n.value;
+        boolean expired = hasExpired(n, System.nanoTime());
+        afterWrite(new RemovalTask(n));
+        return expired ? null : v;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (Node<K,V> n : data.values()) {
+            if (data.remove(n.key, n)) {
+                n.state = RETIRED;
+                writeBuffer.add(new RemovalTask(n));
+                pendingWrites.incrementAndGet();
+            }
+        }
+        performCleanUp();
+    }
+
+    /**
+     * Returns the approximate number of entries, possibly including
+     * expired entries not yet removed.
+     *
+     * @return the number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the entries as currently accounted
+     * by the eviction policy.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum total weight of entries.
+     *
+     * @return the maximum weight
+     */
+    public long getMaximum() {
+        evictionLock.lock();
+        try {
+            return maximum;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the maximum total weight of entries, evicting immediately
+     * if the cache is now over its bound.
+     *
+     * @param maximumWeight the new maximum weight
+     * @throws IllegalArgumentException if negative
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        if (maximumWeight < 0L)
+            throw new IllegalArgumentException();
+        evictionLock.lock();
+        try {
+            setMaximum(maximumWeight);
+        } finally {
+            evictionLock.unlock();
+        }
+        performCleanUp();
+    }
+
+    /**
+     * Performs any pending maintenance: replays buffered reads and
+     * writes, and evicts expired and excess entries.
+     */
+    public void cleanUp() {
+        performCleanUp();
+    }
+
+    /** Returns the number of retrievals that found a live entry. */
+    public long hitCount()       { return hitCount.sum(); }
+
+    /** Returns the number of retrievals that found no live entry. */
+    public long missCount()      { return missCount.sum(); }
+
+    /** Returns the number of entries evicted by size or expiration. */
+    public long evictionCount()  { return evictionCount.sum(); }
+
+    /** Returns the total weight of evicted entries. */
+    public long evictionWeight() { return evictionWeight.sum(); }
+
+    /**
+     * Returns the ratio of hits to retrievals, or 1.0 if there have
+     * been no retrievals.
+     *
+     * @return the hit rate
+     */
+    public double hitRate() {
+        long h = hitCount.sum(), r = h + missCount.sum();
+        return (r == 0L) ? 1.0d : (double)h / r;
+    }
+
+    /**
+     * Returns a string identifying this cache and its statistics.
+     *
+     * @return a string identifying this cache
+     */
+    public String toString() {
+        return super.toString() +
+            "[Size = " + estimatedSize() +
+            ", hits = " + hitCount() +
+            ", misses = " + missCount() +
+            ", evictions = " + evictionCount() + "]";
+    }
+
+    /* ---------------- Read and write paths -------------- */
+
+    int weigh(K key, V value) {
+        if (weigher == null)
+            return 1;
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("Negative weight");
+        return w;
+    }
+
+    boolean hasExpired(Node<K,V> n, long now) {
+        return (expireAfterWriteNanos > 0L &&
+                now - n.writeTime >= expireAfterWriteNanos) ||
+            (expireAfterAccessNanos > 0L &&
+             now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    /**
+     * Records a read in the calling thread's stripe of the read buffer.
+     */
+    void afterRead(Node<K,V> n) {
+        int h = (int)Thread.currentThread().getId() * 0x9E3779B9;
+        ReadStripe<K,V> s = readBuffer[(h ^ (h >>> 16)) & (readBuffer.length - 1)];
+        if (s.offer(n))
+            scheduleDrain();
+    }
+
+    /**
+     * Queues a write for replay against the policy, draining inline if
+     * the backlog has grown beyond what the executor keeps up with.
+     */
+    void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        if (pendingWrites.incrementAndGet() > WRITE_BUFFER_MAX)
+            performCleanUp();
+        else
+            scheduleDrain();
+    }
+
+    /**
+     * Requests maintenance, submitting the drain task unless one is
+     * already scheduled or running.  A request arriving while a drain
+     * is in progress is noticed by that drain when it finishes.
+     */
+    void scheduleDrain() {
+        if (drainStatus.getAndSet(REQUIRED) == IDLE) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException ex) {
+                performCleanUp();
+            }
+        }
+    }
+
+    /**
+     * Runs maintenance under the eviction lock.  Status is set to
+     * PROCESSING before draining, so any request made afterwards turns
+     * it back to REQUIRED; if so, another drain is handed off to the
+     * executor (or, if it refuses, run here) rather than lost.
+     */
+    void performCleanUp() {
+        for (;;) {
+            boolean again;
+            evictionLock.lock();
+            try {
+                drainStatus.set(PROCESSING);
+                maintenance();
+                again = !drainStatus.compareAndSet(PROCESSING, IDLE);
+            } finally {
+                evictionLock.unlock();
+            }
+            if (!again)
+                return;
+            try {
+                executor.execute(drainTask);
+                return;
+            } catch (RejectedExecutionException ex) {
+                // fall through and drain again in this thread
+            }
+        }
+    }
+
+    /* ---------------- Policy (evictionLock held) -------------- */
+
+    void setMaximum(long max) {
+        maximum = max;
+        windowMaximum = (long)(max * PERCENT_WINDOW);
+        protectedMaximum = (long)((max - windowMaximum) * PERCENT_MAIN_PROTECTED);
+    }
+
+    /**
+     * Replays buffered events and evicts as needed.
+     */
+    void maintenance() {
+        for (ReadStripe<K,V> s : readBuffer)
+            s.drainTo(this);
+        for (Runnable task; (task = writeBuffer.poll()) != null; ) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+        expireEntries();
+        evictEntries();
+    }
+
+    void onAccess(Node<K,V> n) {
+        if (!n.linked)
+            return;
+        sketch.increment(n.key);
+        switch (n.queue) {
+        case WINDOW:
+            window.moveToBack(n);
+            break;
+        case PROBATION:
+            probation.unlink(n);
+            n.queue = PROTECTED;
+            protectedQueue.addLast(n);
+            protectedWeightedSize += n.policyWeight;
+            demoteFromProtected();
+            break;
+        default:
+            protectedQueue.moveToBack(n);
+        }
+    }
+
+    /**
+     * Moves least recently used protected entries to probation while
+     * the protected segment is over its share.
+     */
+    void demoteFromProtected() {
+        Node<K,V> n;
+        while (protectedWeightedSize > protectedMaximum &&
+               (n = protectedQueue.first) != null) {
+            protectedQueue.unlink(n);
+            protectedWeightedSize -= n.policyWeight;
+            n.queue = PROBATION;
+            probation.addLast(n);
+        }
+    }
+
+    NodeDeque<K,V> queueOf(Node<K,V> n) {
+        switch (n.queue) {
+        case WINDOW:    return window;
+        case PROBATION: return probation;
+        default:        return protectedQueue;
+        }
+    }
+
+    final class AddTask implements Runnable {
+        final Node<K,V> node;
+        AddTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (n.linked || n.state != ALIVE)
+                return;
+            int w = n.weight;
+            n.policyWeight = w;
+            n.queue = WINDOW;
+            n.linked = true;
+            window.addLast(n);
+            writeOrder.addLast(n);
+            weightedSize += w;
+            windowWeightedSize += w;
+            sketch.increment(n.key);
+        }
+    }
+
+    final class UpdateTask implements Runnable {
+        final Node<K,V> node;
+        UpdateTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (n == null || !n.linked)
+                return;
+            int delta = n.weight - n.policyWeight;
+            n.policyWeight += delta;
+            weightedSize += delta;
+            if (n.queue == WINDOW)
+                windowWeightedSize += delta;
+            else if (n.queue == PROTECTED)
+                protectedWeightedSize += delta;
+            writeOrder.moveToBack(n);
+            onAccess(n);
+        }
+    }
+
+    final class RemovalTask implements Runnable {
+        final Node<K,V> node;
+        RemovalTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            unlinkNode(node);
+            node.state = DEAD;
+        }
+    }
+
+    void unlinkNode(Node<K,V> n) {
+        if (!n.linked)
+            return;
+        queueOf(n).unlink(n);
+        writeOrder.unlink(n);
+        n.linked = false;
+        weightedSize -= n.policyWeight;
+        if (n.queue == WINDOW)
+            windowWeightedSize -= n.policyWeight;
+        else if (n.queue == PROTECTED)
+            protectedWeightedSize -= n.policyWeight;
+    }
+
+    /**
+     * Removes a node selected by the policy from the map, if it is
+     * still mapped, and from the policy.
+     */
+    void evict(Node<K,V> n) {
+        if (data.remove(n.key, n)) {
+            n.state = DEAD;
+            evictionCount.increment();
+            evictionWeight.add(n.policyWeight);
+        }
+        // else a concurrent removal's task is pending; it will find
+        // the node already unlinked
+        unlinkNode(n);
+    }
+
+    void expireEntries() {
+        long now = System.nanoTime();
+        if (expireAfterWriteNanos > 0L) {
+            Node<K,V> n;
+            while ((n = writeOrder.first) != null &&
+                   now - n.writeTime >= expireAfterWriteNanos)
+                evict(n);
+        }
+        if (expireAfterAccessNanos > 0L) {
+            expireByAccess(window, now);
+            expireByAccess(probation, now);
+            expireByAccess(protectedQueue, now);
+        }
+    }
+
+    void expireByAccess(NodeDeque<K,V> q, long now) {
+        Node<K,V> n;
+        while ((n = q.first) != null &&
+               now - n.accessTime >= expireAfterAccessNanos)
+            evict(n);
+    }
+
+    /**
+     * Moves entries beyond the window's share into probation as
+     * admission candidates, then evicts from the main region until the
+     * cache is within its maximum, each time keeping whichever of the
+     * newest candidate and the probation victim is used more often.
+     */
+    void evictEntries() {
+        int candidates = 0;
+        Node<K,V> n;
+        while (windowWeightedSize > windowMaximum &&
+               (n = window.first) != null) {
+            window.unlink(n);
+            windowWeightedSize -= n.policyWeight;
+            n.queue = PROBATION;
+            probation.addLast(n);
+            ++candidates;
+        }
+        while (weightedSize > maximum) {
+            Node<K,V> victim = probation.first;
+            Node<K,V> candidate = (candidates > 0) ? probation.last : null;
+            if (victim == null) {
+                victim = (protectedQueue.first != null) ?
+                    protectedQueue.first : window.first;
+                if (victim == null)
+                    break;
+                evict(victim);
+            }
+            else if (candidate == null || candidate == victim) {
+                if (candidate != null)
+                    --candidates;
+                evict(victim);
+            }
+            else if (admit(candidate.key, victim.key)) {
+                evict(victim);
+            }
+            else {
+                --candidates;
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the candidate should replace the victim, based
+     * on their estimated access frequencies.
+     */
+    boolean admit(K candidateKey, K victimKey) {
+        int victimFreq = sketch.frequency(victimKey);
+        int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq)
+            return true;
+        if (candidateFreq < ADMIT_HASHDOS_THRESHOLD)
+            return false;
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+}
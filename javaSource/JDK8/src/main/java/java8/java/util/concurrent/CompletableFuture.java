@@ -210,6 +210,27 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             postComplete();
     }
 
+    /**
+     * Arranges for the given completion to run once this future is
+     * complete, running it directly if it already is.  Each call runs
+     * the completion exactly once, either here or from postComplete,
+     * so a completion that is pushed again only after it has run (as
+     * done by CompletionChain) may be reused across futures.
+     */
+    final void pushCompletion(Completion c) {
+        if (result == null) {
+            CompletionNode p = new CompletionNode(c);
+            while (result == null) {
+                if (UNSAFE.compareAndSwapObject
+                    (this, COMPLETIONS, p.next = completions, p)) {
+                    helpPostComplete();
+                    return;
+                }
+            }
+        }
+        c.run();
+    }
+
     /* ------------- waiting for completions -------------- */
 
     /** Number of processors, for spin control */
@@ -0,0 +1,545 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Combinators over collections of {@link CompletableFuture}s, and
+ * timeouts for them.
+ *
+ * <p>Unlike {@link CompletableFuture#allOf} and
+ * {@link CompletableFuture#anyOf}, which relate their arguments
+ * through a balanced tree of intermediate futures, each combinator
+ * here attaches one small dependent action to every input and
+ * aggregates results with atomic counters, so its cost is linear in
+ * the number of inputs and no intermediate future is created.
+ * Results are delivered as lists, in input order unless stated
+ * otherwise.
+ *
+ * <p>Timeouts are kept in a single hashed timing wheel served by one
+ * daemon thread, so arming and disarming one costs constant time
+ * however many are pending.  A timeout fires at most one tick of
+ * ten milliseconds after its delay elapses, and
+ * the future it concerns is then completed from
+ * {@link ForkJoinPool#commonPool()}, so that dependent actions never
+ * run in the timer thread.  The timeout of a future that completes
+ * first is disarmed, and is discarded when the timer next visits its
+ * slot.
+ *
+ * @since 1.8
+ */
+public final class CompletableFutures {
+
+    private CompletableFutures() {}
+
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete, with an unmodifiable
+     * list of their results in iteration order.  If any of them
+     * complete exceptionally, then the returned CompletableFuture
+     * also does so, with a CompletionException holding one of their
+     * exceptions as its cause.  An empty collection yields a future
+     * completed with an empty list.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture of the list of results
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     */
+    public static <T> CompletableFuture<List<T>> allOfList
+        (Collection<? extends CompletableFuture<? extends T>> cfs) {
+        CompletableFuture<?>[] a = snapshot(cfs);
+        AllOf<T> agg = new AllOf<T>(a.length);
+        if (a.length == 0)
+            agg.dst.internalComplete(Collections.<T>emptyList(), null);
+        for (int i = 0; i < a.length; ++i)
+            a[i].pushCompletion(new Slot(agg, a[i], i));
+        return agg.dst;
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed with the
+     * results of the first {@code n} of the given CompletableFutures
+     * to complete normally, as an unmodifiable list in completion
+     * order.  If so many of them complete exceptionally that fewer
+     * than {@code n} can complete normally, then the returned
+     * CompletableFuture also does so, with a CompletionException
+     * holding the exception that decided it as its cause.  The
+     * remaining futures are not cancelled.
+     *
+     * @param cfs the CompletableFutures
+     * @param n the number of results
+     * @param <T> the type of the results
+     * @return a new CompletableFuture of the first {@code n} results
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     * @throws IllegalArgumentException if {@code n} is negative or
+     * greater than the number of futures
+     */
+    public static <T> CompletableFuture<List<T>> firstN
+        (Collection<? extends CompletableFuture<? extends T>> cfs, int n) {
+        CompletableFuture<?>[] a = snapshot(cfs);
+        if (n < 0 || n > a.length)
+            throw new IllegalArgumentException();
+        FirstN<T> agg = new FirstN<T>(n, a.length);
+        if (n == 0)
+            agg.dst.internalComplete(Collections.<T>emptyList(), null);
+        for (int i = 0; i < a.length && agg.dst.result == null; ++i)
+            a[i].pushCompletion(new Slot(agg, a[i], i));
+        return agg.dst;
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed with the
+     * results of applying the given function to each of the given
+     * items and awaiting the futures it returns, as an unmodifiable
+     * list in iteration order.  At most {@code maxConcurrency} of
+     * these futures are incomplete at any time; the function is
+     * applied to the next item only when an earlier future
+     * completes.  Futures that complete immediately are handled
+     * iteratively, so very large collections do not deepen the stack.
+     *
+     * <p>If the function throws an exception or returns {@code null},
+     * or one of its futures completes exceptionally, no further items
+     * are started and the returned CompletableFuture completes
+     * exceptionally at once, with a CompletionException holding the
+     * exception as its cause.
+     *
+     * @param items the items
+     * @param fn the function starting the computation for an item
+     * @param maxConcurrency the maximum number of incomplete futures
+     * @param <T> the type of the items
+     * @param <U> the type of the results
+     * @return a new CompletableFuture of the list of results
+     * @throws NullPointerException if the collection or the function
+     * is {@code null}
+     * @throws IllegalArgumentException if {@code maxConcurrency} is
+     * not positive
+     */
+    public static <T,U> CompletableFuture<List<U>> mapAsync
+        (Collection<? extends T> items,
+         Function<? super T, ? extends CompletableFuture<? extends U>> fn,
+         int maxConcurrency) {
+        if (fn == null) throw new NullPointerException();
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException();
+        MapAsync<T,U> agg = new MapAsync<T,U>(items.toArray(), fn, maxConcurrency);
+        if (agg.items.length == 0)
+            agg.dst.internalComplete(Collections.<U>emptyList(), null);
+        else
+            agg.drain();
+        return agg.dst;
+    }
+
+    /**
+     * Exceptionally completes the given CompletableFuture with a
+     * {@link TimeoutException} if it is not otherwise completed
+     * before the given timeout.
+     *
+     * @param cf the CompletableFuture
+     * @param timeout how long to wait before completing exceptionally
+     * with a TimeoutException, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     * {@code timeout} parameter
+     * @param <T> the type of the result
+     * @return the given CompletableFuture
+     * @throws NullPointerException if {@code cf} or {@code unit} is
+     * {@code null}
+     */
+    public static <T> CompletableFuture<T> orTimeout(CompletableFuture<T> cf,
+                                                     long timeout, TimeUnit unit) {
+        if (cf == null || unit == null) throw new NullPointerException();
+        if (cf.result == null)
+            arm(cf, new Timeout(() -> cf.completeExceptionally(new TimeoutException())),
+                unit.toNanos(timeout));
+        return cf;
+    }
+
+    /**
+     * Completes the given CompletableFuture with the given value if
+     * it is not otherwise completed before the given timeout.
+     *
+     * @param cf the CompletableFuture
+     * @param value the value to use upon timeout
+     * @param timeout how long to wait before completing normally
+     * with the given value, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     * {@code timeout} parameter
+     * @param <T> the type of the result
+     * @return the given CompletableFuture
+     * @throws NullPointerException if {@code cf} or {@code unit} is
+     * {@code null}
+     */
+    public static <T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> cf, T value,
+                                                             long timeout, TimeUnit unit) {
+        if (cf == null || unit == null) throw new NullPointerException();
+        if (cf.result == null)
+            arm(cf, new Timeout(() -> cf.complete(value)), unit.toNanos(timeout));
+        return cf;
+    }
+
+    /**
+     * Returns the number of timeouts that are armed, or disarmed but
+     * not yet discarded by the timer.
+     *
+     * @return the number of timeouts held by the timer
+     */
+    public static long getPendingTimeoutCount() {
+        return TimeoutWheel.INSTANCE.size.get();
+    }
+
+    private static CompletableFuture<?>[] snapshot
+        (Collection<? extends CompletableFuture<?>> cfs) {
+        CompletableFuture<?>[] a = cfs.toArray(new CompletableFuture<?>[0]);
+        for (CompletableFuture<?> f : a)
+            if (f == null) throw new NullPointerException();
+        return a;
+    }
+
+    private static void arm(CompletableFuture<?> cf, Timeout t, long nanos) {
+        TimeoutWheel.INSTANCE.schedule(t, nanos);
+        // Disarm once cf completes, whether or not by this timeout
+        cf.pushCompletion(new Disarm(t));
+    }
+
+    /* ------------- Aggregation -------------- */
+
+    /**
+     * Collects the outcomes of a combinator's inputs.  Subclasses
+     * keep their counts in the inherited AtomicInteger and complete
+     * dst when decided; later outcomes are then ignored, since dst
+     * can be completed only once.
+     */
+    @SuppressWarnings("serial")
+    abstract static class Aggregate<R> extends AtomicInteger {
+        final CompletableFuture<R> dst = new CompletableFuture<R>();
+
+        /**
+         * Records the outcome of input {@code index}: the value if
+         * {@code ex} is null, else the exception.
+         */
+        abstract void accept(int index, Object v, Throwable ex);
+
+        /**
+         * Returns an unmodifiable list view of the given results.
+         */
+        @SuppressWarnings("unchecked")
+        static <E> List<E> listOf(Object[] results) {
+            return Collections.unmodifiableList(Arrays.asList((E[]) results));
+        }
+    }
+
+    /**
+     * The dependent action pushed onto each input of an aggregate.
+     * Each push runs it exactly once, so it needs no claim.
+     */
+    static final class Slot extends CompletableFuture.Completion {
+        final Aggregate<?> agg;
+        final CompletableFuture<?> src;
+        final int index;
+        Slot(Aggregate<?> agg, CompletableFuture<?> src, int index) {
+            this.agg = agg; this.src = src; this.index = index;
+        }
+        public final void run() {
+            Object r = src.result;
+            if (r instanceof CompletableFuture.AltResult)
+                agg.accept(index, null, ((CompletableFuture.AltResult)r).ex);
+            else
+                agg.accept(index, r, null);
+        }
+        private static final long serialVersionUID = 5232453952276885070L;
+    }
+
+    /** Counts down from the number of inputs. */
+    @SuppressWarnings("serial")
+    static final class AllOf<T> extends Aggregate<List<T>> {
+        final Object[] results;
+        Throwable ex; // any one failure; published by the countdown
+        AllOf(int n) {
+            set(n);
+            results = new Object[n];
+        }
+        final void accept(int index, Object v, Throwable x) {
+            if (x != null)
+                ex = x;
+            else
+                results[index] = v;
+            if (decrementAndGet() == 0) {
+                Throwable e = ex;
+                dst.internalComplete(e == null ? Aggregate.<T>listOf(results) : null, e);
+            }
+        }
+    }
+
+    /**
+     * Counts normal completions upwards, claiming a position in
+     * completion order for each; failures are counted separately.
+     */
+    @SuppressWarnings("serial")
+    static final class FirstN<T> extends Aggregate<List<T>> {
+        final Object[] results;
+        final int allowedFailures;
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger filled = new AtomicInteger();
+        FirstN(int n, int total) {
+            results = new Object[n];
+            allowedFailures = total - n;
+        }
+        final void accept(int index, Object v, Throwable x) {
+            if (x != null) {
+                if (failures.incrementAndGet() == allowedFailures + 1)
+                    dst.internalComplete(null, x);
+            }
+            else {
+                int k = getAndIncrement();
+                if (k < results.length) {
+                    results[k] = v;
+                    if (filled.incrementAndGet() == results.length)
+                        dst.internalComplete(Aggregate.<T>listOf(results), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts inputs as capacity allows.  The inherited AtomicInteger
+     * counts requests to drain, so that only one thread at a time
+     * walks the items, and completions that arrive while it does,
+     * including ones completed by the function itself, just ask it to
+     * go round again instead of recursing.
+     */
+    @SuppressWarnings("serial")
+    static final class MapAsync<T,U> extends Aggregate<List<U>> {
+        final Object[] items;
+        final Object[] results;
+        final Function<? super T, ? extends CompletableFuture<? extends U>> fn;
+        final int maxConcurrency;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger remaining;
+        int next; // accessed only while draining
+
+        MapAsync(Object[] items,
+                 Function<? super T, ? extends CompletableFuture<? extends U>> fn,
+                 int maxConcurrency) {
+            this.items = items;
+            this.results = new Object[items.length];
+            this.fn = fn;
+            this.maxConcurrency = maxConcurrency;
+            this.remaining = new AtomicInteger(items.length);
+        }
+
+        final void accept(int index, Object v, Throwable x) {
+            if (x != null)
+                dst.internalComplete(null, x);
+            else {
+                results[index] = v;
+                if (remaining.decrementAndGet() == 0)
+                    dst.internalComplete(Aggregate.<U>listOf(results), null);
+                else {
+                    active.decrementAndGet();
+                    drain();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        final void drain() {
+            if (getAndIncrement() != 0)
+                return;
+            for (int missed = 1;;) {
+                while (next < items.length && dst.result == null &&
+                       active.get() < maxConcurrency) {
+                    int i = next++;
+                    active.incrementAndGet();
+                    CompletableFuture<? extends U> f;
+                    try {
+                        f = fn.apply((T) items[i]);
+                        if (f == null)
+                            throw new NullPointerException();
+                    } catch (Throwable ex) {
+                        dst.internalComplete(null, ex);
+                        break;
+                    }
+                    f.pushCompletion(new Slot(this, f, i));
+                }
+                if ((missed = addAndGet(-missed)) == 0)
+                    break;
+            }
+        }
+    }
+
+    /* ------------- Timeouts -------------- */
+
+    /** The duration of one tick of the timeout wheel. */
+    static final long TICK_MILLIS = 10L;
+
+    /**
+     * A pending timeout.  The AtomicInteger state is 0 while armed,
+     * and is claimed by whichever of firing and disarming comes first.
+     * Entries are linked into wheel buckets by the timer thread only.
+     */
+    @SuppressWarnings("serial")
+    static final class Timeout extends AtomicInteger {
+        final Runnable action;
+        long deadline;  // System.nanoTime() based
+        long rounds;    // remaining turns of the wheel
+        Timeout next;
+        Timeout(Runnable action) { this.action = action; }
+        final boolean disarm() { return compareAndSet(0, 1); }
+    }
+
+    /** Disarms a timeout when the future it guards completes. */
+    static final class Disarm extends CompletableFuture.Completion {
+        final Timeout timeout;
+        Disarm(Timeout timeout) { this.timeout = timeout; }
+        public final void run() { timeout.disarm(); }
+        private static final long serialVersionUID = 5232453952276885070L;
+    }
+
+    /**
+     * A hashed timing wheel of {@link #WHEEL_SIZE} buckets of
+     * {@link #TICK_MILLIS} each.  New timeouts are queued by any
+     * thread and moved into their bucket by the timer thread on its
+     * next tick, so buckets need no synchronization.  Each tick the
+     * timer walks one bucket, firing the timeouts due in this turn of
+     * the wheel and unlinking disarmed ones.  While no timeouts are
+     * pending the timer parks without a deadline, and is unparked by the
+     * next {@link #schedule}.
+     */
+    static final class TimeoutWheel implements Runnable {
+        static final int WHEEL_SIZE = 512; // power of two
+        static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+        static final TimeoutWheel INSTANCE = new TimeoutWheel();
+
+        final Timeout[] buckets = new Timeout[WHEEL_SIZE];
+        final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final long origin = System.nanoTime();
+        final Thread timer;
+        volatile boolean idle; // timer parked with no pending timeouts
+        long tick; // ticks processed, accessed only by the timer thread
+
+        private TimeoutWheel() {
+            Thread t = timer = new Thread(this, "CompletableFutures-Timeout");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        void schedule(Timeout t, long nanos) {
+            t.deadline = System.nanoTime() + Math.max(0L, nanos);
+            size.incrementAndGet();
+            incoming.offer(t);
+            if (idle)
+                LockSupport.unpark(timer);
+        }
+
+        public void run() {
+            for (;;) {
+                if (size.get() == 0) {
+                    // Recheck after publishing idle; a schedule that
+                    // missed it has already raised size
+                    idle = true;
+                    if (size.get() == 0)
+                        LockSupport.park(this);
+                    idle = false;
+                    // The buckets are empty: skip the idle ticks
+                    tick = Math.max(tick, (System.nanoTime() - origin) / TICK_NANOS);
+                    continue;
+                }
+                long wake = origin + (tick + 1) * TICK_NANOS;
+                long delay;
+                while ((delay = wake - System.nanoTime()) > 0L)
+                    LockSupport.parkNanos(this, delay);
+                transferIncoming();
+                expire((int)(tick & (WHEEL_SIZE - 1)));
+                ++tick;
+            }
+        }
+
+        /** Moves queued timeouts into their buckets. */
+        private void transferIncoming() {
+            for (Timeout t; (t = incoming.poll()) != null;) {
+                if (t.get() != 0) {
+                    size.decrementAndGet();
+                    continue;
+                }
+                long due = (t.deadline - origin + TICK_NANOS - 1) / TICK_NANOS;
+                // Already due timeouts go in the current bucket
+                long slot = Math.max(due, tick);
+                t.rounds = (slot - tick) / WHEEL_SIZE;
+                int i = (int)(slot & (WHEEL_SIZE - 1));
+                t.next = buckets[i];
+                buckets[i] = t;
+            }
+        }
+
+        /** Fires due timeouts in a bucket and drops disarmed ones. */
+        private void expire(int i) {
+            Timeout prev = null;
+            for (Timeout t = buckets[i], next; t != null; t = next) {
+                next = t.next;
+                boolean remove;
+                if (t.get() != 0)
+                    remove = true;
+                else if (t.rounds > 0L) {
+                    --t.rounds;
+                    remove = false;
+                }
+                else {
+                    remove = true;
+                    if (t.disarm()) {
+                        try {
+                            ForkJoinPool.commonPool().execute(t.action);
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                }
+                if (remove) {
+                    t.next = null;
+                    if (prev == null)
+                        buckets[i] = next;
+                    else
+                        prev.next = next;
+                    size.decrementAndGet();
+                }
+                else
+                    prev = t;
+            }
+        }
+    }
+}
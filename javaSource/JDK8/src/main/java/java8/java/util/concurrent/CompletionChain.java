@@ -0,0 +1,363 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A reusable, immutable description of a linear chain of dependent
+ * actions, applied to any number of source stages.  A chain such as
+ *
+ * <pre> {@code
+ * static final CompletionChain<Request, Response> HANDLER =
+ *     CompletionChain.<Request>start()
+ *         .thenApply(Codec::decode)
+ *         .thenCompose(backend::call)
+ *         .async(affinityExecutor)
+ *         .thenApply(Codec::encode)
+ *         .exceptionally(Responses::error);
+ *
+ * CompletableFuture<Response> f = HANDLER.applyTo(requestStage);}</pre>
+ *
+ * computes the same result as the corresponding sequence of
+ * {@link CompletableFuture} methods, but each application creates
+ * only one dependent action and one result future, however long the
+ * chain, instead of an action and a future per stage.  The action
+ * runs the steps one after another, and is reattached, rather than
+ * recreated, each time the chain waits for a stage returned by a
+ * {@link #thenCompose} step or moves to another executor at an
+ * {@link #async} step.  Intermediate stages are never materialized,
+ * so they cannot be observed, cancelled or completed by other code.
+ *
+ * <p>Steps run in the thread that completes the stage being waited
+ * on, or in the caller of {@link #applyTo} if it is already complete,
+ * until an {@code async} step hands the remaining steps to its
+ * executor.  A stage returned by {@code thenCompose} that is already
+ * complete is consumed without suspending, so chains of synchronous
+ * compositions run in a loop rather than growing the stack.
+ *
+ * <p>If a step throws an exception, later {@code thenApply},
+ * {@code thenAccept} and {@code thenCompose} steps are skipped until
+ * an {@code exceptionally} step recovers from it; if none does, the
+ * result future completes exceptionally with a
+ * {@link java.util.concurrent.CompletionException} holding it.
+ *
+ * @param <T> the type of the source value
+ * @param <R> the type of the chain's result
+ * @since 1.8
+ */
+public final class CompletionChain<T,R> {
+
+    // Step kinds
+    static final int APPLY   = 0;
+    static final int RECOVER = 1;
+    static final int COMPOSE = 2;
+    static final int ASYNC   = 3;
+
+    private static final int[] NO_KINDS = new int[0];
+    private static final Object[] NO_ACTIONS = new Object[0];
+
+    final int[] kinds;
+    final Object[] actions;
+
+    private CompletionChain(int[] kinds, Object[] actions) {
+        this.kinds = kinds;
+        this.actions = actions;
+    }
+
+    /**
+     * Returns an empty chain, whose result is its source value.
+     *
+     * @param <T> the type of the source value
+     * @return an empty chain
+     */
+    public static <T> CompletionChain<T,T> start() {
+        return new CompletionChain<T,T>(NO_KINDS, NO_ACTIONS);
+    }
+
+    private <U> CompletionChain<T,U> append(int kind, Object action) {
+        if (action == null) throw new NullPointerException();
+        int n = kinds.length;
+        int[] k = Arrays.copyOf(kinds, n + 1);
+        Object[] a = Arrays.copyOf(actions, n + 1);
+        k[n] = kind;
+        a[n] = action;
+        return new CompletionChain<T,U>(k, a);
+    }
+
+    /**
+     * Returns a new chain that, after the steps of this one, applies
+     * the given function to their result.
+     *
+     * @param fn the function to apply
+     * @param <U> the function's return type
+     * @return the new chain
+     * @see CompletableFuture#thenApply
+     */
+    public <U> CompletionChain<T,U> thenApply(Function<? super R,? extends U> fn) {
+        return append(APPLY, fn);
+    }
+
+    /**
+     * Returns a new chain that, after the steps of this one, passes
+     * their result to the given action.
+     *
+     * @param action the action to perform
+     * @return the new chain
+     * @see CompletableFuture#thenAccept
+     */
+    public CompletionChain<T,Void> thenAccept(Consumer<? super R> action) {
+        if (action == null) throw new NullPointerException();
+        return append(APPLY, (Function<R,Void>) r -> { action.accept(r); return null; });
+    }
+
+    /**
+     * Returns a new chain that, after the steps of this one, applies
+     * the given function to their result and continues with the
+     * result of the stage it returns.
+     *
+     * @param fn the function returning a stage
+     * @param <U> the type of the returned stage's result
+     * @return the new chain
+     * @see CompletableFuture#thenCompose
+     */
+    public <U> CompletionChain<T,U> thenCompose
+        (Function<? super R, ? extends CompletionStage<U>> fn) {
+        return append(COMPOSE, fn);
+    }
+
+    /**
+     * Returns a new chain that, if the steps of this one complete
+     * exceptionally, continues with the result of the given function
+     * of the exception; otherwise it continues with their result.
+     *
+     * @param fn the function computing a value from the exception
+     * @return the new chain
+     * @see CompletableFuture#exceptionally
+     */
+    public CompletionChain<T,R> exceptionally(Function<Throwable,? extends R> fn) {
+        return append(RECOVER, fn);
+    }
+
+    /**
+     * Returns a new chain whose steps after those of this one run
+     * using the given executor.  The remaining steps are submitted as
+     * a single task; if the executor rejects it, the chain continues
+     * in the current thread with the rejection as its exception.
+     *
+     * @param executor the executor for the following steps
+     * @return the new chain
+     */
+    public CompletionChain<T,R> async(Executor executor) {
+        return append(ASYNC, executor);
+    }
+
+    /**
+     * Returns the number of steps in this chain.
+     *
+     * @return the number of steps
+     */
+    public int length() {
+        return kinds.length;
+    }
+
+    /**
+     * Runs this chain on the result of the given stage once it
+     * completes.
+     *
+     * @param source the stage supplying the source value
+     * @return a new CompletableFuture completed with the chain's result
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<R> applyTo(CompletionStage<? extends T> source) {
+        if (source == null) throw new NullPointerException();
+        Runner r = new Runner(kinds, actions);
+        r.await(source);
+        return (CompletableFuture<R>) (CompletableFuture<?>) r.dst;
+    }
+
+    /**
+     * Runs this chain on the given value, in the current thread until
+     * the chain first suspends or moves to another executor.
+     *
+     * @param value the source value
+     * @return a new CompletableFuture completed with the chain's result
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<R> applyToValue(T value) {
+        Runner r = new Runner(kinds, actions);
+        r.advance(value, null);
+        return (CompletableFuture<R>) (CompletableFuture<?>) r.dst;
+    }
+
+    public String toString() {
+        return super.toString() + "[steps = " + kinds.length + "]";
+    }
+
+    /**
+     * The single dependent action of one application of a chain.  It
+     * is pushed onto each stage the chain waits for, or submitted to
+     * the executor of an async step, and resumes at step {@code index}
+     * each time it runs.  Every push or submission runs it exactly
+     * once, and the next one happens only from within that run, so
+     * the plain fields need no further synchronization.
+     */
+    static final class Runner extends CompletableFuture.Completion
+        implements BiConsumer<Object,Throwable> {
+        final int[] kinds;
+        final Object[] actions;
+        final CompletableFuture<Object> dst;
+        CompletableFuture<?> src; // stage waited on, null after async step
+        int index;                // next step to run
+        Object value;             // carried across an async step
+        Throwable ex;
+
+        Runner(int[] kinds, Object[] actions) {
+            this.kinds = kinds;
+            this.actions = actions;
+            this.dst = new CompletableFuture<Object>();
+        }
+
+        /**
+         * Waits for the given stage, pushing this action directly
+         * onto it when it is a CompletableFuture of this package.
+         */
+        final void await(CompletionStage<?> cs) {
+            if (cs instanceof CompletableFuture) {
+                CompletableFuture<?> a = (CompletableFuture<?>) cs;
+                src = a;
+                a.pushCompletion(this);
+            }
+            else
+                cs.whenComplete(this);
+        }
+
+        public final void run() {
+            CompletableFuture<?> a; Object r;
+            if ((a = src) != null) {
+                src = null;
+                if ((r = a.result) instanceof CompletableFuture.AltResult)
+                    advance(null, ((CompletableFuture.AltResult)r).ex);
+                else
+                    advance(r, null);
+            }
+            else {
+                Object v = value; Throwable x = ex;
+                value = null;
+                ex = null;
+                advance(v, x);
+            }
+        }
+
+        public final void accept(Object v, Throwable x) {
+            advance(v, x);
+        }
+
+        /**
+         * Runs steps from {@code index} with the given outcome of the
+         * previous one, until the chain completes, suspends on a stage
+         * or is handed to an executor.
+         */
+        @SuppressWarnings("unchecked")
+        final void advance(Object v, Throwable x) {
+            final int[] kinds = this.kinds;
+            final Object[] actions = this.actions;
+            for (int i = index, n = kinds.length; i < n;) {
+                int k = kinds[i];
+                Object f = actions[i++];
+                if (k == APPLY) {
+                    if (x == null) {
+                        try {
+                            v = ((Function<Object,Object>)f).apply(v);
+                        } catch (Throwable rex) {
+                            x = rex;
+                        }
+                    }
+                }
+                else if (k == RECOVER) {
+                    if (x != null) {
+                        try {
+                            v = ((Function<Throwable,Object>)f).apply(x);
+                            x = null;
+                        } catch (Throwable rex) {
+                            x = rex;
+                        }
+                    }
+                }
+                else if (k == COMPOSE) {
+                    if (x == null) {
+                        CompletionStage<?> cs = null;
+                        try {
+                            cs = ((Function<Object,CompletionStage<?>>)f).apply(v);
+                            if (cs == null)
+                                x = new NullPointerException();
+                        } catch (Throwable rex) {
+                            x = rex;
+                        }
+                        if (cs != null) {
+                            Object r;
+                            if (cs instanceof CompletableFuture &&
+                                (r = ((CompletableFuture<?>)cs).result) != null) {
+                                // Already complete: continue without suspending
+                                if (r instanceof CompletableFuture.AltResult) {
+                                    v = null;
+                                    x = ((CompletableFuture.AltResult)r).ex;
+                                }
+                                else
+                                    v = r;
+                                continue;
+                            }
+                            index = i;
+                            await(cs);
+                            return;
+                        }
+                    }
+                }
+                else { // ASYNC
+                    index = i;
+                    value = v;
+                    ex = x;
+                    try {
+                        ((Executor)f).execute(this);
+                        return;
+                    } catch (Throwable rex) {
+                        value = null;
+                        ex = null;
+                        x = rex;
+                    }
+                }
+            }
+            index = kinds.length;
+            dst.internalComplete(v, x);
+        }
+
+        private static final long serialVersionUID = 5232453952276885070L;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java8.java.lang.management.ExecutorMXBean;
+
+/**
+ * Task metrics of a {@link ThreadPoolExecutor} or {@link
+ * ScheduledThreadPoolExecutor}, returned by {@link
+ * ThreadPoolExecutor#enableMetrics}.
+ *
+ * <p>For each task the pool records the time it waited to be started
+ * and the time it ran, each in a {@link Histogram}, and counts
+ * submitted, completed, failed and rejected tasks.  Every recording is
+ * an update of a {@link LongAdder}, so that worker threads do not
+ * contend on shared counters; reading a value sums the adders' cells
+ * and is correspondingly more expensive, and is not atomic with
+ * respect to concurrent updates.
+ *
+ * <p>This class implements {@link ExecutorMXBean}, and may be
+ * published on the platform MBean server with {@link #register}.
+ *
+ * @since 1.8
+ */
+public final class ExecutorMetrics implements ExecutorMXBean {
+
+    /**
+     * A histogram of non-negative long values (here, nanosecond
+     * durations), in buckets whose bounds are successive powers of
+     * two.  Recording a value costs a leading-zero count and two adder
+     * increments; percentiles are interpolated linearly within a
+     * bucket, so are exact only to within a factor of two.
+     */
+    public static final class Histogram {
+        /** Bucket i counts values v with 64 - numberOfLeadingZeros(v) == i */
+        final LongAdder[] buckets = new LongAdder[65];
+        final LongAdder sum = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        /**
+         * Creates an empty histogram.
+         */
+        public Histogram() {
+            for (int i = 0; i < buckets.length; ++i)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Records a value; negative values (from clock adjustments on
+         * platforms without a monotonic clock) are recorded as zero.
+         *
+         * @param value the value
+         */
+        public void record(long value) {
+            if (value < 0L)
+                value = 0L;
+            buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return the count
+         */
+        public long count() {
+            long n = 0L;
+            for (LongAdder b : buckets)
+                n += b.sum();
+            return n;
+        }
+
+        /**
+         * Returns the mean of the recorded values, or zero if none.
+         *
+         * @return the mean
+         */
+        public long mean() {
+            long n = count();
+            return (n == 0L) ? 0L : sum.sum() / n;
+        }
+
+        /**
+         * Returns the largest recorded value, or zero if none.
+         *
+         * @return the maximum
+         */
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * Returns an estimate of the value below which the given
+         * fraction of recorded values fall, or zero if none.
+         *
+         * @param fraction the fraction, between 0.0 and 1.0
+         * @return the estimated percentile
+         * @throws IllegalArgumentException if the fraction is out of range
+         */
+        public long percentile(double fraction) {
+            if (!(fraction >= 0.0 && fraction <= 1.0))
+                throw new IllegalArgumentException();
+            long[] counts = new long[buckets.length];
+            long n = 0L;
+            for (int i = 0; i < counts.length; ++i)
+                n += counts[i] = buckets[i].sum();
+            if (n == 0L)
+                return 0L;
+            double rank = fraction * n;
+            long seen = 0L;
+            for (int i = 0; i < counts.length; ++i) {
+                long c = counts[i];
+                if (c != 0L && seen + c >= rank) {
+                    if (i == 0)
+                        return 0L;
+                    long lo = 1L << (i - 1);
+                    double hi = (i == 64) ? 0x1p63 : (double)(1L << i);
+                    long v = lo + (long)((hi - lo) * ((rank - seen) / c));
+                    return Math.min(v, max.get());
+                }
+                seen += c;
+            }
+            return max.get();
+        }
+
+        /**
+         * Resets the histogram.  Values recorded concurrently may or
+         * may not be retained.
+         */
+        public void reset() {
+            for (LongAdder b : buckets)
+                b.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        public String toString() {
+            return "[count=" + count() + ", mean=" + mean() +
+                ", p50=" + percentile(0.5) + ", p99=" + percentile(0.99) +
+                ", max=" + max() + "]";
+        }
+    }
+
+    final String name;
+    final ThreadPoolExecutor executor;
+    final Histogram queueWait = new Histogram();
+    final Histogram runTime = new Histogram();
+    final LongAdder submitted = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+
+    /** Summed lifetimes of workers that exited, since the last reset. */
+    final LongAdder exitedWorkerNanos = new LongAdder();
+
+    /** System.nanoTime at which metrics were enabled or last reset. */
+    volatile long since;
+
+    ExecutorMetrics(String name, ThreadPoolExecutor executor) {
+        this.name = name;
+        this.executor = executor;
+        this.since = System.nanoTime();
+    }
+
+    /**
+     * Returns the histogram of times tasks waited before being started.
+     *
+     * @return the queue wait histogram
+     */
+    public Histogram queueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Returns the histogram of times tasks ran.
+     *
+     * @return the run time histogram
+     */
+    public Histogram runTime() {
+        return runTime;
+    }
+
+    public String getName()              { return name; }
+    public int getPoolSize()             { return executor.getPoolSize(); }
+    public int getActiveCount()          { return executor.getActiveCount(); }
+    public int getQueueSize()            { return executor.getQueue().size(); }
+    public long getSubmittedTaskCount()  { return submitted.sum(); }
+    public long getCompletedTaskCount()  { return runTime.count(); }
+    public long getFailedTaskCount()     { return failed.sum(); }
+    public long getRejectedTaskCount()   { return rejected.sum(); }
+    public long getQueueWaitMean()       { return queueWait.mean(); }
+    public long getQueueWaitMedian()     { return queueWait.percentile(0.5); }
+    public long getQueueWait99thPercentile() {
+        return queueWait.percentile(0.99);
+    }
+    public long getQueueWaitMax()        { return queueWait.max(); }
+    public long getRunTimeMean()         { return runTime.mean(); }
+    public long getRunTimeMedian()       { return runTime.percentile(0.5); }
+    public long getRunTime99thPercentile() {
+        return runTime.percentile(0.99);
+    }
+    public long getRunTimeMax()          { return runTime.max(); }
+
+    public double getUtilization() {
+        // {live worker time, time spent in tasks still running}
+        long[] live = executor.workerNanos(since);
+        double total = exitedWorkerNanos.sum() + live[0];
+        double busy = runTime.sum.sum() + live[1];
+        return (total <= 0.0) ? 0.0 : Math.min(1.0, busy / total);
+    }
+
+    public void reset() {
+        since = System.nanoTime();
+        queueWait.reset();
+        runTime.reset();
+        submitted.reset();
+        failed.reset();
+        rejected.reset();
+        exitedWorkerNanos.reset();
+    }
+
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.util.concurrent:type=Executor,name=" +
+                                  ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * {@link #getObjectName}.
+     *
+     * @throws IllegalStateException if the name is already registered
+     *         or registration otherwise fails
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, getObjectName());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, if
+     * registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName on = getObjectName();
+            if (server.isRegistered(on))
+                server.unregisterMBean(on);
+        } catch (JMException ignore) {
+        }
+    }
+
+    /* ---------------- Recording, called by the executor -------------- */
+
+    void taskSubmitted() {
+        submitted.increment();
+    }
+
+    void taskRejected() {
+        rejected.increment();
+    }
+
+    void taskStarted(long waitNanos) {
+        queueWait.record(waitNanos);
+    }
+
+    void taskFinished(long runNanos, boolean threw) {
+        runTime.record(runNanos);
+        if (threw)
+            failed.increment();
+    }
+
+    void workerExited(long startNanos, long now) {
+        long from = later(startNanos, since);
+        if (now - from > 0L)
+            exitedWorkerNanos.add(now - from);
+    }
+
+    /**
+     * Returns the later of two System.nanoTime values, comparing their
+     * difference since the values themselves may wrap around.
+     */
+    static long later(long a, long b) {
+        return (a - b < 0L) ? b : a;
+    }
+
+    public String toString() {
+        return super.toString() + "[" + name +
+            ", submitted=" + getSubmittedTaskCount() +
+            ", completed=" + getCompletedTaskCount() +
+            ", failed=" + getFailedTaskCount() +
+            ", rejected=" + getRejectedTaskCount() +
+            ", utilization=" + getUtilization() +
+            ", queueWait=" + queueWait +
+            ", runTime=" + runTime + "]";
+    }
+}
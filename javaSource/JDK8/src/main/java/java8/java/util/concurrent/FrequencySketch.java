@@ -0,0 +1,151 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+/**
+ * A probabilistic multiset estimating the recent access frequency of
+ * elements, used as the admission filter of {@link BoundedConcurrentCache}.
+ *
+ * <p>This is a count-min sketch of 4-bit counters, sixteen to a
+ * {@code long}.  An element maps to one table slot per hash function
+ * (four in all), and within each slot to a counter chosen by two bits
+ * of its spread hash.  Its estimated frequency is the minimum of its
+ * four counters, which bounds the overestimation caused by collisions.
+ *
+ * <p>Counters saturate at 15.  To keep the estimate about <i>recent</i>
+ * history, once the number of increments reaches ten times the
+ * maximum cache size every counter is halved (the "aging" or reset
+ * operation of TinyLFU), which also compensates for counters that
+ * were incremented by saturated elements.
+ *
+ * <p>This class is not thread-safe; callers confine it to a single
+ * thread at a time, here the one holding the cache's eviction lock.
+ */
+final class FrequencySketch {
+
+    static final long[] SEED = { // a mixture of seeds from FNV-1a, CityHash, and Murmur3
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+        0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    static final long RESET_MASK = 0x7777777777777777L;
+    static final long ONE_MASK = 0x1111111111111111L;
+
+    int sampleSize;
+    int tableMask;
+    long[] table;
+    int size;
+
+    /**
+     * Creates a sketch sized for a cache holding up to the given number
+     * of elements.
+     */
+    FrequencySketch(long maximumSize) {
+        int maximum = (int)Math.min(Math.max(maximumSize, 1L),
+                                    Integer.MAX_VALUE >>> 1);
+        int n = 8;
+        while (n < maximum)
+            n <<= 1;
+        table = new long[n];
+        tableMask = n - 1;
+        sampleSize = 10 * maximum;
+        if (sampleSize <= 0)
+            sampleSize = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of an element, up to
+     * the maximum (15).
+     */
+    int frequency(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the element if it does not exceed
+     * the maximum (15), periodically aging all counters.
+     */
+    void increment(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++)
+            added |= incrementAt(indexOf(hash, i), start + i);
+        if (added && (++size == sampleSize))
+            reset();
+    }
+
+    /**
+     * Increments the specified counter by 1 if it is not saturated.
+     *
+     * @param i the table index (16 counters)
+     * @param j the counter to increment
+     * @return if incremented
+     */
+    boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /** Reduces every counter by half of its original value. */
+    void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * Returns the table index for the counter at the specified depth.
+     */
+    int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int)hash) & tableMask;
+    }
+
+    /**
+     * Applies a supplemental hash function to a given hashCode, which
+     * defends against poor quality hash functions.
+     */
+    static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, in which producers and consumers never take a lock.  This
+ * queue orders elements FIFO (first-in-first-out), and is intended as
+ * a drop-in replacement for {@link ArrayBlockingQueue} where many
+ * threads contend on both ends, typically as the work queue of a
+ * {@link ThreadPoolExecutor}.
+ *
+ * <p>Each array slot carries a sequence number recording which "lap"
+ * of the ring may use it next.  A producer claims the slot at the
+ * tail by advancing the tail counter with a single CAS once the slot's
+ * sequence shows it has been vacated, stores its element and then
+ * publishes the slot by bumping its sequence; consumers do the
+ * symmetric at the head.  Producers therefore contend only with
+ * producers and consumers only with consumers, and only on one
+ * counter each.  The two counters are padded onto separate cache
+ * lines so that they do not false-share.
+ *
+ * <p>The non-blocking methods ({@code offer}, {@code poll}, {@code
+ * peek}) never block.  The blocking methods first spin briefly,
+ * retrying the operation, and then park; a thread that has parked is
+ * unparked by the next operation on the other end of the queue.
+ * Waiting threads are not ordered: there is no fairness policy.
+ *
+ * <p>The capacity is rounded up to the next power of two, so that
+ * slot indices can be masked rather than divided; {@link
+ * #remainingCapacity} reports against the rounded capacity.
+ *
+ * <p>Interior removal, by {@link #remove(Object)} or by the
+ * iterator, replaces the element in its slot with a tombstone, again
+ * with a single CAS that races only with the consumer taking that
+ * slot.  Consumers skip tombstones as they reach them, so a removed
+ * element keeps its slot, and counts towards {@link #size}, until the
+ * head passes it.  This keeps {@link ThreadPoolExecutor#remove} and
+ * {@link ThreadPoolExecutor#purge} working for pools using this
+ * queue.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /** Largest permitted capacity; a power of two. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of times a blocking operation retries before parking.
+     * Spinning is useless on a uniprocessor.
+     */
+    static final int SPINS = (NCPU > 1) ? 1 << 7 : 0;
+
+    /** Remaining spins below which the spin loop yields. */
+    static final int YIELD_SPINS = SPINS >>> 2;
+
+    /**
+     * An AtomicLong padded to a cache line of its own, so that the
+     * head and tail indices do not false-share with each other or with
+     * neighbouring objects.
+     */
+    @SuppressWarnings("serial")
+    static final class PaddedAtomicLong extends AtomicLong {
+        long p0, p1, p2, p3, p4, p5, p6, p7, p8, p9, pa, pb, pc, pd, pe;
+    }
+
+    /** Marks a slot whose element has been removed. */
+    static final Object TOMBSTONE = new Object();
+
+    /** The queued items, or TOMBSTONE for removed ones */
+    final AtomicReferenceArray<Object> items;
+
+    /**
+     * Slot sequence numbers.  A slot with sequence {@code s} may be
+     * filled by the producer claiming tail index {@code s}, and has
+     * been filled for the consumer claiming head index {@code s - 1}.
+     */
+    final AtomicLongArray sequences;
+
+    /** Mask for slot indexing; the capacity minus one. */
+    final int mask;
+
+    /** Index of the next slot to be taken. */
+    final PaddedAtomicLong head = new PaddedAtomicLong();
+
+    /** Index of the next slot to be filled. */
+    final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+    /** Consumers waiting for an element. */
+    final Waiters notEmpty = new Waiters();
+
+    /** Producers waiting for space. */
+    final Waiters notFull = new Waiters();
+
+    /**
+     * A set of parked threads.  The count is raised before a thread
+     * enqueues itself and rechecks the queue, and the other side reads
+     * it after publishing a slot, so with both being volatile accesses
+     * either the waiter sees the slot or the signaller sees the waiter.
+     */
+    static final class Waiters {
+        final AtomicInteger count = new AtomicInteger();
+        final ConcurrentLinkedQueue<Thread> threads =
+            new ConcurrentLinkedQueue<Thread>();
+
+        void enqueue(Thread w) {
+            count.incrementAndGet();
+            threads.offer(w);
+        }
+
+        /**
+         * Removes w, returning false if it had already been removed by
+         * a signal.
+         */
+        boolean dequeue(Thread w) {
+            count.decrementAndGet();
+            return threads.remove(w);
+        }
+
+        void signal() {
+            if (count.get() > 0) {
+                Thread w = threads.poll();
+                if (w != null)
+                    LockSupport.unpark(w);
+            }
+        }
+    }
+
+    /**
+     * Creates an {@code MpmcArrayBlockingQueue} with at least the given
+     * capacity.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or it
+     *         exceeds 2<sup>30</sup>
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+        items = new AtomicReferenceArray<Object>(n);
+        sequences = new AtomicLongArray(n);
+        for (int i = 0; i < n; ++i)
+            sequences.lazySet(i, i);
+        mask = n - 1;
+    }
+
+    /**
+     * Creates an {@code MpmcArrayBlockingQueue} with at least the given
+     * capacity, initially containing the elements of the given
+     * collection, added in traversal order of the collection's
+     * iterator.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param c the collection of elements to initially contain
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         {@code c.size()}, or less than 1.
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     */
+    public MpmcArrayBlockingQueue(int capacity, Collection<? extends E> c) {
+        this(capacity);
+        for (E e : c) {
+            if (!offer(e))
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /* ---------------- Lock-free core -------------- */
+
+    /**
+     * Inserts the element at the tail if a slot is free.
+     */
+    final boolean tryOffer(E e) {
+        final AtomicLongArray seqs = sequences;
+        final int m = mask;
+        for (;;) {
+            long t = tail.get();
+            int i = (int)t & m;
+            long d = seqs.get(i) - t;
+            if (d == 0L) {
+                if (tail.compareAndSet(t, t + 1L)) {
+                    items.lazySet(i, e);
+                    // volatile write orders the publish before signal's read
+                    seqs.set(i, t + 1L);
+                    return true;
+                }
+            }
+            else if (d < 0L && t == tail.get())
+                return false;           // slot not yet vacated: full
+        }
+    }
+
+    /**
+     * Removes the element at the head if one has been published,
+     * skipping over removed elements.  The item is taken with
+     * getAndSet, so that exactly one of the consumer and a concurrent
+     * remover gets it.
+     */
+    @SuppressWarnings("unchecked")
+    final E tryPoll() {
+        final AtomicLongArray seqs = sequences;
+        final int m = mask;
+        for (;;) {
+            long h = head.get();
+            int i = (int)h & m;
+            long d = seqs.get(i) - (h + 1L);
+            if (d == 0L) {
+                if (head.compareAndSet(h, h + 1L)) {
+                    Object x = items.getAndSet(i, null);
+                    seqs.set(i, h + m + 1L);
+                    if (x != TOMBSTONE)
+                        return (E)x;
+                    notFull.signal();   // freed a removed element's slot
+                }
+            }
+            else if (d < 0L && h == head.get())
+                return null;            // slot not yet filled: empty
+        }
+    }
+
+    /**
+     * Replaces the element x published in the slot for index k with a
+     * tombstone, unless a consumer has already taken it.
+     */
+    final boolean tryRemoveAt(long k, Object x) {
+        int i = (int)k & mask;
+        return sequences.get(i) == k + 1L && items.compareAndSet(i, x, TOMBSTONE);
+    }
+
+    /* ---------------- Queue operations -------------- */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.  This method is generally preferable to
+     * method {@link #add}, which can fail to insert an element only by
+     * throwing an exception.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        if (!tryOffer(e))
+            return false;
+        notEmpty.signal();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        awaitOffer(e, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        long nanos = unit.toNanos(timeout);
+        if (nanos <= 0L)
+            return offer(e);
+        long deadline = System.nanoTime() + nanos;
+        return awaitOffer(e, (deadline == 0L) ? 1L : deadline);
+    }
+
+    /**
+     * Inserts e, spinning and then parking while the queue is full.
+     *
+     * @param deadline the System.nanoTime deadline, or 0 if untimed
+     * @return false if the deadline passed
+     */
+    final boolean awaitOffer(E e, long deadline) throws InterruptedException {
+        final Waiters w = notFull;
+        final Thread self = Thread.currentThread();
+        for (int spins = SPINS;;) {
+            if (tryOffer(e))
+                break;
+            if (spins > 0) {
+                if (--spins < YIELD_SPINS)
+                    Thread.yield();
+                continue;
+            }
+            w.enqueue(self);
+            if (tryOffer(e)) {
+                w.dequeue(self);
+                break;
+            }
+            if (!park(w, self, deadline))
+                return false;
+        }
+        notEmpty.signal();
+        return true;
+    }
+
+    public E poll() {
+        E x = tryPoll();
+        if (x != null)
+            notFull.signal();
+        return x;
+    }
+
+    public E take() throws InterruptedException {
+        return awaitPoll(0L);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        if (nanos <= 0L)
+            return poll();
+        long deadline = System.nanoTime() + nanos;
+        return awaitPoll((deadline == 0L) ? 1L : deadline);
+    }
+
+    /**
+     * Removes the head, spinning and then parking while the queue is
+     * empty.
+     *
+     * @param deadline the System.nanoTime deadline, or 0 if untimed
+     * @return the head, or null if the deadline passed
+     */
+    final E awaitPoll(long deadline) throws InterruptedException {
+        final Waiters w = notEmpty;
+        final Thread self = Thread.currentThread();
+        E x;
+        for (int spins = SPINS;;) {
+            if ((x = tryPoll()) != null)
+                break;
+            if (spins > 0) {
+                if (--spins < YIELD_SPINS)
+                    Thread.yield();
+                continue;
+            }
+            w.enqueue(self);
+            if ((x = tryPoll()) != null) {
+                w.dequeue(self);
+                break;
+            }
+            if (!park(w, self, deadline))
+                return null;
+        }
+        notFull.signal();
+        return x;
+    }
+
+    /**
+     * Parks a thread that has enqueued itself on w and found the
+     * queue still unusable, then withdraws it again.  A thread that
+     * gives up after having been signalled passes the signal on, so
+     * that it is not lost.
+     *
+     * @param deadline the System.nanoTime deadline, or 0 if untimed
+     * @return false if the deadline has passed
+     * @throws InterruptedException if interrupted while parked
+     */
+    static boolean park(Waiters w, Thread self, long deadline)
+        throws InterruptedException {
+        boolean timedOut = false;
+        if (deadline == 0L)
+            LockSupport.park(w);
+        else {
+            long nanos = deadline - System.nanoTime();
+            if (nanos > 0L)
+                LockSupport.parkNanos(w, nanos);
+            else
+                timedOut = true;
+        }
+        boolean signalled = !w.dequeue(self);
+        if (Thread.interrupted()) {
+            if (signalled)
+                w.signal();
+            throw new InterruptedException();
+        }
+        if (timedOut && signalled)
+            w.signal();
+        return !timedOut;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final AtomicLongArray seqs = sequences;
+        final int m = mask;
+        for (;;) {
+            long h = head.get();
+            int i = (int)h & m;
+            long d = seqs.get(i) - (h + 1L);
+            if (d == 0L) {
+                Object x = items.get(i);
+                if (x == TOMBSTONE) {
+                    // Consume the removed element so the head can advance
+                    if (head.compareAndSet(h, h + 1L)) {
+                        items.set(i, null);
+                        seqs.set(i, h + m + 1L);
+                        notFull.signal();
+                    }
+                }
+                else if (h == head.get())
+                    return (E)x;
+            }
+            else if (d < 0L && h == head.get())
+                return null;
+        }
+    }
+
+    // this doc comment is overridden to remove the reference to collections
+    // greater in size than Integer.MAX_VALUE
+    /**
+     * Returns the number of elements in this queue.  Since producers
+     * and consumers advance independently, this is only an estimate
+     * while the queue is being modified.  Removed elements are counted
+     * until a consumer passes them.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        for (;;) {
+            long h = head.get();
+            long t = tail.get();
+            if (h == head.get()) {
+                long n = t - h;
+                return (n <= 0L) ? 0 : (n > mask) ? mask + 1 : (int)n;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    // this doc comment is a modified copy of the inherited doc comment,
+    // without the reference to unlimited queues.
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints)
+     * accept without blocking. This is always equal to the capacity
+     * of this queue less the current {@code size} of this queue.
+     *
+     * <p>Note that you <em>cannot</em> always tell if an attempt to
+     * insert an element will succeed by inspecting {@code
+     * remainingCapacity} because it may be the case that another
+     * thread is about to insert or remove an element.
+     */
+    public int remainingCapacity() {
+        return mask + 1 - size();
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested
+     * capacity rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this
+     * queue, if it is present.  More formally, removes an element
+     * {@code e} such that {@code o.equals(e)}, if this queue contains
+     * one or more such elements.  Returns {@code true} if this queue
+     * contained the specified element (or equivalently, if this queue
+     * changed as a result of the call).
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        return remove(o, false);
+    }
+
+    /**
+     * Removes an element equal to, or if identity is true the same
+     * object as, o.
+     */
+    final boolean remove(Object o, boolean identity) {
+        if (o == null) return false;
+        final AtomicLongArray seqs = sequences;
+        final int m = mask;
+        long h = head.get(), t = tail.get();
+        for (long k = h; k < t; ++k) {
+            int i = (int)k & m;
+            Object x = items.get(i);
+            if (x != null && x != TOMBSTONE && seqs.get(i) == k + 1L &&
+                (o == x || (!identity && o.equals(x))) && tryRemoveAt(k, x))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Atomically removes all of the elements from this queue, one at
+     * a time.
+     */
+    public void clear() {
+        while (poll() != null)
+            ;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        E x;
+        while (n < maxElements && (x = tryPoll()) != null) {
+            c.add(x);
+            ++n;
+        }
+        for (int i = 0; i < n; ++i)
+            notFull.signal();
+        return n;
+    }
+
+    /**
+     * Returns an array containing a snapshot of the elements published
+     * between the head and tail of this queue, in proper sequence.
+     */
+    public Object[] toArray() {
+        ArrayList<Object> list = new ArrayList<Object>();
+        snapshot(list, null);
+        return list.toArray();
+    }
+
+    /**
+     * Collects the elements published between the head and tail, and
+     * optionally their indices.
+     */
+    final void snapshot(ArrayList<Object> elements, ArrayList<Long> indices) {
+        final AtomicLongArray seqs = sequences;
+        final int m = mask;
+        long h = head.get(), t = tail.get();
+        for (long k = h; k < t; ++k) {
+            int i = (int)k & m;
+            Object x = items.get(i);
+            if (x != null && x != TOMBSTONE && seqs.get(i) == k + 1L) {
+                elements.add(x);
+                if (indices != null)
+                    indices.add(k);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] snapshot = toArray();
+        int len = snapshot.length;
+        if (a.length < len)
+            a = (T[])java.lang.reflect.Array.newInstance(
+                a.getClass().getComponentType(), len);
+        System.arraycopy(snapshot, 0, a, 0, len);
+        if (a.length > len)
+            a[len] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     * Its {@link Iterator#remove} removes the last returned element
+     * from the slot it was seen in, and does nothing if a consumer has
+     * taken it since.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    final class Itr implements Iterator<E> {
+        final ArrayList<Object> elements = new ArrayList<Object>();
+        final ArrayList<Long> indices = new ArrayList<Long>();
+        int cursor;
+        int lastRet = -1;
+
+        Itr() {
+            snapshot(elements, indices);
+        }
+
+        public boolean hasNext() {
+            return cursor < elements.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= elements.size())
+                throw new java.util.NoSuchElementException();
+            lastRet = cursor;
+            return (E)elements.get(cursor++);
+        }
+
+        public void remove() {
+            int r = lastRet;
+            if (r < 0)
+                throw new IllegalStateException();
+            lastRet = -1;
+            tryRemoveAt(indices.get(r), elements.get(r));
+        }
+    }
+}
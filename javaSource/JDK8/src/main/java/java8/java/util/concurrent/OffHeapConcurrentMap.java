@@ -0,0 +1,1018 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent hash map whose keys and values live outside the Java
+ * heap, in large slabs allocated through
+ * {@link java8.java.nio.ByteBuffer#allocateDirect}.  Only a compact
+ * index (one {@code long} per bin plus a fixed set of lock stripes)
+ * and the slab buffer objects themselves are on-heap, so a map holding
+ * tens of gigabytes of entries adds almost nothing to the live set the
+ * garbage collector has to trace or copy.
+ *
+ * <p>Keys and values are converted to bytes by a {@link Serializer}
+ * supplied at construction; two keys are equal iff their serialized
+ * forms are equal.  Values returned by {@link #get} are freshly
+ * deserialized copies, so mutating them does not affect the map.
+ *
+ * <p><b>Overview</b>
+ *
+ * <p>The index follows {@link ConcurrentHashMap}: a power-of-two
+ * table of bins, each holding the address of the first record of a
+ * singly linked chain.  Records are laid out in the slabs as
+ *
+ * <pre>
+ *   0: int  hash
+ *   4: int  key length
+ *   8: int  value length
+ *  12: int  status (LIVE or DEAD)
+ *  16: long address of next record in bin, or 0
+ *  24: key bytes, then value bytes, padded to a multiple of 8
+ * </pre>
+ *
+ * and are never modified in place except for their status and next
+ * fields; an update allocates a new record and swings the link.
+ *
+ * <p>Updates lock the stripe owning the bin, where stripe =
+ * bin &amp; (stripes - 1), so as in ConcurrentHashMap writers to
+ * different bins rarely contend.  Retrievals take no lock.  Each
+ * stripe carries a sequence number that writers make odd for the
+ * duration of an update; a reader records the sequence, walks the
+ * chain optimistically, and validates that the sequence is unchanged
+ * before trusting the result (the same scheme as
+ * {@link java.util.concurrent.locks.StampedLock#tryOptimisticRead}).
+ * A reader may therefore observe a half-written or recycled record,
+ * but never acts on one: every off-heap access goes through bounds
+ * checked {@code ByteBuffer} methods, and any exception or failed
+ * validation causes a retry, eventually under the stripe lock.
+ *
+ * <p>Slab memory is handed out by bumping an offset in the current
+ * slab.  Removed and replaced records become dead space that is
+ * reported by {@link #fragmentation}.  Once the dead fraction of a
+ * sealed slab crosses the compaction threshold, {@link #compact}
+ * copies its remaining live records into the current slab and drops
+ * it.  Compaction runs on the thread that performed the triggering
+ * update, outside any stripe lock, or on demand.
+ *
+ * <p>Table resizing locks all stripes, relinks chains into a table of
+ * twice the size and publishes it; this is much rarer and cheaper
+ * than in an on-heap map since no records move.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this class does not allow
+ * {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @since 1.8
+ */
+public class OffHeapConcurrentMap<K,V> {
+
+    /**
+     * Converts objects to and from the bytes stored off-heap.
+     *
+     * @param <T> the type of serialized objects
+     */
+    public interface Serializer<T> {
+        /**
+         * Returns the serialized form of the given object.
+         *
+         * @param t the object
+         * @return the bytes to store
+         */
+        byte[] toBytes(T t);
+
+        /**
+         * Reconstructs an object from its serialized form.
+         *
+         * @param bytes the stored bytes
+         * @return the object
+         */
+        T fromBytes(byte[] bytes);
+    }
+
+    /** Serializer storing byte arrays as is. */
+    public static final Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+        public byte[] toBytes(byte[] b)   { return b; }
+        public byte[] fromBytes(byte[] b) { return b; }
+    };
+
+    /** Serializer storing strings as UTF-8. */
+    public static final Serializer<String> UTF8 = new Serializer<String>() {
+        public byte[] toBytes(String s) {
+            return s.getBytes(StandardCharsets.UTF_8);
+        }
+        public String fromBytes(byte[] b) {
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    };
+
+    /* ---------------- Constants -------------- */
+
+    /** The default size of each slab: 64 MB. */
+    public static final int DEFAULT_SLAB_SIZE = 1 << 26;
+
+    /** The default number of lock stripes. */
+    static final int DEFAULT_STRIPES = 64;
+
+    /** The initial number of index bins. */
+    static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /** The largest possible index table capacity. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Dead fraction of a sealed slab at which it becomes a candidate
+     * for compaction.
+     */
+    static final float COMPACTION_THRESHOLD = 0.5f;
+
+    /** Optimistic read attempts before falling back to the lock. */
+    static final int OPTIMISTIC_RETRIES = 4;
+
+    /* Record layout */
+    static final int HASH = 0, KLEN = 4, VLEN = 8, STATUS = 12, NEXT = 16;
+    static final int HEADER = 24;
+    static final int LIVE = 1, DEAD = 2;
+
+    /**
+     * Returns the slab space used by a record with the given key and
+     * value lengths.
+     */
+    static int recordSize(int klen, int vlen) {
+        return (HEADER + klen + vlen + 7) & ~7;
+    }
+
+    /*
+     * Addresses pack a slab index (plus one, so that 0 can mean null)
+     * into the high word and a byte offset within the slab into the
+     * low word.
+     */
+    static long address(int slab, int offset) {
+        return ((long)(slab + 1) << 32) | (offset & 0xffffffffL);
+    }
+    static int slabOf(long addr)   { return (int)(addr >>> 32) - 1; }
+    static int offsetOf(long addr) { return (int)addr; }
+
+    /* ---------------- Slabs -------------- */
+
+    /**
+     * A direct buffer carved up by bumping {@link #top}.
+     */
+    static final class Slab {
+        final ByteBuffer buf;
+        final int capacity;
+        /** Next free offset; may exceed capacity once the slab is full. */
+        final AtomicInteger top = new AtomicInteger();
+        /** Allocations reserved but whose headers are not yet written. */
+        final AtomicInteger pending = new AtomicInteger();
+        /** Bytes occupied by dead records. */
+        final AtomicLong dead = new AtomicLong();
+
+        Slab(int capacity) {
+            this.capacity = capacity;
+            this.buf = java8.java.nio.ByteBuffer.allocateDirect(capacity);
+        }
+
+        int used() {
+            return Math.min(top.get(), capacity);
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    final Serializer<K> keySerializer;
+    final Serializer<V> valueSerializer;
+
+    /** Bin heads: record addresses, or 0 for empty bins. */
+    volatile AtomicLongArray table;
+
+    /** Stripe locks guarding updates to bins. */
+    final ReentrantLock[] locks;
+
+    /** Per-stripe sequence numbers, odd while an update is in progress. */
+    final AtomicLongArray seqs;
+
+    /** All slabs; null entries are free slots. */
+    volatile AtomicReferenceArray<Slab> slabs;
+
+    /** Index of the slab currently taking allocations. */
+    volatile int current;
+
+    /**
+     * Guards slab creation and release.  Never held while acquiring a
+     * stripe lock.
+     */
+    final ReentrantLock slabLock = new ReentrantLock();
+
+    /**
+     * Held by the thread running compaction; acquired before any
+     * stripe lock.
+     */
+    final ReentrantLock compactionLock = new ReentrantLock();
+
+    final int slabSize;
+    final long maxMemory;
+
+    final LongAdder count = new LongAdder();
+
+    /** Bytes occupied by dead records across all slabs. */
+    final LongAdder deadBytes = new LongAdder();
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map.
+     *
+     * @param keySerializer the key serializer
+     * @param valueSerializer the value serializer
+     * @param slabSize the size in bytes of each off-heap slab
+     * @param maxMemory the maximum total off-heap memory to allocate
+     * @param concurrencyLevel the estimated number of concurrently
+     *        updating threads, used to size the lock stripes
+     * @throws IllegalArgumentException if the slab size is not larger
+     *         than a record header, or the maximum memory is less than
+     *         two slabs (one slab is always kept in reserve so that
+     *         compaction can make progress when the map is full)
+     * @throws NullPointerException if a serializer is null
+     */
+    public OffHeapConcurrentMap(Serializer<K> keySerializer,
+                                Serializer<V> valueSerializer,
+                                int slabSize, long maxMemory,
+                                int concurrencyLevel) {
+        if (keySerializer == null || valueSerializer == null)
+            throw new NullPointerException();
+        if (slabSize <= HEADER || maxMemory < 2L * slabSize ||
+            concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.slabSize = slabSize;
+        this.maxMemory = maxMemory;
+        int ns = 1;
+        while (ns < concurrencyLevel && ns < DEFAULT_CAPACITY)
+            ns <<= 1;
+        locks = new ReentrantLock[ns];
+        for (int i = 0; i < ns; ++i)
+            locks[i] = new ReentrantLock();
+        seqs = new AtomicLongArray(ns);
+        table = new AtomicLongArray(DEFAULT_CAPACITY);
+        slabs = new AtomicReferenceArray<Slab>(
+            (int)Math.min(Integer.MAX_VALUE - 8, maxMemory / slabSize));
+        slabs.set(0, new Slab(slabSize));
+        current = 0;
+    }
+
+    /**
+     * Creates a new, empty map with the default slab size and stripe
+     * count.
+     *
+     * @param keySerializer the key serializer
+     * @param valueSerializer the value serializer
+     * @param maxMemory the maximum total off-heap memory to allocate
+     */
+    public OffHeapConcurrentMap(Serializer<K> keySerializer,
+                                Serializer<V> valueSerializer,
+                                long maxMemory) {
+        this(keySerializer, valueSerializer,
+             (int)Math.min(DEFAULT_SLAB_SIZE, maxMemory >>> 1), maxMemory,
+             DEFAULT_STRIPES);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = count.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return count.sum() <= 0L;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @return the deserialized value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        @SuppressWarnings("unchecked") byte[] kb =
+            keySerializer.toBytes((K)key);
+        byte[] vb = find(kb, spread(kb), true);
+        return (vb == null) ? null : valueSerializer.fromBytes(vb);
+    }
+
+    /**
+     * Tests if the specified object is a key in this map.
+     *
+     * @param key possible key
+     * @return {@code true} if the key is present
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        @SuppressWarnings("unchecked") byte[] kb =
+            keySerializer.toBytes((K)key);
+        return find(kb, spread(kb), false) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if there was a previous mapping for the key.
+     *         Unlike {@code Map.put}, the previous value is not
+     *         deserialized, since doing so would put it on-heap.
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the off-heap memory limit would
+     *         be exceeded even after compaction
+     */
+    public boolean put(K key, V value) {
+        return putVal(key, value, false) != null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the off-heap memory limit would
+     *         be exceeded even after compaction
+     */
+    public V putIfAbsent(K key, V value) {
+        byte[] old = putVal(key, value, true);
+        return (old == null) ? null : valueSerializer.fromBytes(old);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     *
+     * @param key the key that needs to be removed
+     * @return {@code true} if a mapping was removed
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key) {
+        byte[] kb = keySerializer.toBytes((K)key);
+        int h = spread(kb);
+        boolean removed = false;
+        int s = lockStripe(h);
+        try {
+            AtomicLongArray tab = table;
+            int i = (tab.length() - 1) & h;
+            long prev = 0L;
+            for (long e = tab.get(i); e != 0L; e = next(e)) {
+                if (matches(e, h, kb)) {
+                    long nx = next(e);
+                    beginWrite(s);
+                    if (prev == 0L)
+                        tab.set(i, nx);
+                    else
+                        setNext(prev, nx);
+                    kill(e);
+                    endWrite(s);
+                    removed = true;
+                    break;
+                }
+                prev = e;
+            }
+        } finally {
+            locks[s].unlock();
+        }
+        if (removed) {
+            count.decrement();
+            maybeCompact();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all of the mappings from this map and releases all but
+     * one slab.
+     */
+    public void clear() {
+        compactionLock.lock();
+        lockAll();
+        try {
+            slabLock.lock();
+            try {
+                for (int s = 0; s < seqs.length(); ++s)
+                    seqs.incrementAndGet(s);
+                table = new AtomicLongArray(DEFAULT_CAPACITY);
+                AtomicReferenceArray<Slab> ss = slabs;
+                for (int j = 0; j < ss.length(); ++j)
+                    ss.set(j, null);
+                ss.set(0, new Slab(slabSize));
+                current = 0;
+                count.reset();
+                deadBytes.reset();
+                for (int s = 0; s < seqs.length(); ++s)
+                    seqs.incrementAndGet(s);
+            } finally {
+                slabLock.unlock();
+            }
+        } finally {
+            unlockAll();
+            compactionLock.unlock();
+        }
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    /**
+     * Returns the total off-heap memory currently allocated in slabs.
+     *
+     * @return the allocated size in bytes
+     */
+    public long allocatedMemory() {
+        long n = 0L;
+        AtomicReferenceArray<Slab> ss = slabs;
+        for (int j = 0; j < ss.length(); ++j) {
+            Slab sl;
+            if ((sl = ss.get(j)) != null)
+                n += sl.capacity;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the off-heap memory occupied by records, live or dead.
+     *
+     * @return the used size in bytes
+     */
+    public long usedMemory() {
+        long n = 0L;
+        AtomicReferenceArray<Slab> ss = slabs;
+        for (int j = 0; j < ss.length(); ++j) {
+            Slab sl;
+            if ((sl = ss.get(j)) != null)
+                n += sl.used();
+        }
+        return n;
+    }
+
+    /**
+     * Returns the off-heap memory occupied by dead records, which is
+     * reclaimed by compaction.
+     *
+     * @return the dead size in bytes
+     */
+    public long deadMemory() {
+        return deadBytes.sum();
+    }
+
+    /**
+     * Returns the fraction of used off-heap memory that is dead.
+     *
+     * @return a value between 0 and 1
+     */
+    public double fragmentation() {
+        long used = usedMemory();
+        return (used == 0L) ? 0.0 : (double)deadMemory() / used;
+    }
+
+    /**
+     * Returns the number of slabs currently allocated.
+     *
+     * @return the slab count
+     */
+    public int slabCount() {
+        int n = 0;
+        AtomicReferenceArray<Slab> ss = slabs;
+        for (int j = 0; j < ss.length(); ++j) {
+            if (ss.get(j) != null)
+                ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the approximate on-heap footprint of the index, in bytes.
+     *
+     * @return the index size
+     */
+    public long indexMemory() {
+        return 8L * table.length() + 8L * slabs.length() +
+            64L * locks.length;
+    }
+
+    /**
+     * Returns a string summarizing the size and memory statistics.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return "OffHeapConcurrentMap[size=" + size() +
+            ", slabs=" + slabCount() +
+            ", allocated=" + allocatedMemory() +
+            ", used=" + usedMemory() +
+            ", dead=" + deadMemory() +
+            ", index=" + indexMemory() + "]";
+    }
+
+    /* ---------------- Compaction -------------- */
+
+    /**
+     * Copies the live records out of every sealed slab whose dead
+     * fraction is at least the compaction threshold, and frees those
+     * slabs.  Readers are not blocked; writers block only while a
+     * record of their stripe is being relocated.
+     *
+     * @return the number of slabs freed
+     */
+    public int compact() {
+        return compact(COMPACTION_THRESHOLD);
+    }
+
+    int compact(float threshold) {
+        if (!compactionLock.tryLock())
+            return 0;
+        int freed = 0;
+        try {
+            AtomicReferenceArray<Slab> ss = slabs;
+            for (int j = 0; j < ss.length(); ++j) {
+                Slab sl = ss.get(j);
+                if (sl == null || j == current || sl.pending.get() != 0)
+                    continue;
+                long dead = sl.dead.get();
+                if (dead == 0L || dead < (long)(sl.used() * threshold))
+                    continue;
+                if (evacuate(j, sl)) {
+                    slabLock.lock();
+                    try {
+                        if (ss.get(j) == sl) {
+                            ss.set(j, null);
+                            deadBytes.add(-sl.dead.get());
+                            ++freed;
+                        }
+                    } finally {
+                        slabLock.unlock();
+                    }
+                }
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+        return freed;
+    }
+
+    /**
+     * Relocates all live records of a sealed slab.  Called with
+     * compactionLock held.  Records are contiguous from offset 0 and
+     * every written header has a non-zero status, so the scan stops at
+     * the first zero status.
+     *
+     * @return true if the slab no longer holds live records
+     */
+    private boolean evacuate(int j, Slab sl) {
+        ByteBuffer b = sl.buf;
+        int end = sl.used();
+        for (int off = 0, st; off + HEADER <= end &&
+                 (st = b.getInt(off + STATUS)) != 0; ) {
+            int klen = b.getInt(off + KLEN), vlen = b.getInt(off + VLEN);
+            int size = recordSize(klen, vlen);
+            if (st == LIVE &&
+                !relocate(address(j, off), b.getInt(off + HASH), size))
+                return false;
+            off += size;
+        }
+        return true;
+    }
+
+    /**
+     * Moves one record to the current slab under its stripe lock.
+     */
+    private boolean relocate(long e, int h, int size) {
+        int s = lockStripe(h);
+        try {
+            if (status(e) != LIVE)
+                return true;
+            long dst = allocate(size, true);
+            if (dst == 0L)
+                return false;
+            try {
+                copy(e, dst, size);
+                AtomicLongArray tab = table;
+                int i = (tab.length() - 1) & h;
+                beginWrite(s);
+                long prev = 0L;
+                for (long p = tab.get(i); p != 0L; p = next(p)) {
+                    if (p == e) {
+                        if (prev == 0L)
+                            tab.set(i, dst);
+                        else
+                            setNext(prev, dst);
+                        kill(e);
+                        break;
+                    }
+                    prev = p;
+                }
+                endWrite(s);
+            } finally {
+                slabs.get(slabOf(dst)).pending.decrementAndGet();
+            }
+            return true;
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    /**
+     * Runs a compaction pass if dead records in sealed slabs occupy at
+     * least the compaction threshold of a slab's worth of memory.
+     */
+    private void maybeCompact() {
+        Slab sl = slabs.get(current);
+        long dead = deadBytes.sum() - ((sl == null) ? 0L : sl.dead.get());
+        if (dead >= (long)(slabSize * COMPACTION_THRESHOLD))
+            compact(COMPACTION_THRESHOLD);
+    }
+
+    /* ---------------- Internals -------------- */
+
+    /**
+     * Spreads the hash of the given key bytes in the manner of
+     * {@link ConcurrentHashMap#spread}.
+     */
+    static int spread(byte[] kb) {
+        return ConcurrentHashMap.spread(Arrays.hashCode(kb));
+    }
+
+    /**
+     * Looks up the record for the given key, optimistically first.
+     *
+     * @return the value bytes, an empty array if present but not
+     *         wanted, or null if absent
+     */
+    private byte[] find(byte[] kb, int h, boolean wantValue) {
+        int s = (locks.length - 1) & h;
+        for (int tries = 0; tries < OPTIMISTIC_RETRIES; ++tries) {
+            long seq = seqs.get(s);
+            if ((seq & 1L) != 0L) {
+                Thread.yield();
+                continue;
+            }
+            byte[] r;
+            try {
+                r = findLocked(kb, h, wantValue);
+            } catch (RuntimeException ex) {
+                // stale address or torn record; revalidate below
+                r = null;
+                seq = -1L;
+            }
+            U.loadFence();
+            if (seqs.get(s) == seq)
+                return r;
+        }
+        locks[s].lock();
+        try {
+            return findLocked(kb, h, wantValue);
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    private byte[] findLocked(byte[] kb, int h, boolean wantValue) {
+        AtomicLongArray tab = table;
+        long bound = (count.sum() << 1) + 64L; // cycles from torn reads
+        for (long e = tab.get((tab.length() - 1) & h); e != 0L; e = next(e)) {
+            if (matches(e, h, kb))
+                return wantValue ? valueBytes(e) : EMPTY;
+            if (--bound < 0L)
+                throw new IllegalStateException();
+        }
+        return null;
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Implements put and putIfAbsent.
+     *
+     * @return the previous value bytes, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    private byte[] putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        byte[] kb = keySerializer.toBytes(key);
+        byte[] vb = valueSerializer.toBytes(value);
+        int h = spread(kb);
+        int size = recordSize(kb.length, vb.length);
+        if (size > slabSize || size < 0)
+            throw new IllegalArgumentException("Entry larger than slab size");
+        for (int attempt = 0; ; ++attempt) {
+            Object r = tryPut(kb, vb, h, size, onlyIfAbsent);
+            if (r != FULL) {
+                maybeResize();
+                if (r != null)
+                    maybeCompact();
+                return (byte[])r;
+            }
+            if (attempt > 0 || compact(0.0f) == 0)
+                throw new IllegalStateException("Off-heap memory limit exceeded");
+        }
+    }
+
+    private static final Object FULL = new Object();
+
+    private Object tryPut(byte[] kb, byte[] vb, int h, int size,
+                          boolean onlyIfAbsent) {
+        int s = lockStripe(h);
+        try {
+            AtomicLongArray tab = table;
+            int i = (tab.length() - 1) & h;
+            long prev = 0L, e;
+            for (e = tab.get(i); e != 0L; e = next(e)) {
+                if (matches(e, h, kb))
+                    break;
+                prev = e;
+            }
+            byte[] old = null;
+            if (e != 0L) {
+                old = valueBytes(e);
+                if (onlyIfAbsent)
+                    return old;
+            }
+            long n = allocate(size, false);
+            if (n == 0L)
+                return FULL;
+            try {
+                writeRecord(n, h, kb, vb, (e == 0L) ? 0L : next(e));
+                beginWrite(s);
+                if (e == 0L) {
+                    setNext(n, tab.get(i));
+                    tab.set(i, n);
+                }
+                else {
+                    if (prev == 0L)
+                        tab.set(i, n);
+                    else
+                        setNext(prev, n);
+                    kill(e);
+                }
+                endWrite(s);
+            } finally {
+                slabs.get(slabOf(n)).pending.decrementAndGet();
+            }
+            if (e == 0L)
+                count.increment();
+            return old;
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    /**
+     * Reserves space for a record, opening a new slab when the
+     * current one is exhausted.  The reservation is counted as pending
+     * in its slab until the caller decrements it.
+     *
+     * @param reserve whether the slab held in reserve for compaction
+     *        may be opened
+     * @return the record address, or 0 if the memory limit is reached
+     */
+    private long allocate(int size, boolean reserve) {
+        for (;;) {
+            int c = current;
+            Slab sl = slabs.get(c);
+            if (sl != null) {
+                sl.pending.incrementAndGet();
+                int off = sl.top.getAndAdd(size);
+                if (off >= 0 && off + size <= sl.capacity)
+                    return address(c, off);
+                sl.pending.decrementAndGet();
+            }
+            slabLock.lock();
+            try {
+                if (c == current && !openSlab(reserve))
+                    return 0L;
+            } finally {
+                slabLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Makes a fresh slab current.  Called with slabLock held.
+     *
+     * @return false if no slab slot or memory budget is left
+     */
+    private boolean openSlab(boolean reserve) {
+        AtomicReferenceArray<Slab> ss = slabs;
+        int free = -1, n = 0;
+        for (int j = 0; j < ss.length(); ++j) {
+            if (ss.get(j) != null)
+                ++n;
+            else if (free < 0)
+                free = j;
+        }
+        if (free < 0 || (long)(n + (reserve ? 1 : 2)) * slabSize > maxMemory)
+            return false;
+        ss.set(free, new Slab(slabSize));
+        current = free;
+        return true;
+    }
+
+    /**
+     * Doubles the index table when the mapping count exceeds 3/4 of
+     * its length.  All stripes are locked while chains are relinked.
+     */
+    private void maybeResize() {
+        AtomicLongArray tab = table;
+        int n = tab.length();
+        if (count.sum() <= (long)(n - (n >>> 2)) || n >= MAXIMUM_CAPACITY)
+            return;
+        lockAll();
+        try {
+            if (table != tab)
+                return;
+            for (int s = 0; s < seqs.length(); ++s)
+                seqs.incrementAndGet(s);
+            AtomicLongArray nt = new AtomicLongArray(n << 1);
+            for (int i = 0; i < n; ++i) {
+                long lo = 0L, hi = 0L;
+                for (long e = tab.get(i), nx; e != 0L; e = nx) {
+                    nx = next(e);
+                    if ((hash(e) & n) == 0) {
+                        setNext(e, lo);
+                        lo = e;
+                    }
+                    else {
+                        setNext(e, hi);
+                        hi = e;
+                    }
+                }
+                nt.set(i, lo);
+                nt.set(i + n, hi);
+            }
+            table = nt;
+            for (int s = 0; s < seqs.length(); ++s)
+                seqs.incrementAndGet(s);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private int lockStripe(int h) {
+        int s = (locks.length - 1) & h;
+        locks[s].lock();
+        return s;
+    }
+
+    private void lockAll() {
+        for (ReentrantLock l : locks)
+            l.lock();
+    }
+
+    private void unlockAll() {
+        for (int s = locks.length - 1; s >= 0; --s)
+            locks[s].unlock();
+    }
+
+    /*
+     * Writers call beginWrite before the first change a reader could
+     * observe and endWrite after the last; the atomic increments act
+     * as full fences around the plain buffer writes in between.
+     */
+    private void beginWrite(int s) { seqs.incrementAndGet(s); }
+    private void endWrite(int s)   { seqs.incrementAndGet(s); }
+
+    /* Record accessors */
+
+    private ByteBuffer buf(long addr) {
+        return slabs.get(slabOf(addr)).buf;
+    }
+
+    private int hash(long e) {
+        return buf(e).getInt(offsetOf(e) + HASH);
+    }
+
+    private int status(long e) {
+        return buf(e).getInt(offsetOf(e) + STATUS);
+    }
+
+    private long next(long e) {
+        return buf(e).getLong(offsetOf(e) + NEXT);
+    }
+
+    private void setNext(long e, long nx) {
+        buf(e).putLong(offsetOf(e) + NEXT, nx);
+    }
+
+    private boolean matches(long e, int h, byte[] kb) {
+        ByteBuffer b = buf(e);
+        int off = offsetOf(e);
+        if (b.getInt(off + HASH) != h || b.getInt(off + KLEN) != kb.length)
+            return false;
+        off += HEADER;
+        for (int k = 0; k < kb.length; ++k) {
+            if (b.get(off + k) != kb[k])
+                return false;
+        }
+        return true;
+    }
+
+    private byte[] valueBytes(long e) {
+        ByteBuffer b = buf(e).duplicate();
+        int off = offsetOf(e);
+        int klen = b.getInt(off + KLEN), vlen = b.getInt(off + VLEN);
+        byte[] vb = new byte[vlen];
+        b.position(off + HEADER + klen);
+        b.get(vb);
+        return vb;
+    }
+
+    private void writeRecord(long n, int h, byte[] kb, byte[] vb, long nx) {
+        ByteBuffer b = buf(n).duplicate();
+        int off = offsetOf(n);
+        b.putInt(off + HASH, h);
+        b.putInt(off + KLEN, kb.length);
+        b.putInt(off + VLEN, vb.length);
+        b.putInt(off + STATUS, LIVE);
+        b.putLong(off + NEXT, nx);
+        b.position(off + HEADER);
+        b.put(kb);
+        b.put(vb);
+    }
+
+    private void copy(long src, long dst, int size) {
+        ByteBuffer from = buf(src).duplicate(), to = buf(dst).duplicate();
+        int so = offsetOf(src);
+        from.limit(so + size).position(so);
+        to.position(offsetOf(dst));
+        to.put(from);
+    }
+
+    /**
+     * Marks a record dead and accounts its space to its slab.
+     */
+    private void kill(long e) {
+        Slab sl = slabs.get(slabOf(e));
+        ByteBuffer b = sl.buf;
+        int off = offsetOf(e);
+        int size = recordSize(b.getInt(off + KLEN), b.getInt(off + VLEN));
+        b.putInt(off + STATUS, DEAD);
+        sl.dead.addAndGet(size);
+        deadBytes.add(size);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -332,11 +332,29 @@ public class ScheduledThreadPoolExecutor
                 !canRunInCurrentRunState(task.isPeriodic()) &&
                 remove(task))
                 task.cancel(false);
-            else
+            else {
+                ExecutorMetrics m = getMetrics();
+                if (m != null)
+                    m.taskSubmitted();
                 ensurePrestart();
+            }
         }
     }
 
+    /**
+     * Measures the queue wait of a scheduled task from the time it
+     * became due rather than from its submission, so that the
+     * requested delay does not count as waiting.
+     */
+    @Override long queueWaitNanos(Runnable task, long now) {
+        if (task instanceof ScheduledFutureTask)
+            return Math.max(0L, now - ((ScheduledFutureTask<?>)task).time);
+        if (task instanceof RunnableScheduledFuture)
+            return Math.max(0L,
+                            -((RunnableScheduledFuture<?>)task).getDelay(NANOSECONDS));
+        return -1L;
+    }
+
     /**
      * Requeues a periodic task unless current run state precludes it.
      * Same idea as delayedExecute except drops task rather than rejecting.
@@ -0,0 +1,292 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * An executor of <em>strands</em>: lightweight user-mode tasks that
+ * run on a {@link ForkJoinPool} and, instead of blocking a thread
+ * while they wait, suspend on a {@link CompletionStage} and are
+ * resumed on the pool once it completes.  A strand holds no thread
+ * while suspended, so a pool of a few threads can host very many
+ * strands that are mostly waiting, such as one per connection of a
+ * server built on {@link java8.java.net.SelectorSocket}.
+ *
+ * <p>The Java virtual machine provides no way to capture a thread's
+ * stack, so a strand is written in continuation-passing style: each
+ * wait is a stage, and the code following it is the stage's
+ * continuation.  {@link #loop} runs the common shape of a blocking
+ * handler, a loop whose body waits, without growing the stack: when
+ * an iteration's stage is already complete the next iteration runs
+ * at once, and otherwise the strand suspends until it completes.
+ *
+ * <p>By default, strands run on a dedicated pool in asynchronous
+ * (FIFO) mode with one thread per processor, so that resumed strands
+ * are served in the order they became ready.
+ *
+ * @since 1.8
+ */
+public class StrandExecutor implements Executor {
+
+    final ForkJoinPool pool;
+    final LongAdder active = new LongAdder();
+    final LongAdder suspensions = new LongAdder();
+
+    /**
+     * Creates a {@code StrandExecutor} on a new {@link ForkJoinPool} in
+     * asynchronous mode with parallelism equal to the number of
+     * available processors.
+     */
+    public StrandExecutor() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                              ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                              null, true));
+    }
+
+    /**
+     * Creates a {@code StrandExecutor} running strands on the given pool.
+     *
+     * @param pool the pool
+     * @throws NullPointerException if pool is null
+     */
+    public StrandExecutor(ForkJoinPool pool) {
+        if (pool == null)
+            throw new NullPointerException();
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the pool on which strands run.  Completing stages on this
+     * pool (for example by passing it to {@link
+     * java8.java.net.SocketReactor}) lets resumed strands continue on
+     * the completing thread without another handoff.
+     *
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Runs the given command on the pool.
+     *
+     * @param command the runnable task
+     */
+    public void execute(Runnable command) {
+        pool.execute(command);
+    }
+
+    /**
+     * Starts a strand running the given body on the pool.
+     *
+     * @param body returns the stage whose completion ends the strand
+     * @param <T> the strand's result type
+     * @return a future completing with the strand's result
+     */
+    public <T> CompletableFuture<T> spawn(
+        final Supplier<? extends CompletionStage<T>> body) {
+        if (body == null)
+            throw new NullPointerException();
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        active.increment();
+        pool.execute(new Runnable() {
+            public void run() {
+                CompletionStage<T> stage;
+                try {
+                    stage = body.get();
+                } catch (Throwable ex) {
+                    active.decrement();
+                    result.completeExceptionally(ex);
+                    return;
+                }
+                stage.whenComplete(new BiConsumer<T,Throwable>() {
+                    public void accept(T v, Throwable ex) {
+                        active.decrement();
+                        if (ex != null)
+                            result.completeExceptionally(ex);
+                        else
+                            result.complete(v);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts a strand that repeatedly runs the given body, waiting for
+     * the stage it returns, for as long as that stage completes with
+     * {@code true}.  Iterations whose stage is already complete run
+     * in a loop rather than recursively, so a strand may iterate
+     * indefinitely without exhausting the stack.
+     *
+     * @param body returns a stage completing with {@code true} to run
+     *        another iteration, or {@code false} to stop
+     * @return a future completing when the loop ends, exceptionally if
+     *         the body or a stage it returned did
+     */
+    public CompletableFuture<Void> loop(
+        Supplier<? extends CompletionStage<Boolean>> body) {
+        if (body == null)
+            throw new NullPointerException();
+        Loop l = new Loop(body);
+        active.increment();
+        pool.execute(l);
+        return l.result;
+    }
+
+    /**
+     * The state of a strand run by {@link #loop}.  Runs iterations until
+     * one returns an incomplete stage, then registers itself as that
+     * stage's completion action, which resubmits it to the pool.
+     */
+    final class Loop implements Runnable, BiConsumer<Boolean,Throwable> {
+        final Supplier<? extends CompletionStage<Boolean>> body;
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+
+        Loop(Supplier<? extends CompletionStage<Boolean>> body) {
+            this.body = body;
+        }
+
+        public void run() {
+            try {
+                for (;;) {
+                    CompletionStage<Boolean> stage = body.get();
+                    // Only a future can be polled; other stages always
+                    // suspend the strand until they complete
+                    CompletableFuture<Boolean> f =
+                        (stage instanceof CompletableFuture)
+                        ? (CompletableFuture<Boolean>) stage : null;
+                    if (f == null || !f.isDone()) {
+                        suspensions.increment();
+                        stage.whenComplete(this);
+                        return;
+                    }
+                    if (!Boolean.TRUE.equals(f.join())) {
+                        finish(null);
+                        return;
+                    }
+                }
+            } catch (CompletionException ex) {
+                finish(ex.getCause() != null ? ex.getCause() : ex);
+            } catch (Throwable ex) {
+                finish(ex);
+            }
+        }
+
+        public void accept(Boolean more, Throwable ex) {
+            if (ex != null)
+                finish(ex instanceof CompletionException &&
+                       ex.getCause() != null ? ex.getCause() : ex);
+            else if (Boolean.TRUE.equals(more))
+                pool.execute(this);
+            else
+                finish(null);
+        }
+
+        void finish(Throwable ex) {
+            active.decrement();
+            if (ex != null)
+                result.completeExceptionally(ex);
+            else
+                result.complete(null);
+        }
+    }
+
+    /**
+     * Returns a future that completes like the given stage, but whose
+     * dependent actions run on the pool rather than on the thread that
+     * completed the stage.  Use it to resume a strand after waiting on
+     * a stage completed by a thread that should not run strand code,
+     * such as a timer or an I/O thread.
+     *
+     * @param stage the stage to wait for
+     * @param <T> the stage's result type
+     * @return the future
+     */
+    public <T> CompletableFuture<T> resume(CompletionStage<T> stage) {
+        final CompletableFuture<T> f = new CompletableFuture<T>();
+        stage.whenCompleteAsync(new BiConsumer<T,Throwable>() {
+            public void accept(T v, Throwable ex) {
+                if (ex != null)
+                    f.completeExceptionally(ex);
+                else
+                    f.complete(v);
+            }
+        }, pool);
+        return f;
+    }
+
+    /**
+     * Returns the number of strands started and not yet finished,
+     * whether running or suspended.
+     *
+     * @return the number of strands
+     */
+    public long getActiveCount() {
+        return active.sum();
+    }
+
+    /**
+     * Returns the number of times strands run by {@link #loop} have
+     * suspended on an incomplete stage.
+     *
+     * @return the number of suspensions
+     */
+    public long getSuspensionCount() {
+        return suspensions.sum();
+    }
+
+    /**
+     * Initiates an orderly shutdown of the pool.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Blocks until the pool has terminated after a shutdown, or the
+     * timeout occurs, or the current thread is interrupted.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return {@code true} if the pool terminated
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    public String toString() {
+        return super.toString() + "[active=" + getActiveCount() +
+            ", suspensions=" + getSuspensionCount() + ", " + pool + "]";
+    }
+}
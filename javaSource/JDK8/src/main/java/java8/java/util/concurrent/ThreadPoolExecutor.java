@@ -206,6 +206,14 @@ import java.util.concurrent.locks.ReentrantLock;
  * may encounter unacceptable scheduling overhead, which also
  * decreases throughput.  </li>
  *
+ * <li><em>Work-stealing queues.</em> A {@link
+ * WorkStealingBlockingQueue} gives each worker thread a local deque
+ * for the tasks it submits itself, which other workers steal from
+ * when idle, so that pools running many short, recursively submitted
+ * tasks do not funnel every handoff through one shared queue. Tasks
+ * submitted from other threads go to a bounded shared queue, with the
+ * same effect on pool sizing as other bounded queues.  </li>
+ *
  * </ol>
  *
  * </dd>
@@ -554,6 +562,29 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private volatile int maximumPoolSize;
 
+    /**
+     * Task metrics, or null if disabled.  Workers read this once per
+     * task, so enabling or disabling takes effect from the next task.
+     */
+    private volatile ExecutorMetrics metrics;
+
+    /**
+     * Whether workQueue is one of the known FIFO queues, whose order
+     * does not depend on the elements, so that tasks submitted while
+     * metrics are enabled may be queued wrapped in QueuedTasks.
+     * Ordering queues such as PriorityBlockingQueue compare or cast
+     * their elements, and unknown queues might, so their tasks are
+     * queued as given and timed only for execution.
+     */
+    private final boolean fifoQueue;
+
+    /**
+     * Set once metrics have been enabled on a fifoQueue, after which
+     * the work queue may contain tasks wrapped in QueuedTasks that
+     * must be unwrapped wherever queued tasks are exposed or looked up.
+     */
+    private volatile boolean wrappedTasks;
+
     /**
      * The default rejected execution handler
      */
@@ -615,6 +646,14 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         Runnable firstTask;
         /** Per-thread task counter */
         volatile long completedTasks;
+        /** System.nanoTime when the worker started running, if started */
+        volatile long startNanos;
+        /** Set after startNanos once the worker is running */
+        volatile boolean started;
+        /** System.nanoTime when the current task started, if timed */
+        volatile long taskStartNanos;
+        /** Set after taskStartNanos while a timed task is running */
+        volatile boolean timingTask;
 
         /**
          * Creates with given first task and thread from ThreadFactory.
@@ -834,9 +873,66 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * Package-protected for use by ScheduledThreadPoolExecutor.
      */
     final void reject(Runnable command) {
+        ExecutorMetrics m = metrics;
+        if (m != null)
+            m.taskRejected();
         handler.rejectedExecution(command, this);
     }
 
+    /**
+     * A task submitted while metrics are enabled, stamped with its
+     * submission time so that runWorker can record how long it waited.
+     */
+    static final class QueuedTask implements Runnable {
+        final Runnable task;
+        final long queuedNanos;
+
+        QueuedTask(Runnable task, long queuedNanos) {
+            this.task = task;
+            this.queuedNanos = queuedNanos;
+        }
+
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * Returns true if the given queue keeps its elements in insertion
+     * order without inspecting them.
+     */
+    static boolean isFifo(Object q) {
+        return q instanceof LinkedBlockingQueue ||
+            q instanceof ArrayBlockingQueue ||
+            q instanceof SynchronousQueue ||
+            q instanceof java.util.concurrent.LinkedTransferQueue ||
+            q instanceof java.util.concurrent.LinkedBlockingDeque ||
+            q instanceof java8.java.util.concurrent.LinkedBlockingQueue ||
+            q instanceof java8.java.util.concurrent.ArrayBlockingQueue ||
+            q instanceof java8.java.util.concurrent.SynchronousQueue ||
+            q instanceof java8.java.util.concurrent.LinkedTransferQueue ||
+            q instanceof java8.java.util.concurrent.LinkedBlockingDeque ||
+            q instanceof MpmcArrayBlockingQueue ||
+            q instanceof WorkStealingBlockingQueue;
+    }
+
+    /**
+     * Returns the task submitted by the user for a queued task.
+     */
+    static Runnable unwrap(Runnable r) {
+        return (r instanceof QueuedTask) ? ((QueuedTask)r).task : r;
+    }
+
+    /**
+     * Returns how long the given task, not wrapped in a QueuedTask,
+     * waited to be started, or -1 if unknown.  Overridden by
+     * ScheduledThreadPoolExecutor to measure from the time a task
+     * became due.
+     */
+    long queueWaitNanos(Runnable task, long now) {
+        return -1L;
+    }
+
     /**
      * Performs any further cleanup following run state transition on
      * invocation of shutdown.  A no-op here, but used by
@@ -872,6 +968,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     taskList.add(r);
             }
         }
+        if (wrappedTasks) {
+            for (int i = 0; i < taskList.size(); ++i)
+                taskList.set(i, unwrap(taskList.get(i)));
+        }
         return taskList;
     }
 
@@ -1014,6 +1114,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             completedTaskCount += w.completedTasks;
             workers.remove(w);
+            ExecutorMetrics m = metrics;
+            if (m != null && w.started)
+                m.workerExited(w.startNanos, System.nanoTime());
         } finally {
             mainLock.unlock();
         }
@@ -1135,10 +1238,23 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         Thread wt = Thread.currentThread();
         Runnable task = w.firstTask;
         w.firstTask = null;
+        w.startNanos = System.nanoTime();
+        w.started = true;
         w.unlock(); // allow interrupts
         boolean completedAbruptly = true;
         try {
             while (task != null || (task = getTask()) != null) {
+                ExecutorMetrics m = metrics;
+                long startNanos = 0L;
+                if (m != null) {
+                    startNanos = System.nanoTime();
+                    long wait = (task instanceof QueuedTask) ?
+                        startNanos - ((QueuedTask)task).queuedNanos :
+                        queueWaitNanos(task, startNanos);
+                    if (wait >= 0L)
+                        m.taskStarted(wait);
+                }
+                task = unwrap(task);
                 w.lock();
                 // If pool is stopping, ensure thread is interrupted;
                 // if not, ensure thread is not interrupted.  This
@@ -1149,9 +1265,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                       runStateAtLeast(ctl.get(), STOP))) &&
                     !wt.isInterrupted())
                     wt.interrupt();
+                Throwable thrown = null;
                 try {
+                    if (m != null) {
+                        w.taskStartNanos = startNanos;
+                        w.timingTask = true;
+                    }
                     beforeExecute(wt, task);
-                    Throwable thrown = null;
                     try {
                         task.run();
                     } catch (RuntimeException x) {
@@ -1164,6 +1284,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                         afterExecute(task, thrown);
                     }
                 } finally {
+                    if (m != null) {
+                        w.timingTask = false;
+                        m.taskFinished(System.nanoTime() - startNanos,
+                                       thrown != null);
+                    }
                     task = null;
                     w.completedTasks++;
                     w.unlock();
@@ -1324,6 +1449,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         this.corePoolSize = corePoolSize;
         this.maximumPoolSize = maximumPoolSize;
         this.workQueue = workQueue;
+        this.fifoQueue = isFifo(workQueue);
         this.keepAliveTime = unit.toNanos(keepAliveTime);
         this.threadFactory = threadFactory;
         this.handler = handler;
@@ -1366,20 +1492,37 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
          * thread.  If it fails, we know we are shut down or saturated
          * and so reject the task.
          */
+        ExecutorMetrics m = metrics;
+        Runnable task = command;
+        if (m != null && fifoQueue)
+            task = new QueuedTask(command, System.nanoTime());
         int c = ctl.get();
         if (workerCountOf(c) < corePoolSize) {
-            if (addWorker(command, true))
+            if (addWorker(task, true)) {
+                if (m != null)
+                    m.taskSubmitted();
                 return;
+            }
             c = ctl.get();
         }
-        if (isRunning(c) && workQueue.offer(command)) {
+        if (isRunning(c) && workQueue.offer(task)) {
             int recheck = ctl.get();
-            if (! isRunning(recheck) && remove(command))
+            if (! isRunning(recheck) && workQueue.remove(task)) {
+                tryTerminate();
                 reject(command);
-            else if (workerCountOf(recheck) == 0)
-                addWorker(null, false);
+            }
+            else {
+                if (m != null)
+                    m.taskSubmitted();
+                if (workerCountOf(recheck) == 0)
+                    addWorker(null, false);
+            }
         }
-        else if (!addWorker(command, false))
+        else if (addWorker(task, false)) {
+            if (m != null)
+                m.taskSubmitted();
+        }
+        else
             reject(command);
     }
 
@@ -1738,6 +1881,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * This queue may be in active use.  Retrieving the task queue
      * does not prevent queued tasks from executing.
      *
+     * <p>Tasks submitted via {@link #execute} while metrics are enabled
+     * on a FIFO work queue (see {@link #enableMetrics}) are queued
+     * wrapped in an internal {@code Runnable} carrying their
+     * submission time.  Methods {@link #remove}, {@link #purge} and
+     * {@link #shutdownNow} see through such wrappers; direct access to
+     * the queue does not.
+     *
      * @return the task queue
      */
     public BlockingQueue<Runnable> getQueue() {
@@ -1762,6 +1912,15 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        if (!removed && wrappedTasks) {
+            for (Runnable r : workQueue.toArray(new Runnable[0])) {
+                if (r instanceof QueuedTask && ((QueuedTask)r).task == task &&
+                    workQueue.remove(r)) {
+                    removed = true;
+                    break;
+                }
+            }
+        }
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -1781,7 +1940,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             Iterator<Runnable> it = q.iterator();
             while (it.hasNext()) {
-                Runnable r = it.next();
+                Runnable r = unwrap(it.next());
                 if (r instanceof Future<?> && ((Future<?>)r).isCancelled())
                     it.remove();
             }
@@ -1789,9 +1948,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             // Take slow path if we encounter interference during traversal.
             // Make copy for traversal and call remove for cancelled entries.
             // The slow path is more likely to be O(N*N).
-            for (Object r : q.toArray())
-                if (r instanceof Future<?> && ((Future<?>)r).isCancelled())
+            for (Runnable r : q.toArray(new Runnable[0])) {
+                Runnable u = unwrap(r);
+                if (u instanceof Future<?> && ((Future<?>)u).isCancelled())
                     q.remove(r);
+            }
         }
 
         tryTerminate(); // In case SHUTDOWN and now empty
@@ -1899,6 +2060,74 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         }
     }
 
+    /**
+     * Enables the collection of task metrics under the given name,
+     * replacing any metrics previously collected.  While enabled, the
+     * pool times each task's wait in the queue and its execution, and
+     * counts submitted, failed and rejected tasks; see {@link
+     * ExecutorMetrics}.  Tasks queued before metrics were enabled are
+     * timed only for execution, as are all tasks when the work queue
+     * orders its elements (such as a {@code PriorityBlockingQueue}) or
+     * is not one of the FIFO queues of this package or {@code
+     * java.util.concurrent}, since measuring the wait would mean
+     * queuing a wrapper in place of the task.
+     *
+     * @param name the name under which the metrics are published
+     * @return the new metrics
+     * @throws NullPointerException if name is null
+     */
+    public ExecutorMetrics enableMetrics(String name) {
+        if (name == null)
+            throw new NullPointerException();
+        ExecutorMetrics m = new ExecutorMetrics(name, this);
+        if (fifoQueue)
+            wrappedTasks = true;
+        metrics = m;
+        return m;
+    }
+
+    /**
+     * Disables the collection of task metrics.  Metrics already
+     * collected remain readable from the object returned by {@link
+     * #enableMetrics}.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Returns the task metrics of this pool, or {@code null} if
+     * metrics are not enabled.
+     *
+     * @return the metrics, or {@code null}
+     */
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the summed time since the given System.nanoTime that
+     * live workers have existed, and that they have spent in tasks
+     * still running, for ExecutorMetrics.getUtilization.
+     */
+    final long[] workerNanos(long since) {
+        long live = 0L, busy = 0L;
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            long now = System.nanoTime();
+            for (Worker w : workers) {
+                if (w.started)
+                    live += now - ExecutorMetrics.later(w.startNanos, since);
+                if (w.timingTask)
+                    busy += now - ExecutorMetrics.later(w.taskStartNanos, since);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        return new long[] { live, busy };
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state and estimated worker and
@@ -0,0 +1,769 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical timing wheel instead of a priority queue.  Scheduling
+ * and cancelling a task take constant time regardless of how many
+ * tasks are pending, which suits workloads such as request timeouts,
+ * where millions of tasks are scheduled and nearly all of them are
+ * cancelled before they are due.
+ *
+ * <p>Time advances in ticks of a configurable duration.  A task is
+ * enabled at the first tick at or after its trigger time, so it never
+ * runs before its delay has elapsed, but may run up to one tick late;
+ * tasks enabled at the same tick are not ordered among themselves.
+ * The wheel has several levels of {@code wheelSize} slots, each level
+ * spanning {@code wheelSize} slots of the level below, so that any
+ * delay fits.  A single timer thread owns the wheel: it moves newly
+ * scheduled tasks into their slots, cascades tasks from a slot of a
+ * higher level into lower levels when the time covered by that slot
+ * begins, and hands each enabled task to a fixed pool of worker
+ * threads that runs it.  When no task is pending the timer thread
+ * waits without ticking.
+ *
+ * <p>Other threads never touch the wheel.  A scheduled task is
+ * queued for the timer thread, and a cancelled task is left in place
+ * and queued to be unlinked by the timer thread on its next tick, so
+ * cancellation frees the wheel slot lazily but in constant time.
+ * Tasks submitted with no delay bypass the wheel and go straight to
+ * the workers.
+ *
+ * <p>Returned futures follow the {@link ScheduledFuture} contract of
+ * {@link ScheduledThreadPoolExecutor}: periodic tasks are suppressed
+ * if an execution throws an exception, and fixed-rate executions that
+ * fall behind start late but never concurrently.  On
+ * {@link #shutdown}, periodic tasks are cancelled while pending
+ * one-shot delayed tasks still run; the executor terminates once the
+ * last of them has completed.
+ *
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /*
+     * Ticks are counted from the creation of the executor.  A task
+     * due at tick t is held at the lowest level k at which t and the
+     * current tick agree on all digits (groups of log2(wheelSize)
+     * bits) above k, in the slot given by digit k of t.  Advancing to
+     * tick c first cascades, from the highest level down, every level
+     * k whose lower digits of c are all zero, re-placing the tasks of
+     * the slot for digit k of c, and then enables the level 0 slot of
+     * c.  So each task is moved at most once per level, and is
+     * enabled at exactly its tick.
+     *
+     * Slots are doubly linked lists through the tasks themselves, so
+     * that a cancelled task can be unlinked in constant time; the
+     * links, the tick counters and the task count are confined to
+     * the timer thread.
+     */
+
+    /** The default tick duration, in milliseconds. */
+    static final long DEFAULT_TICK_MILLIS = 1L;
+
+    /** The default number of slots per level. */
+    static final int DEFAULT_WHEEL_SIZE = 256;
+
+    // runState values
+    private static final int RUNNING    = 0;
+    private static final int SHUTDOWN   = 1;
+    private static final int STOP       = 2;
+    private static final int TERMINATED = 3;
+
+    /**
+     * Sequence number to break scheduling ties, and in turn to
+     * guarantee FIFO order among tied entries in compareTo.
+     */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+    private final long origin;
+    private final WheelTask<?>[] slots; // levels * wheelSize list heads
+
+    private final ThreadPoolExecutor workers;
+    private final Thread timer;
+
+    /** Tasks scheduled but not yet placed in the wheel. */
+    private final Queue<WheelTask<?>> incoming = new java.util.concurrent.ConcurrentLinkedQueue<>();
+
+    /** Cancelled tasks to be unlinked from the wheel. */
+    private final Queue<WheelTask<?>> cancelled = new java.util.concurrent.ConcurrentLinkedQueue<>();
+
+    private volatile int runState;
+    private volatile boolean idle;  // timer parked with no pending tasks
+    private volatile int count;     // tasks in the wheel, written by timer only
+    private long currentTick;       // last tick processed, timer only
+    private List<Runnable> drained; // tasks removed by shutdownNow
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads, a tick of one millisecond and 256
+     * slots per level.
+     *
+     * @param corePoolSize the number of worker threads
+     * @throws IllegalArgumentException if {@code corePoolSize <= 0}
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize) {
+        this(corePoolSize, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+             DEFAULT_WHEEL_SIZE, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads and tick duration, and 256 slots per
+     * level.
+     *
+     * @param corePoolSize the number of worker threads
+     * @param tick the tick duration
+     * @param unit the time unit of the {@code tick} argument
+     * @throws IllegalArgumentException if {@code corePoolSize <= 0}
+     *         or {@code tick <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize, long tick, TimeUnit unit) {
+        this(corePoolSize, tick, unit, DEFAULT_WHEEL_SIZE,
+             Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * parameters.
+     *
+     * @param corePoolSize the number of worker threads
+     * @param tick the tick duration
+     * @param unit the time unit of the {@code tick} argument
+     * @param wheelSize the number of slots per level, rounded up to a
+     *        power of two
+     * @param threadFactory the factory to use when creating the timer
+     *        and worker threads
+     * @throws IllegalArgumentException if {@code corePoolSize <= 0},
+     *         {@code tick <= 0}, {@code wheelSize < 2} or
+     *         {@code wheelSize > 1 << 16}
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize, long tick, TimeUnit unit,
+                                        int wheelSize, ThreadFactory threadFactory) {
+        if (unit == null || threadFactory == null)
+            throw new NullPointerException();
+        if (corePoolSize <= 0 || tick <= 0 || wheelSize < 2 || wheelSize > 1 << 16)
+            throw new IllegalArgumentException();
+        this.tickNanos = Math.max(1L, unit.toNanos(tick));
+        this.wheelBits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.levels = (63 + wheelBits - 1) / wheelBits;
+        this.slots = new WheelTask<?>[levels << wheelBits];
+        this.workers = new ThreadPoolExecutor(corePoolSize, corePoolSize,
+                                              0L, TimeUnit.MILLISECONDS,
+                                              new LinkedBlockingQueue<Runnable>(),
+                                              threadFactory);
+        this.timer = threadFactory.newThread(this::runTimer);
+        if (timer == null)
+            throw new NullPointerException();
+        this.origin = System.nanoTime();
+        timer.start();
+    }
+
+    /**
+     * A task held in the wheel.  Its trigger time and period are as
+     * in ScheduledThreadPoolExecutor; its tick and links are owned by
+     * the timer thread.
+     */
+    private class WheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private volatile long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks, positive for
+         * fixed-rate and negative for fixed-delay execution, 0 if
+         * not repeating.
+         */
+        private final long period;
+
+        /** Whether the task may be queued for or held in the wheel */
+        volatile boolean inWheel;
+
+        /** The slot holding this task, or -1 if not in the wheel */
+        int slot = -1;
+        WheelTask<?> prev, next;
+
+        WheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && inWheel)
+                TimingWheelScheduledExecutor.this.cancelled.offer(this);
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset and reschedule
+         * if periodic.
+         */
+        public void run() {
+            if (!isPeriodic())
+                WheelTask.super.run();
+            else if (runState != RUNNING)
+                cancel(false);
+            else if (WheelTask.super.runAndReset()) {
+                long p = period;
+                time = (p > 0) ? time + p : System.nanoTime() + triggerDelay(-p);
+                enqueue(this);
+            }
+        }
+    }
+
+    /**
+     * Returns the delay clamped so that trigger times do not overflow.
+     */
+    private static long triggerDelay(long delay) {
+        return (delay < 0L) ? 0L : Math.min(delay, Long.MAX_VALUE >> 1);
+    }
+
+    /**
+     * Main execution method: hands tasks without delay to the workers
+     * and queues the others for the timer thread.
+     */
+    private void delayedExecute(WheelTask<?> task) {
+        if (runState != RUNNING)
+            throw new RejectedExecutionException();
+        if (task.time - System.nanoTime() <= 0L && !task.isPeriodic())
+            workers.execute(task);
+        else
+            enqueue(task);
+    }
+
+    /**
+     * Queues a task for placement by the timer thread.  If the
+     * executor is shut down meanwhile, the task is withdrawn again
+     * unless the timer has already taken it.
+     */
+    private void enqueue(WheelTask<?> task) {
+        task.inWheel = true;
+        incoming.offer(task);
+        if (runState != RUNNING && incoming.remove(task)) {
+            task.cancel(false);
+            if (!task.isPeriodic())
+                throw new RejectedExecutionException();
+        }
+        else if (idle)
+            LockSupport.unpark(timer);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+            System.nanoTime() + triggerDelay(unit.toNanos(delay)), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable,
+            System.nanoTime() + triggerDelay(unit.toNanos(delay)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+            System.nanoTime() + triggerDelay(unit.toNanos(initialDelay)),
+            Math.max(1L, unit.toNanos(period)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+            System.nanoTime() + triggerDelay(unit.toNanos(initialDelay)),
+            -Math.max(1L, unit.toNanos(delay)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     * This has effect equivalent to
+     * {@link #schedule(Runnable,long,TimeUnit) schedule(command, 0, anyUnit)}.
+     *
+     * @throws RejectedExecutionException if the executor has been
+     *         shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    // Override AbstractExecutorService methods
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.  Future
+     * executions of periodic tasks are cancelled, while delayed tasks
+     * still run when due.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (runState == RUNNING)
+                runState = SHUTDOWN;
+        }
+        LockSupport.unpark(timer);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.  Actively executing tasks are
+     * interrupted.
+     *
+     * @return list of tasks that never commenced execution
+     */
+    public List<Runnable> shutdownNow() {
+        synchronized (this) {
+            if (runState < STOP)
+                runState = STOP;
+        }
+        LockSupport.unpark(timer);
+        List<Runnable> tasks = new ArrayList<>();
+        if (Thread.currentThread() != timer) {
+            boolean interrupted = false;
+            while (timer.isAlive()) {
+                try {
+                    timer.join();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            synchronized (this) {
+                if (drained != null) {
+                    tasks.addAll(drained);
+                    drained = null;
+                }
+            }
+        }
+        tasks.addAll(workers.shutdownNow());
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return runState == TERMINATED && workers.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        NANOSECONDS.timedJoin(timer, unit.toNanos(timeout));
+        if (timer.isAlive())
+            return false;
+        return workers.awaitTermination(deadline - System.nanoTime(), NANOSECONDS);
+    }
+
+    /**
+     * Returns the tick duration in the given unit.
+     *
+     * @param unit the desired time unit
+     * @return the tick duration
+     */
+    public long getTick(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads
+     */
+    public int getPoolSize() {
+        return workers.getCorePoolSize();
+    }
+
+    /**
+     * Returns the approximate number of tasks awaiting their trigger
+     * time, including cancelled tasks not yet unlinked from the wheel.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTaskCount() {
+        return count + incoming.size();
+    }
+
+    /**
+     * Returns the approximate total number of tasks that have
+     * completed execution on the workers.
+     *
+     * @return the number of completed tasks
+     */
+    public long getCompletedTaskCount() {
+        return workers.getCompletedTaskCount();
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its state,
+     * including indications of run state and estimated task counts.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        int rs = runState;
+        String s = (rs == RUNNING) ? "Running" :
+            (rs == TERMINATED && workers.isTerminated()) ? "Terminated" :
+            "Shutting down";
+        return super.toString() +
+            "[" + s +
+            ", tick = " + tickNanos + "ns" +
+            ", wheel = " + levels + "x" + (wheelMask + 1) +
+            ", pool size = " + getPoolSize() +
+            ", pending tasks = " + getPendingTaskCount() +
+            ", completed tasks = " + getCompletedTaskCount() + "]";
+    }
+
+    /* ------------- Timer thread -------------- */
+
+    /**
+     * The timer loop: places new tasks, unlinks cancelled ones, and
+     * advances the wheel to the current tick, sleeping until the next
+     * tick, or until a task arrives if there is none.
+     */
+    private void runTimer() {
+        boolean periodicPurged = false;
+        try {
+            for (;;) {
+                int rs = runState;
+                if (rs >= STOP) {
+                    drainAll();
+                    break;
+                }
+                if (rs == SHUTDOWN && !periodicPurged) {
+                    periodicPurged = true;
+                    purgePeriodic();
+                }
+                long target = (System.nanoTime() - origin) / tickNanos;
+                if (count == 0) // nothing to advance past
+                    currentTick = Math.max(currentTick, target);
+                transferIncoming();
+                purgeCancelled();
+                if (count == 0) {
+                    if (rs != RUNNING && incoming.isEmpty())
+                        break;
+                    idle = true;
+                    if (incoming.isEmpty() && runState == rs)
+                        LockSupport.park(this);
+                    idle = false;
+                    continue;
+                }
+                while (currentTick < target && count > 0)
+                    advance();
+                if (count == 0)
+                    currentTick = target;
+                long wake = origin + (currentTick + 1) * tickNanos - System.nanoTime();
+                if (wake > 0L)
+                    LockSupport.parkNanos(this, wake);
+            }
+        } finally {
+            runState = TERMINATED;
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Returns the tick at which a task with the given trigger time is
+     * due: the first tick at or after it.
+     */
+    private long tickOf(long time) {
+        long d = time - origin;
+        return (d <= 0L) ? 0L : (d + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * Places a task in the wheel, or hands it to the workers if it
+     * is due at or before the current tick.
+     */
+    private void place(WheelTask<?> t, long tick) {
+        long c = currentTick;
+        if (tick <= c) {
+            fire(t);
+            return;
+        }
+        int k = 0, b = wheelBits;
+        while (k < levels - 1 && (tick >>> (b * (k + 1))) != (c >>> (b * (k + 1))))
+            ++k;
+        int s = (k << b) | (int)((tick >>> (b * k)) & wheelMask);
+        WheelTask<?> h = slots[s];
+        t.slot = s;
+        t.prev = null;
+        t.next = h;
+        if (h != null)
+            h.prev = t;
+        slots[s] = t;
+        ++count;
+    }
+
+    /** Removes a task from its slot. */
+    private void unlink(WheelTask<?> t) {
+        int s = t.slot;
+        if (s < 0)
+            return;
+        WheelTask<?> p = t.prev, n = t.next;
+        if (p == null)
+            slots[s] = n;
+        else
+            p.next = n;
+        if (n != null)
+            n.prev = p;
+        t.prev = t.next = null;
+        t.slot = -1;
+        t.inWheel = false;
+        --count;
+    }
+
+    /** Hands an enabled task to the workers. */
+    private void fire(WheelTask<?> t) {
+        t.inWheel = false;
+        if (t.isCancelled())
+            return;
+        try {
+            workers.execute(t);
+        } catch (RejectedExecutionException ex) {
+            t.cancel(false);
+        }
+    }
+
+    /** Moves newly scheduled tasks into the wheel. */
+    private void transferIncoming() {
+        boolean running = runState == RUNNING;
+        for (WheelTask<?> t; (t = incoming.poll()) != null;) {
+            if (t.isCancelled())
+                t.inWheel = false;
+            else if (!running && t.isPeriodic())
+                t.cancel(false);
+            else
+                place(t, tickOf(t.time));
+        }
+    }
+
+    /** Unlinks cancelled tasks from the wheel. */
+    private void purgeCancelled() {
+        for (WheelTask<?> t; (t = cancelled.poll()) != null;)
+            unlink(t);
+    }
+
+    /** Cancels and unlinks all periodic tasks, upon shutdown. */
+    private void purgePeriodic() {
+        for (int s = 0; s < slots.length; ++s) {
+            for (WheelTask<?> t = slots[s], n; t != null; t = n) {
+                n = t.next;
+                if (t.isPeriodic()) {
+                    unlink(t);
+                    t.cancel(false);
+                }
+            }
+        }
+    }
+
+    /** Removes all tasks for shutdownNow. */
+    private void drainAll() {
+        List<Runnable> tasks = new ArrayList<>();
+        for (WheelTask<?> t; (t = incoming.poll()) != null;)
+            if (!t.isCancelled())
+                tasks.add(t);
+        for (int s = 0; s < slots.length; ++s) {
+            for (WheelTask<?> t = slots[s], n; t != null; t = n) {
+                n = t.next;
+                unlink(t);
+                if (!t.isCancelled())
+                    tasks.add(t);
+            }
+        }
+        cancelled.clear();
+        synchronized (this) {
+            drained = tasks;
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick: cascades the higher-level slots
+     * whose span begins at the new tick, then fires its level 0 slot.
+     */
+    private void advance() {
+        long c = ++currentTick;
+        int b = wheelBits;
+        int top = 0;
+        while (top < levels - 1 && (c & ((1L << (b * (top + 1))) - 1)) == 0L)
+            ++top;
+        for (int k = top; k >= 1; --k) {
+            int s = (k << b) | (int)((c >>> (b * k)) & wheelMask);
+            WheelTask<?> t = slots[s];
+            if (t != null) {
+                slots[s] = null;
+                for (WheelTask<?> n; t != null; t = n) {
+                    n = t.next;
+                    t.prev = t.next = null;
+                    t.slot = -1;
+                    --count;
+                    if (!t.isCancelled())
+                        place(t, tickOf(t.time));
+                    else
+                        t.inWheel = false;
+                }
+            }
+        }
+        int s = (int)(c & wheelMask);
+        WheelTask<?> t = slots[s];
+        if (t != null) {
+            slots[s] = null;
+            for (WheelTask<?> n; t != null; t = n) {
+                n = t.next;
+                t.prev = t.next = null;
+                t.slot = -1;
+                --count;
+                fire(t);
+            }
+        }
+    }
+}
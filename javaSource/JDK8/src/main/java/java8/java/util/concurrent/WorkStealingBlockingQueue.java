@@ -0,0 +1,573 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} that gives each
+ * consuming thread a local deque and lets idle consumers steal from
+ * the others, turning a {@link ThreadPoolExecutor} into a
+ * work-stealing pool while keeping its core and maximum pool sizes,
+ * keep-alive policy and {@link RejectedExecutionHandler}.
+ *
+ * <p>A thread becomes a <em>worker</em> of this queue the first time
+ * it takes, or waits in a timed poll for, an element; in a {@code
+ * ThreadPoolExecutor} these are exactly the pool's worker threads.
+ * A non-blocking {@link #poll()} takes an element in the same way but
+ * does not register the caller.  Elements inserted by a
+ * worker (typically tasks submitted by a running task) are pushed onto
+ * its local deque, without touching any shared state, and are taken
+ * by the same worker once it finishes its current task.  Elements
+ * inserted by other threads, or by a worker whose local deque is
+ * full, go to a shared {@link MpmcArrayBlockingQueue}.  A worker with
+ * an empty local deque steals the oldest element of another worker's
+ * deque, scanning from a random victim, before falling back to the
+ * shared queue; only then does it spin and park.
+ *
+ * <p>Local deques follow the design of the work queues of {@link
+ * ForkJoinPool} in its FIFO ("async") mode: the owner pushes at the
+ * top, and both the owner and thieves take at the base by CASing the
+ * slot from the element to null, so no lock is ever held.
+ *
+ * <p>Ordering is therefore FIFO per producer only: an element pushed
+ * locally may be taken before older elements in the shared queue or
+ * in other deques.  Only the shared queue is bounded by the capacity
+ * given at construction; each worker may additionally hold up to
+ * {@value #LOCAL_CAPACITY} elements locally.  A worker whose timed
+ * poll expires with an empty local deque is unregistered, so that an
+ * executor retiring idle threads does not leave deques behind.
+ *
+ * <p>As with {@code MpmcArrayBlockingQueue}, {@link #remove(Object)}
+ * and the iterator's {@code remove} replace the element, wherever it
+ * is queued, with a tombstone that takers skip, so that {@link
+ * ThreadPoolExecutor#remove} and {@link ThreadPoolExecutor#purge}
+ * work; a removed element still counts towards {@link #size} until it
+ * is skipped.  The iterator is a weakly consistent snapshot.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class WorkStealingBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /**
+     * Capacity of each worker's local deque.  Must be a power of two.
+     */
+    static final int LOCAL_CAPACITY = 1 << 10;
+
+    /**
+     * A worker's local deque: a single-producer circular array in which
+     * the owner pushes at top while any thread may poll at base.
+     * Removed elements are replaced in their slot by
+     * MpmcArrayBlockingQueue.TOMBSTONE, which pollers discard.
+     */
+    static final class LocalQueue<E> {
+        final AtomicReferenceArray<Object> array =
+            new AtomicReferenceArray<Object>(LOCAL_CAPACITY);
+        final Thread owner;
+        volatile int base;              // index of next slot to poll
+        volatile int top;               // index of next slot to push
+
+        LocalQueue(Thread owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Pushes an element.  Call only by owner.
+         *
+         * @return false if the deque is full
+         */
+        boolean push(E e) {
+            int s = top;
+            if (s - base >= LOCAL_CAPACITY)
+                return false;
+            array.lazySet(s & (LOCAL_CAPACITY - 1), e);
+            top = s + 1;                // volatile write publishes slot
+            return true;
+        }
+
+        /**
+         * Takes the element at base, or returns null if the deque is
+         * empty.  May be called by any thread; loses only to other
+         * pollers in progress.
+         */
+        @SuppressWarnings("unchecked")
+        E poll() {
+            final AtomicReferenceArray<Object> a = array;
+            int b;
+            while ((b = base) - top < 0) {
+                int j = b & (LOCAL_CAPACITY - 1);
+                Object e = a.get(j);
+                if (b == base) {
+                    if (e != null) {
+                        if (a.compareAndSet(j, e, null)) {
+                            base = b + 1;
+                            if (e != MpmcArrayBlockingQueue.TOMBSTONE)
+                                return (E)e;
+                        }
+                    }
+                    else if (b + 1 == top)  // now empty
+                        break;
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        E peek() {
+            for (int b = base, t = top; b - t < 0; ++b) {
+                Object e = array.get(b & (LOCAL_CAPACITY - 1));
+                if (e != null && e != MpmcArrayBlockingQueue.TOMBSTONE)
+                    return (E)e;
+            }
+            return null;
+        }
+
+        /**
+         * Replaces the given element, if still queued here, with a
+         * tombstone.  Matches by identity, or else by equals.
+         */
+        boolean remove(Object o, boolean identity) {
+            final AtomicReferenceArray<Object> a = array;
+            for (int b = base, t = top; b - t < 0; ++b) {
+                int j = b & (LOCAL_CAPACITY - 1);
+                Object e = a.get(j);
+                if (e != null && e != MpmcArrayBlockingQueue.TOMBSTONE &&
+                    (e == o || (!identity && o.equals(e))) &&
+                    a.compareAndSet(j, e, MpmcArrayBlockingQueue.TOMBSTONE))
+                    return true;
+            }
+            return false;
+        }
+
+        int size() {
+            int n = top - base;
+            return (n < 0) ? 0 : n;
+        }
+    }
+
+    /** Queue for elements inserted by non-workers, or on overflow. */
+    final MpmcArrayBlockingQueue<E> shared;
+
+    /** Each thread's local deque, if it is a registered worker. */
+    final ThreadLocal<LocalQueue<E>> local = new ThreadLocal<LocalQueue<E>>();
+
+    /**
+     * Registered local deques.  Replaced copy-on-write while holding
+     * this queue's monitor; read without locking.
+     */
+    volatile LocalQueue<?>[] queues = new LocalQueue<?>[0];
+
+    /** Workers parked awaiting an element. */
+    final MpmcArrayBlockingQueue.Waiters idle =
+        new MpmcArrayBlockingQueue.Waiters();
+
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} whose shared queue
+     * has at least the given capacity.
+     *
+     * @param capacity the minimum capacity of the shared queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or it
+     *         exceeds 2<sup>30</sup>
+     */
+    public WorkStealingBlockingQueue(int capacity) {
+        shared = new MpmcArrayBlockingQueue<E>(capacity);
+    }
+
+    /* ---------------- Worker registration -------------- */
+
+    /**
+     * Returns the calling thread's local deque, registering it as a
+     * worker if necessary.
+     */
+    final LocalQueue<E> register() {
+        LocalQueue<E> q = local.get();
+        if (q == null) {
+            q = new LocalQueue<E>(Thread.currentThread());
+            synchronized (this) {
+                LocalQueue<?>[] qs = queues;
+                int n = qs.length;
+                LocalQueue<?>[] nqs = new LocalQueue<?>[n + 1];
+                System.arraycopy(qs, 0, nqs, 0, n);
+                nqs[n] = q;
+                queues = nqs;
+            }
+            local.set(q);
+        }
+        return q;
+    }
+
+    /**
+     * Unregisters the calling thread if its local deque is empty.
+     */
+    final void unregister(LocalQueue<E> q) {
+        if (q.size() == 0) {
+            local.remove();
+            synchronized (this) {
+                prune(q);
+            }
+        }
+    }
+
+    /**
+     * Removes the given deque, and any empty deque whose owner has
+     * died, from the registry.  Call only while holding this monitor.
+     */
+    private void prune(LocalQueue<?> q) {
+        LocalQueue<?>[] qs = queues;
+        ArrayList<LocalQueue<?>> keep = new ArrayList<LocalQueue<?>>(qs.length);
+        for (LocalQueue<?> r : qs) {
+            if (r != q && (r.owner.isAlive() || r.size() != 0))
+                keep.add(r);
+        }
+        if (keep.size() != qs.length)
+            queues = keep.toArray(new LocalQueue<?>[0]);
+    }
+
+    /* ---------------- Scanning -------------- */
+
+    /**
+     * Tries to obtain an element for worker q: first from its own
+     * deque, then by stealing, then from the shared queue.
+     */
+    @SuppressWarnings("unchecked")
+    final E scan(LocalQueue<E> q) {
+        E x;
+        if (q != null && (x = q.poll()) != null)
+            return x;
+        LocalQueue<?>[] qs = queues;
+        int n = qs.length;
+        if (n > 1 || (n == 1 && qs[0] != q)) {
+            int origin = ThreadLocalRandom.current().nextInt(n);
+            boolean dead = false;
+            for (int k = 0; k < n; ++k) {
+                LocalQueue<E> v = (LocalQueue<E>)qs[(origin + k) % n];
+                if (v != q) {
+                    if ((x = v.poll()) != null)
+                        return x;
+                    if (!v.owner.isAlive())
+                        dead = true;
+                }
+            }
+            if (dead) {
+                synchronized (this) {
+                    prune(null);
+                }
+            }
+        }
+        return shared.poll();
+    }
+
+    /**
+     * Takes an element on behalf of the calling thread, spinning and
+     * then parking while none is available.
+     *
+     * @param deadline the System.nanoTime deadline, or 0 if untimed
+     * @return an element, or null if the deadline passed
+     */
+    final E awaitElement(long deadline) throws InterruptedException {
+        final LocalQueue<E> q = register();
+        final MpmcArrayBlockingQueue.Waiters w = idle;
+        final Thread self = q.owner;
+        E x;
+        for (int spins = MpmcArrayBlockingQueue.SPINS;;) {
+            if ((x = scan(q)) != null)
+                return x;
+            if (spins > 0) {
+                if (--spins < MpmcArrayBlockingQueue.YIELD_SPINS)
+                    Thread.yield();
+                continue;
+            }
+            w.enqueue(self);
+            if ((x = scan(q)) != null) {
+                w.dequeue(self);
+                return x;
+            }
+            if (!MpmcArrayBlockingQueue.park(w, self, deadline)) {
+                unregister(q);
+                return null;
+            }
+        }
+    }
+
+    /* ---------------- Queue operations -------------- */
+
+    /**
+     * Inserts the specified element, onto the caller's local deque if
+     * it is a worker with room, else at the tail of the shared queue
+     * if it is not full.
+     *
+     * @return {@code true} if the element was added to this queue, else
+     *         {@code false}
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        LocalQueue<E> q = local.get();
+        if ((q == null || !q.push(e)) && !shared.offer(e))
+            return false;
+        idle.signal();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element, onto the caller's local deque if
+     * it is a worker with room, else at the tail of the shared queue,
+     * waiting if necessary for space to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        LocalQueue<E> q = local.get();
+        if (q == null || !q.push(e))
+            shared.put(e);
+        idle.signal();
+    }
+
+    /**
+     * Inserts the specified element, onto the caller's local deque if
+     * it is a worker with room, else at the tail of the shared queue,
+     * waiting up to the specified wait time for space to become
+     * available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        LocalQueue<E> q = local.get();
+        if ((q == null || !q.push(e)) && !shared.offer(e, timeout, unit))
+            return false;
+        idle.signal();
+        return true;
+    }
+
+    /**
+     * Takes an element without registering the caller as a worker;
+     * the deque of a caller that already is one is tried first.
+     */
+    public E poll() {
+        return scan(local.get());
+    }
+
+    public E take() throws InterruptedException {
+        return awaitElement(0L);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        if (nanos <= 0L)
+            return poll();
+        long deadline = System.nanoTime() + nanos;
+        return awaitElement((deadline == 0L) ? 1L : deadline);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        E x;
+        LocalQueue<E> q = local.get();
+        if (q != null && (x = q.peek()) != null)
+            return x;
+        for (LocalQueue<?> r : queues) {
+            if ((x = (E)r.peek()) != null)
+                return x;
+        }
+        return shared.peek();
+    }
+
+    /**
+     * Returns the number of elements in the shared queue and all local
+     * deques.  This is only an estimate while the queue is being
+     * modified.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long n = shared.size();
+        for (LocalQueue<?> r : queues)
+            n += r.size();
+        return (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    public boolean isEmpty() {
+        if (!shared.isEmpty())
+            return false;
+        for (LocalQueue<?> r : queues) {
+            if (r.size() != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the remaining capacity of the shared queue.  Workers may
+     * be able to insert further elements into their local deques.
+     */
+    public int remainingCapacity() {
+        return shared.remainingCapacity();
+    }
+
+    /**
+     * Removes a single instance of the specified element from the
+     * local deques or the shared queue, if it is present.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        return remove(o, false);
+    }
+
+    final boolean remove(Object o, boolean identity) {
+        if (o == null) return false;
+        for (LocalQueue<?> r : queues) {
+            if (r.remove(o, identity))
+                return true;
+        }
+        return shared.remove(o, identity);
+    }
+
+    /**
+     * Removes all of the elements from the shared queue and all local
+     * deques.
+     */
+    public void clear() {
+        drainTo(new ArrayList<E>());
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        E x;
+        for (LocalQueue<?> r : queues) {
+            while (n < maxElements && (x = (E)r.poll()) != null) {
+                c.add(x);
+                ++n;
+            }
+        }
+        if (n < maxElements)
+            n += shared.drainTo(c, maxElements - n);
+        return n;
+    }
+
+    /**
+     * Returns an array containing a snapshot of the elements of all
+     * local deques followed by those of the shared queue.
+     */
+    public Object[] toArray() {
+        ArrayList<Object> list = new ArrayList<Object>();
+        for (LocalQueue<?> r : queues) {
+            AtomicReferenceArray<?> a = r.array;
+            for (int b = r.base, t = r.top; b - t < 0; ++b) {
+                Object x = a.get(b & (LOCAL_CAPACITY - 1));
+                if (x != null && x != MpmcArrayBlockingQueue.TOMBSTONE)
+                    list.add(x);
+            }
+        }
+        for (Object x : shared.toArray())
+            list.add(x);
+        return list.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] snapshot = toArray();
+        int len = snapshot.length;
+        if (a.length < len)
+            a = (T[])java.lang.reflect.Array.newInstance(
+                a.getClass().getComponentType(), len);
+        System.arraycopy(snapshot, 0, a, 0, len);
+        if (a.length > len)
+            a[len] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     * Its {@link Iterator#remove} removes the last returned element if
+     * it is still queued.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        final Object[] snapshot = toArray();
+        return new Iterator<E>() {
+            int cursor;
+            int lastRet = -1;
+            public boolean hasNext() {
+                return cursor < snapshot.length;
+            }
+            public E next() {
+                if (cursor >= snapshot.length)
+                    throw new java.util.NoSuchElementException();
+                lastRet = cursor;
+                return (E)snapshot[cursor++];
+            }
+            public void remove() {
+                int r = lastRet;
+                if (r < 0)
+                    throw new IllegalStateException();
+                lastRet = -1;
+                WorkStealingBlockingQueue.this.remove(snapshot[r], true);
+            }
+        };
+    }
+}
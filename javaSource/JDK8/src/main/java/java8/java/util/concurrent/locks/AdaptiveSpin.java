@@ -0,0 +1,94 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent.locks;
+
+/**
+ * The spin policy of a {@link ReentrantLock} or {@link
+ * ReentrantReadWriteLock} constructed with adaptive spinning.
+ *
+ * <p>A thread that finds the lock held by another thread retries it up
+ * to {@link #limit} times before queuing and parking, so that a critical
+ * section shorter than a park/unpark round trip is waited out on the
+ * processor instead of through a context switch.  The limit follows the
+ * outcome of recent spins, and so the hold times of the lock: a spin
+ * that acquires the lock after {@code k} retries moves the limit a
+ * quarter of the way towards {@code 2k}, and a spin that fails halves
+ * it, down to a floor that lets spinning recover once holds become
+ * short again.  The policy reads no clock, so it costs nothing when the
+ * lock is not contended.  On a uniprocessor the owner cannot run while
+ * another thread spins, so the limit is always zero.
+ *
+ * @since 1.8
+ */
+final class AdaptiveSpin implements java.io.Serializable {
+    private static final long serialVersionUID = -4290458329237315146L;
+
+    /** Number of CPUS, to place bounds on spinning */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The smallest limit; failed spins do not push the limit lower */
+    static final int MIN_SPINS = (NCPU > 1) ? 1 << 4 : 0;
+
+    /** The largest limit, well below the cost of parking */
+    static final int MAX_SPINS = (NCPU > 1) ? 1 << 14 : 0;
+
+    /** The limit of a new lock */
+    static final int INITIAL_SPINS = (NCPU > 1) ? 1 << 8 : 0;
+
+    /**
+     * The current limit.  Updates race, but a lost update only delays
+     * adaptation by one spin.
+     */
+    private volatile int limit = INITIAL_SPINS;
+
+    /**
+     * Returns the number of times to retry a held lock before parking.
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Records a spin that acquired the lock after the given number of
+     * retries.
+     */
+    void succeeded(int spins) {
+        int l = limit;
+        int target = Math.max(MIN_SPINS, Math.min(MAX_SPINS, spins << 1));
+        int n = l + ((target - l) >> 2);
+        if (n != l)
+            limit = n;
+    }
+
+    /**
+     * Records a spin that gave up.
+     */
+    void failed() {
+        int l = limit;
+        int n = Math.max(MIN_SPINS, l >>> 1);
+        if (n != l)
+            limit = n;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent.locks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java8.java.lang.management.LockMXBean;
+import java8.java.util.concurrent.ExecutorMetrics.Histogram;
+
+/**
+ * The contention profile of a {@link ReentrantLock} or {@link
+ * ReentrantReadWriteLock}, returned by {@code enableProfiling}.
+ *
+ * <p>Only acquisitions that find the lock unavailable are profiled, so
+ * an uncontended lock pays one read of a volatile field.  For each
+ * contended acquisition the lock records in a {@link Histogram} the
+ * time until it held the lock, and counts whether it succeeded while
+ * spinning or had to park.  If owner sampling is enabled, a thread about
+ * to park captures the stack trace of the owner of the lock, at most
+ * once every {@link #SAMPLE_INTERVAL} nanoseconds per lock, since
+ * capturing a stack trace stops the owner at a safepoint; the latest
+ * {@link #MAX_SAMPLES} samples are kept.
+ *
+ * <p>This class implements {@link LockMXBean}, and may be published on
+ * the platform MBean server with {@link #register}.
+ *
+ * @since 1.8
+ */
+public final class LockProfile implements LockMXBean {
+
+    /** The number of owner stack samples kept */
+    static final int MAX_SAMPLES = 16;
+
+    /** The least time, in nanoseconds, between owner stack samples */
+    static final long SAMPLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    /**
+     * The stack trace of the owner of a lock, captured by a thread about
+     * to park waiting for it.
+     */
+    public static final class OwnerSample {
+        final String threadName;
+        final long threadId;
+        final long time;
+        final StackTraceElement[] stackTrace;
+
+        OwnerSample(Thread owner, long time, StackTraceElement[] stackTrace) {
+            this.threadName = owner.getName();
+            this.threadId = owner.getId();
+            this.time = time;
+            this.stackTrace = stackTrace;
+        }
+
+        /**
+         * Returns the name of the owner thread.
+         *
+         * @return the thread name
+         */
+        public String getThreadName() { return threadName; }
+
+        /**
+         * Returns the id of the owner thread.
+         *
+         * @return the thread id
+         */
+        public long getThreadId() { return threadId; }
+
+        /**
+         * Returns the time the sample was taken, in milliseconds since
+         * the epoch.
+         *
+         * @return the sample time
+         */
+        public long getTime() { return time; }
+
+        /**
+         * Returns the stack trace of the owner thread when the sample
+         * was taken.
+         *
+         * @return a copy of the stack trace
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('"').append(threadName).append("\" Id=").append(threadId);
+            for (StackTraceElement e : stackTrace)
+                sb.append("\n\tat ").append(e);
+            return sb.toString();
+        }
+    }
+
+    final String name;
+    final AbstractQueuedSynchronizer sync;
+    final AdaptiveSpin spin;
+    final boolean sampleOwners;
+    final Histogram acquireWait = new Histogram();
+    final LongAdder spinAcquires = new LongAdder();
+    final LongAdder parkedAcquires = new LongAdder();
+
+    /** System.nanoTime before which no owner sample is taken */
+    private final AtomicLong nextSample = new AtomicLong(System.nanoTime());
+
+    /** Ring of the latest samples; guarded by itself */
+    private final OwnerSample[] samples = new OwnerSample[MAX_SAMPLES];
+    private int sampleHead, sampleCount;
+
+    LockProfile(String name, AbstractQueuedSynchronizer sync,
+                AdaptiveSpin spin, boolean sampleOwners) {
+        this.name = name;
+        this.sync = sync;
+        this.spin = spin;
+        this.sampleOwners = sampleOwners;
+    }
+
+    /**
+     * Returns the histogram of the waits of contended acquisitions.
+     *
+     * @return the acquire wait histogram
+     */
+    public Histogram acquireWait() {
+        return acquireWait;
+    }
+
+    /**
+     * Returns the latest owner stack samples, oldest first.
+     *
+     * @return the samples
+     */
+    public List<OwnerSample> ownerSamples() {
+        synchronized (samples) {
+            List<OwnerSample> list = new ArrayList<>(sampleCount);
+            for (int i = 0; i < sampleCount; ++i)
+                list.add(samples[(sampleHead + i) % MAX_SAMPLES]);
+            return list;
+        }
+    }
+
+    public String getName()                { return name; }
+    public int getQueueLength()            { return sync.getQueueLength(); }
+    public int getSpinLimit()              { return (spin == null) ? 0 : spin.limit(); }
+    public long getSpinAcquireCount()      { return spinAcquires.sum(); }
+    public long getParkedAcquireCount()    { return parkedAcquires.sum(); }
+    public long getContendedAcquireCount() {
+        return spinAcquires.sum() + parkedAcquires.sum();
+    }
+    public long getAcquireWaitMean()       { return acquireWait.mean(); }
+    public long getAcquireWaitMedian()     { return acquireWait.percentile(0.5); }
+    public long getAcquireWait99thPercentile() {
+        return acquireWait.percentile(0.99);
+    }
+    public long getAcquireWaitMax()        { return acquireWait.max(); }
+
+    public String[] getOwnerStackSamples() {
+        List<OwnerSample> list = ownerSamples();
+        String[] a = new String[list.size()];
+        for (int i = 0; i < a.length; ++i)
+            a[i] = list.get(i).toString();
+        return a;
+    }
+
+    public void reset() {
+        acquireWait.reset();
+        spinAcquires.reset();
+        parkedAcquires.reset();
+        synchronized (samples) {
+            java.util.Arrays.fill(samples, null);
+            sampleHead = sampleCount = 0;
+        }
+    }
+
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.util.concurrent.locks:type=Lock,name=" +
+                                  ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Registers this profile with the platform MBean server under
+     * {@link #getObjectName}.
+     *
+     * @throws IllegalStateException if the name is already registered
+     *         or registration otherwise fails
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, getObjectName());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters this profile from the platform MBean server, if
+     * registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName on = getObjectName();
+            if (server.isRegistered(on))
+                server.unregisterMBean(on);
+        } catch (JMException ignore) {
+        }
+    }
+
+    /* ---------------- Recording, called by the lock -------------- */
+
+    void acquired(long waitNanos, boolean spun) {
+        acquireWait.record(waitNanos);
+        if (spun)
+            spinAcquires.increment();
+        else
+            parkedAcquires.increment();
+    }
+
+    /**
+     * Samples the stack of the owner, if sampling is enabled and no
+     * other sample was taken in the last SAMPLE_INTERVAL.
+     */
+    void sampleOwner(Thread owner) {
+        if (!sampleOwners || owner == null)
+            return;
+        long now = System.nanoTime(), next = nextSample.get();
+        if (now - next < 0L ||
+            !nextSample.compareAndSet(next, now + SAMPLE_INTERVAL))
+            return;
+        StackTraceElement[] stack = owner.getStackTrace();
+        if (stack.length == 0) // not alive, or no trace available
+            return;
+        OwnerSample s = new OwnerSample(owner, System.currentTimeMillis(), stack);
+        synchronized (samples) {
+            if (sampleCount < MAX_SAMPLES)
+                samples[(sampleHead + sampleCount++) % MAX_SAMPLES] = s;
+            else {
+                samples[sampleHead] = s;
+                sampleHead = (sampleHead + 1) % MAX_SAMPLES;
+            }
+        }
+    }
+
+    public String toString() {
+        return super.toString() + "[" + name +
+            ", contended=" + getContendedAcquireCount() +
+            ", spun=" + getSpinAcquireCount() +
+            ", parked=" + getParkedAcquireCount() +
+            ", spinLimit=" + getSpinLimit() +
+            ", acquireWait=" + acquireWait + "]";
+    }
+}
@@ -0,0 +1,573 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java8.java.util.concurrent.locks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * A {@link ReadWriteLock} for data that is read far more often than it
+ * is written, in which acquiring and releasing the read lock writes no
+ * memory shared with readers running on other processors.
+ *
+ * <p>A {@link ReentrantReadWriteLock} counts readers in one word, so
+ * every read lock and unlock is an atomic update of the same cache
+ * line, which bounces between processors however little the readers
+ * otherwise share.  This lock instead counts readers in an array of
+ * slots, one per processor or so, each on its own cache lines, in the
+ * manner of the cells of {@link java.util.concurrent.atomic.LongAdder
+ * LongAdder}.  A thread keeps using the same slot until it finds
+ * another thread updating it at the same time, and then moves to
+ * another, so with a slot per processor the read path mostly touches
+ * lines that stay in the local cache.  The price is paid by writers: a writer announces itself,
+ * which turns new readers away, and then waits until every slot is
+ * empty, so acquiring the write lock takes time proportional to the
+ * number of slots even when no reader is active.  Each lock occupies
+ * 128 bytes per slot.
+ *
+ * <p>Writers take precedence: once a writer has announced itself, new
+ * readers wait until it releases the lock, and readers may starve
+ * while writers keep arriving.  Writers are granted the lock in the
+ * order they arrive.
+ *
+ * <p>The write lock is reentrant, and its owner may also acquire the
+ * read lock, which allows downgrading from the write lock to the read
+ * lock by acquiring the read lock before releasing the write lock.
+ * The read lock is <em>not</em> reentrant: a thread holding the read
+ * lock that tries to acquire it again, or to acquire the write lock,
+ * may deadlock.  Neither lock supports {@link Condition}s.
+ *
+ * <p>Like {@link StampedLock}, this lock also supports optimistic
+ * reading: {@link #tryOptimisticRead} returns a non-zero stamp if no
+ * writer is active, and {@link #validate} returns {@code true} if no
+ * writer has acquired the lock since the stamp was obtained.  Fields
+ * read between the two calls may be inconsistent, and must only be
+ * used once validated, in the same way as for {@code StampedLock}:
+ *
+ *  <pre>{@code
+ * long stamp = lock.tryOptimisticRead();
+ * Config c = current;
+ * if (!lock.validate(stamp)) {
+ *   lock.readLock().lock();
+ *   try {
+ *     c = current;
+ *   } finally {
+ *     lock.readLock().unlock();
+ *   }
+ * }}</pre>
+ *
+ * <p>This class is not serializable.
+ *
+ * @since 1.8
+ */
+public class ReaderBiasedReadWriteLock implements ReadWriteLock {
+
+    /*
+     * Algorithmic notes:
+     *
+     * A reader increments its slot and then reads the state; a writer
+     * makes the state odd and then reads the slots.  Both sides use
+     * volatile accesses, so at least one of them sees the other: either
+     * the reader sees the odd state, and backs off by decrementing its
+     * slot again, or the writer sees the slot non-zero and waits for
+     * it.  A reader that releases its slot while the state is odd
+     * unparks the owner, which may be waiting for that slot.
+     *
+     * Writers exclude each other with a ReentrantLock that they hold
+     * for as long as they hold the write lock.  Readers that find a
+     * writer spin for a while and then wait for the writer by locking
+     * and unlocking the same ReentrantLock, which parks them in its
+     * queue, behind any writers already queued.
+     *
+     * The state doubles as a version for optimistic reads: it is
+     * incremented when a writer announces itself and again when it
+     * releases, so a stamp (an even state) validates only if no writer
+     * announced itself in between.  The state starts at ORIGIN rather
+     * than zero, so that zero is never a valid stamp.
+     *
+     * A thread's slot is chosen by a per-thread probe, initially a
+     * hash of its id.  As in Striped64, a reader increments its slot
+     * with a CAS, and if the CAS fails, which means another thread is
+     * using the same slot, it rehashes its probe and increments the new
+     * slot unconditionally.  Threads sharing a slot only share a
+     * counter, which remains correct, so one rehash per acquisition
+     * suffices.  A read hold must be released on the slot it was taken
+     * on, so the probe is only rehashed while the thread holds no read
+     * lock of any instance of this class; the probe is shared by all
+     * of them, and counts the thread's read holds across them.
+     */
+
+    /** Number of processors, for spin control and the number of slots */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The most slots a lock has */
+    private static final int MAX_SLOTS = 1 << 8;
+
+    /**
+     * The distance in ints between slots: 128 bytes, so that adjacent
+     * line prefetching does not pair the lines of different slots.
+     */
+    private static final int SLOT_STRIDE = 32;
+
+    /** Number of times a reader re-reads the state before waiting */
+    private static final int SPINS = (NCPU > 1) ? 1 << 6 : 0;
+
+    /** Number of times a writer re-reads a slot before parking */
+    private static final int DRAIN_SPINS = (NCPU > 1) ? 1 << 10 : 0;
+
+    /** Initial value of the state; even, and not a failed stamp */
+    private static final long ORIGIN = 2L;
+
+    /** The reader counts, one every SLOT_STRIDE elements, after a pad */
+    private final int[] slots;
+
+    /** The number of slots, minus one */
+    private final int slotMask;
+
+    /** Serializes writers; readers wait for writers by locking it */
+    private final ReentrantLock writers = new ReentrantLock();
+
+    /** Odd while a writer is announced; incremented twice per writer */
+    private volatile long state = ORIGIN;
+
+    /** The thread holding or acquiring the write lock, else null */
+    private volatile Thread owner;
+
+    /** Holds of the write lock by the owner; accessed only by it */
+    private int writeHolds;
+
+    private final ReadLockView readLockView = new ReadLockView();
+    private final WriteLockView writeLockView = new WriteLockView();
+
+    /**
+     * The slot probe of a thread, and its read holds of all locks.
+     */
+    static final class Reader {
+        /** Selects the slot; never zero, so that rehashing stays non-zero */
+        int probe;
+        /** Read holds of all locks; the probe is fixed while non-zero */
+        int holds;
+
+        Reader() {
+            int h = (int) Thread.currentThread().getId();
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            probe = (h == 0) ? 1 : h;
+        }
+    }
+
+    private static final ThreadLocal<Reader> readers =
+        ThreadLocal.withInitial(Reader::new);
+
+    /**
+     * Creates a new lock, initially in unlocked state, with a reader
+     * slot per available processor, up to a limit.
+     */
+    public ReaderBiasedReadWriteLock() {
+        int n = 1;
+        while (n < NCPU && n < MAX_SLOTS)
+            n <<= 1;
+        slotMask = n - 1;
+        slots = new int[(n + 1) * SLOT_STRIDE];
+    }
+
+    public Lock readLock()  { return readLockView; }
+    public Lock writeLock() { return writeLockView; }
+
+    /**
+     * Returns a stamp that can later be validated, or zero if a writer
+     * holds or is acquiring the write lock.
+     *
+     * @return a stamp, or zero if a writer is active
+     */
+    public long tryOptimisticRead() {
+        long s;
+        return (((s = state) & 1L) == 0L) ? s : 0L;
+    }
+
+    /**
+     * Returns true if no writer has acquired the write lock since the
+     * given stamp was returned by {@link #tryOptimisticRead}.  Always
+     * returns false if the stamp is zero.
+     *
+     * @param stamp a stamp
+     * @return {@code true} if no writer has intervened since the stamp
+     * was issued; else false
+     */
+    public boolean validate(long stamp) {
+        U.loadFence();
+        return stamp == state;
+    }
+
+    // Reading
+
+    /**
+     * Returns the offset of the slot selected by the given probe.
+     */
+    private long slotOffset(int probe) {
+        return ABASE + ((long) (((probe & slotMask) + 1) * SLOT_STRIDE) << ASHIFT);
+    }
+
+    /**
+     * Tries once to acquire the read lock for the given reader, moving
+     * it to another slot if its own is contended and it holds no read
+     * lock.
+     */
+    private boolean tryReadSlot(Reader r) {
+        long offset = slotOffset(r.probe);
+        int c = U.getIntVolatile(slots, offset);
+        if (!U.compareAndSwapInt(slots, offset, c, c + 1)) {
+            if (r.holds == 0) {
+                int h = r.probe;
+                h ^= h << 13;   // xorshift, as in ThreadLocalRandom.advanceProbe
+                h ^= h >>> 17;
+                h ^= h << 5;
+                r.probe = h;
+                offset = slotOffset(h);
+            }
+            U.getAndAddInt(slots, offset, 1);
+        }
+        if ((state & 1L) == 0L || owner == Thread.currentThread()) {
+            ++r.holds;
+            return true;
+        }
+        releaseRead(offset);
+        return false;
+    }
+
+    /**
+     * Releases a read hold of the current thread.
+     */
+    final void unlockRead() {
+        Reader r = readers.get();
+        if (r.holds == 0)
+            throw new IllegalMonitorStateException();
+        releaseRead(slotOffset(r.probe));
+        --r.holds;
+    }
+
+    /**
+     * Releases a read hold on the given slot, unparking the owner if a
+     * writer may be waiting for it.
+     */
+    private void releaseRead(long offset) {
+        if (U.getAndAddInt(slots, offset, -1) <= 0) {
+            U.getAndAddInt(slots, offset, 1);
+            throw new IllegalMonitorStateException();
+        }
+        Thread w;
+        if ((state & 1L) != 0L && (w = owner) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Spins while a writer is active, up to SPINS times, and returns
+     * whether one still is.
+     */
+    private boolean spinWhileWriting() {
+        for (int spins = SPINS; spins > 0; --spins) {
+            if ((state & 1L) == 0L)
+                return false;
+        }
+        return (state & 1L) != 0L;
+    }
+
+    final void acquireRead() {
+        Reader r = readers.get();
+        while (!tryReadSlot(r)) {
+            if (spinWhileWriting()) {
+                writers.lock();
+                writers.unlock();
+            }
+        }
+    }
+
+    final void acquireReadInterruptibly() throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        Reader r = readers.get();
+        while (!tryReadSlot(r)) {
+            if (spinWhileWriting()) {
+                writers.lockInterruptibly();
+                writers.unlock();
+            }
+        }
+    }
+
+    final boolean tryAcquireRead(long time, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(time);
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        final long deadline = System.nanoTime() + nanos;
+        Reader r = readers.get();
+        while (!tryReadSlot(r)) {
+            if (spinWhileWriting()) {
+                if ((nanos = deadline - System.nanoTime()) <= 0L ||
+                    !writers.tryLock(nanos, TimeUnit.NANOSECONDS))
+                    return false;
+                writers.unlock();
+            }
+        }
+        return true;
+    }
+
+    // Writing
+
+    /**
+     * Takes another hold if the current thread owns the write lock.
+     */
+    private boolean reacquireWrite() {
+        if (owner != Thread.currentThread())
+            return false;
+        if (writeHolds == Integer.MAX_VALUE)
+            throw new Error("Maximum lock count exceeded");
+        ++writeHolds;
+        return true;
+    }
+
+    /**
+     * Announces the current thread, which holds writers, as the
+     * writer, turning away new readers and invalidating stamps.
+     */
+    private void announceWrite() {
+        owner = Thread.currentThread();
+        writeHolds = 1;
+        state = state + 1L;
+    }
+
+    /**
+     * Withdraws or ends the write of the current thread.
+     */
+    private void endWrite() {
+        writeHolds = 0;
+        owner = null;
+        state = state + 1L;
+        writers.unlock();
+    }
+
+    /**
+     * Waits for every slot to drain, after announceWrite.  Waits
+     * indefinitely if nanos is negative, not at all if zero, and up to
+     * nanos otherwise.  Returns 1 once all slots are empty, or, after
+     * withdrawing the write, 0 on timeout or -1 if interruptible and
+     * interrupted.  Interrupts are otherwise remembered and reasserted.
+     */
+    private int drainReaders(boolean interruptible, long nanos) {
+        final long deadline = (nanos > 0L) ? System.nanoTime() + nanos : 0L;
+        boolean interrupted = false;
+        for (int i = 0; i <= slotMask; ++i) {
+            long offset = ABASE + ((long) ((i + 1) * SLOT_STRIDE) << ASHIFT);
+            int spins = (nanos == 0L) ? 0 : DRAIN_SPINS;
+            while (U.getIntVolatile(slots, offset) != 0) {
+                if (spins > 0) {
+                    --spins;
+                    continue;
+                }
+                if (nanos == 0L ||
+                    (nanos > 0L && (nanos = deadline - System.nanoTime()) <= 0L)) {
+                    endWrite();
+                    return 0;
+                }
+                if (nanos > 0L)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    if (interruptible) {
+                        endWrite();
+                        return -1;
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return 1;
+    }
+
+    final void acquireWrite() {
+        if (!reacquireWrite()) {
+            writers.lock();
+            announceWrite();
+            drainReaders(false, -1L);
+        }
+    }
+
+    final void acquireWriteInterruptibly() throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (!reacquireWrite()) {
+            writers.lockInterruptibly();
+            announceWrite();
+            if (drainReaders(true, -1L) < 0)
+                throw new InterruptedException();
+        }
+    }
+
+    final boolean tryAcquireWrite() {
+        if (reacquireWrite())
+            return true;
+        if (!writers.tryLock())
+            return false;
+        announceWrite();
+        return drainReaders(false, 0L) > 0;
+    }
+
+    final boolean tryAcquireWrite(long time, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(time);
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (reacquireWrite())
+            return true;
+        final long deadline = System.nanoTime() + nanos;
+        if (!writers.tryLock(nanos, TimeUnit.NANOSECONDS))
+            return false;
+        announceWrite();
+        int r = drainReaders(true, Math.max(1L, deadline - System.nanoTime()));
+        if (r < 0)
+            throw new InterruptedException();
+        return r > 0;
+    }
+
+    final void releaseWrite() {
+        if (owner != Thread.currentThread())
+            throw new IllegalMonitorStateException();
+        if (--writeHolds == 0)
+            endWrite();
+    }
+
+    // status monitoring methods
+
+    /**
+     * Returns {@code true} if a writer holds the write lock, or is
+     * waiting for readers to release the read lock before taking it.
+     *
+     * @return {@code true} if a writer is active
+     */
+    public boolean isWriteLocked() {
+        return (state & 1L) != 0L;
+    }
+
+    /**
+     * Returns {@code true} if the read lock is held by any thread.
+     *
+     * @return {@code true} if the read lock is held
+     */
+    public boolean isReadLocked() {
+        return getReadLockCount() != 0;
+    }
+
+    /**
+     * Queries the number of read holds of this lock, by summing the
+     * slots; readers acquiring or backing off concurrently may or may
+     * not be counted.  This method is designed for use in monitoring
+     * system state, not for synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        int n = 0;
+        for (int i = 0; i <= slotMask; ++i)
+            n += U.getIntVolatile(slots,
+                                  ABASE + ((long) ((i + 1) * SLOT_STRIDE) << ASHIFT));
+        return n;
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock
+     * state.  The state, in brackets, includes the String {@code
+     * "Unlocked"} or the String {@code "Write-locked"} or the String
+     * {@code "Read-locks:"} followed by the current number of
+     * read-locks held.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        int r;
+        return super.toString() +
+            (isWriteLocked() ? "[Write-locked]" :
+             (r = getReadLockCount()) == 0 ? "[Unlocked]" :
+             "[Read-locks:" + r + "]");
+    }
+
+    // view classes
+
+    final class ReadLockView implements Lock {
+        public void lock() { acquireRead(); }
+        public void lockInterruptibly() throws InterruptedException {
+            acquireReadInterruptibly();
+        }
+        public boolean tryLock() { return tryReadSlot(readers.get()); }
+        public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+            return tryAcquireRead(time, unit);
+        }
+        public void unlock() { unlockRead(); }
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    final class WriteLockView implements Lock {
+        public void lock() { acquireWrite(); }
+        public void lockInterruptibly() throws InterruptedException {
+            acquireWriteInterruptibly();
+        }
+        public boolean tryLock() { return tryAcquireWrite(); }
+        public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+            return tryAcquireWrite(time, unit);
+        }
+        public void unlock() { releaseWrite(); }
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            ABASE = U.arrayBaseOffset(int[].class);
+            int scale = U.arrayIndexScale(int[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -120,12 +120,62 @@ public class ReentrantLock implements Lock, java.io.Serializable {
     abstract static class Sync extends AbstractQueuedSynchronizer {
         private static final long serialVersionUID = -5179523762034025860L;
 
+        /** The spin policy, or null if the lock parks right away */
+        AdaptiveSpin spin;
+
+        /** The contention profile, or null if not profiling */
+        transient volatile LockProfile profile;
+
         /**
          * Performs {@link Lock#lock}. The main reason for subclassing
          * is to allow fast path for nonfair version.
          */
         abstract void lock();
 
+        /**
+         * Performs {@link Lock#lock} once the fast path, if any, has
+         * failed.  Unless the lock spins or is profiled this is a plain
+         * acquire.  Otherwise the lock is retried once, and if still
+         * held by another thread, retried up to the spin limit before
+         * queuing and parking, and the wait is recorded.
+         */
+        final void contendedLock() {
+            final AdaptiveSpin s = spin;
+            final LockProfile p = profile;
+            if (s == null && p == null) {
+                acquire(1);
+                return;
+            }
+            if (tryAcquire(1))
+                return;
+            long start = (p == null) ? 0L : System.nanoTime();
+            boolean spun = s != null && spinAcquire(s);
+            if (!spun) {
+                if (p != null)
+                    p.sampleOwner(getOwner());
+                acquire(1);
+            }
+            if (p != null)
+                p.acquired(System.nanoTime() - start, spun);
+        }
+
+        /**
+         * Retries the lock while it is free or until the spin limit is
+         * reached, and returns whether it was acquired.  The state is
+         * read before each attempt so that spinning threads do not
+         * contend on the lock word while it is held.
+         */
+        final boolean spinAcquire(AdaptiveSpin s) {
+            for (int spins = 0, limit = s.limit(); spins < limit; ++spins) {
+                if (getState() == 0 && tryAcquire(1)) {
+                    s.succeeded(spins);
+                    return true;
+                }
+            }
+            s.failed();
+            return false;
+        }
+
         /**
          * Performs non-fair tryLock.  tryAcquire is implemented in
          * subclasses, but both need nonfair try for trylock method.
@@ -210,7 +260,7 @@ public class ReentrantLock implements Lock, java.io.Serializable {
             if (compareAndSetState(0, 1))
                 setExclusiveOwnerThread(Thread.currentThread());
             else
-                acquire(1);
+                contendedLock();
         }
 
         protected final boolean tryAcquire(int acquires) {
@@ -225,7 +275,7 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         private static final long serialVersionUID = -3000897897090466540L;
 
         final void lock() {
-            acquire(1);
+            contendedLock();
         }
 
         /**
@@ -271,6 +321,29 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         sync = fair ? new FairSync() : new NonfairSync();
     }
 
+    /**
+     * Creates an instance of {@code ReentrantLock} with the
+     * given fairness policy and, optionally, adaptive spinning.
+     *
+     * <p>A thread that calls {@link #lock} while the lock is held by
+     * another thread normally queues and parks at once.  With adaptive
+     * spinning it first retries the lock for a while, which avoids a
+     * park/unpark context switch when critical sections are short.  How
+     * long it retries adapts to how long recent spinners had to wait, so
+     * that a lock whose holds outlast spinning soon parks right away
+     * again.  Spinning is never used on a uniprocessor, and does not
+     * let a thread overtake the threads queued on a fair lock.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     * @param adaptiveSpin {@code true} if threads should spin before
+     *        parking, as described above
+     */
+    public ReentrantLock(boolean fair, boolean adaptiveSpin) {
+        this(fair);
+        if (adaptiveSpin)
+            sync.spin = new AdaptiveSpin();
+    }
+
     /**
      * Acquires the lock.
      *
@@ -603,6 +676,54 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Returns {@code true} if this lock spins adaptively before parking.
+     *
+     * @return {@code true} if this lock spins adaptively
+     */
+    public final boolean isAdaptiveSpin() {
+        return sync.spin != null;
+    }
+
+    /**
+     * Enables the contention profiling of this lock under the given
+     * name, replacing any profile previously collected.  While enabled,
+     * each {@link #lock} that finds the lock held by another thread is
+     * timed and counted; see {@link LockProfile}.
+     *
+     * @param name the name under which the profile is published
+     * @param sampleOwners {@code true} if threads about to park should
+     *        sample the stack of the owner of the lock
+     * @return the new profile
+     * @throws NullPointerException if name is null
+     */
+    public LockProfile enableProfiling(String name, boolean sampleOwners) {
+        if (name == null)
+            throw new NullPointerException();
+        LockProfile p = new LockProfile(name, sync, sync.spin, sampleOwners);
+        sync.profile = p;
+        return p;
+    }
+
+    /**
+     * Disables the contention profiling of this lock.  The profile
+     * already collected remains readable from the object returned by
+     * {@link #enableProfiling}.
+     */
+    public void disableProfiling() {
+        sync.profile = null;
+    }
+
+    /**
+     * Returns the contention profile of this lock, or {@code null} if
+     * profiling is not enabled.
+     *
+     * @return the profile, or {@code null}
+     */
+    public LockProfile getProfile() {
+        return sync.profile;
+    }
+
     /**
      * Returns the thread that currently owns this lock, or
      * {@code null} if not owned. When this method is called by a
@@ -248,6 +248,26 @@ public class ReentrantReadWriteLock
         writerLock = new WriteLock(this);
     }
 
+    /**
+     * Creates a new {@code ReentrantReadWriteLock} with the given
+     * fairness policy and, optionally, adaptive spinning.
+     *
+     * <p>With adaptive spinning, a thread that calls {@code lock} on
+     * the read or write lock while it is unavailable first retries it
+     * for a while before queuing and parking, with a limit that adapts
+     * to recent waits, as described for {@link
+     * ReentrantLock#ReentrantLock(boolean, boolean) ReentrantLock}.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     * @param adaptiveSpin {@code true} if threads should spin before
+     *        parking
+     */
+    public ReentrantReadWriteLock(boolean fair, boolean adaptiveSpin) {
+        this(fair);
+        if (adaptiveSpin)
+            sync.spin = new AdaptiveSpin();
+    }
+
     public java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock writeLock() { return writerLock; }
     public java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock  readLock()  { return readerLock; }
 
@@ -667,6 +687,88 @@ public class ReentrantReadWriteLock
         }
 
         final int getCount() { return getState(); }
+
+        /*
+         * Adaptive spinning and contention profiling, used by the
+         * lock() methods of the read and write locks.  See
+         * ReentrantLock.Sync.contendedLock.
+         */
+
+        /** The spin policy, or null if the lock parks right away */
+        AdaptiveSpin spin;
+
+        /** The contention profile, or null if not profiling */
+        transient volatile LockProfile profile;
+
+        /**
+         * Performs {@link WriteLock#lock}.
+         */
+        final void acquireWrite() {
+            final AdaptiveSpin s = spin;
+            final LockProfile p = profile;
+            if (s == null && p == null) {
+                acquire(1);
+                return;
+            }
+            if (tryAcquire(1))
+                return;
+            long start = (p == null) ? 0L : System.nanoTime();
+            boolean spun = false;
+            if (s != null) {
+                for (int spins = 0, limit = s.limit(); spins < limit; ++spins) {
+                    if (getState() == 0 && tryAcquire(1)) {
+                        spun = true;
+                        s.succeeded(spins);
+                        break;
+                    }
+                }
+                if (!spun)
+                    s.failed();
+            }
+            if (!spun) {
+                if (p != null)
+                    p.sampleOwner(getOwner());
+                acquire(1);
+            }
+            if (p != null)
+                p.acquired(System.nanoTime() - start, spun);
+        }
+
+        /**
+         * Performs {@link ReadLock#lock}.  Readers spin only while the
+         * write lock is held, as that is all they wait for.
+         */
+        final void acquireRead() {
+            final AdaptiveSpin s = spin;
+            final LockProfile p = profile;
+            if (s == null && p == null) {
+                acquireShared(1);
+                return;
+            }
+            if (tryAcquireShared(1) >= 0)
+                return;
+            long start = (p == null) ? 0L : System.nanoTime();
+            boolean spun = false;
+            if (s != null) {
+                for (int spins = 0, limit = s.limit(); spins < limit; ++spins) {
+                    if (exclusiveCount(getState()) == 0 &&
+                        tryAcquireShared(1) >= 0) {
+                        spun = true;
+                        s.succeeded(spins);
+                        break;
+                    }
+                }
+                if (!spun)
+                    s.failed();
+            }
+            if (!spun) {
+                if (p != null)
+                    p.sampleOwner(getOwner());
+                acquireShared(1);
+            }
+            if (p != null)
+                p.acquired(System.nanoTime() - start, spun);
+        }
     }
 
     /**
@@ -730,7 +832,7 @@ public class ReentrantReadWriteLock
          * purposes and lies dormant until the read lock has been acquired.
          */
         public void lock() {
-            sync.acquireShared(1);
+            sync.acquireRead();
         }
 
         /**
@@ -946,7 +1048,7 @@ public class ReentrantReadWriteLock
          * time the write lock hold count is set to one.
          */
         public void lock() {
-            sync.acquire(1);
+            sync.acquireWrite();
         }
 
         /**
@@ -1238,6 +1340,56 @@ public class ReentrantReadWriteLock
         return sync instanceof FairSync;
     }
 
+    /**
+     * Returns {@code true} if this lock spins adaptively before parking.
+     *
+     * @return {@code true} if this lock spins adaptively
+     */
+    public final boolean isAdaptiveSpin() {
+        return sync.spin != null;
+    }
+
+    /**
+     * Enables the contention profiling of this lock under the given
+     * name, replacing any profile previously collected.  While enabled,
+     * each {@code lock} of the read or write lock that finds it
+     * unavailable is timed and counted, both in the same profile; see
+     * {@link LockProfile}.  Owner samples show the holder of the write
+     * lock; readers holding the lock are not sampled.
+     *
+     * @param name the name under which the profile is published
+     * @param sampleOwners {@code true} if threads about to park should
+     *        sample the stack of the owner of the write lock
+     * @return the new profile
+     * @throws NullPointerException if name is null
+     */
+    public LockProfile enableProfiling(String name, boolean sampleOwners) {
+        if (name == null)
+            throw new NullPointerException();
+        LockProfile p = new LockProfile(name, sync, sync.spin, sampleOwners);
+        sync.profile = p;
+        return p;
+    }
+
+    /**
+     * Disables the contention profiling of this lock.  The profile
+     * already collected remains readable from the object returned by
+     * {@link #enableProfiling}.
+     */
+    public void disableProfiling() {
+        sync.profile = null;
+    }
+
+    /**
+     * Returns the contention profile of this lock, or {@code null} if
+     * profiling is not enabled.
+     *
+     * @return the profile, or {@code null}
+     */
+    public LockProfile getProfile() {
+        return sync.profile;
+    }
+
     /**
      * Returns the thread that currently owns the write lock, or
      * {@code null} if not owned. When this method is called by a
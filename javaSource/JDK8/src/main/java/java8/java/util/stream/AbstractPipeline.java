@@ -26,6 +26,9 @@ package java8.java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -62,7 +65,9 @@ import java.util.function.Supplier;
  * stateful operations marks the end of a segment, and each segment is
  * evaluated separately and the result used as the input to the next
  * segment.  In all cases, the source data is not consumed until a terminal
- * operation begins.
+ * operation begins.  When the sinks are wrapped, runs of adjacent stateless
+ * operations such as {@code map} and {@code filter} are fused into a single
+ * generated sink by {@link FusedSinks}.
  *
  * @param <E_IN>  type of input elements
  * @param <E_OUT> type of output elements
@@ -148,6 +153,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The pool parallel terminal operations execute in, or null for the
+     * common pool; only valid for the source stage.
+     */
+    private ForkJoinPool sourcePool;
+
+    /**
+     * The parallelism cap, or 0 if the pool's parallelism applies; only
+     * valid for the source stage.
+     */
+    private int sourceParallelism;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -230,10 +247,30 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? evaluateInPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Runs a parallel evaluation in the pool set with
+     * {@link #parallel(ForkJoinPool, int)}.  Preparing the source spliterator
+     * may itself evaluate stateful operations in parallel, so it must be
+     * part of the supplied evaluation.  When no pool was set, or the caller
+     * already is a worker of that pool, the evaluation runs in the calling
+     * thread and its tasks fork into the caller's pool as before.
+     *
+     * @param <R> the type of result
+     * @param evaluation the parallel evaluation
+     * @return the result of the evaluation
+     */
+    private <R> R evaluateInPool(Supplier<R> evaluation) {
+        ForkJoinPool pool = sourceStage.sourcePool;
+        if (pool == null || ForkJoinTask.getPool() == pool)
+            return evaluation.get();
+        Callable<R> c = evaluation::get;
+        return pool.invoke(ForkJoinTask.adapt(c));
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -249,7 +286,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         // If the last intermediate operation is stateful then
         // evaluate directly to avoid an extra collection step
         if (isParallel() && previousStage != null && opIsStateful()) {
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return evaluateInPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
+        }
+        else if (isParallel()) {
+            return evaluateInPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
         else {
             return evaluate(sourceSpliterator(0), true, generator);
@@ -291,19 +331,65 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         }
     }
 
+    /**
+     * Consumes this pipeline and returns its array source if a terminal
+     * operation applied now could reduce the array directly: this is the
+     * source stage, so there are no intermediate operations, the pipeline
+     * is sequential and it was created from an array range.  Otherwise
+     * returns {@code null} and leaves the pipeline untouched, and the
+     * caller evaluates the terminal operation as usual.
+     *
+     * @return the array source, or {@code null}
+     * @throws IllegalStateException if this pipeline stage has already been
+     *         linked or consumed
+     */
+    final Streams.ArraySource consumeArraySource() {
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        if (this != sourceStage || parallel
+            || !(sourceSupplier instanceof Streams.ArraySource))
+            return null;
+        linkedOrConsumed = true;
+        Streams.ArraySource s = (Streams.ArraySource) sourceSupplier;
+        sourceSupplier = null;
+        return s;
+    }
+
     // BaseStream
 
     @Override
     @SuppressWarnings("unchecked")
     public final S sequential() {
         sourceStage.parallel = false;
+        sourceStage.sourcePool = null;
+        sourceStage.sourceParallelism = 0;
         return (S) this;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public final S parallel() {
+        // The last call wins: a plain parallel() reverts to the common pool
         sourceStage.parallel = true;
+        sourceStage.sourcePool = null;
+        sourceStage.sourceParallelism = 0;
+        return (S) this;
+    }
+
+    @Override
+    public final S parallel(ForkJoinPool pool) {
+        return parallel(pool, pool.getParallelism());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool, int parallelism) {
+        Objects.requireNonNull(pool);
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Illegal parallelism: " + parallelism);
+        sourceStage.parallel = true;
+        sourceStage.sourcePool = pool;
+        sourceStage.sourceParallelism = parallelism;
         return (S) this;
     }
 
@@ -535,6 +621,20 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return combinedFlags;
     }
 
+    @Override
+    final int getLeafTarget() {
+        ForkJoinPool pool = sourceStage.sourcePool;
+        int poolParallelism = (pool != null)
+                              ? pool.getParallelism()
+                              : ForkJoinPool.getCommonPoolParallelism();
+        int cap = sourceStage.sourceParallelism;
+        // Over-partition for load balancing only when the whole pool may be
+        // used; a capped pipeline gets one leaf per permitted thread
+        return (cap > 0 && cap < poolParallelism)
+               ? cap
+               : poolParallelism << 2;
+    }
+
     final boolean isOrdered() {
         return StreamOpFlag.ORDERED.isKnown(combinedFlags);
     }
@@ -544,8 +644,34 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
         Objects.requireNonNull(sink);
 
-        for (@SuppressWarnings("rawtypes") java.util.stream.AbstractPipeline p = java.util.stream.AbstractPipeline.this; p.depth > 0; p=p.previousStage) {
-            sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
+        for (@SuppressWarnings("rawtypes") java.util.stream.AbstractPipeline p = java.util.stream.AbstractPipeline.this; p.depth > 0; ) {
+            FusedSinks.Op op = FusedSinks.ENABLED ? p.fusibleOp() : null;
+            if (op == null) {
+                sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
+                p = p.previousStage;
+                continue;
+            }
+
+            // Gather the run of adjacent fusible stages ending at p
+            FusedSinks.Op[] ops = new FusedSinks.Op[p.depth];
+            int n = 0;
+            @SuppressWarnings("rawtypes")
+            java.util.stream.AbstractPipeline q = p;
+            do {
+                ops[n++] = op;
+                q = q.previousStage;
+            } while (q.depth > 0 && (op = q.fusibleOp()) != null);
+
+            @SuppressWarnings("rawtypes")
+            Sink fused = (n >= FusedSinks.MIN_OPS) ? FusedSinks.fuse(ops, n, sink) : null;
+            if (fused != null) {
+                sink = fused;
+                p = q;
+            }
+            else {
+                for (; p != q; p = p.previousStage)
+                    sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
+            }
         }
         return (Sink<P_IN>) sink;
     }
@@ -688,6 +814,22 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     abstract Sink<E_IN> opWrapSink(int flags, Sink<E_OUT> sink);
 
+    /**
+     * Returns a description of this operation that allows {@link #wrapSink}
+     * to fuse it with adjacent stateless operations into a single sink, or
+     * {@code null} if the operation can only be applied through
+     * {@link #opWrapSink}.  A fusible operation must ignore the flags passed
+     * to {@code opWrapSink}, and its sink must behave exactly as the
+     * {@link FusedSinks.Kind} describes.
+     *
+     * @implSpec The default implementation returns {@code null}.
+     *
+     * @return the fusible operation, or {@code null}
+     */
+    FusedSinks.Op fusibleOp() {
+        return null;
+    }
+
     /**
      * Performs a parallel evaluation of the operation using the specified
      * {@code PipelineHelper} which describes the upstream intermediate
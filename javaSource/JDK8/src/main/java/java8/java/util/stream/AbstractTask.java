@@ -181,7 +181,20 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      * @return suggested target leaf size
      */
     public static long suggestTargetSize(long sizeEstimate) {
-        long est = sizeEstimate / LEAF_TARGET;
+        return suggestTargetSize(sizeEstimate, LEAF_TARGET);
+    }
+
+    /**
+     * Returns a suggested target leaf size based on the initial size estimate
+     * and the number of leaf tasks the pipeline aims for, as returned by
+     * {@link PipelineHelper#getLeafTarget()}.  A pipeline whose parallelism
+     * is capped below that of its pool aims for fewer, larger leaves, so
+     * that it occupies no more workers than it was allowed.
+     *
+     * @return suggested target leaf size
+     */
+    public static long suggestTargetSize(long sizeEstimate, int leafTarget) {
+        long est = sizeEstimate / leafTarget;
         return est > 0L ? est : 1L;
     }
 
@@ -192,7 +205,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     protected final long getTargetSize(long sizeEstimate) {
         long s;
         return ((s = targetSize) != 0 ? s :
-                (targetSize = suggestTargetSize(sizeEstimate)));
+                (targetSize = suggestTargetSize(sizeEstimate, helper.getLeafTarget())));
     }
 
     /**
@@ -26,6 +26,7 @@ package java8.java.util.stream;
 
 import java.util.Iterator;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -113,6 +114,65 @@ public interface BaseStream<T, S extends java.util.stream.BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel and whose terminal
+     * operation executes in the given pool rather than in the
+     * {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * <p>This is equivalent to
+     * {@code parallel(pool, pool.getParallelism())}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param pool the pool in which the terminal operation executes
+     * @return a parallel stream
+     * @throws NullPointerException if {@code pool} is null
+     * @see #parallel(ForkJoinPool, int)
+     * @since 1.8
+     */
+    S parallel(ForkJoinPool pool);
+
+    /**
+     * Returns an equivalent stream that is parallel, whose terminal
+     * operation executes in the given pool, and whose work is divided as
+     * if at most {@code parallelism} threads were available to it.
+     *
+     * <p>Running a large batch pipeline in its own pool, or capping its
+     * parallelism, keeps it from occupying every worker of the common pool
+     * that latency-sensitive code in the same JVM also relies on.  The cap
+     * is applied when splitting the source: the pipeline is divided into
+     * approximately {@code parallelism} leaf tasks when that is less than
+     * the pool's parallelism, and into about four times as many otherwise,
+     * to allow load balancing.  Since a leaf task runs on one thread, the
+     * former bounds the number of workers the pipeline occupies at once,
+     * give or take uneven splits of the source.
+     *
+     * <p>If the terminal operation is invoked from a worker thread of
+     * {@code pool} it runs in that thread, otherwise the calling thread
+     * submits it to {@code pool} and waits for its result.  Stateful
+     * intermediate operations needed by {@link #iterator()} or
+     * {@link #spliterator()} are evaluated lazily by the traversing thread
+     * and are not covered.
+     *
+     * <p>As with {@link #parallel()} and {@link #sequential()}, the last
+     * such call made on the pipeline applies: a later {@code sequential()}
+     * or plain {@code parallel()} discards the pool and the cap.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param pool the pool in which the terminal operation executes
+     * @param parallelism the maximum number of threads the pipeline is
+     *        divided for
+     * @return a parallel stream
+     * @throws NullPointerException if {@code pool} is null
+     * @throws IllegalArgumentException if {@code parallelism} is not
+     *         positive
+     * @since 1.8
+     */
+    S parallel(ForkJoinPool pool, int parallelism);
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return
@@ -31,6 +31,10 @@ import java.util.function.*;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import java8.java.util.IntIntHashMap;
+import java8.java.util.LongLongHashMap;
+import java8.java.util.LongObjectHashMap;
+
 /**
  * Implementations of {@link Collector} that implement various useful reduction
  * operations, such as accumulating elements into collections, summarizing
@@ -296,6 +300,65 @@ public final class Collectors {
         };
     }
 
+    /**
+     * {@code BinaryOperator<LongObjectHashMap>} that merges the contents of
+     * the smaller of its arguments into the larger one, using the provided
+     * merge function to handle duplicate keys.  The merge function always
+     * sees the value from the left argument first, whichever map survives.
+     *
+     * @param <V> type of the map values
+     * @param mergeFunction a merge function suitable for
+     * {@link LongObjectHashMap#merge(long, Object, BiFunction) LongObjectHashMap.merge()}
+     * @return a merge function for two maps
+     */
+    private static <V>
+    BinaryOperator<LongObjectHashMap<V>> longObjectMapMerger(BinaryOperator<V> mergeFunction) {
+        BiFunction<V, V, V> reversed = (r, l) -> mergeFunction.apply(l, r);
+        return (m1, m2) -> {
+            if (m1.size() >= m2.size()) {
+                m2.forEach((k, v) -> m1.merge(k, v, mergeFunction));
+                return m1;
+            }
+            m1.forEach((k, v) -> m2.merge(k, v, reversed));
+            return m2;
+        };
+    }
+
+    /**
+     * {@code BinaryOperator<LongLongHashMap>} that merges the contents of the
+     * smaller of its arguments into the larger one, as for
+     * {@link #longObjectMapMerger(BinaryOperator)}.
+     *
+     * @param mergeFunction a merge function suitable for
+     * {@link LongLongHashMap#merge(long, long, LongBinaryOperator) LongLongHashMap.merge()}
+     * @return a merge function for two maps
+     */
+    private static BinaryOperator<LongLongHashMap> longLongMapMerger(LongBinaryOperator mergeFunction) {
+        LongBinaryOperator reversed = (r, l) -> mergeFunction.applyAsLong(l, r);
+        return (m1, m2) -> {
+            if (m1.size() >= m2.size()) {
+                m2.forEach((k, v) -> m1.merge(k, v, mergeFunction));
+                return m1;
+            }
+            m1.forEach((k, v) -> m2.merge(k, v, reversed));
+            return m2;
+        };
+    }
+
+    /**
+     * {@code BinaryOperator<IntIntHashMap>} that adds the values of the
+     * smaller of its arguments into the larger one.
+     *
+     * @return a summing merge function for two maps
+     */
+    private static BinaryOperator<IntIntHashMap> intIntMapMerger() {
+        return (m1, m2) -> {
+            IntIntHashMap big = m1.size() >= m2.size() ? m1 : m2;
+            (big == m1 ? m2 : m1).forEach(big::addTo);
+            return big;
+        };
+    }
+
     /**
      * Adapts a {@code Collector} accepting elements of type {@code U} to one
      * accepting elements of type {@code T} by applying a mapping function to
@@ -1065,6 +1128,388 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and returning the results
+     * in a {@link LongObjectHashMap}.
+     *
+     * <p>This behaves like {@link #groupingBy(Function)} except that the
+     * classification key is never boxed: neither the classifier result nor
+     * the map keys are {@code Long} objects, so grouping a large stream by an
+     * id or timestamp does not allocate per element.  A {@code Map<Long, List<T>>}
+     * view of the result is available through {@link LongObjectHashMap#asMap()}.
+     *
+     * <p>There are no guarantees on the mutability, serializability, or
+     * thread-safety of the {@code List} objects returned.
+     * @implSpec
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByLong(classifier, toList());
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @see #groupingByLongConcurrent(ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, LongObjectHashMap<List<T>>>
+    groupingByLong(ToLongFunction<? super T> classifier) {
+        return groupingByLong(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using
+     * the specified downstream {@code Collector}.
+     *
+     * <p>For example, to compute the number of orders per customer id:
+     * <pre>{@code
+     *     LongObjectHashMap<Long> ordersByCustomer
+     *         = orders.stream().collect(groupingByLong(Order::getCustomerId, counting()));
+     * }</pre>
+     * Where the downstream result is itself a count or a sum,
+     * {@link #countingLongKeys(ToLongFunction)} and
+     * {@link #toLongLongMap(ToLongFunction, ToLongFunction, LongBinaryOperator)}
+     * avoid boxing the values as well.
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function folds the smaller of the two
+     * maps into the larger one.  If preservation of the order in which
+     * elements are presented to the downstream collector is not required,
+     * using {@link #groupingByLongConcurrent(ToLongFunction, Collector)}
+     * may offer better parallel performance.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction)
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingByLongConcurrent(ToLongFunction, Collector)
+     */
+    public static <T, A, D>
+    Collector<T, ?, LongObjectHashMap<D>> groupingByLong(ToLongFunction<? super T> classifier,
+                                                         Collector<? super T, A, D> downstream) {
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        LongFunction<A> newContainer = k -> downstreamSupplier.get();
+        BiConsumer<LongObjectHashMap<A>, T> accumulator = (m, t) -> {
+            A container = m.computeIfAbsent(classifier.applyAsLong(t), newContainer);
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<LongObjectHashMap<A>> merger = longObjectMapMerger(downstream.combiner());
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<T, LongObjectHashMap<A>, LongObjectHashMap<D>>(
+                    LongObjectHashMap::new, accumulator, merger, CH_ID);
+        }
+        else {
+            @SuppressWarnings("unchecked")
+            Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+            Function<LongObjectHashMap<A>, LongObjectHashMap<D>> finisher = intermediate -> {
+                // Replacing the value of an existing key is not a structural
+                // modification, so this is safe inside forEach
+                intermediate.forEach((k, v) -> intermediate.put(k, downstreamFinisher.apply(v)));
+                @SuppressWarnings("unchecked")
+                LongObjectHashMap<D> castResult = (LongObjectHashMap<D>) (LongObjectHashMap<?>) intermediate;
+                return castResult;
+            };
+            return new CollectorImpl<>(LongObjectHashMap::new, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to a {@code long}-valued classification function.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>There are no guarantees on the mutability, serializability, or
+     * thread-safety of the {@code List} objects returned.
+     * @implSpec
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByLongConcurrent(classifier, toList());
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction)
+     * @see #groupingByLongConcurrent(ToLongFunction, Collector)
+     */
+    public static <T>
+    Collector<T, ?, LongObjectHashMap<List<T>>>
+    groupingByLongConcurrent(ToLongFunction<? super T> classifier) {
+        return groupingByLongConcurrent(classifier, toList());
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to a {@code long}-valued classification function, and then
+     * performing a reduction operation on the values associated with a given
+     * key using the specified downstream {@code Collector}.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * @implNote
+     * Rather than accumulating a private map per task and merging the maps
+     * pairwise, all threads share one container that partitions the key
+     * space by hash over a fixed number of stripes, each a plain
+     * {@link LongObjectHashMap} guarded by its own monitor.  Because a key
+     * belongs to exactly one stripe, the finisher only copies the disjoint
+     * stripes into the result and never invokes the downstream combiner.
+     * Each accumulation holds the stripe monitor for the duration of the
+     * downstream accumulator, so that function should be cheap.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a concurrent, unordered {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @see #groupingByConcurrent(Function, Collector)
+     */
+    public static <T, A, D>
+    Collector<T, ?, LongObjectHashMap<D>> groupingByLongConcurrent(ToLongFunction<? super T> classifier,
+                                                                   Collector<? super T, A, D> downstream) {
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<LongObjectHashMap<A>> merger = longObjectMapMerger(downstream.combiner());
+        @SuppressWarnings("unchecked")
+        Function<A, D> downstreamFinisher = downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+                                            ? a -> (D) a
+                                            : downstream.finisher();
+        LongFunction<A> newContainer = k -> downstreamSupplier.get();
+        BiConsumer<Striped<LongObjectHashMap<A>>, T> accumulator = (s, t) -> {
+            long key = classifier.applyAsLong(t);
+            LongObjectHashMap<A> m = s.stripeFor(key);
+            synchronized (m) {
+                downstreamAccumulator.accept(m.computeIfAbsent(key, newContainer), t);
+            }
+        };
+        Function<Striped<LongObjectHashMap<A>>, LongObjectHashMap<D>> finisher = s -> {
+            int n = 0;
+            for (int i = 0; i < s.length(); i++)
+                n += s.stripe(i).size();
+            LongObjectHashMap<D> result = new LongObjectHashMap<>(n);
+            for (int i = 0; i < s.length(); i++)
+                s.stripe(i).forEach((k, v) -> result.put(k, downstreamFinisher.apply(v)));
+            return result;
+        };
+        return new CollectorImpl<>(() -> new Striped<>(LongObjectHashMap::new),
+                                   accumulator, (s1, s2) -> s1.merge(s2, merger), finisher, CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} counting the input elements per
+     * {@code int}-valued key, returning the counts in an
+     * {@link IntIntHashMap}.
+     *
+     * <p>This is the unboxed equivalent of
+     * {@code groupingBy(classifier, counting())}: each element costs a single
+     * probe of a primitive open-addressing table and allocates nothing.
+     * Counts are {@code int}s; a key seen more than {@link Integer#MAX_VALUE}
+     * times overflows, for which {@link #countingLongKeys(ToLongFunction)}
+     * should be used instead.
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function adds the counts of the smaller
+     * map into the larger one; {@link #countingIntKeysConcurrent(ToIntFunction)}
+     * avoids that merge.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} that counts the input elements per key
+     *
+     * @see #countingLongKeys(ToLongFunction)
+     * @see #countingIntKeysConcurrent(ToIntFunction)
+     */
+    public static <T>
+    Collector<T, ?, IntIntHashMap> countingIntKeys(ToIntFunction<? super T> classifier) {
+        return new CollectorImpl<T, IntIntHashMap, IntIntHashMap>(
+                IntIntHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsInt(t), 1),
+                intIntMapMerger(),
+                CH_ID);
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} counting the input elements per
+     * {@code int}-valued key, returning the counts in an
+     * {@link IntIntHashMap}.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.  Keys
+     * are partitioned by hash over a fixed number of independently locked
+     * stripes, as described for
+     * {@link #groupingByLongConcurrent(ToLongFunction, Collector)}.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} that counts the input
+     *         elements per key
+     *
+     * @see #countingIntKeys(ToIntFunction)
+     */
+    public static <T>
+    Collector<T, ?, IntIntHashMap> countingIntKeysConcurrent(ToIntFunction<? super T> classifier) {
+        return new CollectorImpl<T, Striped<IntIntHashMap>, IntIntHashMap>(
+                () -> new Striped<>(IntIntHashMap::new),
+                (s, t) -> {
+                    int key = classifier.applyAsInt(t);
+                    IntIntHashMap m = s.stripeFor(key);
+                    synchronized (m) {
+                        m.addTo(key, 1);
+                    }
+                },
+                (s1, s2) -> s1.merge(s2, intIntMapMerger()),
+                s -> {
+                    int n = 0;
+                    for (int i = 0; i < s.length(); i++)
+                        n += s.stripe(i).size();
+                    IntIntHashMap result = new IntIntHashMap(n);
+                    for (int i = 0; i < s.length(); i++)
+                        s.stripe(i).forEach(result::put);
+                    return result;
+                },
+                CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} counting the input elements per
+     * {@code long}-valued key, returning the counts in a
+     * {@link LongLongHashMap}.
+     *
+     * <p>This is the unboxed equivalent of
+     * {@code groupingBy(classifier, counting())}.
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function adds the counts of the smaller
+     * map into the larger one; {@link #countingLongKeysConcurrent(ToLongFunction)}
+     * avoids that merge.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} that counts the input elements per key
+     *
+     * @see #countingIntKeys(ToIntFunction)
+     * @see #countingLongKeysConcurrent(ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> countingLongKeys(ToLongFunction<? super T> classifier) {
+        return toLongLongMap(classifier, t -> 1L, Long::sum);
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} counting the input elements per
+     * {@code long}-valued key, returning the counts in a
+     * {@link LongLongHashMap}.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.  Keys
+     * are partitioned by hash over a fixed number of independently locked
+     * stripes, as described for
+     * {@link #groupingByLongConcurrent(ToLongFunction, Collector)}.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} that counts the input
+     *         elements per key
+     *
+     * @see #countingLongKeys(ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> countingLongKeysConcurrent(ToLongFunction<? super T> classifier) {
+        return new CollectorImpl<T, Striped<LongLongHashMap>, LongLongHashMap>(
+                () -> new Striped<>(LongLongHashMap::new),
+                (s, t) -> {
+                    long key = classifier.applyAsLong(t);
+                    LongLongHashMap m = s.stripeFor(key);
+                    synchronized (m) {
+                        m.addTo(key, 1L);
+                    }
+                },
+                (s1, s2) -> s1.merge(s2, longLongMapMerger(Long::sum)),
+                s -> {
+                    int n = 0;
+                    for (int i = 0; i < s.length(); i++)
+                        n += s.stripe(i).size();
+                    LongLongHashMap result = new LongLongHashMap(n);
+                    for (int i = 0; i < s.length(); i++)
+                        s.stripe(i).forEach(result::put);
+                    return result;
+                },
+                CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates elements into a
+     * {@link LongLongHashMap} whose keys and values are the result of applying
+     * the provided {@code long}-valued mapping functions to the input
+     * elements.
+     *
+     * <p>This is the unboxed counterpart of
+     * {@link #toMap(Function, Function, BinaryOperator)}.  If the mapped keys
+     * contain duplicates, the value mapping function is applied to each
+     * equal element, and the results are merged using the provided merging
+     * function.  For example, to total the order amounts per customer id:
+     * <pre>{@code
+     *     LongLongHashMap totals
+     *         = orders.stream().collect(toLongLongMap(Order::getCustomerId,
+     *                                                 Order::getAmountCents,
+     *                                                 Long::sum));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function merges the smaller of the two
+     * maps into the larger one, keeping the left-hand value as the first
+     * argument of {@code mergeFunction}.
+     *
+     * @param <T> the type of the input elements
+     * @param keyMapper a mapping function to produce keys
+     * @param valueMapper a mapping function to produce values
+     * @param mergeFunction a merge function, used to resolve collisions between
+     *                      values associated with the same key
+     * @return a {@code Collector} which collects elements into a
+     *         {@code LongLongHashMap} whose keys and values are the result of
+     *         applying mapping functions to the input elements
+     *
+     * @see #toMap(Function, Function, BinaryOperator)
+     * @see #countingLongKeys(ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> toLongLongMap(ToLongFunction<? super T> keyMapper,
+                                                   ToLongFunction<? super T> valueMapper,
+                                                   LongBinaryOperator mergeFunction) {
+        Objects.requireNonNull(mergeFunction);
+        return new CollectorImpl<T, LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new,
+                (m, t) -> m.merge(keyMapper.applyAsLong(t), valueMapper.applyAsLong(t), mergeFunction),
+                longLongMapMerger(mergeFunction),
+                CH_ID);
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
@@ -1508,6 +1953,205 @@ public final class Collectors {
                 (l, r) -> { l.combine(r); return l; }, CH_ID);
     }
 
+    /**
+     * Returns a {@code Collector} counting the input elements per dense
+     * {@code int} index, returning the counts in a {@code long[]} of the
+     * given length.
+     *
+     * <p>When the keys are known to be small non-negative integers (a bucket
+     * number, an enum ordinal, a day of the month), a plain array is both
+     * smaller and faster than any map: accumulation is a single indexed
+     * increment.  For example, to build a histogram of response sizes by
+     * power of two:
+     * <pre>{@code
+     *     long[] histogram
+     *         = responses.stream().collect(countingToArray(32,
+     *                                          r -> 32 - Integer.numberOfLeadingZeros(r.size())));
+     * }</pre>
+     *
+     * @implNote
+     * For parallel stream pipelines the {@code combiner} function adds the
+     * arrays element-wise, which costs {@code length} operations regardless
+     * of the number of elements, so no concurrent variant is provided.
+     *
+     * @param <T> the type of the input elements
+     * @param length the length of the resulting array
+     * @param indexer a function mapping input elements to indices in the
+     *                range {@code [0, length)}
+     * @return a {@code Collector} that counts the input elements per index
+     * @throws IllegalArgumentException if {@code length} is negative
+     *
+     * @see #countingIntKeys(ToIntFunction)
+     * @see #summingLongToArray(int, ToIntFunction, ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, long[]> countingToArray(int length, ToIntFunction<? super T> indexer) {
+        return summingLongToArray(length, indexer, t -> 1L);
+    }
+
+    /**
+     * Returns a {@code Collector} that sums a {@code long}-valued function of
+     * the input elements per dense {@code int} index, returning the sums in
+     * a {@code long[]} of the given length.  Elements whose index falls
+     * outside the array cause an {@code ArrayIndexOutOfBoundsException} to
+     * be thrown from the accumulator.
+     *
+     * @param <T> the type of the input elements
+     * @param length the length of the resulting array
+     * @param indexer a function mapping input elements to indices in the
+     *                range {@code [0, length)}
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} that produces the per-index sums
+     * @throws IllegalArgumentException if {@code length} is negative
+     *
+     * @see #countingToArray(int, ToIntFunction)
+     * @see #summarizingLongToArray(int, ToIntFunction, ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, long[]> summingLongToArray(int length,
+                                               ToIntFunction<? super T> indexer,
+                                               ToLongFunction<? super T> mapper) {
+        checkArrayLength(length);
+        return new CollectorImpl<T, long[], long[]>(
+                () -> new long[length],
+                (a, t) -> { a[indexer.applyAsInt(t)] += mapper.applyAsLong(t); },
+                (a, b) -> { for (int i = 0; i < a.length; i++) a[i] += b[i]; return a; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} that returns summary statistics of a
+     * {@code long}-valued function of the input elements per dense
+     * {@code int} index.  The result is an array of the given length whose
+     * every element is a non-null {@code LongSummaryStatistics}; indices to
+     * which no element mapped have a count of zero.
+     *
+     * <p>Unlike {@code groupingBy(indexer, summarizingLong(mapper))} this
+     * boxes neither the keys nor allocates map entries, and the statistics
+     * objects are created once per index rather than looked up per element.
+     *
+     * @param <T> the type of the input elements
+     * @param length the length of the resulting array
+     * @param indexer a function mapping input elements to indices in the
+     *                range {@code [0, length)}
+     * @param mapper the mapping function to apply to each element
+     * @return a {@code Collector} implementing the per-index
+     *         summary-statistics reduction
+     * @throws IllegalArgumentException if {@code length} is negative
+     *
+     * @see #summarizingLong(ToLongFunction)
+     * @see #summarizingDoubleToArray(int, ToIntFunction, ToDoubleFunction)
+     */
+    public static <T>
+    Collector<T, ?, LongSummaryStatistics[]> summarizingLongToArray(int length,
+                                                                    ToIntFunction<? super T> indexer,
+                                                                    ToLongFunction<? super T> mapper) {
+        checkArrayLength(length);
+        return new CollectorImpl<T, LongSummaryStatistics[], LongSummaryStatistics[]>(
+                () -> {
+                    LongSummaryStatistics[] a = new LongSummaryStatistics[length];
+                    for (int i = 0; i < length; i++)
+                        a[i] = new LongSummaryStatistics();
+                    return a;
+                },
+                (a, t) -> a[indexer.applyAsInt(t)].accept(mapper.applyAsLong(t)),
+                (a, b) -> { for (int i = 0; i < a.length; i++) a[i].combine(b[i]); return a; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} that returns summary statistics of a
+     * {@code double}-valued function of the input elements per dense
+     * {@code int} index.  The result is an array of the given length whose
+     * every element is a non-null {@code DoubleSummaryStatistics}; indices
+     * to which no element mapped have a count of zero.
+     *
+     * @param <T> the type of the input elements
+     * @param length the length of the resulting array
+     * @param indexer a function mapping input elements to indices in the
+     *                range {@code [0, length)}
+     * @param mapper the mapping function to apply to each element
+     * @return a {@code Collector} implementing the per-index
+     *         summary-statistics reduction
+     * @throws IllegalArgumentException if {@code length} is negative
+     *
+     * @see #summarizingDouble(ToDoubleFunction)
+     * @see #summarizingLongToArray(int, ToIntFunction, ToLongFunction)
+     */
+    public static <T>
+    Collector<T, ?, DoubleSummaryStatistics[]> summarizingDoubleToArray(int length,
+                                                                        ToIntFunction<? super T> indexer,
+                                                                        ToDoubleFunction<? super T> mapper) {
+        checkArrayLength(length);
+        return new CollectorImpl<T, DoubleSummaryStatistics[], DoubleSummaryStatistics[]>(
+                () -> {
+                    DoubleSummaryStatistics[] a = new DoubleSummaryStatistics[length];
+                    for (int i = 0; i < length; i++)
+                        a[i] = new DoubleSummaryStatistics();
+                    return a;
+                },
+                (a, t) -> a[indexer.applyAsInt(t)].accept(mapper.applyAsDouble(t)),
+                (a, b) -> { for (int i = 0; i < a.length; i++) a[i].combine(b[i]); return a; },
+                CH_ID);
+    }
+
+    private static void checkArrayLength(int length) {
+        if (length < 0)
+            throw new IllegalArgumentException("Illegal length: " + length);
+    }
+
+    /**
+     * Shared container used by the primitive-keyed concurrent collectors.
+     * The key space is partitioned by hash over a fixed, power-of-two
+     * number of stripes, each a non-concurrent map that callers lock by
+     * synchronizing on it.  The stripe is chosen from the high bits of a
+     * multiplicative hash that differs from the one the maps use for their
+     * own slots, so keys within a stripe still spread over its table.
+     */
+    private static final class Striped<M> {
+        static final int STRIPES;
+        static {
+            int n = Runtime.getRuntime().availableProcessors() * 4, s = 1;
+            while (s < n && s < 256)
+                s <<= 1;
+            STRIPES = s;
+        }
+        static final int SHIFT = 64 - Integer.numberOfTrailingZeros(STRIPES);
+
+        final Object[] stripes;
+
+        Striped(Supplier<M> factory) {
+            stripes = new Object[STRIPES];
+            for (int i = 0; i < STRIPES; i++)
+                stripes[i] = factory.get();
+        }
+
+        int length() {
+            return stripes.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        M stripe(int i) {
+            return (M) stripes[i];
+        }
+
+        M stripeFor(long key) {
+            // SHIFT is 64 for a single stripe, which Java masks to 0
+            return STRIPES == 1 ? stripe(0)
+                                : stripe((int) ((key * 0xC2B2AE3D27D4EB4FL) >>> SHIFT));
+        }
+
+        /**
+         * Merges {@code other} into this container stripe by stripe; equal
+         * keys are always in the same stripe of both.
+         */
+        Striped<M> merge(Striped<M> other, BinaryOperator<M> merger) {
+            for (int i = 0; i < stripes.length; i++)
+                stripes[i] = merger.apply(stripe(i), other.stripe(i));
+            return this;
+        }
+    }
+
     /**
      * Implementation class used by partitioningBy.
      */
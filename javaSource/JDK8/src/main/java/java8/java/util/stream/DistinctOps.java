@@ -27,6 +27,7 @@ package java8.java.util.stream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 
 /**
@@ -148,6 +149,8 @@ final class DistinctOps {
                             }
                         }
                     };
+                } else if (SpilledRuns.enabled()) {
+                    return new SpillingDistinctSink<>(sink, this::onClose);
                 } else {
                     return new Sink.ChainedReference<T, T>(sink) {
                         Set<T> seen;
@@ -176,4 +179,171 @@ final class DistinctOps {
             }
         };
     }
+
+    /**
+     * {@link Sink} for implementing distinct on streams whose distinct
+     * elements may not fit in memory.
+     *
+     * <p>The first {@link SpilledRuns#THRESHOLD} distinct elements are
+     * tracked in a hash set and pushed downstream immediately.  After that,
+     * elements not in the set are tagged with their encounter index and
+     * hash-partitioned; partition buffers are spilled to disk whenever
+     * together they reach the threshold.  In {@code end()} each partition is
+     * deduplicated on its own, keeping the first occurrence of each element,
+     * and the survivors of all partitions are merged by encounter index, so
+     * the output order is the same as for the in-memory implementation.  If
+     * the elements are not serializable the partitions stay in memory.
+     */
+    private static final class SpillingDistinctSink<T> extends Sink.ChainedReference<T, T> {
+        /** Number of hash partitions, a power of two */
+        private static final int PARTITIONS = 64;
+
+        private Set<T> seen;
+        private long index;
+        // Non-null once seen has reached the threshold
+        private List<Indexed<T>>[] partitions;
+        private int buffered;
+        private SpilledRuns.OfRef<Indexed<T>> runs;
+        // The partition of each spilled run, or -1 for a run of survivors
+        private int[] runPartition;
+        private boolean inMemory;
+        private final Consumer<Runnable> onClose;
+
+        SpillingDistinctSink(Sink<? super T> sink, Consumer<Runnable> onClose) {
+            super(sink);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void begin(long size) {
+            seen = new HashSet<>();
+            index = 0;
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void end() {
+            seen = null;
+            if (partitions != null) {
+                try {
+                    mergePartitions();
+                }
+                finally {
+                    if (runs != null)
+                        runs.close();
+                    runs = null;
+                    partitions = null;
+                }
+            }
+            downstream.end();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(T t) {
+            long i = index++;
+            if (partitions == null) {
+                if (seen.add(t)) {
+                    downstream.accept(t);
+                    if (seen.size() >= SpilledRuns.THRESHOLD) {
+                        partitions = (List<Indexed<T>>[]) new List<?>[PARTITIONS];
+                        for (int p = 0; p < PARTITIONS; p++)
+                            partitions[p] = new ArrayList<>();
+                    }
+                }
+            }
+            else if (!seen.contains(t)) {
+                partitions[partition(t)].add(new Indexed<>(i, t));
+                if (++buffered >= SpilledRuns.THRESHOLD && !inMemory)
+                    spill();
+            }
+        }
+
+        private static int partition(Object t) {
+            int h;
+            return (t == null) ? 0 : ((h = t.hashCode()) ^ (h >>> 16)) & (PARTITIONS - 1);
+        }
+
+        private void spill() {
+            if (runs == null) {
+                runs = new SpilledRuns.OfRef<>(onClose);
+                runPartition = new int[PARTITIONS];
+            }
+            for (int p = 0; p < PARTITIONS; p++) {
+                List<Indexed<T>> b = partitions[p];
+                if (!b.isEmpty()) {
+                    if (!write(b, p)) {
+                        inMemory = true;
+                        return;
+                    }
+                    b.clear();
+                }
+            }
+            buffered = 0;
+        }
+
+        private boolean write(List<Indexed<T>> elements, int p) {
+            if (!runs.write(elements.toArray(), elements.size()))
+                return false;
+            int r = runs.runs() - 1;
+            if (r == runPartition.length)
+                runPartition = Arrays.copyOf(runPartition, r << 1);
+            runPartition[r] = p;
+            return true;
+        }
+
+        private void mergePartitions() {
+            Comparator<Indexed<T>> byIndex = (a, b) -> Long.compare(a.index, b.index);
+            List<SpilledRuns.Cursor> cursors = new ArrayList<>();
+            int spilledRuns = (runs != null) ? runs.runs() : 0;
+            for (int p = 0; p < PARTITIONS; p++) {
+                // Runs of a partition precede its buffer in encounter order
+                Set<T> unique = new HashSet<>();
+                List<Indexed<T>> survivors = new ArrayList<>();
+                for (int r = 0; r < spilledRuns; r++) {
+                    if (runPartition[r] == p) {
+                        for (Iterator<Indexed<T>> it = runs.iterator(r); it.hasNext(); ) {
+                            Indexed<T> e = it.next();
+                            if (unique.add(e.element))
+                                survivors.add(e);
+                        }
+                    }
+                }
+                for (Indexed<T> e : partitions[p]) {
+                    if (unique.add(e.element))
+                        survivors.add(e);
+                }
+                partitions[p] = null;
+
+                if (survivors.isEmpty())
+                    continue;
+                if (runs != null && !inMemory && write(survivors, -1))
+                    cursors.add(new SpilledRuns.RefCursor<>(p, runs.iterator(runs.runs() - 1), byIndex));
+                else
+                    cursors.add(new SpilledRuns.RefCursor<>(p, survivors.iterator(), byIndex));
+            }
+
+            SpilledRuns.merge(cursors, new Sink.ChainedReference<Indexed<T>, T>(downstream) {
+                @Override
+                public void accept(Indexed<T> e) {
+                    downstream.accept(e.element);
+                }
+            });
+        }
+    }
+
+    /**
+     * An element tagged with its encounter index.
+     */
+    private static final class Indexed<T> implements java.io.Serializable {
+        private static final long serialVersionUID = 4227011529379633813L;
+
+        final long index;
+        final T element;
+
+        Indexed(long index, T element) {
+            this.index = index;
+            this.element = element;
+        }
+    }
 }
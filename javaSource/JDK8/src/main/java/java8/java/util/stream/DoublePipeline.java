@@ -188,6 +188,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_MAP, mapper);
+            }
         };
     }
 
@@ -205,6 +210,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_TO_OBJ, mapper);
+            }
         };
     }
 
@@ -222,6 +232,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_TO_INT, mapper);
+            }
         };
     }
 
@@ -239,6 +254,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_TO_LONG, mapper);
+            }
         };
     }
 
@@ -299,6 +319,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_FILTER, predicate);
+            }
         };
     }
 
@@ -317,6 +342,11 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.DOUBLE_PEEK, action);
+            }
         };
     }
 
@@ -355,6 +385,17 @@ abstract class DoublePipeline<E_IN>
 
     // Terminal ops from DoubleStream
 
+    /**
+     * Returns the array source of this stream, consuming the stream, if the
+     * terminal operation being evaluated can reduce the array directly;
+     * otherwise returns {@code null}.
+     *
+     * @see AbstractPipeline#consumeArraySource()
+     */
+    private Streams.DoubleArraySource arraySource() {
+        return (Streams.DoubleArraySource) consumeArraySource();
+    }
+
     @Override
     public void forEach(DoubleConsumer consumer) {
         evaluate(java.util.stream.ForEachOps.makeDouble(consumer, false));
@@ -367,6 +408,9 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final double sum() {
+        Streams.DoubleArraySource a = arraySource();
+        if (a != null)
+            return Collectors.computeFinalSum(a.summation());
         /*
          * In the arrays allocated for the collect operation, index 0
          * holds the high-order bits of the running sum, index 1 holds
@@ -391,11 +435,17 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final OptionalDouble min() {
+        Streams.DoubleArraySource a = arraySource();
+        if (a != null)
+            return a.min();
         return reduce(Math::min);
     }
 
     @Override
     public final OptionalDouble max() {
+        Streams.DoubleArraySource a = arraySource();
+        if (a != null)
+            return a.max();
         return reduce(Math::max);
     }
 
@@ -410,6 +460,13 @@ abstract class DoublePipeline<E_IN>
      */
     @Override
     public final OptionalDouble average() {
+        Streams.DoubleArraySource a = arraySource();
+        if (a != null) {
+            if (a.count() == 0)
+                return OptionalDouble.empty();
+            double[] summation = a.summation();
+            return OptionalDouble.of(Collectors.computeFinalSum(summation) / a.count());
+        }
         /*
          * In the arrays allocated for the collect operation, index 0
          * holds the high-order bits of the running sum, index 1 holds
@@ -436,6 +493,9 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final long count() {
+        Streams.DoubleArraySource a = arraySource();
+        if (a != null)
+            return a.count();
         return mapToLong(e -> 1L).sum();
     }
 
@@ -493,8 +553,11 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final double[] toArray() {
-        return java.util.stream.Nodes.flattenDouble((java.util.stream.Node.OfDouble) evaluateToArrayNode(Double[]::new))
-                        .asPrimitiveArray();
+        java.util.stream.Node.OfDouble node = java.util.stream.Nodes.flattenDouble((java.util.stream.Node.OfDouble) evaluateToArrayNode(Double[]::new));
+        double[] array = node.asPrimitiveArray();
+        // The node was built for this call only; recycle its chunks
+        Nodes.releaseChunks(node);
+        return array;
     }
 
     //
@@ -735,7 +735,8 @@ public interface DoubleStream extends BaseStream<Double, java.util.stream.Double
      * @return the new stream
      */
     public static java.util.stream.DoubleStream of(double... values) {
-        return Arrays.stream(values);
+        return StreamSupport.doubleStream(new java.util.stream.Streams.DoubleArraySource(values, 0, values.length),
+                                          java.util.stream.Streams.ARRAY_CHARACTERISTICS, false);
     }
 
     /**
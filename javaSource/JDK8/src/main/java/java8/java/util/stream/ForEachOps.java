@@ -278,7 +278,7 @@ final class ForEachOps {
             Spliterator<S> rightSplit = spliterator, leftSplit;
             long sizeEstimate = rightSplit.estimateSize(), sizeThreshold;
             if ((sizeThreshold = targetSize) == 0L)
-                targetSize = sizeThreshold = java.util.stream.AbstractTask.suggestTargetSize(sizeEstimate);
+                targetSize = sizeThreshold = java.util.stream.AbstractTask.suggestTargetSize(sizeEstimate, helper.getLeafTarget());
             boolean isShortCircuit = java.util.stream.StreamOpFlag.SHORT_CIRCUIT.isKnown(helper.getStreamAndOpFlags());
             boolean forkRight = false;
             Sink<S> taskSink = sink;
@@ -331,7 +331,7 @@ final class ForEachOps {
             super(null);
             this.helper = helper;
             this.spliterator = spliterator;
-            this.targetSize = java.util.stream.AbstractTask.suggestTargetSize(spliterator.estimateSize());
+            this.targetSize = java.util.stream.AbstractTask.suggestTargetSize(spliterator.estimateSize(), helper.getLeafTarget());
             this.completionMap = new ConcurrentHashMap<>();
             this.action = action;
             this.lock = new Object();
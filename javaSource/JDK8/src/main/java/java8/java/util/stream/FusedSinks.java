@@ -0,0 +1,474 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java8.java.util.stream;
+
+import jdk.internal.org.objectweb.asm.ClassWriter;
+import jdk.internal.org.objectweb.asm.Label;
+import jdk.internal.org.objectweb.asm.MethodVisitor;
+import jdk.internal.org.objectweb.asm.Type;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Constructor;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+import static jdk.internal.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Operator fusion for runs of adjacent stateless stages.
+ *
+ * <p>Without fusion, each stage of a pipeline such as
+ * {@code map(f).filter(p).mapToInt(g).sum()} wraps the downstream
+ * {@link Sink} in its own {@link Sink.ChainedReference}, so that every
+ * element passes through a chain of {@code accept} calls.  Each of those
+ * call sites, and the call of the behavioral parameter within it, is
+ * shared by every pipeline that uses the same operation, and soon
+ * becomes megamorphic; the chain then fails to inline.
+ *
+ * <p>{@link AbstractPipeline#wrapSink} instead collects each run of at
+ * least {@link #MIN_OPS} consecutive stages whose {@link
+ * AbstractPipeline#fusibleOp} is non-null, and replaces their sinks by
+ * a single sink whose {@code accept} method applies all of the run's
+ * operations in straight-line code.  The sink class is spun with ASM
+ * and defined as an anonymous class of this class, in the manner of
+ * {@code InnerClassLambdaMetafactory}, and is cached per pipeline
+ * shape: the sequence of operation kinds together with the classes of
+ * their behavioral parameters.  Every call site in a generated class
+ * therefore sees a single receiver class, and is inlined.
+ *
+ * <p>Fusion is on by default, and is turned off by setting the system
+ * property {@code org.openjdk.java.util.stream.fusion} to {@code false}.
+ * When it is off, when the cache of shapes is full, or if the sink class
+ * of a shape cannot be defined, stages are wrapped one at a time as
+ * before.  A shape whose class could not be defined is remembered and
+ * not attempted again; other shapes are unaffected.  The generator, with
+ * its dependencies on ASM and {@code Unsafe}, is only loaded when the
+ * first shape is spun.
+ *
+ * @since 1.8
+ */
+final class FusedSinks {
+    private static final String FUSION_PROPERTY = "org.openjdk.java.util.stream.fusion";
+
+    /** Is operator fusion enabled? */
+    static final boolean ENABLED = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> !"false".equalsIgnoreCase(System.getProperty(FUSION_PROPERTY)));
+
+    /** The fewest adjacent stages worth fusing. */
+    static final int MIN_OPS = 2;
+
+    /** The most sink classes that will be generated. */
+    static final int MAX_SHAPES = 1024;
+
+    /** The constructor of each shape's sink class, or {@link #FAILED}. */
+    private static final ConcurrentHashMap<Shape, Object> shapes = new ConcurrentHashMap<>();
+
+    /** Cached for a shape whose sink class could not be defined. */
+    private static final Object FAILED = new Object();
+
+    private FusedSinks() { }
+
+    /**
+     * What a fused stage does with an element.
+     */
+    enum Role {
+        /** Replaces the element with the result of the function. */
+        MAP,
+        /** Drops the element unless the predicate holds. */
+        FILTER,
+        /** Passes the element to the action, and on unchanged. */
+        PEEK,
+        /** Widens a primitive element; has no behavioral parameter. */
+        CONVERT
+    }
+
+    /**
+     * The fusible operations, by input shape.
+     */
+    enum Kind {
+        REF_MAP(StreamShape.REFERENCE, StreamShape.REFERENCE, Role.MAP, Function.class, "apply"),
+        REF_FILTER(StreamShape.REFERENCE, StreamShape.REFERENCE, Role.FILTER, Predicate.class, "test"),
+        REF_PEEK(StreamShape.REFERENCE, StreamShape.REFERENCE, Role.PEEK, Consumer.class, "accept"),
+        REF_TO_INT(StreamShape.REFERENCE, StreamShape.INT_VALUE, Role.MAP, ToIntFunction.class, "applyAsInt"),
+        REF_TO_LONG(StreamShape.REFERENCE, StreamShape.LONG_VALUE, Role.MAP, ToLongFunction.class, "applyAsLong"),
+        REF_TO_DOUBLE(StreamShape.REFERENCE, StreamShape.DOUBLE_VALUE, Role.MAP, ToDoubleFunction.class, "applyAsDouble"),
+
+        INT_MAP(StreamShape.INT_VALUE, StreamShape.INT_VALUE, Role.MAP, IntUnaryOperator.class, "applyAsInt"),
+        INT_FILTER(StreamShape.INT_VALUE, StreamShape.INT_VALUE, Role.FILTER, IntPredicate.class, "test"),
+        INT_PEEK(StreamShape.INT_VALUE, StreamShape.INT_VALUE, Role.PEEK, IntConsumer.class, "accept"),
+        INT_TO_OBJ(StreamShape.INT_VALUE, StreamShape.REFERENCE, Role.MAP, IntFunction.class, "apply"),
+        INT_TO_LONG(StreamShape.INT_VALUE, StreamShape.LONG_VALUE, Role.MAP, IntToLongFunction.class, "applyAsLong"),
+        INT_TO_DOUBLE(StreamShape.INT_VALUE, StreamShape.DOUBLE_VALUE, Role.MAP, IntToDoubleFunction.class, "applyAsDouble"),
+        INT_AS_LONG(StreamShape.INT_VALUE, StreamShape.LONG_VALUE, I2L),
+        INT_AS_DOUBLE(StreamShape.INT_VALUE, StreamShape.DOUBLE_VALUE, I2D),
+
+        LONG_MAP(StreamShape.LONG_VALUE, StreamShape.LONG_VALUE, Role.MAP, LongUnaryOperator.class, "applyAsLong"),
+        LONG_FILTER(StreamShape.LONG_VALUE, StreamShape.LONG_VALUE, Role.FILTER, LongPredicate.class, "test"),
+        LONG_PEEK(StreamShape.LONG_VALUE, StreamShape.LONG_VALUE, Role.PEEK, LongConsumer.class, "accept"),
+        LONG_TO_OBJ(StreamShape.LONG_VALUE, StreamShape.REFERENCE, Role.MAP, LongFunction.class, "apply"),
+        LONG_TO_INT(StreamShape.LONG_VALUE, StreamShape.INT_VALUE, Role.MAP, LongToIntFunction.class, "applyAsInt"),
+        LONG_TO_DOUBLE(StreamShape.LONG_VALUE, StreamShape.DOUBLE_VALUE, Role.MAP, LongToDoubleFunction.class, "applyAsDouble"),
+        LONG_AS_DOUBLE(StreamShape.LONG_VALUE, StreamShape.DOUBLE_VALUE, L2D),
+
+        DOUBLE_MAP(StreamShape.DOUBLE_VALUE, StreamShape.DOUBLE_VALUE, Role.MAP, DoubleUnaryOperator.class, "applyAsDouble"),
+        DOUBLE_FILTER(StreamShape.DOUBLE_VALUE, StreamShape.DOUBLE_VALUE, Role.FILTER, DoublePredicate.class, "test"),
+        DOUBLE_PEEK(StreamShape.DOUBLE_VALUE, StreamShape.DOUBLE_VALUE, Role.PEEK, DoubleConsumer.class, "accept"),
+        DOUBLE_TO_OBJ(StreamShape.DOUBLE_VALUE, StreamShape.REFERENCE, Role.MAP, DoubleFunction.class, "apply"),
+        DOUBLE_TO_INT(StreamShape.DOUBLE_VALUE, StreamShape.INT_VALUE, Role.MAP, DoubleToIntFunction.class, "applyAsInt"),
+        DOUBLE_TO_LONG(StreamShape.DOUBLE_VALUE, StreamShape.LONG_VALUE, Role.MAP, DoubleToLongFunction.class, "applyAsLong");
+
+        final StreamShape inputShape;
+        final StreamShape outputShape;
+        final Role role;
+        final Class<?> functionalInterface;
+        final String methodName;
+        final int convertOpcode;
+
+        Kind(StreamShape in, StreamShape out, Role role, Class<?> fi, String methodName) {
+            this.inputShape = in;
+            this.outputShape = out;
+            this.role = role;
+            this.functionalInterface = fi;
+            this.methodName = methodName;
+            this.convertOpcode = NOP;
+        }
+
+        Kind(StreamShape in, StreamShape out, int convertOpcode) {
+            this.inputShape = in;
+            this.outputShape = out;
+            this.role = Role.CONVERT;
+            this.functionalInterface = null;
+            this.methodName = null;
+            this.convertOpcode = convertOpcode;
+        }
+    }
+
+    /**
+     * The operation of a fusible stage: its kind and its behavioral
+     * parameter, if any.
+     */
+    static final class Op {
+        final Kind kind;
+        final Object function;
+
+        Op(Kind kind, Object function) {
+            this.kind = kind;
+            this.function = function;
+        }
+
+        Op(Kind kind) {
+            this(kind, null);
+        }
+    }
+
+    /**
+     * A pipeline shape, the key of the cache of sink classes: the kinds
+     * of a run of operations and the classes of their behavioral
+     * parameters.  Classes rather than their names are compared, since
+     * classes of the same name may be defined by different loaders.
+     */
+    static final class Shape {
+        private final Kind[] kinds;
+        private final Class<?>[] classes;
+        private final int hash;
+
+        Shape(Kind[] kinds, Class<?>[] classes) {
+            this.kinds = kinds;
+            this.classes = classes;
+            this.hash = 31 * Arrays.hashCode(kinds) + Arrays.hashCode(classes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Shape))
+                return false;
+            Shape other = (Shape) o;
+            return hash == other.hash
+                   && Arrays.equals(kinds, other.kinds)
+                   && Arrays.equals(classes, other.classes);
+        }
+    }
+
+    /**
+     * Returns a single sink performing the given operations and then
+     * passing the result to {@code downstream}, or {@code null} if no
+     * fused sink is available, in which case the stages must be wrapped
+     * individually.
+     *
+     * @param ops the operations, in downstream-first order, as the
+     *        stages are visited by {@code wrapSink}
+     * @param n the number of operations
+     * @param downstream the sink receiving the output of the last operation
+     * @return the fused sink, or {@code null}
+     */
+    @SuppressWarnings("rawtypes")
+    static Sink fuse(Op[] ops, int n, Sink downstream) {
+        Op[] run = new Op[n];
+        Object[] fns = new Object[n];
+        Kind[] kinds = new Kind[n];
+        Class<?>[] classes = new Class<?>[n];
+        boolean sized = true;
+        for (int i = 0; i < n; i++) {
+            Op op = ops[n - 1 - i];
+            run[i] = op;
+            fns[i] = op.function;
+            kinds[i] = op.kind;
+            if (op.function != null)
+                classes[i] = op.function.getClass();
+            if (op.kind.role == Role.FILTER)
+                sized = false;
+        }
+        Shape shape = new Shape(kinds, classes);
+        Object ctor = shapes.get(shape);
+        if (ctor == null) {
+            if (shapes.size() >= MAX_SHAPES)
+                return null;
+            try {
+                ctor = Generator.spin(run);
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                ctor = FAILED;
+            }
+            Object prev = shapes.putIfAbsent(shape, ctor);
+            if (prev != null)
+                ctor = prev;
+        }
+        if (ctor == FAILED)
+            return null;
+        try {
+            return (Sink) ((Constructor<?>) ctor).newInstance(downstream, sized, fns);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            shapes.put(shape, FAILED);
+            return null;
+        }
+    }
+
+    /**
+     * The sink class generator, in a class of its own so that ASM and
+     * {@code Unsafe} are only loaded once fusion is first attempted.  If
+     * they cannot be loaded, every shape fails and is cached as such.
+     */
+    private static final class Generator {
+        private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+
+        private static final String CLASS_NAME_PREFIX = "java8/java/util/stream/FusedSinks$Fused";
+        private static final String SINK = Type.getInternalName(Sink.class);
+        private static final String BASE = Type.getInternalName(Base.class);
+        private static final String CTOR_DESC =
+                Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Sink.class),
+                                         Type.BOOLEAN_TYPE, Type.getType(Object[].class));
+
+        private static final AtomicInteger counter = new AtomicInteger();
+
+        /**
+         * Generates and defines a sink class applying the given operations,
+         * in upstream-first order, and returns its constructor.
+         */
+        static Constructor<?> spin(Op[] run) throws ReflectiveOperationException {
+            String className = CLASS_NAME_PREFIX + counter.incrementAndGet();
+            StreamShape inputShape = run[0].kind.inputShape;
+            StreamShape outputShape = run[run.length - 1].kind.outputShape;
+            String superName = Type.getInternalName(baseFor(inputShape));
+
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+            cw.visit(V1_8, ACC_SUPER + ACC_FINAL + ACC_SYNTHETIC, className, null, superName, null);
+
+            // One final field per behavioral parameter, typed by its interface
+            for (int i = 0; i < run.length; i++) {
+                Kind k = run[i].kind;
+                if (k.functionalInterface != null)
+                    cw.visitField(ACC_PRIVATE + ACC_FINAL, "f" + i,
+                                  Type.getDescriptor(k.functionalInterface), null, null).visitEnd();
+            }
+
+            MethodVisitor mv = cw.visitMethod(0, "<init>", CTOR_DESC, null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>",
+                               Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Sink.class), Type.BOOLEAN_TYPE),
+                               false);
+            for (int i = 0; i < run.length; i++) {
+                Kind k = run[i].kind;
+                if (k.functionalInterface == null)
+                    continue;
+                String fi = Type.getInternalName(k.functionalInterface);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 3);
+                mv.visitLdcInsn(i);
+                mv.visitInsn(AALOAD);
+                mv.visitTypeInsn(CHECKCAST, fi);
+                mv.visitFieldInsn(PUTFIELD, className, "f" + i, "L" + fi + ";");
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(-1, -1);
+            mv.visitEnd();
+
+            // accept: each operation in turn, the current element in a local
+            Type inType = typeOf(inputShape);
+            mv = cw.visitMethod(ACC_PUBLIC, "accept",
+                                Type.getMethodDescriptor(Type.VOID_TYPE, inType), null, null);
+            mv.visitCode();
+            int cur = 1;
+            Type curType = inType;
+            int nextLocal = 1 + inType.getSize();
+            for (int i = 0; i < run.length; i++) {
+                Kind k = run[i].kind;
+                Type outType = typeOf(k.outputShape);
+                if (k.role == Role.CONVERT) {
+                    mv.visitVarInsn(curType.getOpcode(ILOAD), cur);
+                    mv.visitInsn(k.convertOpcode);
+                } else {
+                    String fi = Type.getInternalName(k.functionalInterface);
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitFieldInsn(GETFIELD, className, "f" + i, "L" + fi + ";");
+                    mv.visitVarInsn(curType.getOpcode(ILOAD), cur);
+                    mv.visitMethodInsn(INVOKEINTERFACE, fi, k.methodName, methodDescriptor(k), true);
+                }
+                switch (k.role) {
+                    case FILTER:
+                        Label pass = new Label();
+                        mv.visitJumpInsn(IFNE, pass);
+                        mv.visitInsn(RETURN);
+                        mv.visitLabel(pass);
+                        break;
+                    case PEEK:
+                        break;
+                    default:
+                        mv.visitVarInsn(outType.getOpcode(ISTORE), nextLocal);
+                        cur = nextLocal;
+                        curType = outType;
+                        nextLocal += outType.getSize();
+                }
+            }
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, BASE, "downstream", "L" + SINK + ";");
+            mv.visitVarInsn(curType.getOpcode(ILOAD), cur);
+            mv.visitMethodInsn(INVOKEINTERFACE, SINK, "accept",
+                               Type.getMethodDescriptor(Type.VOID_TYPE, typeOf(outputShape)), true);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(-1, -1);
+            mv.visitEnd();
+            cw.visitEnd();
+
+            Class<?> c = UNSAFE.defineAnonymousClass(FusedSinks.class, cw.toByteArray(), null);
+            Constructor<?> ctor = c.getDeclaredConstructor(Sink.class, boolean.class, Object[].class);
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                ctor.setAccessible(true);
+                return null;
+            });
+            return ctor;
+        }
+
+        private static Type typeOf(StreamShape shape) {
+            switch (shape) {
+                case INT_VALUE:    return Type.INT_TYPE;
+                case LONG_VALUE:   return Type.LONG_TYPE;
+                case DOUBLE_VALUE: return Type.DOUBLE_TYPE;
+                default:           return Type.getType(Object.class);
+            }
+        }
+
+        private static Class<?> baseFor(StreamShape shape) {
+            switch (shape) {
+                case INT_VALUE:    return OfInt.class;
+                case LONG_VALUE:   return OfLong.class;
+                case DOUBLE_VALUE: return OfDouble.class;
+                default:           return OfRef.class;
+            }
+        }
+
+        /** The descriptor of the functional interface method of a kind. */
+        private static String methodDescriptor(Kind k) {
+            Type ret;
+            switch (k.role) {
+                case FILTER: ret = Type.BOOLEAN_TYPE; break;
+                case PEEK:   ret = Type.VOID_TYPE; break;
+                default:     ret = typeOf(k.outputShape);
+            }
+            return Type.getMethodDescriptor(ret, typeOf(k.inputShape));
+        }
+    }
+
+    // Superclasses of the generated sinks, which supply their accept method
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    abstract static class Base<T> implements Sink<T> {
+        final Sink downstream;
+        private final boolean sized;
+
+        /**
+         * @param sized false if the fused operations include a filter, so
+         *        that the downstream sink cannot be told the exact size
+         */
+        Base(Sink downstream, boolean sized) {
+            this.downstream = downstream;
+            this.sized = sized;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(sized ? size : -1);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    abstract static class OfRef extends Base<Object> {
+        OfRef(Sink downstream, boolean sized) { super(downstream, sized); }
+    }
+
+    @SuppressWarnings("rawtypes")
+    abstract static class OfInt extends Base<Integer> implements Sink.OfInt {
+        OfInt(Sink downstream, boolean sized) { super(downstream, sized); }
+    }
+
+    @SuppressWarnings("rawtypes")
+    abstract static class OfLong extends Base<Long> implements Sink.OfLong {
+        OfLong(Sink downstream, boolean sized) { super(downstream, sized); }
+    }
+
+    @SuppressWarnings("rawtypes")
+    abstract static class OfDouble extends Base<Double> implements Sink.OfDouble {
+        OfDouble(Sink downstream, boolean sized) { super(downstream, sized); }
+    }
+}
@@ -185,6 +185,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_AS_LONG);
+            }
         };
     }
 
@@ -201,6 +206,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_AS_DOUBLE);
+            }
         };
     }
 
@@ -223,6 +233,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_MAP, mapper);
+            }
         };
     }
 
@@ -240,6 +255,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_TO_OBJ, mapper);
+            }
         };
     }
 
@@ -257,6 +277,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_TO_LONG, mapper);
+            }
         };
     }
 
@@ -274,6 +299,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_TO_DOUBLE, mapper);
+            }
         };
     }
 
@@ -334,6 +364,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_FILTER, predicate);
+            }
         };
     }
 
@@ -352,6 +387,11 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.INT_PEEK, action);
+            }
         };
     }
 
@@ -388,6 +428,17 @@ abstract class IntPipeline<E_IN>
 
     // Terminal ops from IntStream
 
+    /**
+     * Returns the array source of this stream, consuming the stream, if the
+     * terminal operation being evaluated can reduce the array directly;
+     * otherwise returns {@code null}.
+     *
+     * @see AbstractPipeline#consumeArraySource()
+     */
+    private Streams.IntArraySource arraySource() {
+        return (Streams.IntArraySource) consumeArraySource();
+    }
+
     @Override
     public void forEach(IntConsumer action) {
         evaluate(java.util.stream.ForEachOps.makeInt(action, false));
@@ -400,26 +451,43 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final int sum() {
+        Streams.IntArraySource a = arraySource();
+        if (a != null)
+            return a.sum();
         return reduce(0, Integer::sum);
     }
 
     @Override
     public final OptionalInt min() {
+        Streams.IntArraySource a = arraySource();
+        if (a != null)
+            return a.min();
         return reduce(Math::min);
     }
 
     @Override
     public final OptionalInt max() {
+        Streams.IntArraySource a = arraySource();
+        if (a != null)
+            return a.max();
         return reduce(Math::max);
     }
 
     @Override
     public final long count() {
+        Streams.IntArraySource a = arraySource();
+        if (a != null)
+            return a.count();
         return mapToLong(e -> 1L).sum();
     }
 
     @Override
     public final OptionalDouble average() {
+        Streams.IntArraySource a = arraySource();
+        if (a != null)
+            return a.count() > 0
+                   ? OptionalDouble.of((double) a.longSum() / a.count())
+                   : OptionalDouble.empty();
         long[] avg = collect(() -> new long[2],
                              (ll, i) -> {
                                  ll[0]++;
@@ -488,8 +556,11 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final int[] toArray() {
-        return java.util.stream.Nodes.flattenInt((java.util.stream.Node.OfInt) evaluateToArrayNode(Integer[]::new))
-                        .asPrimitiveArray();
+        java.util.stream.Node.OfInt node = java.util.stream.Nodes.flattenInt((java.util.stream.Node.OfInt) evaluateToArrayNode(Integer[]::new));
+        int[] array = node.asPrimitiveArray();
+        // The node was built for this call only; recycle its chunks
+        Nodes.releaseChunks(node);
+        return array;
     }
 
     //
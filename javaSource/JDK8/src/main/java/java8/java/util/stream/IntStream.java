@@ -702,7 +702,8 @@ public interface IntStream extends BaseStream<Integer, java.util.stream.IntStrea
      * @return the new stream
      */
     public static java.util.stream.IntStream of(int... values) {
-        return Arrays.stream(values);
+        return StreamSupport.intStream(new java.util.stream.Streams.IntArraySource(values, 0, values.length),
+                                       java.util.stream.Streams.ARRAY_CHARACTERISTICS, false);
     }
 
     /**
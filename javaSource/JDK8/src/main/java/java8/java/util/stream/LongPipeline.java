@@ -179,6 +179,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_AS_DOUBLE);
+            }
         };
     }
 
@@ -201,6 +206,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_MAP, mapper);
+            }
         };
     }
 
@@ -218,6 +228,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_TO_OBJ, mapper);
+            }
         };
     }
 
@@ -235,6 +250,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_TO_INT, mapper);
+            }
         };
     }
 
@@ -252,6 +272,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_TO_DOUBLE, mapper);
+            }
         };
     }
 
@@ -312,6 +337,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_FILTER, predicate);
+            }
         };
     }
 
@@ -330,6 +360,11 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.LONG_PEEK, action);
+            }
         };
     }
 
@@ -366,6 +401,17 @@ abstract class LongPipeline<E_IN>
 
     // Terminal ops from LongStream
 
+    /**
+     * Returns the array source of this stream, consuming the stream, if the
+     * terminal operation being evaluated can reduce the array directly;
+     * otherwise returns {@code null}.
+     *
+     * @see AbstractPipeline#consumeArraySource()
+     */
+    private Streams.LongArraySource arraySource() {
+        return (Streams.LongArraySource) consumeArraySource();
+    }
+
     @Override
     public void forEach(LongConsumer action) {
         evaluate(ForEachOps.makeLong(action, false));
@@ -378,22 +424,36 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final long sum() {
+        Streams.LongArraySource a = arraySource();
+        if (a != null)
+            return a.sum();
         // use better algorithm to compensate for intermediate overflow?
         return reduce(0, Long::sum);
     }
 
     @Override
     public final OptionalLong min() {
+        Streams.LongArraySource a = arraySource();
+        if (a != null)
+            return a.min();
         return reduce(Math::min);
     }
 
     @Override
     public final OptionalLong max() {
+        Streams.LongArraySource a = arraySource();
+        if (a != null)
+            return a.max();
         return reduce(Math::max);
     }
 
     @Override
     public final OptionalDouble average() {
+        Streams.LongArraySource a = arraySource();
+        if (a != null)
+            return a.count() > 0
+                   ? OptionalDouble.of((double) a.sum() / a.count())
+                   : OptionalDouble.empty();
         long[] avg = collect(() -> new long[2],
                              (ll, i) -> {
                                  ll[0]++;
@@ -410,6 +470,9 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final long count() {
+        Streams.LongArraySource a = arraySource();
+        if (a != null)
+            return a.count();
         return map(e -> 1L).sum();
     }
 
@@ -467,8 +530,11 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final long[] toArray() {
-        return Nodes.flattenLong((Node.OfLong) evaluateToArrayNode(Long[]::new))
-                .asPrimitiveArray();
+        Node.OfLong node = Nodes.flattenLong((Node.OfLong) evaluateToArrayNode(Long[]::new));
+        long[] array = node.asPrimitiveArray();
+        // The node was built for this call only; recycle its chunks
+        Nodes.releaseChunks(node);
+        return array;
     }
 
 
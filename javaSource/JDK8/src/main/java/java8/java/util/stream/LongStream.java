@@ -689,7 +689,8 @@ public interface LongStream extends BaseStream<Long, java.util.stream.LongStream
      * @return the new stream
      */
     public static java.util.stream.LongStream of(long... values) {
-        return Arrays.stream(values);
+        return StreamSupport.longStream(new java.util.stream.Streams.LongArraySource(values, 0, values.length),
+                                        java.util.stream.Streams.ARRAY_CHARACTERISTICS, false);
     }
 
     /**
@@ -351,7 +351,12 @@ final class Nodes {
         }
         else {
             Node.OfInt node = new CollectorTask.OfInt<>(helper, spliterator).invoke();
-            return flattenTree ? flattenInt(node) : node;
+            if (!flattenTree)
+                return node;
+            Node.OfInt flat = flattenInt(node);
+            if (flat != node)
+                releaseChunks(node);
+            return flat;
         }
     }
 
@@ -389,7 +394,12 @@ final class Nodes {
         }
         else {
             Node.OfLong node = new CollectorTask.OfLong<>(helper, spliterator).invoke();
-            return flattenTree ? flattenLong(node) : node;
+            if (!flattenTree)
+                return node;
+            Node.OfLong flat = flattenLong(node);
+            if (flat != node)
+                releaseChunks(node);
+            return flat;
         }
     }
 
@@ -427,7 +437,12 @@ final class Nodes {
         }
         else {
             Node.OfDouble node = new CollectorTask.OfDouble<>(helper, spliterator).invoke();
-            return flattenTree ? flattenDouble(node) : node;
+            if (!flattenTree)
+                return node;
+            Node.OfDouble flat = flattenDouble(node);
+            if (flat != node)
+                releaseChunks(node);
+            return flat;
         }
     }
 
@@ -461,6 +476,25 @@ final class Nodes {
         }
     }
 
+    /**
+     * Gives the chunks of every spined leaf of a node tree back to the
+     * chunk pool, once the elements have been copied out and nothing else
+     * can reach the tree.
+     *
+     * @param node the node tree, which must not be used afterwards
+     */
+    static void releaseChunks(Node<?> node) {
+        int n = node.getChildCount();
+        if (n == 0) {
+            if (node instanceof SpinedBuffer.OfPrimitive)
+                ((SpinedBuffer.OfPrimitive<?, ?, ?>) node).release();
+        }
+        else {
+            for (int i = 0; i < n; i++)
+                releaseChunks(node.getChild(i));
+        }
+    }
+
     /**
      * Flatten, in parallel, a {@link Node.OfInt}.  A flattened node is one that
      * has no children.  If the node is already flat, it is simply returned.
@@ -1821,7 +1855,7 @@ final class Nodes {
             assert spliterator.hasCharacteristics(Spliterator.SUBSIZED);
             this.spliterator = spliterator;
             this.helper = helper;
-            this.targetSize = java.util.stream.AbstractTask.suggestTargetSize(spliterator.estimateSize());
+            this.targetSize = java.util.stream.AbstractTask.suggestTargetSize(spliterator.estimateSize(), helper.getLeafTarget());
             this.offset = 0;
             this.length = arrayLength;
         }
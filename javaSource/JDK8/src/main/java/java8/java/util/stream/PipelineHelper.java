@@ -75,6 +75,16 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract int getStreamAndOpFlags();
 
+    /**
+     * Gets the number of leaf tasks a parallel evaluation of this pipeline
+     * should aim for when dividing its source.  This reflects the pool the
+     * pipeline executes in and any parallelism cap set with
+     * {@link BaseStream#parallel(java.util.concurrent.ForkJoinPool, int)}.
+     *
+     * @return the target number of leaf tasks, at least 1
+     */
+    abstract int getLeafTarget();
+
     /**
      * Returns the exact output size of the portion of the output resulting from
      * applying the pipeline stages described by this {@code PipelineHelper} to
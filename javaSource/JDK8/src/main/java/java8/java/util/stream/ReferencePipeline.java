@@ -162,6 +162,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_FILTER, predicate);
+            }
         };
     }
 
@@ -180,6 +185,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_MAP, mapper);
+            }
         };
     }
 
@@ -197,6 +207,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_TO_INT, mapper);
+            }
         };
     }
 
@@ -214,6 +229,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_TO_LONG, mapper);
+            }
         };
     }
 
@@ -231,6 +251,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_TO_DOUBLE, mapper);
+            }
         };
     }
 
@@ -360,6 +385,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            FusedSinks.Op fusibleOp() {
+                return new FusedSinks.Op(FusedSinks.Kind.REF_PEEK, action);
+            }
         };
     }
 
@@ -380,6 +410,27 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         return java.util.stream.SortedOps.makeRef(this, comparator);
     }
 
+    @Override
+    public final Stream<List<P_OUT>> windowFixed(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException(Integer.toString(size));
+        return WindowOps.makeFixed(this, size);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> windowSliding(int size, int step) {
+        if (size <= 0)
+            throw new IllegalArgumentException(Integer.toString(size));
+        if (step <= 0)
+            throw new IllegalArgumentException(Integer.toString(step));
+        return WindowOps.makeSliding(this, size, step);
+    }
+
+    @Override
+    public final <K> Stream<List<P_OUT>> windowByKey(Function<? super P_OUT, ? extends K> classifier) {
+        return WindowOps.makeByKey(this, classifier);
+    }
+
     @Override
     public final Stream<P_OUT> limit(long maxSize) {
         if (maxSize < 0)
@@ -25,6 +25,7 @@
 package java8.java.util.stream;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -133,6 +134,8 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (java.util.stream.StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (SpilledRuns.enabled())
+                return new SpillingRefSortingSink<>(sink, comparator, this::onClose);
             else if (java.util.stream.StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -172,6 +175,8 @@ final class SortedOps {
 
             if (java.util.stream.StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpilledRuns.enabled())
+                return new SpillingIntSortingSink(sink, this::onClose);
             else if (java.util.stream.StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
@@ -211,6 +216,8 @@ final class SortedOps {
 
             if (java.util.stream.StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpilledRuns.enabled())
+                return new SpillingLongSortingSink(sink, this::onClose);
             else if (java.util.stream.StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
             else
@@ -250,6 +257,8 @@ final class SortedOps {
 
             if (java.util.stream.StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpilledRuns.enabled())
+                return new SpillingDoubleSortingSink(sink, this::onClose);
             else if (java.util.stream.StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
             else
@@ -398,6 +407,8 @@ final class SortedOps {
         @Override
         public void end() {
             int[] ints = b.asPrimitiveArray();
+            b.release();
+            b = null;
             Arrays.sort(ints);
             downstream.begin(ints.length);
             for (int anInt : ints)
@@ -465,6 +476,8 @@ final class SortedOps {
         @Override
         public void end() {
             long[] longs = b.asPrimitiveArray();
+            b.release();
+            b = null;
             Arrays.sort(longs);
             downstream.begin(longs.length);
             for (long aLong : longs)
@@ -532,6 +545,8 @@ final class SortedOps {
         @Override
         public void end() {
             double[] doubles = b.asPrimitiveArray();
+            b.release();
+            b = null;
             Arrays.sort(doubles);
             downstream.begin(doubles.length);
             for (double aDouble : doubles)
@@ -544,4 +559,303 @@ final class SortedOps {
             b.accept(t);
         }
     }
+
+    /**
+     * {@link Sink} for implementing sort on reference streams that may not
+     * fit in memory.  Sorted chunks of at most {@link SpilledRuns#THRESHOLD}
+     * elements are spilled to disk and merged back in {@code end()}.  If the
+     * elements are not serializable the sink degrades to an in-memory sort.
+     */
+    private static final class SpillingRefSortingSink<T> extends Sink.ChainedReference<T, T> {
+        private final Comparator<? super T> comparator;
+        private long size;
+        private Object[] chunk;
+        private int offset;
+        private SpilledRuns.OfRef<T> runs;
+        private boolean inMemory;
+        private final Consumer<Runnable> onClose;
+
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator,
+                               Consumer<Runnable> onClose) {
+            super(sink);
+            this.comparator = comparator;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void begin(long size) {
+            this.size = size;
+            chunk = new Object[SpilledRuns.nextChunkSize(0, size)];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void end() {
+            Arrays.sort((T[]) chunk, 0, offset, comparator);
+            if (runs == null) {
+                downstream.begin(offset);
+                for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
+                    downstream.accept((T) chunk[i]);
+                downstream.end();
+            }
+            else {
+                try {
+                    List<SpilledRuns.Cursor> cursors = new ArrayList<>(runs.runs() + 1);
+                    for (int i = 0; i < runs.runs(); i++)
+                        cursors.add(new SpilledRuns.RefCursor<>(i, runs.iterator(i), comparator));
+                    // The unspilled tail comes last in encounter order
+                    cursors.add(new SpilledRuns.RefCursor<>(runs.runs(),
+                                                            Arrays.asList((T[]) chunk).subList(0, offset).iterator(),
+                                                            comparator));
+                    downstream.begin(runs.count() + offset);
+                    SpilledRuns.merge(cursors, downstream);
+                    downstream.end();
+                }
+                finally {
+                    runs.close();
+                    runs = null;
+                }
+            }
+            chunk = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            if (offset == chunk.length)
+                spillOrGrow();
+            chunk[offset++] = t;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void spillOrGrow() {
+            int n = SpilledRuns.nextChunkSize(chunk.length, size);
+            if (n == chunk.length && !inMemory) {
+                Arrays.sort((T[]) chunk, 0, offset, comparator);
+                if (runs == null)
+                    runs = new SpilledRuns.OfRef<>(onClose);
+                if (runs.write(chunk, offset)) {
+                    Arrays.fill(chunk, 0, offset, null);
+                    offset = 0;
+                    return;
+                }
+                inMemory = true;
+            }
+            if (n == chunk.length) {
+                if (chunk.length >= Nodes.MAX_ARRAY_SIZE)
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+                n = (int) Math.min(Nodes.MAX_ARRAY_SIZE, (long) chunk.length << 1);
+            }
+            chunk = Arrays.copyOf(chunk, n);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on int streams that may not fit in
+     * memory.  Sorted chunks of at most {@link SpilledRuns#THRESHOLD}
+     * elements are spilled to disk and merged back in {@code end()}.
+     */
+    private static final class SpillingIntSortingSink extends Sink.ChainedInt<Integer> {
+        private long size;
+        private int[] chunk;
+        private int offset;
+        private SpilledRuns.OfInt runs;
+        private final Consumer<Runnable> onClose;
+
+        SpillingIntSortingSink(Sink<? super Integer> sink, Consumer<Runnable> onClose) {
+            super(sink);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void begin(long size) {
+            this.size = size;
+            chunk = new int[SpilledRuns.nextChunkSize(0, size)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(chunk, 0, offset);
+            if (runs == null) {
+                downstream.begin(offset);
+                for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
+                    downstream.accept(chunk[i]);
+                downstream.end();
+            }
+            else {
+                try {
+                    List<SpilledRuns.Cursor> cursors = new ArrayList<>(runs.runs() + 1);
+                    for (int i = 0; i < runs.runs(); i++)
+                        cursors.add(new SpilledRuns.IntCursor(i, runs.iterator(i)));
+                    cursors.add(new SpilledRuns.IntCursor(runs.runs(),
+                                                          Spliterators.iterator(Arrays.spliterator(chunk, 0, offset))));
+                    downstream.begin(runs.count() + offset);
+                    SpilledRuns.merge(cursors, downstream);
+                    downstream.end();
+                }
+                finally {
+                    runs.close();
+                    runs = null;
+                }
+            }
+            chunk = null;
+        }
+
+        @Override
+        public void accept(int t) {
+            if (offset == chunk.length) {
+                int n = SpilledRuns.nextChunkSize(chunk.length, size);
+                if (n > chunk.length) {
+                    chunk = Arrays.copyOf(chunk, n);
+                }
+                else {
+                    Arrays.sort(chunk, 0, offset);
+                    if (runs == null)
+                        runs = new SpilledRuns.OfInt(onClose);
+                    runs.write(chunk, offset);
+                    offset = 0;
+                }
+            }
+            chunk[offset++] = t;
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on long streams that may not fit in
+     * memory.  Sorted chunks of at most {@link SpilledRuns#THRESHOLD}
+     * elements are spilled to disk and merged back in {@code end()}.
+     */
+    private static final class SpillingLongSortingSink extends Sink.ChainedLong<Long> {
+        private long size;
+        private long[] chunk;
+        private int offset;
+        private SpilledRuns.OfLong runs;
+        private final Consumer<Runnable> onClose;
+
+        SpillingLongSortingSink(Sink<? super Long> sink, Consumer<Runnable> onClose) {
+            super(sink);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void begin(long size) {
+            this.size = size;
+            chunk = new long[SpilledRuns.nextChunkSize(0, size)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(chunk, 0, offset);
+            if (runs == null) {
+                downstream.begin(offset);
+                for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
+                    downstream.accept(chunk[i]);
+                downstream.end();
+            }
+            else {
+                try {
+                    List<SpilledRuns.Cursor> cursors = new ArrayList<>(runs.runs() + 1);
+                    for (int i = 0; i < runs.runs(); i++)
+                        cursors.add(new SpilledRuns.LongCursor(i, runs.iterator(i)));
+                    cursors.add(new SpilledRuns.LongCursor(runs.runs(),
+                                                          Spliterators.iterator(Arrays.spliterator(chunk, 0, offset))));
+                    downstream.begin(runs.count() + offset);
+                    SpilledRuns.merge(cursors, downstream);
+                    downstream.end();
+                }
+                finally {
+                    runs.close();
+                    runs = null;
+                }
+            }
+            chunk = null;
+        }
+
+        @Override
+        public void accept(long t) {
+            if (offset == chunk.length) {
+                int n = SpilledRuns.nextChunkSize(chunk.length, size);
+                if (n > chunk.length) {
+                    chunk = Arrays.copyOf(chunk, n);
+                }
+                else {
+                    Arrays.sort(chunk, 0, offset);
+                    if (runs == null)
+                        runs = new SpilledRuns.OfLong(onClose);
+                    runs.write(chunk, offset);
+                    offset = 0;
+                }
+            }
+            chunk[offset++] = t;
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on double streams that may not fit in
+     * memory.  Sorted chunks of at most {@link SpilledRuns#THRESHOLD}
+     * elements are spilled to disk and merged back in {@code end()}.
+     */
+    private static final class SpillingDoubleSortingSink extends Sink.ChainedDouble<Double> {
+        private long size;
+        private double[] chunk;
+        private int offset;
+        private SpilledRuns.OfDouble runs;
+        private final Consumer<Runnable> onClose;
+
+        SpillingDoubleSortingSink(Sink<? super Double> sink, Consumer<Runnable> onClose) {
+            super(sink);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void begin(long size) {
+            this.size = size;
+            chunk = new double[SpilledRuns.nextChunkSize(0, size)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(chunk, 0, offset);
+            if (runs == null) {
+                downstream.begin(offset);
+                for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
+                    downstream.accept(chunk[i]);
+                downstream.end();
+            }
+            else {
+                try {
+                    List<SpilledRuns.Cursor> cursors = new ArrayList<>(runs.runs() + 1);
+                    for (int i = 0; i < runs.runs(); i++)
+                        cursors.add(new SpilledRuns.DoubleCursor(i, runs.iterator(i)));
+                    cursors.add(new SpilledRuns.DoubleCursor(runs.runs(),
+                                                          Spliterators.iterator(Arrays.spliterator(chunk, 0, offset))));
+                    downstream.begin(runs.count() + offset);
+                    SpilledRuns.merge(cursors, downstream);
+                    downstream.end();
+                }
+                finally {
+                    runs.close();
+                    runs = null;
+                }
+            }
+            chunk = null;
+        }
+
+        @Override
+        public void accept(double t) {
+            if (offset == chunk.length) {
+                int n = SpilledRuns.nextChunkSize(chunk.length, size);
+                if (n > chunk.length) {
+                    chunk = Arrays.copyOf(chunk, n);
+                }
+                else {
+                    Arrays.sort(chunk, 0, offset);
+                    if (runs == null)
+                        runs = new SpilledRuns.OfDouble(onClose);
+                    runs.write(chunk, offset);
+                    offset = 0;
+                }
+            }
+            chunk[offset++] = t;
+        }
+    }
 }
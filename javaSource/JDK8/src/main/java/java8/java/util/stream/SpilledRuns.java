@@ -0,0 +1,666 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java8.java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Sorted runs of stream elements spilled to a temporary file, for the
+ * external-memory mode of {@code sorted()} and {@code distinct()}.
+ *
+ * <p>Spilling is disabled unless the system property
+ * {@code java8.java.util.stream.spillThreshold} is set to a positive number
+ * of elements.  Once enabled, a sequential {@code sorted()} holds at most
+ * that many elements in memory: each full chunk is sorted and appended to a
+ * temporary file as a run, and {@code end()} streams a k-way merge of the
+ * runs to the downstream sink.  The file is created in the directory named
+ * by {@code java8.java.util.stream.spillDirectory}, or the default
+ * temporary-file directory, and is deleted when the operation completes.
+ * Each file is also registered as a close handler of the pipeline that
+ * created it, so closing the stream deletes a file left behind by a
+ * pipeline that failed or was abandoned before the operation completed.
+ *
+ * <p>All runs of one operation share a single file; each run is a
+ * contiguous byte range that is written once through the channel position
+ * and then read back with positional reads, so any number of runs can be
+ * read concurrently during the merge.  Primitive runs are written as raw
+ * big-endian values.  Reference runs are written with Java serialization,
+ * one {@code ObjectOutputStream} per run, and so require the elements to be
+ * {@code Serializable}; if they are not, {@link OfRef#write} reports failure
+ * and the caller keeps the elements in memory instead.
+ *
+ * <p>This class is not thread-safe; parallel {@code sorted()} and
+ * {@code distinct()} still materialize their input in memory.
+ *
+ * @since 1.8
+ */
+abstract class SpilledRuns implements AutoCloseable {
+
+    /**
+     * The number of elements an operation buffers in memory before
+     * spilling, or 0 if spilling is disabled.
+     */
+    static final int THRESHOLD
+            = (int) Math.max(0L, Math.min(Nodes.MAX_ARRAY_SIZE - 1,
+                                          Long.getLong("java8.java.util.stream.spillThreshold", 0L)));
+
+    /**
+     * The directory for spill files, or null for the default temporary-file
+     * directory.
+     */
+    private static final String DIRECTORY
+            = System.getProperty("java8.java.util.stream.spillDirectory");
+
+    /**
+     * Size of the buffer used to write a run.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Size of the buffer used to read back a run.  Every run is open at
+     * once during a merge, so this is kept smaller than the write buffer.
+     */
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Returns true if operations should spill to disk once they hold
+     * {@link #THRESHOLD} elements.
+     */
+    static boolean enabled() {
+        return THRESHOLD > 0;
+    }
+
+    /**
+     * Returns the capacity of the next in-memory chunk, doubling from a
+     * small initial size up to {@link #THRESHOLD}, or to the known exact
+     * size of the input if that is smaller.
+     */
+    static int nextChunkSize(int current, long sizeIfKnown) {
+        int limit = (sizeIfKnown >= 0 && sizeIfKnown < THRESHOLD)
+                    ? Math.max(1, (int) sizeIfKnown)
+                    : THRESHOLD;
+        if (current == 0)
+            return Math.min(limit, 1 << 10);
+        return (current < limit) ? (int) Math.min(limit, (long) current << 1) : current;
+    }
+
+    private final Path file;
+    final FileChannel channel;
+    private long[] starts = new long[8];
+    private long[] ends = new long[8];
+    private long[] counts = new long[8];
+    private int runs;
+    private long elements;
+
+    /**
+     * Creates the spill file.
+     *
+     * @param onClose registers a close handler with the pipeline, such as
+     *        its {@code onClose} method; passed {@link #close}
+     */
+    SpilledRuns(Consumer<Runnable> onClose) {
+        Path f = null;
+        try {
+            f = (DIRECTORY == null)
+                ? Files.createTempFile("stream-spill", ".tmp")
+                : Files.createTempFile(Paths.get(DIRECTORY), "stream-spill", ".tmp");
+            channel = FileChannel.open(f, StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE,
+                                       StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        catch (IOException e) {
+            if (f != null) {
+                try {
+                    Files.deleteIfExists(f);
+                }
+                catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+        file = f;
+        onClose.accept(this::close);
+    }
+
+    /** Returns the number of runs written so far. */
+    final int runs() {
+        return runs;
+    }
+
+    /** Returns the number of elements in all runs written so far. */
+    final long count() {
+        return elements;
+    }
+
+    /** Returns the number of elements in the given run. */
+    final long count(int run) {
+        return counts[run];
+    }
+
+    /**
+     * Returns a buffered output stream that appends to the file at the
+     * channel position.  Closing the returned stream does not close the
+     * channel.
+     */
+    final BufferedOutputStream append() {
+        return new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Records the bytes between {@code start} and the current channel
+     * position as a new run of {@code count} elements.
+     */
+    final void endRun(long start, long count) throws IOException {
+        if (runs == starts.length) {
+            starts = Arrays.copyOf(starts, runs << 1);
+            ends = Arrays.copyOf(ends, runs << 1);
+            counts = Arrays.copyOf(counts, runs << 1);
+        }
+        starts[runs] = start;
+        ends[runs] = channel.position();
+        counts[runs] = count;
+        runs++;
+        elements += count;
+    }
+
+    /**
+     * Discards a partially written run starting at {@code start}.
+     */
+    final void abortRun(long start) throws IOException {
+        channel.truncate(start);
+        channel.position(start);
+    }
+
+    /**
+     * Returns a buffered stream over the bytes of the given run, read with
+     * positional reads so it does not disturb the channel position or
+     * other open runs.
+     */
+    final InputStream open(int run) {
+        final long end = ends[run];
+        return new BufferedInputStream(new InputStream() {
+            long position = starts[run];
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                long available = end - position;
+                if (available <= 0)
+                    return -1;
+                ByteBuffer dst = ByteBuffer.wrap(b, off, (int) Math.min(len, available));
+                int n = channel.read(dst, position);
+                if (n > 0)
+                    position += n;
+                return n;
+            }
+        }, READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Closes and deletes the spill file.  The file is deleted explicitly
+     * as well, in case the platform did not honor {@code DELETE_ON_CLOSE}.
+     * Closing again has no effect.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Pushes the union of the given sorted cursors to the sink in order.
+     * Ties are broken by cursor order, so the merge is stable if the
+     * cursors are given in encounter order.  The merge stops early if the
+     * sink requests cancellation.  The caller is responsible for calling
+     * {@code begin} and {@code end} on the sink.
+     */
+    static void merge(List<? extends Cursor> cursors, java.util.stream.Sink<?> sink) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, cursors.size()));
+        for (Cursor c : cursors) {
+            if (c.advance())
+                heap.add(c);
+        }
+        Cursor c;
+        while (!sink.cancellationRequested() && (c = heap.poll()) != null) {
+            c.emit(sink);
+            if (c.advance())
+                heap.add(c);
+        }
+    }
+
+    /**
+     * The head of one sorted run during a merge.
+     */
+    abstract static class Cursor implements Comparable<Cursor> {
+        /** Position of the run in encounter order, used to break ties */
+        final int order;
+
+        Cursor(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Loads the next element as the head of this cursor, returning
+         * false if the run is exhausted.
+         */
+        abstract boolean advance();
+
+        /** Compares the head of this cursor to the head of another. */
+        abstract int compareHead(Cursor other);
+
+        /** Pushes the head of this cursor to the sink. */
+        abstract void emit(java.util.stream.Sink<?> sink);
+
+        @Override
+        public final int compareTo(Cursor other) {
+            int c = compareHead(other);
+            return (c != 0) ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    static final class RefCursor<T> extends Cursor {
+        private final Iterator<? extends T> it;
+        private final Comparator<? super T> comparator;
+        private T head;
+
+        RefCursor(int order, Iterator<? extends T> it, Comparator<? super T> comparator) {
+            super(order);
+            this.it = it;
+            this.comparator = comparator;
+        }
+
+        @Override
+        boolean advance() {
+            if (!it.hasNext())
+                return false;
+            head = it.next();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compareHead(Cursor other) {
+            return comparator.compare(head, ((RefCursor<T>) other).head);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void emit(java.util.stream.Sink<?> sink) {
+            ((java.util.stream.Sink<T>) sink).accept(head);
+        }
+    }
+
+    static final class IntCursor extends Cursor {
+        private final PrimitiveIterator.OfInt it;
+        private int head;
+
+        IntCursor(int order, PrimitiveIterator.OfInt it) {
+            super(order);
+            this.it = it;
+        }
+
+        @Override
+        boolean advance() {
+            if (!it.hasNext())
+                return false;
+            head = it.nextInt();
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor other) {
+            return Integer.compare(head, ((IntCursor) other).head);
+        }
+
+        @Override
+        void emit(java.util.stream.Sink<?> sink) {
+            sink.accept(head);
+        }
+    }
+
+    static final class LongCursor extends Cursor {
+        private final PrimitiveIterator.OfLong it;
+        private long head;
+
+        LongCursor(int order, PrimitiveIterator.OfLong it) {
+            super(order);
+            this.it = it;
+        }
+
+        @Override
+        boolean advance() {
+            if (!it.hasNext())
+                return false;
+            head = it.nextLong();
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor other) {
+            return Long.compare(head, ((LongCursor) other).head);
+        }
+
+        @Override
+        void emit(java.util.stream.Sink<?> sink) {
+            sink.accept(head);
+        }
+    }
+
+    static final class DoubleCursor extends Cursor {
+        private final PrimitiveIterator.OfDouble it;
+        private double head;
+
+        DoubleCursor(int order, PrimitiveIterator.OfDouble it) {
+            super(order);
+            this.it = it;
+        }
+
+        @Override
+        boolean advance() {
+            if (!it.hasNext())
+                return false;
+            head = it.nextDouble();
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor other) {
+            // Same total order as Arrays.sort(double[])
+            return Double.compare(head, ((DoubleCursor) other).head);
+        }
+
+        @Override
+        void emit(java.util.stream.Sink<?> sink) {
+            sink.accept(head);
+        }
+    }
+
+    /**
+     * Base class for iterators over the elements of a spilled run.
+     */
+    private abstract static class RunIterator {
+        final DataInputStream in;
+        long remaining;
+
+        RunIterator(InputStream in, long count) {
+            this.in = new DataInputStream(in);
+            this.remaining = count;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final void take() {
+            if (remaining-- <= 0)
+                throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Runs of reference elements.
+     */
+    static final class OfRef<T> extends SpilledRuns {
+
+        OfRef(Consumer<Runnable> onClose) {
+            super(onClose);
+        }
+
+        /**
+         * Appends {@code a[0, n)} as a new run.  Returns false, leaving no
+         * trace of the partial run, if an element is not serializable.
+         */
+        boolean write(Object[] a, int n) {
+            long start = 0;
+            try {
+                start = channel.position();
+                try (ObjectOutputStream out = new ObjectOutputStream(append())) {
+                    for (int i = 0; i < n; i++) {
+                        out.writeUnshared(a[i]);
+                        // Drop back-references so the stream does not
+                        // retain every element written to the run
+                        if ((i & 1023) == 1023)
+                            out.reset();
+                    }
+                }
+                endRun(start, n);
+                return true;
+            }
+            catch (NotSerializableException e) {
+                try {
+                    abortRun(start);
+                }
+                catch (IOException x) {
+                    throw new UncheckedIOException(x);
+                }
+                return false;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Iterator<T> iterator(int run) {
+            final long count = count(run);
+            try {
+                final ObjectInputStream in = new ObjectInputStream(open(run));
+                return new Iterator<T>() {
+                    long remaining = count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public T next() {
+                        if (remaining-- <= 0)
+                            throw new NoSuchElementException();
+                        try {
+                            return (T) in.readUnshared();
+                        }
+                        catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        catch (ClassNotFoundException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                };
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Runs of int elements.
+     */
+    static final class OfInt extends SpilledRuns {
+
+        OfInt(Consumer<Runnable> onClose) {
+            super(onClose);
+        }
+
+        /** Appends {@code a[0, n)} as a new run. */
+        void write(int[] a, int n) {
+            try {
+                long start = channel.position();
+                try (DataOutputStream out = new DataOutputStream(append())) {
+                    for (int i = 0; i < n; i++)
+                        out.writeInt(a[i]);
+                }
+                endRun(start, n);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        PrimitiveIterator.OfInt iterator(int run) {
+            class Iter extends RunIterator implements PrimitiveIterator.OfInt {
+                Iter() { super(open(run), count(run)); }
+
+                @Override
+                public int nextInt() {
+                    take();
+                    try {
+                        return in.readInt();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            return new Iter();
+        }
+    }
+
+    /**
+     * Runs of long elements.
+     */
+    static final class OfLong extends SpilledRuns {
+
+        OfLong(Consumer<Runnable> onClose) {
+            super(onClose);
+        }
+
+        /** Appends {@code a[0, n)} as a new run. */
+        void write(long[] a, int n) {
+            try {
+                long start = channel.position();
+                try (DataOutputStream out = new DataOutputStream(append())) {
+                    for (int i = 0; i < n; i++)
+                        out.writeLong(a[i]);
+                }
+                endRun(start, n);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        PrimitiveIterator.OfLong iterator(int run) {
+            class Iter extends RunIterator implements PrimitiveIterator.OfLong {
+                Iter() { super(open(run), count(run)); }
+
+                @Override
+                public long nextLong() {
+                    take();
+                    try {
+                        return in.readLong();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            return new Iter();
+        }
+    }
+
+    /**
+     * Runs of double elements.
+     */
+    static final class OfDouble extends SpilledRuns {
+
+        OfDouble(Consumer<Runnable> onClose) {
+            super(onClose);
+        }
+
+        /** Appends {@code a[0, n)} as a new run. */
+        void write(double[] a, int n) {
+            try {
+                long start = channel.position();
+                try (DataOutputStream out = new DataOutputStream(append())) {
+                    for (int i = 0; i < n; i++)
+                        out.writeDouble(a[i]);
+                }
+                endRun(start, n);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        PrimitiveIterator.OfDouble iterator(int run) {
+            class Iter extends RunIterator implements PrimitiveIterator.OfDouble {
+                Iter() { super(open(run), count(run)); }
+
+                @Override
+                public double nextDouble() {
+                    take();
+                    try {
+                        return in.readDouble();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            return new Iter();
+        }
+    }
+}
@@ -24,7 +24,9 @@
  */
 package java8.java.util.stream;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.*;
 
 /**
@@ -418,6 +420,14 @@ class SpinedBuffer<E>
          * array, curChunk becomes the first element in it.  When we clear the
          * buffer, we discard all chunks except the first one, which we clear,
          * restoring it to the initial single-chunk state.
+         *
+         * Chunks of a pooled size are taken from, and may be given back to, a
+         * ChunkPool shared by all buffers of the same primitive type.  A chunk
+         * is only given back by release(), which callers invoke once nothing
+         * can read the buffer any more.  If the buffer is empty when a
+         * capacity is requested, the first chunk is allocated at exactly that
+         * size, and if it ends up exactly full asPrimitiveArray() returns it
+         * rather than a copy; such a chunk is marked shared and never pooled.
          */
 
         // The chunk we're currently writing into
@@ -426,6 +436,9 @@ class SpinedBuffer<E>
         // All chunks, or null if there is only one chunk
         T_ARR[] spine;
 
+        // True if curChunk has been handed out by asPrimitiveArray()
+        private boolean shared;
+
         /**
          * Constructs an empty list with the specified initial capacity.
          *
@@ -465,6 +478,16 @@ class SpinedBuffer<E>
         protected abstract void arrayForEach(T_ARR array, int from, int to,
                                              T_CONS consumer);
 
+        /** Get the pool of recycled chunks for this primitive type */
+        abstract ChunkPool chunkPool();
+
+        /** Create a chunk, reusing a pooled one of the same size if any */
+        @SuppressWarnings("unchecked")
+        private T_ARR newChunk(int size) {
+            Object chunk = chunkPool().take(size);
+            return (chunk != null) ? (T_ARR) chunk : newArray(size);
+        }
+
         protected long capacity() {
             return (spineIndex == 0)
                    ? arrayLength(curChunk)
@@ -482,6 +505,14 @@ class SpinedBuffer<E>
         protected final void ensureCapacity(long targetSize) {
             long capacity = capacity();
             if (targetSize > capacity) {
+                if (spine == null && elementIndex == 0
+                    && targetSize < java.util.stream.Nodes.MAX_ARRAY_SIZE) {
+                    // Nothing written yet, so hold the expected elements in
+                    // a single chunk of exactly the requested size
+                    curChunk = newChunk((int) targetSize);
+                    shared = false;
+                    return;
+                }
                 inflateSpine();
                 for (int i=spineIndex+1; targetSize > capacity; i++) {
                     if (i >= spine.length) {
@@ -489,8 +520,10 @@ class SpinedBuffer<E>
                         spine = Arrays.copyOf(spine, newSpineSize);
                         priorElementCount = Arrays.copyOf(priorElementCount, newSpineSize);
                     }
-                    int nextChunkSize = chunkSize(i);
-                    spine[i] = newArray(nextChunkSize);
+                    // Never shrink below the (possibly exactly sized) previous chunk
+                    int nextChunkSize = Math.max(chunkSize(i),
+                                                 Integer.highestOneBit(arrayLength(spine[i - 1])));
+                    spine[i] = newChunk(nextChunkSize);
                     priorElementCount[i] = priorElementCount[i-1] + arrayLength(spine[i - 1]);
                     capacity += nextChunkSize;
                 }
@@ -539,6 +572,11 @@ class SpinedBuffer<E>
         }
 
         public T_ARR asPrimitiveArray() {
+            if (spineIndex == 0 && elementIndex == arrayLength(curChunk)) {
+                // The only chunk is exactly full; hand it out as is
+                shared = true;
+                return curChunk;
+            }
             long size = count();
             if (size >= java.util.stream.Nodes.MAX_ARRAY_SIZE)
                 throw new IllegalArgumentException(java.util.stream.Nodes.BAD_SIZE);
@@ -564,6 +602,34 @@ class SpinedBuffer<E>
                 spine = null;
                 priorElementCount = null;
             }
+            if (shared) {
+                curChunk = newArray(1 << initialChunkPower);
+                shared = false;
+            }
+            elementIndex = 0;
+            spineIndex = 0;
+        }
+
+        /**
+         * Gives the chunks of this buffer back to the chunk pool and empties
+         * the buffer.  Must only be called when no spliterator, iterator or
+         * array view of the buffer contents is in use.
+         */
+        void release() {
+            ChunkPool pool = chunkPool();
+            if (spine != null) {
+                for (T_ARR chunk : spine) {
+                    if (chunk != null && (chunk != curChunk || !shared))
+                        pool.give(chunk, arrayLength(chunk));
+                }
+                spine = null;
+                priorElementCount = null;
+            }
+            else if (!shared) {
+                pool.give(curChunk, arrayLength(curChunk));
+            }
+            curChunk = newArray(1 << initialChunkPower);
+            shared = false;
             elementIndex = 0;
             spineIndex = 0;
         }
@@ -730,6 +796,11 @@ class SpinedBuffer<E>
             return new int[size][];
         }
 
+        @Override
+        ChunkPool chunkPool() {
+            return ChunkPool.INT_CHUNKS;
+        }
+
         @Override
         public int[] newArray(int size) {
             return new int[size];
@@ -843,6 +914,11 @@ class SpinedBuffer<E>
             return new long[size][];
         }
 
+        @Override
+        ChunkPool chunkPool() {
+            return ChunkPool.LONG_CHUNKS;
+        }
+
         @Override
         public long[] newArray(int size) {
             return new long[size];
@@ -958,6 +1034,11 @@ class SpinedBuffer<E>
             return new double[size][];
         }
 
+        @Override
+        ChunkPool chunkPool() {
+            return ChunkPool.DOUBLE_CHUNKS;
+        }
+
         @Override
         public double[] newArray(int size) {
             return new double[size];
@@ -1042,5 +1123,84 @@ class SpinedBuffer<E>
             }
         }
     }
-}
 
+    /**
+     * A bounded cache of released primitive chunks, so that the chunks of a
+     * buffer that has been copied out and discarded, such as the leaves of a
+     * flattened conc-node, can be reused by the next buffer instead of being
+     * allocated afresh.
+     *
+     * <p>Only power-of-two chunks between {@link #MIN_POOLED_POWER} and
+     * {@link #MAX_POOLED_POWER} are pooled: smaller chunks are cheaper to
+     * allocate than to recycle, and larger ones are rarely requested twice.
+     * At most {@link #SLOTS} chunks of each size are kept, through soft
+     * references so that pooled chunks never cause an
+     * {@code OutOfMemoryError}.  Pooled chunks are not zeroed.
+     */
+    static final class ChunkPool {
+        static final int MIN_POOLED_POWER = 10;
+        static final int MAX_POOLED_POWER = 18;
+        static final int SLOTS = 4;
+
+        static final ChunkPool INT_CHUNKS = new ChunkPool();
+        static final ChunkPool LONG_CHUNKS = new ChunkPool();
+        static final ChunkPool DOUBLE_CHUNKS = new ChunkPool();
+
+        private final AtomicReferenceArray<SoftReference<Object>> slots
+                = new AtomicReferenceArray<>((MAX_POOLED_POWER - MIN_POOLED_POWER + 1) * SLOTS);
+
+        private ChunkPool() { }
+
+        /**
+         * Returns the index of the first slot for chunks of the given
+         * length, or -1 if such chunks are not pooled.
+         */
+        private static int firstSlot(int length) {
+            int power = Integer.numberOfTrailingZeros(length);
+            return (Integer.bitCount(length) == 1
+                    && power >= MIN_POOLED_POWER && power <= MAX_POOLED_POWER)
+                   ? (power - MIN_POOLED_POWER) * SLOTS
+                   : -1;
+        }
+
+        /**
+         * Removes and returns a pooled chunk of the given length, or
+         * returns null if there is none.
+         */
+        Object take(int length) {
+            int first = firstSlot(length);
+            if (first >= 0) {
+                for (int i = first; i < first + SLOTS; i++) {
+                    SoftReference<Object> ref = slots.get(i);
+                    if (ref != null && slots.compareAndSet(i, ref, null)) {
+                        Object chunk = ref.get();
+                        if (chunk != null)
+                            return chunk;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Offers a chunk, which the caller must no longer reference, to the
+         * pool.  The chunk is dropped if it is not of a pooled length or all
+         * slots for its length are taken.
+         */
+        void give(Object chunk, int length) {
+            int first = firstSlot(length);
+            if (first >= 0) {
+                SoftReference<Object> ref = null;
+                for (int i = first; i < first + SLOTS; i++) {
+                    SoftReference<Object> cur = slots.get(i);
+                    if (cur == null || cur.get() == null) {
+                        if (ref == null)
+                            ref = new SoftReference<>(chunk);
+                        if (slots.compareAndSet(i, cur, ref))
+                            return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -375,6 +375,67 @@ public interface Stream<T> extends BaseStream<T, java.util.stream.Stream<T>> {
      */
     java.util.stream.Stream<T> sorted(Comparator<? super T> comparator);
 
+    /**
+     * Returns a stream of tumbling windows over this stream: lists of
+     * {@code size} consecutive elements, in encounter order, with each
+     * element in exactly one window.  The last window holds the remaining
+     * elements and may be shorter.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  In sequential pipelines each window is
+     * emitted as soon as it is complete and at most {@code size} elements
+     * are buffered, so it may be used on infinite streams together with a
+     * short-circuiting operation.
+     *
+     * @param size the number of elements in each window
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     */
+    java.util.stream.Stream<List<T>> windowFixed(int size);
+
+    /**
+     * Returns a stream of sliding windows over this stream: lists of
+     * {@code size} consecutive elements, in encounter order, starting at
+     * elements {@code 0, step, 2 * step, ...}.  Windows overlap if
+     * {@code step < size} and skip elements if {@code step > size}.  Only
+     * complete windows are emitted, so a stream with fewer than {@code size}
+     * elements produces no windows.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  In sequential pipelines each window is
+     * emitted as soon as it is complete and at most {@code size} elements
+     * are buffered.
+     *
+     * @param size the number of elements in each window
+     * @param step the distance between the first elements of successive
+     *             windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    java.util.stream.Stream<List<T>> windowSliding(int size, int step);
+
+    /**
+     * Returns a stream of windows of consecutive elements that have equal
+     * keys, in encounter order.  A new window starts whenever the key of an
+     * element differs, according to {@link Objects#equals(Object, Object)},
+     * from the key of the previous element; for a time-ordered stream a
+     * classifier such as {@code e -> e.timestamp() / 60_000} yields one
+     * window per minute.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  In sequential pipelines each window is
+     * emitted as soon as the first element of the next window arrives, and
+     * only the current window is buffered.
+     *
+     * @param <K> the type of the keys
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function computing the key of an element
+     * @return the new stream
+     */
+    <K> java.util.stream.Stream<List<T>> windowByKey(Function<? super T, ? extends K> classifier);
+
     /**
      * Returns a stream consisting of the elements of this stream, additionally
      * performing the provided action on each element as elements are consumed
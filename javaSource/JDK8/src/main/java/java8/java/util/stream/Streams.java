@@ -26,11 +26,15 @@ package java8.java.util.stream;
 
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.IntConsumer;
 import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 /**
  * Utility methods for operating on and creating streams.
@@ -695,6 +699,280 @@ final class Streams {
         }
     }
 
+    /**
+     * Characteristics of the spliterators created by the array sources.
+     */
+    static final int ARRAY_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.IMMUTABLE
+                                             | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+    /**
+     * Base class of the array-backed stream sources.  An array source is the
+     * {@code Supplier<Spliterator>} of a stream created by
+     * {@code IntStream.of(int...)}, {@code Arrays.stream(int[])} and their
+     * long and double counterparts; the spliterator is only created if the
+     * pipeline is actually traversed.  When a sequential {@code sum},
+     * {@code min}, {@code max}, {@code count} or {@code average} is applied
+     * directly to the source stage, the pipeline instead reduces the array
+     * range in place with the kernels of the subclasses, without a
+     * spliterator or any sinks.  Any intermediate operation, even a
+     * stateless {@code map} or {@code filter}, disables the kernels: such a
+     * pipeline is evaluated through its (possibly fused) sink chain, driven
+     * by the array spliterator.
+     *
+     * <p>The kernels keep four independent accumulators over an unrolled
+     * loop whose indices are provably within the array, so the JIT can
+     * eliminate bounds checks and overlap (or, for integral types,
+     * vectorize) the additions instead of serializing on one accumulator.
+     */
+    abstract static class ArraySource {
+        final int from, to;
+
+        ArraySource(int length, int from, int to) {
+            if (from < 0 || from > to || to > length)
+                throw new ArrayIndexOutOfBoundsException(
+                        "origin(" + from + ") > fence(" + to + ") or out of [0, " + length + "]");
+            this.from = from;
+            this.to = to;
+        }
+
+        final long count() {
+            return to - from;
+        }
+
+        /**
+         * The end of the unrolled part of the range: the index at which
+         * fewer than four elements remain.
+         */
+        final int unrolledEnd() {
+            return to - ((to - from) & 3);
+        }
+    }
+
+    static final class IntArraySource extends ArraySource
+            implements Supplier<Spliterator.OfInt> {
+        final int[] array;
+
+        IntArraySource(int[] array, int from, int to) {
+            super(array.length, from, to);
+            this.array = array;
+        }
+
+        @Override
+        public Spliterator.OfInt get() {
+            return java.util.Spliterators.spliterator(array, from, to, ARRAY_CHARACTERISTICS);
+        }
+
+        int sum() {
+            int[] a = array;
+            int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                s0 += a[i];
+                s1 += a[i + 1];
+                s2 += a[i + 2];
+                s3 += a[i + 3];
+            }
+            for (; i < to; i++)
+                s0 += a[i];
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        long longSum() {
+            int[] a = array;
+            long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                s0 += a[i];
+                s1 += a[i + 1];
+                s2 += a[i + 2];
+                s3 += a[i + 3];
+            }
+            for (; i < to; i++)
+                s0 += a[i];
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        OptionalInt min() {
+            if (from == to)
+                return OptionalInt.empty();
+            int[] a = array;
+            int m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.min(m0, a[i]);
+                m1 = Math.min(m1, a[i + 1]);
+                m2 = Math.min(m2, a[i + 2]);
+                m3 = Math.min(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.min(m0, a[i]);
+            return OptionalInt.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+        }
+
+        OptionalInt max() {
+            if (from == to)
+                return OptionalInt.empty();
+            int[] a = array;
+            int m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.max(m0, a[i]);
+                m1 = Math.max(m1, a[i + 1]);
+                m2 = Math.max(m2, a[i + 2]);
+                m3 = Math.max(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.max(m0, a[i]);
+            return OptionalInt.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+        }
+    }
+
+    static final class LongArraySource extends ArraySource
+            implements Supplier<Spliterator.OfLong> {
+        final long[] array;
+
+        LongArraySource(long[] array, int from, int to) {
+            super(array.length, from, to);
+            this.array = array;
+        }
+
+        @Override
+        public Spliterator.OfLong get() {
+            return java.util.Spliterators.spliterator(array, from, to, ARRAY_CHARACTERISTICS);
+        }
+
+        long sum() {
+            long[] a = array;
+            long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                s0 += a[i];
+                s1 += a[i + 1];
+                s2 += a[i + 2];
+                s3 += a[i + 3];
+            }
+            for (; i < to; i++)
+                s0 += a[i];
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        OptionalLong min() {
+            if (from == to)
+                return OptionalLong.empty();
+            long[] a = array;
+            long m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.min(m0, a[i]);
+                m1 = Math.min(m1, a[i + 1]);
+                m2 = Math.min(m2, a[i + 2]);
+                m3 = Math.min(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.min(m0, a[i]);
+            return OptionalLong.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+        }
+
+        OptionalLong max() {
+            if (from == to)
+                return OptionalLong.empty();
+            long[] a = array;
+            long m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.max(m0, a[i]);
+                m1 = Math.max(m1, a[i + 1]);
+                m2 = Math.max(m2, a[i + 2]);
+                m3 = Math.max(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.max(m0, a[i]);
+            return OptionalLong.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+        }
+    }
+
+    static final class DoubleArraySource extends ArraySource
+            implements Supplier<Spliterator.OfDouble> {
+        final double[] array;
+
+        DoubleArraySource(double[] array, int from, int to) {
+            super(array.length, from, to);
+            this.array = array;
+        }
+
+        @Override
+        public Spliterator.OfDouble get() {
+            return java.util.Spliterators.spliterator(array, from, to, ARRAY_CHARACTERISTICS);
+        }
+
+        /**
+         * Returns the compensated sum of the range in the layout used by
+         * {@code DoublePipeline.sum()}: the high-order sum, the compensation
+         * and the simple sum.  Two compensated lanes are summed
+         * independently and then the second, including its compensation,
+         * is added into the first; the order of additions of {@code
+         * DoubleStream.sum()} is intentionally not defined.
+         */
+        double[] summation() {
+            double[] a = array;
+            double hi0 = 0, lo0 = 0, hi1 = 0, lo1 = 0, simple = 0;
+            int i = from, end = to - ((to - from) & 1);
+            for (; i < end; i += 2) {
+                double d0 = a[i], d1 = a[i + 1];
+                double t0 = d0 - lo0, v0 = hi0 + t0;
+                lo0 = (v0 - hi0) - t0;
+                hi0 = v0;
+                double t1 = d1 - lo1, v1 = hi1 + t1;
+                lo1 = (v1 - hi1) - t1;
+                hi1 = v1;
+                simple += d0 + d1;
+            }
+            double[] ll = { hi0, lo0, simple };
+            if (i < to) {
+                Collectors.sumWithCompensation(ll, a[i]);
+                ll[2] += a[i];
+            }
+            // lo1 holds the negated error of lane 1, whose value is hi1 - lo1
+            Collectors.sumWithCompensation(ll, hi1);
+            Collectors.sumWithCompensation(ll, -lo1);
+            return ll;
+        }
+
+        OptionalDouble min() {
+            if (from == to)
+                return OptionalDouble.empty();
+            double[] a = array;
+            double m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.min(m0, a[i]);
+                m1 = Math.min(m1, a[i + 1]);
+                m2 = Math.min(m2, a[i + 2]);
+                m3 = Math.min(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.min(m0, a[i]);
+            return OptionalDouble.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+        }
+
+        OptionalDouble max() {
+            if (from == to)
+                return OptionalDouble.empty();
+            double[] a = array;
+            double m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+            int i = from, end = unrolledEnd();
+            for (; i < end; i += 4) {
+                m0 = Math.max(m0, a[i]);
+                m1 = Math.max(m1, a[i + 1]);
+                m2 = Math.max(m2, a[i + 2]);
+                m3 = Math.max(m3, a[i + 3]);
+            }
+            for (; i < to; i++)
+                m0 = Math.max(m0, a[i]);
+            return OptionalDouble.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+        }
+    }
+
     abstract static class ConcatSpliterator<T, T_SPLITR extends Spliterator<T>>
             implements Spliterator<T> {
         protected final T_SPLITR aSpliterator;
@@ -0,0 +1,299 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java8.java.util.stream;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Factory methods for transforming streams into streams of windows, lists
+ * of consecutive elements in encounter order.
+ *
+ * <p>In sequential pipelines each window is pushed downstream as soon as its
+ * last element arrives, and the operation holds at most one window of
+ * elements, so windowing an unbounded or very large stream runs in bounded
+ * memory and stops pulling from the source once a short-circuiting
+ * downstream operation is satisfied.  In parallel pipelines the input is
+ * first collected in encounter order and then windowed, as for
+ * {@code sorted()}.
+ *
+ * <p>Every window is a new, modifiable {@code List} that the operation does
+ * not retain after emitting it.
+ *
+ * @since 1.8
+ */
+final class WindowOps {
+
+    private WindowOps() { }
+
+    /**
+     * Flags for all window operations: the number of elements changes and
+     * windows are neither sorted nor known to be distinct, but encounter
+     * order is preserved.
+     */
+    private static final int FLAGS = java.util.stream.StreamOpFlag.NOT_SIZED
+                                     | java.util.stream.StreamOpFlag.NOT_SORTED
+                                     | java.util.stream.StreamOpFlag.NOT_DISTINCT;
+
+    /**
+     * Appends a "windowFixed" operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements in each window, the last window
+     *        may be shorter
+     */
+    static <T> ReferencePipeline<T, List<T>> makeFixed(java.util.stream.AbstractPipeline<?, T, ?> upstream,
+                                                       int size) {
+        return new OfRef<T>(upstream) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new FixedWindowSink<>(sink, size);
+            }
+        };
+    }
+
+    /**
+     * Appends a "windowSliding" operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements in each window
+     * @param step the distance in elements between the starts of successive
+     *        windows
+     */
+    static <T> ReferencePipeline<T, List<T>> makeSliding(java.util.stream.AbstractPipeline<?, T, ?> upstream,
+                                                         int size, int step) {
+        return new OfRef<T>(upstream) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new SlidingWindowSink<>(sink, size, step);
+            }
+        };
+    }
+
+    /**
+     * Appends a "windowByKey" operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param <K> the type of keys
+     * @param upstream a reference stream with element type T
+     * @param classifier the function computing the key of each element
+     */
+    static <T, K> ReferencePipeline<T, List<T>> makeByKey(java.util.stream.AbstractPipeline<?, T, ?> upstream,
+                                                          Function<? super T, ? extends K> classifier) {
+        Objects.requireNonNull(classifier);
+        return new OfRef<T>(upstream) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new KeyWindowSink<T, K>(sink, classifier);
+            }
+        };
+    }
+
+    /**
+     * Base class for window operations.  Subclasses supply the sink.
+     */
+    private abstract static class OfRef<T> extends ReferencePipeline.StatefulOp<T, List<T>> {
+        OfRef(java.util.stream.AbstractPipeline<?, T, ?> upstream) {
+            super(upstream, StreamShape.REFERENCE, FLAGS);
+        }
+
+        @Override
+        abstract Sink<T> opWrapSink(int flags, Sink<List<T>> sink);
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<List<T>[]> generator) {
+            // The helper describes the upstream stages, whose output is T
+            PipelineHelper<T> upstream = (PipelineHelper<T>) (PipelineHelper) helper;
+            Node<T> input = upstream.evaluate(spliterator, true, n -> (T[]) new Object[n]);
+
+            ArrayList<List<T>> windows = new ArrayList<>();
+            Sink<T> sink = opWrapSink(helper.getStreamAndOpFlags(), windows::add);
+            sink.begin(input.count());
+            input.forEach(sink);
+            sink.end();
+            return Nodes.node(windows);
+        }
+    }
+
+    /**
+     * {@link Sink} for tumbling windows of a fixed size.
+     */
+    private static final class FixedWindowSink<T> extends Sink.ChainedReference<T, List<T>> {
+        private final int size;
+        private ArrayList<T> window;
+
+        FixedWindowSink(Sink<? super List<T>> sink, int size) {
+            super(sink);
+            this.size = size;
+        }
+
+        private ArrayList<T> newWindow() {
+            // Do not reserve room for huge windows that may never fill
+            return new ArrayList<>(Math.min(size, 1 << 10));
+        }
+
+        @Override
+        public void begin(long size) {
+            window = newWindow();
+            downstream.begin(size >= 0 ? (size + this.size - 1) / this.size : -1);
+        }
+
+        @Override
+        public void end() {
+            if (!window.isEmpty() && !downstream.cancellationRequested())
+                downstream.accept(window);
+            window = null;
+            downstream.end();
+        }
+
+        @Override
+        public void accept(T t) {
+            window.add(t);
+            if (window.size() == size) {
+                downstream.accept(window);
+                window = newWindow();
+            }
+        }
+    }
+
+    /**
+     * {@link Sink} for sliding windows.  Elements are held in a ring of
+     * {@code size} slots; when it is full a window is emitted and the
+     * oldest {@code step} elements are dropped.  If {@code step} exceeds
+     * {@code size}, the elements between windows are skipped without being
+     * stored.  Only full windows are emitted.
+     */
+    private static final class SlidingWindowSink<T> extends Sink.ChainedReference<T, List<T>> {
+        private final int size;
+        private final int step;
+        private Object[] ring;
+        private int head;
+        private int count;
+        private long skip;
+
+        SlidingWindowSink(Sink<? super List<T>> sink, int size, int step) {
+            super(sink);
+            this.size = size;
+            this.step = step;
+        }
+
+        @Override
+        public void begin(long size) {
+            ring = new Object[Math.min(this.size, 1 << 4)];
+            head = count = 0;
+            skip = 0;
+            downstream.begin(size < 0 ? -1
+                                      : size < this.size ? 0
+                                      : (size - this.size) / step + 1);
+        }
+
+        @Override
+        public void end() {
+            ring = null;
+            downstream.end();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(T t) {
+            if (skip > 0) {
+                skip--;
+                return;
+            }
+            if (count == ring.length) {
+                // Grow towards the window size; the ring is only ever full
+                // here while it is still smaller than a window
+                Object[] r = new Object[(int) Math.min(size, (long) ring.length << 1)];
+                for (int i = 0; i < count; i++)
+                    r[i] = ring[(head + i) % ring.length];
+                ring = r;
+                head = 0;
+            }
+            ring[(head + count++) % ring.length] = t;
+
+            if (count == size) {
+                ArrayList<T> window = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    window.add((T) ring[(head + i) % size]);
+                downstream.accept(window);
+
+                int drop = Math.min(step, size);
+                for (int i = 0; i < drop; i++)
+                    ring[(head + i) % size] = null;
+                head = (head + drop) % size;
+                count -= drop;
+                skip = (long) step - drop;
+            }
+        }
+    }
+
+    /**
+     * {@link Sink} for windows of consecutive elements with equal keys.
+     */
+    private static final class KeyWindowSink<T, K> extends Sink.ChainedReference<T, List<T>> {
+        private final Function<? super T, ? extends K> classifier;
+        private ArrayList<T> window;
+        private K key;
+
+        KeyWindowSink(Sink<? super List<T>> sink, Function<? super T, ? extends K> classifier) {
+            super(sink);
+            this.classifier = classifier;
+        }
+
+        @Override
+        public void begin(long size) {
+            window = null;
+            key = null;
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void end() {
+            if (window != null && !downstream.cancellationRequested())
+                downstream.accept(window);
+            window = null;
+            key = null;
+            downstream.end();
+        }
+
+        @Override
+        public void accept(T t) {
+            K k = classifier.apply(t);
+            if (window != null && !Objects.equals(k, key)) {
+                downstream.accept(window);
+                window = null;
+            }
+            if (window == null) {
+                window = new ArrayList<>();
+                key = k;
+            }
+            window.add(t);
+        }
+    }
+}
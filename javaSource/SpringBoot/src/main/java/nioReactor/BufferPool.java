@@ -0,0 +1,65 @@
+package nioReactor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @program: javaSource
+ * @description: 直接内存缓冲池：固定大小的 DirectByteBuffer 复用，避免每次读写都分配/回收堆外内存
+ **/
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final LongAdder allocated = new LongAdder();
+
+    /**
+     * @param bufferSize 每个缓冲区的字节数
+     * @param maxPooled  空闲队列中最多保留的缓冲区个数，超出的直接丢弃交给 GC
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled < 0)
+            throw new IllegalArgumentException();
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    // 取一个已清空的缓冲区，池空时新分配
+    public ByteBuffer acquire() {
+        ByteBuffer buf = free.poll();
+        if (buf == null) {
+            allocated.increment();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buf.clear();
+        return buf;
+    }
+
+    // 归还缓冲区；不是本池尺寸的缓冲区（例如大帧临时分配的堆缓冲）直接丢弃
+    public void release(ByteBuffer buf) {
+        if (buf == null || !buf.isDirect() || buf.capacity() != bufferSize)
+            return;
+        if (pooled.incrementAndGet() <= maxPooled)
+            free.offer(buf);
+        else
+            pooled.decrementAndGet();
+    }
+
+    // 累计新分配的缓冲区个数，用于观察池是否足够大
+    public long allocatedCount() {
+        return allocated.sum();
+    }
+
+    public int pooledCount() {
+        return pooled.get();
+    }
+}
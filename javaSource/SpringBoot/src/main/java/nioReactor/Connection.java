@@ -0,0 +1,232 @@
+package nioReactor;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * @program: javaSource
+ * @description: 一条客户端连接。除 write 外的方法都只在所属 worker 线程上调用，因此内部状态无需加锁
+ *
+ * 写队列背压：待发送字节数超过高水位时暂停读取这条连接（不再注册 OP_READ），
+ * 对端的 TCP 发送窗口随之被填满，从而把压力传回给发送方；降到低水位以下再恢复读取。
+ **/
+public class Connection {
+
+    // 一次 gathering write 最多合并的缓冲区个数
+    private static final int MAX_GATHER = 64;
+
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    private final FrameCodec codec;
+    private final FrameHandler handler;
+    private final BufferPool pool;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+
+    private SelectionKey key;
+    private ByteBuffer readBuffer;          // 写模式；空闲时归还给池，空闲连接不占缓冲区
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private long pendingBytes;
+    private boolean readPaused;
+    private boolean inRead;                 // 正在分发读到的帧，期间的写先入队，读完后统一 flush
+    private boolean closed;
+    private Object attachment;
+
+    Connection(SocketChannel channel, EventLoop loop, FrameCodec codec, FrameHandler handler,
+               BufferPool pool, int highWaterMark, int lowWaterMark) {
+        this.channel = channel;
+        this.loop = loop;
+        this.codec = codec;
+        this.handler = handler;
+        this.pool = pool;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    public EventLoop eventLoop() {
+        return loop;
+    }
+
+    public SocketAddress remoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+
+    public void attachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    // 待发送字节数低于高水位时返回 true；业务方可据此决定是否继续生产数据
+    public boolean isWritable() {
+        return pendingBytes < highWaterMark;
+    }
+
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * 编码并发送一帧。可以在任意线程调用：非 worker 线程调用时拷贝 payload 后转交给 worker。
+     *
+     * @return 写入后是否仍低于高水位（跨线程调用时总是返回 true）
+     */
+    public boolean write(ByteBuffer payload) {
+        if (!loop.inEventLoop()) {
+            final ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+            copy.put(payload).flip();
+            loop.execute(() -> write(copy));
+            return true;
+        }
+        if (closed)
+            return false;
+        int size = payload.remaining() + codec.overhead();
+        ByteBuffer out = size <= pool.bufferSize() ? pool.acquire() : ByteBuffer.allocate(size);
+        codec.encode(payload, out);
+        out.flip();
+        writeQueue.addLast(out);
+        pendingBytes += out.remaining();
+        if (!inRead)
+            flush();
+        if (pendingBytes >= highWaterMark && !readPaused && !closed) {
+            readPaused = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        return pendingBytes < highWaterMark;
+    }
+
+    void onReadable() {
+        if (readBuffer == null)
+            readBuffer = pool.acquire();
+        int n;
+        try {
+            n = channel.read(readBuffer);
+        } catch (IOException e) {
+            close(e);
+            return;
+        }
+        if (n < 0) {
+            close(null);
+            return;
+        }
+        readBuffer.flip();
+        inRead = true;
+        try {
+            ByteBuffer frame;
+            while (!closed && (frame = codec.decode(readBuffer)) != null)
+                handler.onFrame(this, frame);
+        } catch (RuntimeException e) {
+            close(e);
+            return;
+        } finally {
+            inRead = false;
+        }
+        if (closed)
+            return;
+        if (readBuffer.hasRemaining()) {
+            readBuffer.compact();
+        } else {
+            pool.release(readBuffer);
+            readBuffer = null;
+        }
+        flush();
+    }
+
+    void onWritable() {
+        flush();
+    }
+
+    // 尽量把写队列写进 socket，写不完则注册 OP_WRITE 等待下次可写
+    private void flush() {
+        if (closed)
+            return;
+        try {
+            while (!writeQueue.isEmpty()) {
+                int count = 0;
+                for (ByteBuffer b : writeQueue) {
+                    gather[count++] = b;
+                    if (count == MAX_GATHER)
+                        break;
+                }
+                long n = channel.write(gather, 0, count);
+                pendingBytes -= n;
+                boolean socketFull = gather[count - 1].hasRemaining();
+                while (!writeQueue.isEmpty() && !writeQueue.peekFirst().hasRemaining())
+                    pool.release(writeQueue.pollFirst());
+                if (socketFull)
+                    break;
+            }
+        } catch (IOException e) {
+            close(e);
+            return;
+        } finally {
+            for (int i = 0; i < MAX_GATHER; i++)
+                gather[i] = null;
+        }
+        int ops = key.interestOps();
+        if (writeQueue.isEmpty())
+            ops &= ~SelectionKey.OP_WRITE;
+        else
+            ops |= SelectionKey.OP_WRITE;
+        if (readPaused && pendingBytes <= lowWaterMark) {
+            readPaused = false;
+            ops |= SelectionKey.OP_READ;
+        }
+        if (ops != key.interestOps())
+            key.interestOps(ops);
+    }
+
+    // 立即关闭连接，丢弃未发送的数据
+    public void close() {
+        if (loop.inEventLoop())
+            close(null);
+        else
+            loop.execute(() -> close(null));
+    }
+
+    void close(Throwable cause) {
+        if (closed)
+            return;
+        closed = true;
+        if (key != null)
+            key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+        if (readBuffer != null) {
+            pool.release(readBuffer);
+            readBuffer = null;
+        }
+        ByteBuffer b;
+        while ((b = writeQueue.pollFirst()) != null)
+            pool.release(b);
+        pendingBytes = 0;
+        loop.connectionClosed();
+        handler.onClose(this, cause);
+    }
+
+    @Override
+    public String toString() {
+        return "Connection[" + remoteAddress() + ", pending=" + pendingBytes + "]";
+    }
+}
@@ -0,0 +1,137 @@
+package nioReactor;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @program: javaSource
+ * @description: worker 事件循环：一个线程 + 一个 Selector，负责一批连接的读写。
+ * 其他线程通过 execute 提交任务（注册新连接、跨线程写），由本线程在两次 select 之间执行。
+ **/
+public class EventLoop implements Runnable, Executor {
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // 已经（或即将）唤醒 selector；每轮循环开始时先清零再执行任务，保证之后入队的任务一定会触发 wakeup
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean running = true;
+
+    private final FrameCodec codec;
+    private final FrameHandler handler;
+    private final BufferPool pool;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+
+    EventLoop(String name, FrameCodec codec, FrameHandler handler, BufferPool pool,
+              int highWaterMark, int lowWaterMark) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.codec = codec;
+        this.handler = handler;
+        this.pool = pool;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    // 当前负责的连接数，boss 可据此观察负载是否均衡
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        if (!inEventLoop() && wakenUp.compareAndSet(false, true))
+            selector.wakeup();
+    }
+
+    // boss 线程调用：把新接入的连接交给本 worker
+    void register(final SocketChannel channel) {
+        connections.incrementAndGet();
+        execute(() -> {
+            Connection c = new Connection(channel, this, codec, handler, pool,
+                    highWaterMark, lowWaterMark);
+            try {
+                channel.configureBlocking(false);
+                c.attach(channel.register(selector, SelectionKey.OP_READ, c));
+            } catch (IOException e) {
+                c.close(e);
+                return;
+            }
+            handler.onConnect(c);
+        });
+    }
+
+    void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                wakenUp.set(false);
+                runTasks();
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Connection c = (Connection) key.attachment();
+                    if (key.isValid() && key.isReadable())
+                        c.onReadable();
+                    if (key.isValid() && key.isWritable())
+                        c.onWritable();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            runTasks();
+            for (SelectionKey key : new ArrayList<>(selector.keys()))
+                ((Connection) key.attachment()).close(null);
+            try {
+                selector.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    void awaitTermination() throws InterruptedException {
+        thread.join();
+    }
+}
@@ -0,0 +1,39 @@
+package nioReactor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @program: javaSource
+ * @description: 帧编解码：解决 TCP 粘包/半包，把字节流切成一条条完整消息
+ **/
+public interface FrameCodec {
+
+    /**
+     * 从处于读模式的 in 中解出一帧。
+     * 成功时返回帧内容的切片（只在本次回调内有效），并把 in 的 position 移到帧之后；
+     * 数据不足一帧时返回 null，in 的 position 不变。
+     *
+     * @throws FrameTooLongException 帧长度超过 maxFrameLength
+     */
+    ByteBuffer decode(ByteBuffer in);
+
+    // 单帧消息体的最大字节数
+    int maxFrameLength();
+
+    // 编码后比消息体多出的字节数
+    int overhead();
+
+    // 把 payload 剩余的字节加上帧边界写入 out，out 的剩余空间至少为 payload.remaining() + overhead()
+    void encode(ByteBuffer payload, ByteBuffer out);
+
+    /**
+     * 帧超长：对端发送了超过上限的帧，或者不按协议分帧
+     */
+    class FrameTooLongException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public FrameTooLongException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nioReactor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @program: javaSource
+ * @description: 业务回调，全部在连接所属的 worker 线程上执行，因此不能做阻塞操作
+ **/
+public interface FrameHandler {
+
+    default void onConnect(Connection connection) {
+    }
+
+    // frame 只在回调期间有效，需要保留时请自行拷贝
+    void onFrame(Connection connection, ByteBuffer frame);
+
+    default void onClose(Connection connection, Throwable cause) {
+    }
+}
@@ -0,0 +1,50 @@
+package nioReactor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @program: javaSource
+ * @description: 长度字段分帧：4 字节大端长度头 + 消息体，适合二进制协议
+ **/
+public class LengthFieldFrameCodec implements FrameCodec {
+
+    private static final int HEADER = 4;
+
+    private final int maxFrameLength;
+
+    public LengthFieldFrameCodec(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < HEADER)
+            return null;
+        int length = in.getInt(start);
+        if (length < 0 || length > maxFrameLength)
+            throw new FrameTooLongException("length field " + length);
+        if (in.remaining() < HEADER + length)
+            return null;
+        ByteBuffer frame = in.duplicate();
+        frame.position(start + HEADER).limit(start + HEADER + length);
+        in.position(start + HEADER + length);
+        return frame.slice();
+    }
+
+    @Override
+    public int maxFrameLength() {
+        return maxFrameLength;
+    }
+
+    @Override
+    public int overhead() {
+        return HEADER;
+    }
+
+    @Override
+    public void encode(ByteBuffer payload, ByteBuffer out) {
+        out.putInt(payload.remaining());
+        out.put(payload);
+    }
+}
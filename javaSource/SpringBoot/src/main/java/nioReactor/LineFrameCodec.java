@@ -0,0 +1,54 @@
+package nioReactor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @program: javaSource
+ * @description: 按行分帧：以 '\n' 结尾，兼容 "\r\n"；与 bioAsyn 中 BufferedReader.readLine 的协议一致
+ **/
+public class LineFrameCodec implements FrameCodec {
+
+    private final int maxFrameLength;
+
+    public LineFrameCodec(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer in) {
+        int start = in.position();
+        int limit = in.limit();
+        for (int i = start; i < limit; i++) {
+            if (in.get(i) == '\n') {
+                int end = i;
+                if (end > start && in.get(end - 1) == '\r')
+                    end--;
+                if (end - start > maxFrameLength)
+                    throw new FrameTooLongException("line of " + (end - start) + " bytes");
+                ByteBuffer frame = in.duplicate();
+                frame.position(start).limit(end);
+                in.position(i + 1);
+                return frame.slice();
+            }
+        }
+        if (limit - start > maxFrameLength)
+            throw new FrameTooLongException("no line terminator within " + maxFrameLength + " bytes");
+        return null;
+    }
+
+    @Override
+    public int maxFrameLength() {
+        return maxFrameLength;
+    }
+
+    @Override
+    public int overhead() {
+        return 1;
+    }
+
+    @Override
+    public void encode(ByteBuffer payload, ByteBuffer out) {
+        out.put(payload);
+        out.put((byte) '\n');
+    }
+}
@@ -0,0 +1,268 @@
+package nioReactor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @program: javaSource
+ * @description: 压测客户端，替代 bioAsyn 中手动输入的 Client01~Client05
+ *
+ * 用 T 个线程（每个线程一个 Selector）建立 C 条连接，统计建连速率；
+ * 全部连上后每条连接串行发送 R 个请求（发一个、等回显、再发下一个），统计吞吐和往返延迟分位数。
+ * 需要配合会回显的服务端，例如 ReactorServer。
+ *
+ * 参数依次为：host(127.0.0.1) port(9999) 连接数(1000) 每连接请求数(100) 消息体字节数(64) 分帧方式(line|length) 线程数(4)
+ **/
+public class LoadGenerator {
+
+    private final InetSocketAddress address;
+    private final int connections;
+    private final int requestsPerConnection;
+    private final byte[] payload;
+    private final FrameCodec codec;
+    private final int threads;
+
+    private final CountDownLatch connected;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long connectStart;
+    private volatile long connectEnd;
+    private volatile long requestEnd;
+    private final long[][] latencies;
+
+    public LoadGenerator(InetSocketAddress address, int connections, int requestsPerConnection,
+                         int payloadSize, FrameCodec codec, int threads) {
+        this.address = address;
+        this.connections = connections;
+        this.requestsPerConnection = requestsPerConnection;
+        this.payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'x');
+        this.codec = codec;
+        this.threads = threads;
+        this.latencies = new long[threads][];
+        // 所有线程都结束建连阶段（无论成功失败都要 countDown）后再一起开始发请求，
+        // 某个线程中途异常也不会让其他线程永远等下去
+        this.connected = new CountDownLatch(threads);
+    }
+
+    public void run() throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        connectStart = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            int n = connections / threads + (i < connections % threads ? 1 : 0);
+            final int index = i;
+            ts[i] = new Thread(() -> latencies[index] = new Worker(n).run(), "load-" + i);
+            ts[i].start();
+        }
+        connected.await();
+        connectEnd = System.nanoTime();
+        for (Thread t : ts)
+            t.join();
+        requestEnd = System.nanoTime();
+        report();
+    }
+
+    private void report() {
+        int total = 0;
+        for (long[] l : latencies)
+            total += l.length;
+        long[] all = new long[total];
+        int pos = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, all, pos, l.length);
+            pos += l.length;
+        }
+        Arrays.sort(all);
+        double connectSec = (connectEnd - connectStart) / 1e9;
+        double requestSec = (requestEnd - connectEnd) / 1e9;
+        System.out.printf("connections: %d in %.3f s, %.0f conn/s, failures: %d%n",
+                connections, connectSec, connections / connectSec, failures.get());
+        System.out.printf("requests:    %d in %.3f s, %.0f req/s%n",
+                total, requestSec, total / requestSec);
+        System.out.printf("latency(us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                percentile(all, 0.999), all.length == 0 ? 0.0 : all[all.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0.0;
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1e3;
+    }
+
+    /**
+     * 一条压测连接的状态
+     */
+    private static class Client {
+        final SocketChannel channel;
+        final ByteBuffer in;
+        ByteBuffer out;
+        long sentAt;
+        int remaining;
+
+        Client(SocketChannel channel, int bufferSize, int requests) {
+            this.channel = channel;
+            this.in = ByteBuffer.allocate(bufferSize);
+            this.remaining = requests;
+        }
+    }
+
+    /**
+     * 一个压测线程：用一个 Selector 驱动 n 条连接
+     */
+    private class Worker {
+        private final int n;
+        private final long[] samples;
+        private int sampleCount;
+        private int open;
+
+        Worker(int n) {
+            this.n = n;
+            this.samples = new long[n * requestsPerConnection];
+        }
+
+        long[] run() {
+            boolean arrived = false;
+            try (Selector selector = Selector.open()) {
+                int pendingConnects = 0;
+                for (int i = 0; i < n; i++) {
+                    SocketChannel ch = SocketChannel.open();
+                    ch.configureBlocking(false);
+                    ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    Client c = new Client(ch, payload.length + codec.overhead() + 1024, requestsPerConnection);
+                    if (ch.connect(address))
+                        ch.register(selector, 0, c);
+                    else {
+                        ch.register(selector, SelectionKey.OP_CONNECT, c);
+                        pendingConnects++;
+                    }
+                }
+                while (pendingConnects > 0) {
+                    selector.select();
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        pendingConnects--;
+                        try {
+                            ((SocketChannel) key.channel()).finishConnect();
+                            key.interestOps(0);
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                            key.cancel();
+                            key.channel().close();
+                        }
+                    }
+                }
+                arrived = true;
+                connected.countDown();
+                connected.await();
+
+                // 建连失败的 key 已经 cancel，但在下一次 select 之前仍留在 keys() 里，要跳过
+                for (SelectionKey key : selector.keys()) {
+                    if (!key.isValid())
+                        continue;
+                    open++;
+                    try {
+                        send(key);
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                        finish(key);
+                    }
+                }
+                while (open > 0) {
+                    selector.select();
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        try {
+                            if (key.isWritable())
+                                flush(key);
+                            if (key.isValid() && key.isReadable())
+                                receive(key);
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                            finish(key);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                if (!arrived)
+                    connected.countDown();
+            }
+            return Arrays.copyOf(samples, sampleCount);
+        }
+
+        private void send(SelectionKey key) throws IOException {
+            Client c = (Client) key.attachment();
+            ByteBuffer out = ByteBuffer.allocate(payload.length + codec.overhead());
+            codec.encode(ByteBuffer.wrap(payload), out);
+            out.flip();
+            c.out = out;
+            c.sentAt = System.nanoTime();
+            flush(key);
+        }
+
+        private void flush(SelectionKey key) throws IOException {
+            Client c = (Client) key.attachment();
+            c.channel.write(c.out);
+            key.interestOps(c.out.hasRemaining()
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+
+        private void receive(SelectionKey key) throws IOException {
+            Client c = (Client) key.attachment();
+            if (c.channel.read(c.in) < 0) {
+                failures.incrementAndGet();
+                finish(key);
+                return;
+            }
+            c.in.flip();
+            ByteBuffer frame = codec.decode(c.in);
+            c.in.compact();
+            if (frame == null)
+                return;
+            samples[sampleCount++] = System.nanoTime() - c.sentAt;
+            if (--c.remaining > 0)
+                send(key);
+            else
+                finish(key);
+        }
+
+        private void finish(SelectionKey key) throws IOException {
+            open--;
+            key.cancel();
+            key.channel().close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9999;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int requests = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+        String mode = args.length > 5 ? args[5] : "line";
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : 4;
+        FrameCodec codec = "length".equals(mode)
+                ? new LengthFieldFrameCodec(8 * 1024 - 4)
+                : new LineFrameCodec(8 * 1024 - 1);
+        System.out.println("----------压测开始：" + host + ":" + port + " connections=" + connections
+                + " requests/conn=" + requests + " payload=" + size + "B framing=" + mode
+                + " threads=" + threads + "------------");
+        new LoadGenerator(new InetSocketAddress(host, port), connections, requests, size, codec, threads).run();
+    }
+}
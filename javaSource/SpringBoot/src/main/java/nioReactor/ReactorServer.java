@@ -0,0 +1,150 @@
+package nioReactor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @program: javaSource
+ * @description: 主从 Reactor 服务端，替代 bioAsyn.Server 的“一连接一线程”模型
+ *
+ * boss 线程只负责 accept，把新连接轮询分给 N 个 worker EventLoop；
+ * 每个 worker 用一个 Selector 处理成千上万条连接的读写，线程数不再随连接数增长。
+ * 读写使用池化的直接内存缓冲区，按行或按长度字段分帧，写队列带高低水位背压。
+ **/
+public class ReactorServer {
+
+    private final int port;
+    private final FrameCodec codec;
+    private final FrameHandler handler;
+    private final BufferPool pool;
+    private final EventLoop[] workers;
+
+    private ServerSocketChannel serverChannel;
+    private Selector bossSelector;
+    private Thread boss;
+    private volatile boolean running;
+    private final AtomicLong accepted = new AtomicLong();
+    private int next;
+
+    public ReactorServer(int port, int workerCount, FrameCodec codec, FrameHandler handler) throws IOException {
+        this(port, workerCount, codec, handler, new BufferPool(8 * 1024, 4096), 64 * 1024, 16 * 1024);
+    }
+
+    /**
+     * @param highWaterMark 单连接待发送字节数的高水位，超过后暂停读取该连接
+     * @param lowWaterMark  低水位，写队列降到此值以下恢复读取
+     */
+    public ReactorServer(int port, int workerCount, FrameCodec codec, FrameHandler handler,
+                         BufferPool pool, int highWaterMark, int lowWaterMark) throws IOException {
+        if (workerCount <= 0 || lowWaterMark > highWaterMark)
+            throw new IllegalArgumentException();
+        // 读缓冲区必须能容纳一整帧，否则半包永远凑不齐
+        if (codec.maxFrameLength() + codec.overhead() > pool.bufferSize())
+            throw new IllegalArgumentException("max frame length exceeds buffer size");
+        this.port = port;
+        this.codec = codec;
+        this.handler = handler;
+        this.pool = pool;
+        this.workers = new EventLoop[workerCount];
+        for (int i = 0; i < workerCount; i++)
+            workers[i] = new EventLoop("reactor-worker-" + i, codec, handler, pool,
+                    highWaterMark, lowWaterMark);
+    }
+
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        bossSelector = Selector.open();
+        serverChannel.register(bossSelector, SelectionKey.OP_ACCEPT);
+        running = true;
+        for (EventLoop w : workers)
+            w.start();
+        boss = new Thread(this::acceptLoop, "reactor-boss");
+        boss.start();
+    }
+
+    public int localPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public long acceptedCount() {
+        return accepted.get();
+    }
+
+    public BufferPool bufferPool() {
+        return pool;
+    }
+
+    private void acceptLoop() {
+        try {
+            while (running) {
+                bossSelector.select();
+                Iterator<SelectionKey> it = bossSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    // 一次就绪尽量多接几个，减少高并发建连时的 select 次数
+                    SocketChannel ch;
+                    while ((ch = serverChannel.accept()) != null) {
+                        ch.socket().setTcpNoDelay(true);
+                        accepted.incrementAndGet();
+                        workers[next].register(ch);
+                        next = (next + 1) % workers.length;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running)
+                e.printStackTrace();
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        bossSelector.wakeup();
+        boss.join();
+        try {
+            serverChannel.close();
+            bossSelector.close();
+        } catch (IOException ignore) {
+        }
+        for (EventLoop w : workers)
+            w.shutdown();
+        for (EventLoop w : workers)
+            w.awaitTermination();
+    }
+
+    /**
+     * 启动一个回显服务：参数依次为 端口(9999) worker数(CPU核数) 分帧方式(line|length)
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9999;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String mode = args.length > 2 ? args[2] : "line";
+        FrameCodec codec = "length".equals(mode)
+                ? new LengthFieldFrameCodec(8 * 1024 - 4)
+                : new LineFrameCodec(8 * 1024 - 1);
+        ReactorServer server = new ReactorServer(port, workers, codec, new EchoHandler());
+        server.start();
+        System.out.println("----------Reactor 服务端启动成功：port=" + server.localPort()
+                + " workers=" + workers + " framing=" + mode + "------------");
+    }
+
+    /**
+     * 回显：收到一帧就原样发回一帧，供 LoadGenerator 测往返延迟
+     */
+    static class EchoHandler implements FrameHandler {
+        @Override
+        public void onFrame(Connection connection, ByteBuffer frame) {
+            connection.write(frame);
+        }
+    }
+}